@@ -0,0 +1,56 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import com.tretrente.smart_beekeeping_dashboard.repository.AmbientJoin;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import com.tretrente.smart_beekeeping_dashboard.repository.TimeIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Joining every sensor reading of {@link ScaledDatasets} with the weather observation before
+ * it ({@code /api/urban/hive-vs-ambient} over the whole range): the {@link AmbientJoin} merge
+ * pass, in both match modes, against a binary search of the weather index per reading.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class AmbientJoinBenchmark {
+
+    private static final long OFFSET = -5 * 3600;
+    private static final long TOLERANCE = 3600;
+
+    @Benchmark
+    public int mergePreceding(ScaledDatasets data) {
+        return join(data, AmbientJoin.Match.PRECEDING);
+    }
+
+    @Benchmark
+    public int mergeNearest(ScaledDatasets data) {
+        return join(data, AmbientJoin.Match.NEAREST);
+    }
+
+    @Benchmark
+    public double binarySearchPreceding(ScaledDatasets data) {
+        SensorSeries sensor = data.sensor;
+        TimeIndex<WeatherRecord> weather = data.weather;
+        double sum = 0;
+        for (int i = 0; i < sensor.size(); i++) {
+            long key = sensor.epochSecond(i) + OFFSET;
+            int j = weather.lowerBound(key + 1) - 1;
+            if (j >= 0 && key - weather.time(j) <= TOLERANCE) {
+                sum += sensor.temperature(i) - weather.records().get(j).getTemperature();
+            }
+        }
+        return sum;
+    }
+
+    private static int join(ScaledDatasets data, AmbientJoin.Match match) {
+        return AmbientJoin.join(data.sensor, data.weather, OFFSET, Long.MIN_VALUE, Long.MAX_VALUE,
+                null, match, TOLERANCE).size();
+    }
+}
@@ -0,0 +1,126 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files written with {@code -rf json} and prints, per benchmark
+ * and parameter set, the baseline score, the new score and the change. A change is
+ * flagged as a regression when the new score is worse by more than {@code --threshold}
+ * percent (default 10) and by more than the two error margins combined.
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec@compare \
+ *     -Dcompare.args="target/jmh-baseline.json target/jmh-result.json --threshold=5 --fail"
+ * </pre>
+ * With {@code --fail} the exit code is 1 when there is at least one regression.
+ */
+public final class BenchmarkCompare {
+
+    private BenchmarkCompare() { }
+
+    public static void main(String[] args) throws IOException {
+        List<String> files = new ArrayList<>();
+        double threshold = 10;
+        boolean fail = false;
+        for (String arg : args) {
+            if (arg.startsWith("--threshold=")) {
+                threshold = Double.parseDouble(arg.substring("--threshold=".length()));
+            } else if (arg.equals("--fail")) {
+                fail = true;
+            } else {
+                files.add(arg);
+            }
+        }
+        if (files.size() != 2) {
+            throw new IllegalArgumentException("Usage: BenchmarkCompare <baseline.json> <current.json> "
+                    + "[--threshold=percent] [--fail]");
+        }
+        Map<String, Result> baseline = read(Path.of(files.get(0)));
+        Map<String, Result> current = read(Path.of(files.get(1)));
+
+        int regressions = 0;
+        System.out.printf(Locale.ROOT, "%-70s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Result> e : current.entrySet()) {
+            Result now = e.getValue();
+            Result base = baseline.get(e.getKey());
+            if (base == null) {
+                System.out.printf(Locale.ROOT, "%-70s %14s %14s %9s%n", e.getKey(), "-", now, "new");
+                continue;
+            }
+            // Positive change = worse, whatever the mode
+            double change = (now.score - base.score) / base.score * 100 * (now.higherIsBetter() ? -1 : 1);
+            boolean regression = change > threshold
+                    && Math.abs(now.score - base.score) > base.error + now.error;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-70s %14s %14s %+8.1f%%%s%n",
+                    e.getKey(), base, now, change, regression ? "  REGRESSION" : "");
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf(Locale.ROOT, "%-70s %14s %14s %9s%n", key, baseline.get(key), "-", "missing");
+            }
+        }
+        System.out.printf(Locale.ROOT, "%d regression(s) above %.1f%%%n", regressions, threshold);
+        if (fail && regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return Results keyed by short benchmark name, mode and parameters, in file order
+     */
+    private static Map<String, Result> read(Path file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            String benchmark = run.get("benchmark").asText();
+            StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.',
+                    benchmark.lastIndexOf('.') - 1) + 1));
+            key.append(" [").append(run.get("mode").asText());
+            JsonNode params = run.get("params");
+            if (params != null) {
+                for (Map.Entry<String, JsonNode> p : params.properties()) {
+                    key.append(' ').append(p.getKey()).append('=').append(p.getValue().asText());
+                }
+            }
+            key.append(']');
+            JsonNode metric = run.get("primaryMetric");
+            double error = metric.get("scoreError").asDouble(0);
+            results.put(key.toString(), new Result(run.get("mode").asText(), metric.get("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error, metric.get("scoreUnit").asText()));
+        }
+        return results;
+    }
+
+    private static final class Result {
+        final String mode;
+        final double score;
+        final double error;
+        final String unit;
+
+        Result(String mode, double score, double error, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        boolean higherIsBetter() {
+            return mode.equals("thrpt");
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.3f %s", score, unit);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import com.tretrente.smart_beekeeping_dashboard.model.Resolution;
+import com.tretrente.smart_beekeeping_dashboard.model.RollupSeries;
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import com.tretrente.smart_beekeeping_dashboard.repository.CompressedSeries;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorCursor;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import com.tretrente.smart_beekeeping_dashboard.repository.TimeIndex;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gorilla-compressed {@link CompressedSeries} against the columnar {@link SensorSeries} and
+ * {@link TimeIndex} they are built from: full scans, a daily rollup and a one-week range for
+ * two hives, decoded while scanning. The setup checks that every row decodes back exactly and
+ * prints the compression ratio against 8 bytes per timestamp and per value (and, for the
+ * sensor, against the retained heap of the columnar series).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CompressionBenchmark {
+
+    private CompressedSeries sensor;
+    private CompressedSeries weather;
+    private long weekFrom;
+    private long weekTo;
+    private Set<String> twoHives;
+
+    @Setup(Level.Trial)
+    public void compress(ScaledDatasets data) {
+        sensor = CompressedSeries.of(data.sensor);
+        weather = CompressedSeries.of(data.weather);
+        verify(data.sensor, sensor);
+        verify(data.weather, weather);
+        weekFrom = EpochTime.toEpochSecond(LocalDateTime.of(data.lastYear(), 7, 1, 0, 0));
+        weekTo = EpochTime.toEpochSecond(LocalDateTime.of(data.lastYear(), 7, 7, 23, 59, 59));
+        twoHives = Set.of(data.sensor.hiveTag(0), data.sensor.hiveTag(3));
+        report("sensor", sensor);
+        System.out.printf("sensor: %.1fx smaller than the columnar series%n",
+                (double) data.sensor.estimatedBytes() / sensor.estimatedBytes());
+        report("weather", weather);
+    }
+
+    @Benchmark
+    public CompressedSeries compressSensor(ScaledDatasets data) {
+        return CompressedSeries.of(data.sensor);
+    }
+
+    @Benchmark
+    public double scanColumnar(ScaledDatasets data) {
+        SensorSeries s = data.sensor;
+        double sum = 0;
+        for (int i = 0; i < s.size(); i++) {
+            sum += s.temperature(i) + s.humidity(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double scanCompressed() {
+        CompressedSeries.Scan s = sensor.scan();
+        double sum = 0;
+        while (s.next()) {
+            sum += s.value(0) + s.value(1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double scanWeatherColumnar(ScaledDatasets data) {
+        double sum = 0;
+        for (WeatherRecord w : data.weather.records()) {
+            sum += w.getTemperature() + w.getHumidity() + w.getPrecipitation();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double scanWeatherCompressed() {
+        CompressedSeries.Scan s = weather.scan();
+        double sum = 0;
+        while (s.next()) {
+            sum += s.value(0) + s.value(1) + s.value(2);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public List<RollupSeries> dailyRollupColumnar(ScaledDatasets data) {
+        SensorSeries s = data.sensor;
+        List<RollupSeries> series = new ArrayList<>();
+        for (int h = 0; h < s.hiveCount(); h++) {
+            RollupSeries.Builder b = new RollupSeries.Builder(s.hiveTag(h), Resolution.D1, "temperature", "humidity");
+            for (int i = s.hiveStart(h); i < s.hiveEnd(h); i++) {
+                b.add(s.epochSecond(i), s.temperature(i), s.humidity(i));
+            }
+            series.add(b.build());
+        }
+        return series;
+    }
+
+    @Benchmark
+    public List<RollupSeries> dailyRollupCompressed() {
+        CompressedSeries.Scan s = sensor.scan();
+        List<RollupSeries> series = new ArrayList<>();
+        RollupSeries.Builder b = null;
+        String key = null;
+        while (s.next()) {
+            if (b == null || !s.key().equals(key)) {
+                if (b != null) {
+                    series.add(b.build());
+                }
+                key = s.key();
+                b = new RollupSeries.Builder(key, Resolution.D1, "temperature", "humidity");
+            }
+            b.add(s.epochSecond(), s.value(0), s.value(1));
+        }
+        if (b != null) {
+            series.add(b.build());
+        }
+        return series;
+    }
+
+    @Benchmark
+    public double weekColumnar(ScaledDatasets data) {
+        SensorCursor c = data.sensor.query(weekFrom, weekTo, twoHives);
+        double sum = 0;
+        while (c.next()) {
+            sum += c.temperature();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double weekCompressed() {
+        CompressedSeries.Scan s = sensor.scan(weekFrom, weekTo, twoHives);
+        double sum = 0;
+        while (s.next()) {
+            sum += s.value(0);
+        }
+        return sum;
+    }
+
+    private static void verify(SensorSeries expected, CompressedSeries actual) {
+        CompressedSeries.Scan s = actual.scan();
+        for (int i = 0; i < expected.size(); i++) {
+            if (!s.next() || s.epochSecond() != expected.epochSecond(i)
+                    || !s.key().equals(expected.hiveTag(expected.hiveIdAt(i)))
+                    || !same(s.value(0), expected.temperature(i)) || !same(s.value(1), expected.humidity(i))) {
+                throw new IllegalStateException("sensor row " + i + " does not round-trip");
+            }
+        }
+        if (s.next()) {
+            throw new IllegalStateException("extra sensor rows");
+        }
+    }
+
+    private static void verify(TimeIndex<WeatherRecord> expected, CompressedSeries actual) {
+        CompressedSeries.Scan s = actual.scan();
+        for (int i = 0; i < expected.size(); i++) {
+            WeatherRecord w = expected.records().get(i);
+            if (!s.next() || s.epochSecond() != expected.time(i) || !same(s.value(0), w.getTemperature())
+                    || !same(s.value(1), w.getHumidity()) || !same(s.value(2), w.getPrecipitation())) {
+                throw new IllegalStateException("weather row " + i + " does not round-trip");
+            }
+        }
+        if (s.next()) {
+            throw new IllegalStateException("extra weather rows");
+        }
+    }
+
+    private static boolean same(double a, double b) {
+        return Double.doubleToRawLongBits(a) == Double.doubleToRawLongBits(b);
+    }
+
+    private static void report(String name, CompressedSeries series) {
+        long raw = (long) series.size() * 8 * (1 + series.fields().size());
+        long compressed = series.estimatedBytes();
+        System.out.printf("%n%s: %,d rows in %,d blocks, %,d bytes (%.2f bytes/row), %.1fx smaller than 8-byte columns%n",
+                name, series.size(), series.blockCount(), compressed, (double) compressed / series.size(),
+                (double) raw / compressed);
+    }
+}
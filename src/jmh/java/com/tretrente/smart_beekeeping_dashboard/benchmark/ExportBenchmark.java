@@ -0,0 +1,117 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import com.tretrente.smart_beekeeping_dashboard.model.InspectionRecord;
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorCursor;
+import com.tretrente.smart_beekeeping_dashboard.repository.TimeIndex;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CSV exports of {@code ExportController}: range query plus CSV formatting, written
+ * to a discarding writer, on 1, 10 and 100 yearly copies of the bundled 2021 data
+ * ({@link ScaledDatasets}).
+ * <p>
+ * The month and year queries cover the last season, so their output does not grow with
+ * the scale and their time should stay flat; the full exports grow linearly.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ExportBenchmark {
+
+    private List<String> twoHives;
+    private long monthFrom, monthTo;
+    private long yearFrom, yearTo;
+
+    @Setup(Level.Trial)
+    public void setup(ScaledDatasets data) {
+        twoHives = List.of(data.sensor.hiveTag(0), data.sensor.hiveTag(1));
+        int year = data.lastYear();
+        monthFrom = EpochTime.toEpochSecond(LocalDateTime.of(year, 7, 1, 0, 0));
+        monthTo = EpochTime.toEpochSecond(LocalDateTime.of(year, 7, 31, 23, 59, 59));
+        yearFrom = EpochTime.toEpochSecond(LocalDateTime.of(year, 1, 1, 0, 0));
+        yearTo = EpochTime.toEpochSecond(LocalDateTime.of(year, 12, 31, 23, 59, 59));
+    }
+
+    @Benchmark
+    public long sensorMonthTwoHives(ScaledDatasets data) throws IOException {
+        return sensorCsv(data.sensor.query(monthFrom, monthTo, twoHives));
+    }
+
+    @Benchmark
+    public long sensorYear(ScaledDatasets data) throws IOException {
+        return sensorCsv(data.sensor.query(yearFrom, yearTo, null));
+    }
+
+    @Benchmark
+    public long sensorAll(ScaledDatasets data) throws IOException {
+        return sensorCsv(data.sensor.cursor());
+    }
+
+    @Benchmark
+    public long weatherAll(ScaledDatasets data) throws IOException {
+        long rows = 0;
+        try (CSVPrinter csv = printer("DateTime", "Temperature", "Humidity", "Precipitation")) {
+            for (WeatherRecord w : data.weather.records()) {
+                csv.printRecord(w.getDateTime(), w.getTemperature(), w.getHumidity(), w.getPrecipitation());
+                rows++;
+            }
+            return rows;
+        }
+    }
+
+    @Benchmark
+    public long inspectionsTwoHives(ScaledDatasets data) throws IOException {
+        TimeIndex<InspectionRecord> inspections = data.inspections;
+        long rows = 0;
+        try (CSVPrinter csv = printer("Date", "Tag", "ColonySize", "Fob1st", "Fob2nd", "Fob3rd", "FoBrood",
+                "FramesHoney", "QueenStatus", "Open", "Close", "Notes")) {
+            Iterator<InspectionRecord> it = inspections.iterator(Long.MIN_VALUE, Long.MAX_VALUE,
+                    inspections.keys().subList(0, 2));
+            while (it.hasNext()) {
+                InspectionRecord r = it.next();
+                csv.printRecord(r.getDate(), r.getTagNumber(), r.getColonySize(), r.getFob1st(),
+                        r.getFob2nd(), r.getFob3rd(), r.getFoBrood(), r.getFramesOfHoney(),
+                        r.getQueenStatus(), r.getOpen(), r.getClose(), r.getNotes());
+                rows++;
+            }
+            return rows;
+        }
+    }
+
+    /** The row loop of {@code ExportController.exportSensorCsv}. */
+    private static long sensorCsv(SensorCursor c) throws IOException {
+        StringBuilder date = new StringBuilder(19);
+        long rows = 0;
+        try (CSVPrinter csv = printer("Date", "Tag", "Temperature", "Humidity")) {
+            while (c.next()) {
+                date.setLength(0);
+                csv.print(EpochTime.appendIso(date, c.epochSecond(), false));
+                csv.print(c.tagNumber());
+                csv.print(c.temperature());
+                csv.print(c.humidity());
+                csv.println();
+                rows++;
+            }
+            return rows;
+        }
+    }
+
+    private static CSVPrinter printer(String... headers) throws IOException {
+        return new CSVPrinter(Writer.nullWriter(), CSVFormat.DEFAULT.builder().setHeader(headers).build());
+    }
+}
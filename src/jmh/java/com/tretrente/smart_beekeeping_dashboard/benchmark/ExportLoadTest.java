@@ -0,0 +1,195 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for the CSV exports under many slow concurrent downloads.
+ * <p>
+ * Each client downloads the export {@code requests} times in a row, reading at most
+ * {@code rateKiB} KiB per second, the way a browser on a slow link would. While the
+ * slow clients run, a probe client repeatedly fetches a small API endpoint at full speed
+ * and records its latency: with a platform-thread pool the probe waits for a free worker,
+ * with virtual threads it does not. Run it once against a server started normally and
+ * once with {@code --spring.profiles.active=virtual-threads} (Java 21+), e.g.
+ * </p>
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec@load-test \
+ *     -Dload.args="--url=http://localhost:8080 --clients=400 --rateKiB=64 --out=target/load-platform.json"
+ * </pre>
+ * Options: {@code --url}, {@code --path} (export path), {@code --probe} (probe path),
+ * {@code --clients}, {@code --requests} (per client), {@code --rateKiB} (0 = unthrottled),
+ * {@code --out} (JSON result file).
+ */
+public final class ExportLoadTest {
+
+    private ExportLoadTest() { }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        String base = opts.getOrDefault("url", "http://localhost:8080");
+        String path = opts.getOrDefault("path",
+                "/api/export/sensor.csv?start=2021-01-01T00:00:00&end=2021-12-31T23:59:59");
+        String probePath = opts.getOrDefault("probe", "/api/urban/summary?start=2021-01-01&end=2021-12-31");
+        int clients = Integer.parseInt(opts.getOrDefault("clients", "200"));
+        int requests = Integer.parseInt(opts.getOrDefault("requests", "2"));
+        int rateKiB = Integer.parseInt(opts.getOrDefault("rateKiB", "256"));
+        String out = opts.get("out");
+
+        long[] latencies = new long[clients * requests];
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(clients);
+
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int r = 0; r < requests; r++) {
+                        long t0 = System.nanoTime();
+                        try {
+                            bytes.addAndGet(download(base + path, rateKiB));
+                        } catch (IOException e) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[client * requests + r] = System.nanoTime() - t0;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "client-" + c);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        long wallStart = System.nanoTime();
+        start.countDown();
+
+        // Probe a cheap endpoint while the downloads are running
+        List<Long> probes = new ArrayList<>();
+        while (!done.await(200, TimeUnit.MILLISECONDS)) {
+            long t0 = System.nanoTime();
+            try {
+                download(base + probePath, 0);
+                probes.add(System.nanoTime() - t0);
+            } catch (IOException e) {
+                failures.incrementAndGet();
+            }
+        }
+        double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+
+        long[] probeLatencies = probes.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(latencies);
+        Arrays.sort(probeLatencies);
+        int downloads = latencies.length;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("clients", clients);
+        result.put("downloads", downloads);
+        result.put("failures", failures.get());
+        result.put("wallSeconds", wallSeconds);
+        result.put("downloadsPerSecond", downloads / wallSeconds);
+        result.put("mibPerSecond", bytes.get() / wallSeconds / (1024 * 1024));
+        result.put("downloadP50Ms", percentile(latencies, 0.50));
+        result.put("downloadP99Ms", percentile(latencies, 0.99));
+        result.put("probeCount", probeLatencies.length);
+        result.put("probeP50Ms", percentile(probeLatencies, 0.50));
+        result.put("probeP99Ms", percentile(probeLatencies, 0.99));
+
+        result.forEach((k, v) -> System.out.printf(Locale.ROOT, "%-20s %s%n", k,
+                v instanceof Double d ? String.format(Locale.ROOT, "%.1f", d) : v));
+        if (out != null) {
+            try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(Path.of(out)))) {
+                w.print(toJson(result));
+            }
+        }
+    }
+
+    /**
+     * GET {@code url} and read the body at no more than {@code rateKiB} KiB/s.
+     *
+     * @return Number of body bytes read
+     */
+    private static long download(String url, int rateKiB) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) URI.create(url).toURL().openConnection();
+        conn.setConnectTimeout(10_000);
+        conn.setReadTimeout(120_000);
+        if (conn.getResponseCode() != 200) {
+            conn.disconnect();
+            throw new IOException("HTTP " + conn.getResponseCode());
+        }
+        try (InputStream in = conn.getInputStream()) {
+            byte[] buf = new byte[8192];
+            long total = 0;
+            long t0 = System.nanoTime();
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                total += n;
+                if (rateKiB > 0) {
+                    long due = t0 + total * 1_000_000_000L / (rateKiB * 1024L);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        sleep(wait);
+                    }
+                }
+            }
+            return total;
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private static void sleep(long nanos) throws IOException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int idx = (int) Math.ceil(p * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, idx)] / 1e6;
+    }
+
+    private static String toJson(Map<String, Object> values) {
+        StringBuilder sb = new StringBuilder("{");
+        values.forEach((k, v) -> {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append('"').append(k).append("\":").append(
+                    v instanceof Double d ? String.format(Locale.ROOT, "%.3f", d) : v);
+        });
+        return sb.append("}\n").toString();
+    }
+}
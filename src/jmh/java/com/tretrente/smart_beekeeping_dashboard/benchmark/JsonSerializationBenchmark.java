@@ -0,0 +1,117 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tretrente.smart_beekeeping_dashboard.config.JacksonConfig;
+import com.tretrente.smart_beekeeping_dashboard.model.EnvironmentalData;
+import com.tretrente.smart_beekeeping_dashboard.model.ProductionSeries;
+import com.tretrente.smart_beekeeping_dashboard.model.SensorRecord;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSlice;
+import com.tretrente.smart_beekeeping_dashboard.service.DataSimulatorService;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * JSON serialization of the response models with an ObjectMapper set up like the
+ * application's (Spring Boot defaults plus {@link JacksonConfig}), written to a
+ * discarding stream. Datasets scale with {@link ScaledDatasets}; the simulated ones cover
+ * the same number of years with the bundled hive count.
+ * <p>
+ * {@code sensorSliceYear} and {@code sensorRecordsYear} write the same last-season
+ * readings, once from the columnar series and once as SensorRecord objects.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class JsonSerializationBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2021, 1, 1, 0, 0);
+
+    private ObjectWriter writer;
+    private SensorSlice sensorAll;
+    private SensorSlice sensorYear;
+    private List<SensorRecord> sensorRecordsYear;
+    private List<EnvironmentalData> environmental;
+    private ProductionSeries production;
+
+    @Setup(Level.Trial)
+    public void setup(ScaledDatasets data) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        new JacksonConfig().fieldsFilterCustomizer().customize(builder);
+        writer = builder.build().writer();
+
+        long yearFrom = EpochTime.toEpochSecond(LocalDateTime.of(data.lastYear(), 1, 1, 0, 0));
+        long yearTo = EpochTime.toEpochSecond(LocalDateTime.of(data.lastYear(), 12, 31, 23, 59, 59));
+        sensorAll = new SensorSlice(data.sensor, Long.MIN_VALUE, Long.MAX_VALUE, null, null);
+        sensorYear = new SensorSlice(data.sensor, yearFrom, yearTo, null, null);
+        sensorRecordsYear = new ArrayList<>();
+        var c = data.sensor.query(yearFrom, yearTo, null);
+        while (c.next()) {
+            sensorRecordsYear.add(c.toRecord());
+        }
+
+        DataSimulatorService simulator = new DataSimulatorService();
+        try {
+            LocalDateTime end = START.plusYears(data.scale);
+            environmental = simulator.generateEnvironmentalData(START, end, 42);
+            List<String> hives = IntStream.range(0, ScaledDatasets.BUNDLED_HIVES)
+                    .mapToObj(SyntheticData::hiveTag).toList();
+            production = simulator.simulateProduction(START, end, hives, 42);
+        } finally {
+            simulator.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void sensorSliceAll() throws IOException {
+        write(sensorAll);
+    }
+
+    @Benchmark
+    public void sensorSliceYear() throws IOException {
+        write(sensorYear);
+    }
+
+    @Benchmark
+    public void sensorRecordsYear() throws IOException {
+        write(sensorRecordsYear);
+    }
+
+    @Benchmark
+    public void weatherRecords(ScaledDatasets data) throws IOException {
+        write(data.weather.records());
+    }
+
+    @Benchmark
+    public void inspectionRecords(ScaledDatasets data) throws IOException {
+        write(data.inspections.records());
+    }
+
+    @Benchmark
+    public void environmentalData() throws IOException {
+        write(environmental);
+    }
+
+    @Benchmark
+    public void productionSeries() throws IOException {
+        write(production);
+    }
+
+    private void write(Object value) throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), value);
+    }
+}
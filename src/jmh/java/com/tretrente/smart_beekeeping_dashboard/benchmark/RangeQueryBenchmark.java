@@ -0,0 +1,81 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorCursor;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import com.tretrente.smart_beekeeping_dashboard.repository.TimeIndex;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a one-week, two-hive range query as the dataset grows from one season
+ * (~3 months) to ten years. The indexed queries should stay flat while the linear scan,
+ * which is what the export endpoints used to do, grows with the dataset.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RangeQueryBenchmark {
+
+    private static final int HIVES = 7;
+
+    @Param({ "90", "365", "1825", "3650" })
+    public int days;
+
+    private SensorSeries sensor;
+    private TimeIndex<WeatherRecord> weather;
+    private Set<String> tags;
+    private long from;
+    private long to;
+
+    @Setup
+    public void setup() {
+        sensor = SyntheticData.sensorSeries(HIVES, days, 42);
+        weather = TimeIndex.build(SyntheticData.weatherRecords(days, 42),
+                w -> EpochTime.toEpochSecond(w.getDateTime()));
+        tags = Set.of(SyntheticData.hiveTag(1), SyntheticData.hiveTag(4));
+        // One week starting half-way through the dataset
+        from = EpochTime.toEpochSecond(SyntheticData.START.plusDays(days / 2));
+        to = from + 7 * 86_400L;
+    }
+
+    @Benchmark
+    public double sensorIndexed() {
+        double sum = 0;
+        SensorCursor c = sensor.query(from, to, tags);
+        while (c.next()) {
+            sum += c.temperature();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double sensorLinearScan() {
+        double sum = 0;
+        SensorCursor c = sensor.cursor();
+        while (c.next()) {
+            long ts = c.epochSecond();
+            if (ts >= from && ts <= to && tags.contains(c.tagNumber())) {
+                sum += c.temperature();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double weatherIndexed() {
+        double sum = 0;
+        List<WeatherRecord> slice = weather.range(from, to);
+        for (WeatherRecord w : slice) {
+            sum += w.getTemperature();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,84 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import com.tretrente.smart_beekeeping_dashboard.model.InspectionRecord;
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import com.tretrente.smart_beekeeping_dashboard.repository.CsvChunks;
+import com.tretrente.smart_beekeeping_dashboard.repository.InspectionRepository;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorCsvReader;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import com.tretrente.smart_beekeeping_dashboard.repository.TimeIndex;
+import com.tretrente.smart_beekeeping_dashboard.repository.WeatherRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV parsing as each repository does it on a cold start (no binary snapshot), on 1, 10
+ * and 100 yearly copies of the bundled 2021 files (see {@link SyntheticData#scaledCsv}).
+ * The file is memory-mapped once; every invocation parses it from the first byte and
+ * builds the repository's index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class RepositoryCsvBenchmark {
+
+    @Param({ "1", "10", "100" })
+    public int scale;
+
+    private Path dir;
+    private ByteBuffer sensor;
+    private ByteBuffer weather;
+    private ByteBuffer inspections;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("repository-csv-bench-");
+        sensor = scaled(SyntheticData.SENSOR_CSV);
+        weather = scaled(SyntheticData.WEATHER_CSV);
+        inspections = scaled(SyntheticData.INSPECTIONS_CSV);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    private ByteBuffer scaled(String resource) throws IOException {
+        Path file = dir.resolve(Path.of(resource).getFileName());
+        SyntheticData.scaledCsv(resource, scale, file);
+        return CsvChunks.map(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    /** Same call as {@code SensorRepository}: byte-level reader, parallel chunks. */
+    @Benchmark
+    public SensorSeries sensor() throws IOException {
+        return SensorCsvReader.parallel(sensor.duplicate(), pool).build();
+    }
+
+    @Benchmark
+    public TimeIndex<WeatherRecord> weather() throws IOException {
+        return WeatherRepository.parse(weather.duplicate(), pool);
+    }
+
+    @Benchmark
+    public TimeIndex<InspectionRecord> inspections() throws IOException {
+        return InspectionRepository.parse(inspections.duplicate());
+    }
+}
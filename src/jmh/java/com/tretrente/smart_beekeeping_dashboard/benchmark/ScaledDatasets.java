@@ -0,0 +1,67 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import com.tretrente.smart_beekeeping_dashboard.model.InspectionRecord;
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import com.tretrente.smart_beekeeping_dashboard.repository.CsvChunks;
+import com.tretrente.smart_beekeeping_dashboard.repository.InspectionRepository;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorCsvReader;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import com.tretrente.smart_beekeeping_dashboard.repository.TimeIndex;
+import com.tretrente.smart_beekeeping_dashboard.repository.WeatherRepository;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Shared benchmark state: the three UrBAN datasets parsed by their repositories from
+ * {@code scale} yearly copies of the bundled 2021 files (see {@link SyntheticData#scaledCsv}).
+ * 1x is the bundled data (80k sensor readings), 100x is a century of it (8M readings).
+ */
+@State(Scope.Benchmark)
+public class ScaledDatasets {
+
+    /** Hives in the bundled sensor file. */
+    static final int BUNDLED_HIVES = 7;
+
+    @Param({ "1", "10", "100" })
+    public int scale;
+
+    SensorSeries sensor;
+    TimeIndex<WeatherRecord> weather;
+    TimeIndex<InspectionRecord> inspections;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        Path dir = Files.createTempDirectory("scaled-datasets-");
+        dir.toFile().deleteOnExit();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            sensor = SensorCsvReader.parallel(CsvChunks.map(scaled(dir, SyntheticData.SENSOR_CSV)), pool).build();
+            weather = WeatherRepository.parse(CsvChunks.map(scaled(dir, SyntheticData.WEATHER_CSV)), pool);
+            inspections = InspectionRepository.parse(CsvChunks.map(scaled(dir, SyntheticData.INSPECTIONS_CSV)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return Last year covered by the data
+     */
+    int lastYear() {
+        return 2021 + scale - 1;
+    }
+
+    private Path scaled(Path dir, String resource) throws IOException {
+        Path file = dir.resolve(Path.of(resource).getFileName());
+        SyntheticData.scaledCsv(resource, scale, file);
+        file.toFile().deleteOnExit();
+        return file;
+    }
+}
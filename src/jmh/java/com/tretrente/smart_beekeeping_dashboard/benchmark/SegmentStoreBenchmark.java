@@ -0,0 +1,82 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import com.tretrente.smart_beekeeping_dashboard.repository.SegmentStore;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Durable ingest rate of the {@link SegmentStore}: batches of one hive-day (96 readings)
+ * appended by one writer and by eight concurrent writers, each call returning once its
+ * batch is forced to disk. With several writers the group commit shares each fsync between
+ * the batches queued meanwhile, so the throughput grows with the writers instead of being
+ * capped by the disk's fsync rate. Logs are compacted in the background as in production.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SegmentStoreBenchmark {
+
+    private static final int READINGS = 96;
+
+    private final AtomicInteger writers = new AtomicInteger();
+    private Path dir;
+    private SegmentStore store;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        dir = Files.createTempDirectory("segment-store-");
+        store = new SegmentStore(dir.toString(), true, 16 << 20, 8);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /** One hive per writer thread, its readings moving forward by a day per batch. */
+    @State(Scope.Thread)
+    public static class Writer {
+        String tag;
+        long day;
+
+        @Setup(Level.Trial)
+        public void setUp(SegmentStoreBenchmark benchmark) {
+            tag = "bench-" + benchmark.writers.incrementAndGet();
+        }
+
+        SensorSeries nextBatch() {
+            SensorSeries.Builder batch = new SensorSeries.Builder(READINGS);
+            long start = 1_893_456_000L + day++ * 86_400;
+            for (int i = 0; i < READINGS; i++) {
+                batch.add(tag, start + i * 900L, 34 + (i % 8) * 0.1, 50 + (i % 5));
+            }
+            return batch.build();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void appendOneWriter(Writer writer) {
+        store.append(writer.nextBatch());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void appendEightWriters(Writer writer) {
+        store.append(writer.nextBatch());
+    }
+}
@@ -0,0 +1,67 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import com.tretrente.smart_beekeeping_dashboard.repository.CsvChunks;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorCsvReader;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full parse of a sensor log into a {@link SensorSeries}: the commons-csv path the
+ * repository used to take against the byte-level {@link SensorCsvReader} on a
+ * memory-mapped file, sequentially and in parallel chunks on one thread per core.
+ * All include building (sorting) the series.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SensorCsvBenchmark {
+
+    private static final int HIVES = 7;
+
+    @Param({ "1000000", "10000000" })
+    public int rows;
+
+    private Path file;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = Files.createTempFile("sensor-bench-", ".csv");
+        SyntheticData.writeSensorCsv(file, rows, HIVES, 42);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public SensorSeries commonsCsv() throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return SensorCsvReader.readGeneric(in);
+        }
+    }
+
+    @Benchmark
+    public SensorSeries mappedBytes() throws IOException {
+        return SensorCsvReader.read(CsvChunks.map(file));
+    }
+
+    @Benchmark
+    public SensorSeries mappedBytesParallel() throws IOException {
+        return SensorCsvReader.parallel(CsvChunks.map(file), pool).build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import com.tretrente.smart_beekeeping_dashboard.model.ProductionData;
+import com.tretrente.smart_beekeeping_dashboard.model.ProductionSeries;
+import com.tretrente.smart_beekeeping_dashboard.service.DataSimulatorService;
+import com.tretrente.smart_beekeeping_dashboard.util.FastRandom;
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Production simulation for 10k hives over a year (3.65M Gaussian samples).
+ * <p>
+ * {@code *Legacy} methods reproduce the previous sampler, which built a commons-math
+ * {@link NormalDistribution} (and its Mersenne Twister) for every sample.
+ * </p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SimulatorBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2021, 1, 1, 0, 0);
+    private static final int DAYS = 365;
+
+    @Param({ "10000" })
+    public int hives;
+
+    private List<String> hiveIds;
+    private final DataSimulatorService simulator = new DataSimulatorService();
+
+    @Setup
+    public void setup() {
+        hiveIds = IntStream.range(0, hives).mapToObj(SyntheticData::hiveTag).toList();
+    }
+
+    /** Sampling only: one noise term per hive per day. */
+    @Benchmark
+    public double samplesLegacy() {
+        double sum = 0;
+        for (int i = 0; i < hives * DAYS; i++) {
+            sum += new NormalDistribution(0.0, 0.3).sample();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double samples() {
+        FastRandom rng = new FastRandom(42);
+        double sum = 0;
+        for (int i = 0; i < hives * DAYS; i++) {
+            sum += rng.nextGaussian(0.0, 0.3);
+        }
+        return sum;
+    }
+
+    /** The full simulation materialized as one ProductionData per hive and day. */
+    @Benchmark
+    public List<ProductionData> production() {
+        return simulator.generateProductionData(START, START.plusDays(DAYS), hiveIds, 42);
+    }
+
+    /** The partitioned engine writing into primitive per-hive arrays, one worker per core. */
+    @Benchmark
+    public ProductionSeries productionSeries() {
+        return simulator.simulateProduction(START, START.plusDays(DAYS), hiveIds, 42);
+    }
+
+    @TearDown
+    public void tearDown() {
+        simulator.shutdown();
+    }
+}
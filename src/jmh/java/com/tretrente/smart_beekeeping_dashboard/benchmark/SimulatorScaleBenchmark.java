@@ -0,0 +1,70 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import com.tretrente.smart_beekeeping_dashboard.model.EnvironmentalData;
+import com.tretrente.smart_beekeeping_dashboard.model.ProductionData;
+import com.tretrente.smart_beekeeping_dashboard.model.ProductionSeries;
+import com.tretrente.smart_beekeeping_dashboard.service.DataSimulatorService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * {@link DataSimulatorService} generation over 1, 10 and 100 years with the bundled hive
+ * count, i.e. the simulated counterpart of {@link ScaledDatasets}: hourly environmental
+ * data (8,760 points per year) and daily production per hive, as the JSON and NDJSON
+ * endpoints produce them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SimulatorScaleBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2021, 1, 1, 0, 0);
+
+    @Param({ "1", "10", "100" })
+    public int scale;
+
+    private final DataSimulatorService simulator = new DataSimulatorService();
+    private LocalDateTime end;
+    private List<String> hives;
+
+    @Setup
+    public void setup() {
+        end = START.plusYears(scale);
+        hives = IntStream.range(0, ScaledDatasets.BUNDLED_HIVES).mapToObj(SyntheticData::hiveTag).toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        simulator.shutdown();
+    }
+
+    @Benchmark
+    public List<EnvironmentalData> environmentalList() {
+        return simulator.generateEnvironmentalData(START, end, 42);
+    }
+
+    /** The NDJSON path: points are consumed one at a time, never collected. */
+    @Benchmark
+    public double environmentalStream() {
+        return simulator.streamEnvironmentalData(START, end, 42)
+                .mapToDouble(EnvironmentalData::getTemperature).sum();
+    }
+
+    @Benchmark
+    public ProductionSeries productionSeries() {
+        return simulator.simulateProduction(START, end, hives, 42);
+    }
+
+    @Benchmark
+    public double productionStream() {
+        return simulator.streamProduction(START, end, hives, 42)
+                .mapToDouble(ProductionData::getHoneyQuantity).sum();
+    }
+}
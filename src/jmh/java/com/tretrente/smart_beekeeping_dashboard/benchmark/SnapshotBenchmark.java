@@ -0,0 +1,77 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import com.tretrente.smart_beekeeping_dashboard.repository.BinarySnapshots;
+import com.tretrente.smart_beekeeping_dashboard.repository.CsvChunks;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorCsvReader;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import com.tretrente.smart_beekeeping_dashboard.repository.SnapshotCodecs;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time until the sensor dataset is ready: parsing the CSV against loading the binary
+ * snapshot written by a previous boot (checksum of the CSV included).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SnapshotBenchmark {
+
+    private static final int HIVES = 7;
+
+    @Param({ "1000000", "10000000" })
+    public int rows;
+
+    private Path dir;
+    private Path csv;
+    private ForkJoinPool pool;
+    private BinarySnapshots snapshots;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("snapshot-bench-");
+        csv = dir.resolve("sensor.csv");
+        SyntheticData.writeSensorCsv(csv, rows, HIVES, 42);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        snapshots = new BinarySnapshots(dir.resolve("snapshots").toString(), true);
+        // First boot: parse and write the snapshot
+        snapshots.load("sensor", CsvChunks.map(csv), SnapshotCodecs.SENSOR, this::parse);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    private SensorSeries parse(ByteBuffer bytes) throws IOException {
+        return SensorCsvReader.parallel(bytes, pool).build();
+    }
+
+    @Benchmark
+    public SensorSeries parseCsv() throws IOException {
+        return parse(CsvChunks.map(csv));
+    }
+
+    @Benchmark
+    public SensorSeries loadSnapshot() throws IOException {
+        return snapshots.load("sensor", CsvChunks.map(csv), SnapshotCodecs.SENSOR, bytes -> {
+            throw new IllegalStateException("snapshot was not used");
+        });
+    }
+}
@@ -0,0 +1,146 @@
+package com.tretrente.smart_beekeeping_dashboard.benchmark;
+
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic datasets shaped like the bundled UrBAN 2021 files:
+ * 15-minute sensor readings per hive and hourly weather observations, and scaled copies
+ * of the bundled files themselves.
+ */
+final class SyntheticData {
+
+    /** First timestamp of every generated series, matching the 2021 season start. */
+    static final LocalDateTime START = LocalDateTime.of(2021, 6, 1, 0, 0);
+
+    static final int SENSOR_STEP_SECONDS = 15 * 60;
+    static final int WEATHER_STEP_SECONDS = 60 * 60;
+
+    /** Bundled files under src/main/resources, in the layout each repository parses. */
+    static final String SENSOR_CSV = "data/urban/sensor_2021.csv";
+    static final String WEATHER_CSV = "data/urban/weather_2021.csv";
+    static final String INSPECTIONS_CSV = "data/urban/inspections_2021.csv";
+
+    private SyntheticData() { }
+
+    /**
+     * Write {@code scale} copies of a bundled 2021 file, one per year from 2021 on, so the
+     * result looks like {@code scale} seasons of the same apiary: 1x is the bundled file
+     * itself, 100x covers 2021-2120. Every data line of the bundled files starts with its
+     * year and none falls on 29 February, so shifting the year keeps every date valid.
+     *
+     * @param resource Classpath path of the bundled file, e.g. {@link #SENSOR_CSV}
+     * @param scale    Number of yearly copies
+     * @return Number of data lines written
+     */
+    static long scaledCsv(String resource, int scale, Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String header;
+        try (InputStream in = SyntheticData.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Not on the classpath: " + resource);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            header = reader.readLine();
+            for (String line; (line = reader.readLine()) != null; ) {
+                if (line.startsWith("2021")) {
+                    lines.add(line.substring(4));
+                }
+            }
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(header);
+            out.write('\n');
+            for (int copy = 0; copy < scale; copy++) {
+                String year = String.valueOf(2021 + copy);
+                for (String line : lines) {
+                    out.write(year);
+                    out.write(line);
+                    out.write('\n');
+                }
+            }
+        }
+        return (long) lines.size() * scale;
+    }
+
+    static String hiveTag(int hive) {
+        return String.valueOf(3600 + hive);
+    }
+
+    /**
+     * @param hives Number of hives
+     * @param days  Number of days covered
+     * @param seed  Random seed
+     */
+    static SensorSeries sensorSeries(int hives, int days, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int perHive = days * (86_400 / SENSOR_STEP_SECONDS);
+        long start = EpochTime.toEpochSecond(START);
+        SensorSeries.Builder builder = new SensorSeries.Builder(hives * perHive);
+        for (int h = 0; h < hives; h++) {
+            String tag = hiveTag(h);
+            double temp = 30.0, hum = 40.0;
+            for (int i = 0; i < perHive; i++) {
+                temp += rnd.nextDouble(-0.2, 0.2);
+                hum += rnd.nextDouble(-0.5, 0.5);
+                builder.add(tag, start + (long) i * SENSOR_STEP_SECONDS,
+                        Math.round(temp * 100) / 100.0, Math.round(hum * 100) / 100.0);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Write a sensor log in the {@code Date,Tag number,temperature,humidity} layout of
+     * sensor_2021.csv, with the hives interleaved in time order.
+     *
+     * @param rows  Number of data lines
+     * @param hives Number of hives
+     * @param seed  Random seed
+     */
+    static void writeSensorCsv(Path file, int rows, int hives, long seed) throws IOException {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        long start = EpochTime.toEpochSecond(START);
+        StringBuilder line = new StringBuilder(48);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("Date,Tag number,temperature,humidity\n");
+            for (int i = 0; i < rows; i++) {
+                long ts = start + (long) (i / hives) * SENSOR_STEP_SECONDS + rnd.nextInt(60);
+                line.setLength(0);
+                EpochTime.appendIso(line, ts, true).setCharAt(10, ' ');
+                line.append("+00:00,").append(hiveTag(i % hives))
+                        .append(',').append(Math.round(rnd.nextDouble(10, 40) * 100) / 100.0)
+                        .append(',').append(Math.round(rnd.nextDouble(20, 90) * 100) / 100.0)
+                        .append('\n');
+                out.append(line);
+            }
+        }
+    }
+
+    static List<WeatherRecord> weatherRecords(int days, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int hours = days * 24;
+        List<WeatherRecord> result = new ArrayList<>(hours);
+        for (int i = 0; i < hours; i++) {
+            result.add(new WeatherRecord(START.plusHours(i),
+                    Math.round(rnd.nextDouble(5, 30) * 10) / 10.0,
+                    Math.round(rnd.nextDouble(30, 100)),
+                    rnd.nextDouble() < 0.9 ? 0.0 : Math.round(rnd.nextDouble(0, 8) * 10) / 10.0));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,23 @@
+package com.tretrente.smart_beekeeping_dashboard.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Thread pool used by the repositories to parse large CSV files in parallel chunks.
+ */
+@Configuration
+public class IngestConfig {
+
+    /**
+     * @param parallelism Number of parsing threads; 0 or less means one per available core
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool ingestPool(@Value("${urban.ingest.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(threads);
+    }
+}
@@ -0,0 +1,30 @@
+package com.tretrente.smart_beekeeping_dashboard.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Jackson setup shared by all REST endpoints.
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Id of the property filter used for {@code fields=} projections.
+     * Model classes opt in with {@code @JsonFilter(JacksonConfig.FIELDS_FILTER)}.
+     */
+    public static final String FIELDS_FILTER = "fields";
+
+    /**
+     * Register a pass-through default for the {@link #FIELDS_FILTER} filter, so annotated
+     * models serialize normally unless a request supplies its own projection.
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer fieldsFilterCustomizer() {
+        return builder -> builder.filters(new SimpleFilterProvider()
+                .addFilter(FIELDS_FILTER, SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
@@ -0,0 +1,161 @@
+package com.tretrente.smart_beekeeping_dashboard.config;
+
+import com.tretrente.smart_beekeeping_dashboard.controller.ResponseCache;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetPartition;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetRepository;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetSnapshot;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetStore;
+import com.tretrente.smart_beekeeping_dashboard.repository.SegmentStore;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorRepository;
+import com.tretrente.smart_beekeeping_dashboard.service.LiveUpdateService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Application metrics beyond the ones Spring Boot registers itself (among them
+ * {@code http.server.requests}, which times every controller endpoint).
+ * <p>
+ * Gauges only read state that already exists: they never trigger a dataset load.
+ * All meters are exposed, with the JVM ones, on {@code /actuator/prometheus}.
+ * </p>
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Per catalogued file, tagged by dataset, apiary and year: {@code urban.dataset.load}
+     * (parse time of every load and reload), {@code urban.dataset.rows},
+     * {@code urban.dataset.heap} (estimated bytes retained by the parsed data) and
+     * {@code urban.dataset.version}. The gauges read NaN while a file is not loaded.
+     */
+    @Bean
+    public MeterBinder datasetMetrics(List<DatasetRepository> repositories) {
+        return registry -> {
+            for (DatasetRepository repository : repositories) {
+                for (DatasetPartition partition : repository.getStore().partitions()) {
+                    bind(registry, partition, repository.getStore().store(partition));
+                }
+            }
+        };
+    }
+
+    private static void bind(MeterRegistry registry, DatasetPartition partition, DatasetStore<?> store) {
+        Tags tags = Tags.of("dataset", partition.getDataset(),
+                "apiary", partition.getApiary(),
+                "year", Integer.toString(partition.getYear()));
+        Timer load = Timer.builder("urban.dataset.load")
+                .description("Time spent parsing a dataset")
+                .tags(tags)
+                .register(registry);
+        store.onLoad(snap -> load.record(snap.getLoadMillis(), TimeUnit.MILLISECONDS));
+        if (store.peek() != null) {
+            // Loaded before the registry was ready
+            load.record(store.peek().getLoadMillis(), TimeUnit.MILLISECONDS);
+        }
+        gauge(registry, "urban.dataset.rows", "Rows in the current snapshot", tags, store,
+                DatasetSnapshot::getRows, null);
+        gauge(registry, "urban.dataset.heap", "Estimated heap retained by the current snapshot",
+                tags, store, DatasetSnapshot::getEstimatedBytes, "bytes");
+        gauge(registry, "urban.dataset.version", "Version of the current snapshot", tags, store,
+                DatasetSnapshot::getVersion, null);
+    }
+
+    /**
+     * {@code urban.cache.requests} by result (hit or miss), {@code urban.cache.hit.ratio},
+     * {@code urban.cache.size} and {@code urban.cache.entries} of the {@link ResponseCache}.
+     */
+    @Bean
+    public MeterBinder responseCacheMetrics(ResponseCache cache) {
+        return registry -> {
+            FunctionCounter.builder("urban.cache.requests", cache, ResponseCache::hits)
+                    .description("Responses served by the response cache")
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("urban.cache.requests", cache, ResponseCache::misses)
+                    .description("Responses served by the response cache")
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("urban.cache.hit.ratio", cache, MetricsConfig::hitRatio)
+                    .description("Share of responses served from the cache since startup")
+                    .register(registry);
+            Gauge.builder("urban.cache.size", cache, ResponseCache::sizeBytes)
+                    .description("Bytes held by cached response bodies")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("urban.cache.entries", cache, ResponseCache::size)
+                    .description("Cached responses")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * {@code urban.sensor.live.readings} held in the live buffer and
+     * {@code urban.live.subscribers} connected to {@code /api/live}.
+     */
+    @Bean
+    public MeterBinder liveMetrics(SensorRepository sensorRepo, LiveUpdateService liveUpdates) {
+        return registry -> {
+            Gauge.builder("urban.sensor.live.readings", sensorRepo, repo -> repo.live().size())
+                    .description("Ingested readings held in the live buffer")
+                    .register(registry);
+            Gauge.builder("urban.live.subscribers", liveUpdates, LiveUpdateService::subscriberCount)
+                    .description("Open live update streams")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * {@code urban.storage.readings}, {@code urban.storage.segments} and
+     * {@code urban.storage.logs} of the {@link SegmentStore}, and its group commits:
+     * {@code urban.storage.commits} (fsyncs) and {@code urban.storage.batches}.
+     */
+    @Bean
+    public MeterBinder storageMetrics(SegmentStore storage) {
+        return registry -> {
+            Gauge.builder("urban.storage.readings", storage, SegmentStore::readings)
+                    .description("Ingested readings persisted in segments and logs")
+                    .register(registry);
+            Gauge.builder("urban.storage.segments", storage, SegmentStore::segmentCount)
+                    .description("Segment files")
+                    .register(registry);
+            Gauge.builder("urban.storage.logs", storage, SegmentStore::logCount)
+                    .description("Write-ahead logs not compacted yet")
+                    .register(registry);
+            FunctionCounter.builder("urban.storage.commits", storage, SegmentStore::commits)
+                    .description("Log writes forced to disk")
+                    .register(registry);
+            FunctionCounter.builder("urban.storage.batches", storage, SegmentStore::committedBatches)
+                    .description("Ingested batches written to the log")
+                    .register(registry);
+        };
+    }
+
+    private static <S> void gauge(MeterRegistry registry, String metric,
+                                  String description, Tags tags, DatasetStore<S> store,
+                                  ToDoubleFunction<DatasetSnapshot<S>> value, String unit) {
+        Gauge.builder(metric, store, s -> {
+                    DatasetSnapshot<S> snap = s.peek();
+                    return snap == null ? Double.NaN : value.applyAsDouble(snap);
+                })
+                .description(description)
+                .tags(tags)
+                .baseUnit(unit)
+                .register(registry);
+    }
+
+    private static double hitRatio(ResponseCache cache) {
+        long hits = cache.hits();
+        long total = hits + cache.misses();
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+}
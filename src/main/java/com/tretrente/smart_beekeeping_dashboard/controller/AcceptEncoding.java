@@ -0,0 +1,61 @@
+package com.tretrente.smart_beekeeping_dashboard.controller;
+
+import java.util.Locale;
+
+/**
+ * Reads the {@code Accept-Encoding} request header.
+ * <p>
+ * The header is a comma-separated list of codings, each with an optional quality value
+ * ({@code gzip;q=0.8}); a quality of 0 means "not acceptable". A coding not listed is
+ * accepted only through a {@code *} entry. Entries with a malformed quality are ignored.
+ * </p>
+ */
+final class AcceptEncoding {
+
+    private AcceptEncoding() { }
+
+    /**
+     * @param header Value of the Accept-Encoding header; null if absent
+     * @return true if the client accepts a gzip-encoded body
+     */
+    static boolean acceptsGzip(String header) {
+        if (header == null) {
+            return false;
+        }
+        double gzip = -1, any = -1;
+        for (String entry : header.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = quality(parts);
+            if (q < 0) {
+                continue;
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = Math.max(gzip, q);
+            } else if (coding.equals("*")) {
+                any = Math.max(any, q);
+            }
+        }
+        return (gzip >= 0 ? gzip : any) > 0;
+    }
+
+    /**
+     * @return The q parameter of an entry, 1 when absent, -1 when malformed
+     */
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.length() > 1 && Character.toLowerCase(param.charAt(0)) == 'q'
+                    && param.substring(1).trim().startsWith("=")) {
+                String value = param.substring(param.indexOf('=') + 1).trim();
+                try {
+                    double q = Double.parseDouble(value);
+                    return q >= 0 && q <= 1 ? q : -1;
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return 1;
+    }
+}
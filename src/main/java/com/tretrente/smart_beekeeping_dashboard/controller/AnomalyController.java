@@ -0,0 +1,73 @@
+package com.tretrente.smart_beekeeping_dashboard.controller;
+
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorRepository;
+import com.tretrente.smart_beekeeping_dashboard.service.AnomalyService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * REST controller exposing the alerts of the streaming anomaly detector
+ * ({@link AnomalyService}) over the sensor files and the ingested readings.
+ */
+@RestController
+@RequestMapping("/api")
+public class AnomalyController {
+
+    private final AnomalyService anomalyService;
+    private final SensorRepository sensorRepo;
+    private final ResponseCache responseCache;
+
+    public AnomalyController(AnomalyService anomalyService, SensorRepository sensorRepo,
+                             ResponseCache responseCache) {
+        this.anomalyService = anomalyService;
+        this.sensorRepo = sensorRepo;
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * GET /api/urban/alerts?start={}&end={}&hives={}&apiary={}&limit={}
+     * Returns the anomalies (AnomalyAlert objects) raised between two timestamps, in time
+     * order: temperature or humidity far from the hive's rolling baseline, or changing
+     * faster than the configured rate.
+     *
+     * @param start  ISO-8601 timestamp, inclusive lower bound
+     * @param end    ISO-8601 timestamp, inclusive upper bound
+     * @param hives  Comma-separated hive tag numbers; all hives if omitted
+     * @param apiary Apiary name; the default apiary if omitted
+     * @param limit  Maximum number of alerts, the most recent ones are returned
+     */
+    @GetMapping("/urban/alerts")
+    public ResponseEntity<byte[]> getUrbanAlerts(
+            @RequestParam(value = "start", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime start,
+            @RequestParam(value = "end", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime end,
+            @RequestParam(value = "hives", required = false) List<String> hives,
+            @RequestParam(value = "apiary", required = false) String apiary,
+            @RequestParam(value = "limit", defaultValue = "1000") int limit,
+            HttpServletRequest req) {
+        LocalDateTime from = start == null ? LocalDateTime.MIN : start;
+        LocalDateTime to   = end == null ? LocalDateTime.MAX : end;
+        long version;
+        try {
+            // Alerts only change when a sensor file is reloaded or readings are ingested
+            version = sensorRepo.version(apiary, from, to);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return responseCache.serve(req, "alerts", version,
+                () -> anomalyService.alerts(apiary, from, to, hives, Math.max(limit, 0)));
+    }
+}
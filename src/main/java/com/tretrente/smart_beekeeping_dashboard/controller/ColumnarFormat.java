@@ -0,0 +1,167 @@
+package com.tretrente.smart_beekeeping_dashboard.controller;
+
+import com.tretrente.smart_beekeeping_dashboard.model.Columnar;
+import com.tretrente.smart_beekeeping_dashboard.model.Rollup;
+import com.tretrente.smart_beekeeping_dashboard.model.RollupSeries;
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import com.tretrente.smart_beekeeping_dashboard.repository.AmbientJoin;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorCursor;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSlice;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Helpers for the {@code format=} query parameter of the UrBAN time-series endpoints:
+ * {@code rows} (default) keeps the array of objects, {@code columnar} converts the same
+ * body to a {@link Columnar}.
+ */
+final class ColumnarFormat {
+
+    private static final String[] SENSOR_FIELDS = { "temperature", "humidity" };
+    private static final String[] WEATHER_FIELDS = { "temperature", "humidity", "precipitation" };
+    private static final String[] AMBIENT_FIELDS = { "temperature", "ambientTemperature", "ambientOffset", "delta" };
+    private static final String[] STATS = { "min", "max", "mean", "last", "sum" };
+
+    private ColumnarFormat() { }
+
+    /**
+     * @param format "rows", "columnar" or null (rows)
+     * @return Whether the columnar format was requested
+     * @throws IllegalArgumentException for any other value
+     */
+    static boolean parse(String format) {
+        if (format == null || format.equals("rows")) {
+            return false;
+        }
+        if (format.equals("columnar")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Unknown format: " + format + " (expected rows or columnar)");
+    }
+
+    /**
+     * Hive readings, one series per hive, limited to the slice's fields.
+     */
+    static Columnar of(SensorSlice slice) {
+        String[] fields = select(SENSOR_FIELDS, slice.getFields());
+        boolean temperature = contains(fields, "temperature");
+        boolean humidity = contains(fields, "humidity");
+        Columnar.Builder b = new Columnar.Builder(fields);
+        double[] values = new double[fields.length];
+        SensorCursor c = slice.cursor();
+        while (c.next()) {
+            int f = 0;
+            if (temperature) {
+                values[f++] = c.temperature();
+            }
+            if (humidity) {
+                values[f] = c.humidity();
+            }
+            b.add(c.tagNumber(), c.epochSecond(), values);
+        }
+        return b.build();
+    }
+
+    /**
+     * Weather records as one series; timestamps are their local standard time read as UTC,
+     * like the {@code dateTime} strings of the row format.
+     *
+     * @param fields Value fields to include; null for all
+     */
+    static Columnar of(List<WeatherRecord> records, Set<String> fields) {
+        String[] selected = select(WEATHER_FIELDS, fields);
+        Columnar.Builder b = new Columnar.Builder(selected);
+        double[] values = new double[selected.length];
+        for (WeatherRecord w : records) {
+            for (int f = 0; f < selected.length; f++) {
+                values[f] = switch (selected[f]) {
+                    case "temperature" -> w.getTemperature();
+                    case "humidity" -> w.getHumidity();
+                    default -> w.getPrecipitation();
+                };
+            }
+            b.add(null, EpochTime.toEpochSecond(w.getDateTime()), values);
+        }
+        return b.build();
+    }
+
+    /**
+     * Rollup buckets keyed by their start, with a {@code count} column and one column per
+     * statistic of each field, named e.g. {@code temperature.mean}.
+     */
+    static Columnar of(Rollup rollup) {
+        if (rollup.getSeries().isEmpty()) {
+            return new Columnar.Builder("count").build();
+        }
+        List<String> all = rollup.getSeries().get(0).getFields();
+        List<Integer> kept = new ArrayList<>();
+        List<String> names = new ArrayList<>(List.of("count"));
+        for (int f = 0; f < all.size(); f++) {
+            if (rollup.getFields() == null || rollup.getFields().contains(all.get(f))) {
+                kept.add(f);
+                for (String stat : STATS) {
+                    names.add(all.get(f) + "." + stat);
+                }
+            }
+        }
+        Columnar.Builder b = new Columnar.Builder(names.toArray(new String[0]));
+        double[] values = new double[names.size()];
+        for (RollupSeries s : rollup.getSeries()) {
+            for (int i = 0; i < s.size(); i++) {
+                values[0] = s.count(i);
+                int v = 1;
+                for (int f : kept) {
+                    values[v++] = s.min(f, i);
+                    values[v++] = s.max(f, i);
+                    values[v++] = s.mean(f, i);
+                    values[v++] = s.last(f, i);
+                    values[v++] = s.sum(f, i);
+                }
+                b.add(s.getTagNumber(), s.bucketStart(i), values);
+            }
+        }
+        return b.build();
+    }
+
+    /**
+     * Matched readings, one series per hive; {@code ambientOffset} is the ambient observation
+     * time minus the reading time, in seconds.
+     */
+    static Columnar of(AmbientJoin join) {
+        Columnar.Builder b = new Columnar.Builder(AMBIENT_FIELDS);
+        double[] values = new double[AMBIENT_FIELDS.length];
+        for (int i = 0; i < join.size(); i++) {
+            values[0] = join.temperature(i);
+            values[1] = join.ambientTemperature(i);
+            values[2] = join.ambientEpochSecond(i) - join.epochSecond(i);
+            values[3] = join.delta(i);
+            b.add(join.tagNumber(i), join.epochSecond(i), values);
+        }
+        return b.build();
+    }
+
+    private static String[] select(String[] all, Set<String> fields) {
+        if (fields == null) {
+            return all;
+        }
+        List<String> selected = new ArrayList<>();
+        for (String f : all) {
+            if (fields.contains(f)) {
+                selected.add(f);
+            }
+        }
+        return selected.toArray(new String[0]);
+    }
+
+    private static boolean contains(String[] fields, String field) {
+        for (String f : fields) {
+            if (f.equals(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,109 @@
+package com.tretrente.smart_beekeeping_dashboard.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.http.HttpHeaders;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming CSV download written straight to the servlet output stream.
+ * <p>
+ * Rows go through a fixed-size buffer that is flushed to the client every
+ * {@link #FLUSH_EVERY_ROWS} rows, so memory use does not depend on the export size.
+ * When the client accepts it, the body is gzip-encoded on the fly
+ * ({@code Content-Encoding: gzip}).
+ * </p>
+ */
+final class CsvExport implements Closeable {
+
+    static final int FLUSH_EVERY_ROWS = 10_000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CSVPrinter printer;
+    private final BufferedWriter writer;
+    private long rows;
+
+    private CsvExport(BufferedWriter writer, String[] headers) throws IOException {
+        this.writer = writer;
+        this.printer = new CSVPrinter(writer, CSVFormat.DEFAULT.builder().setHeader(headers).build());
+    }
+
+    /**
+     * Set the download headers and open the (optionally gzipped) body stream.
+     *
+     * @param filename Name offered to the browser, e.g. "sensor.csv"
+     * @param headers  CSV header row
+     */
+    static CsvExport open(HttpServletRequest req, HttpServletResponse resp,
+                          String filename, String... headers) throws IOException {
+        resp.setContentType("text/csv");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        resp.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        OutputStream out = resp.getOutputStream();
+        if (acceptsGzip(req)) {
+            resp.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            // syncFlush: every periodic flush pushes the compressed bytes produced so far
+            out = new GZIPOutputStream(out, BUFFER_SIZE, true);
+        }
+        BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        return new CsvExport(writer, headers);
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest req) {
+        return AcceptEncoding.acceptsGzip(req.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    /**
+     * Write a single value of the current row.
+     */
+    void value(Object value) throws IOException {
+        printer.print(value);
+    }
+
+    /**
+     * Terminate the current row, flushing to the client every {@link #FLUSH_EVERY_ROWS} rows.
+     */
+    void endRow() throws IOException {
+        printer.println();
+        if (++rows % FLUSH_EVERY_ROWS == 0) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Write a complete row.
+     */
+    void row(Object... values) throws IOException {
+        for (Object v : values) {
+            printer.print(v);
+        }
+        endRow();
+    }
+
+    /**
+     * @return Number of data rows written so far
+     */
+    long rows() {
+        return rows;
+    }
+
+    /**
+     * Flush the remaining rows and finish the gzip trailer, if any.
+     */
+    @Override
+    public void close() throws IOException {
+        printer.close(true);
+    }
+}
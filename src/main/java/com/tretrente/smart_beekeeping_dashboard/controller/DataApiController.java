@@ -1,22 +1,58 @@
 package com.tretrente.smart_beekeeping_dashboard.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tretrente.smart_beekeeping_dashboard.model.CatalogEntry;
+import com.tretrente.smart_beekeeping_dashboard.model.Columnar;
 import com.tretrente.smart_beekeeping_dashboard.model.EnvironmentalData;
 import com.tretrente.smart_beekeeping_dashboard.model.ProductionData;
+import com.tretrente.smart_beekeeping_dashboard.model.ProductionSeries;
 import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
-import com.tretrente.smart_beekeeping_dashboard.model.Inspection2021Record;
+import com.tretrente.smart_beekeeping_dashboard.model.Resolution;
+import com.tretrente.smart_beekeeping_dashboard.model.Rollup;
+import com.tretrente.smart_beekeeping_dashboard.repository.AmbientJoin;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetCatalog;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetPartition;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetSnapshot;
+import com.tretrente.smart_beekeeping_dashboard.repository.PartitionedStore;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorRepository;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSlice;
 import com.tretrente.smart_beekeeping_dashboard.repository.WeatherRepository;
 import com.tretrente.smart_beekeeping_dashboard.repository.InspectionRepository;
 import com.tretrente.smart_beekeeping_dashboard.service.DataSimulatorService;
+import com.tretrente.smart_beekeeping_dashboard.service.HiveAmbientService;
+import com.tretrente.smart_beekeeping_dashboard.service.InspectionSummaryService;
+import com.tretrente.smart_beekeeping_dashboard.service.RollupService;
+import com.tretrente.smart_beekeeping_dashboard.util.RandomUtil;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
- * REST controller exposing both simulated data endpoints and 2021 UrBAN data endpoints.
+ * REST controller exposing both simulated data endpoints and UrBAN data endpoints.
+ * The simulated endpoints also answer {@code Accept: application/x-ndjson} by streaming
+ * one JSON object per line as the points are generated.
+ * The UrBAN endpoints are served through the {@link ResponseCache}, with ETags tied to the
+ * dataset versions. They take an optional {@code apiary} (see {@link DatasetCatalog}) and
+ * only load the years their time range covers. The time-series ones (environmental,
+ * sensor, hive-vs-ambient) also take {@code format=columnar} (see {@link Columnar}), and
+ * all of them answer {@code Accept: application/cbor} with a CBOR body.
  */
 @RestController
 @RequestMapping("/api")
@@ -25,23 +61,48 @@ public class DataApiController {
     private final DataSimulatorService simulatorService;
     private final WeatherRepository weatherRepo;
     private final InspectionRepository inspectionRepo;
+    private final SensorRepository sensorRepo;
+    private final InspectionSummaryService summaryService;
+    private final RollupService rollupService;
+    private final HiveAmbientService hiveAmbientService;
+    private final ObjectMapper objectMapper;
+    private final ResponseCache responseCache;
+    private final MeterRegistry meterRegistry;
+    private final DatasetCatalog catalog;
 
     @Autowired
     public DataApiController(
             DataSimulatorService simulatorService,
             WeatherRepository weatherRepo,
-            InspectionRepository inspection2021Repo) {
+            InspectionRepository inspectionRepo,
+            SensorRepository sensorRepo,
+            InspectionSummaryService summaryService,
+            RollupService rollupService,
+            HiveAmbientService hiveAmbientService,
+            ObjectMapper objectMapper,
+            ResponseCache responseCache,
+            MeterRegistry meterRegistry,
+            DatasetCatalog catalog) {
         this.simulatorService = simulatorService;
         this.weatherRepo = weatherRepo;
-        this.inspectionRepo = inspection2021Repo;
+        this.inspectionRepo = inspectionRepo;
+        this.sensorRepo = sensorRepo;
+        this.summaryService = summaryService;
+        this.rollupService = rollupService;
+        this.hiveAmbientService = hiveAmbientService;
+        this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+        this.meterRegistry = meterRegistry;
+        this.catalog = catalog;
     }
 
     /**
-     * GET /api/environmental?start={}&end={}
+     * GET /api/environmental?start={}&end={}&seed={}
      * Returns a list of simulated EnvironmentalData between specified timestamps.
      *
      * @param start ISO-8601 timestamp string, e.g. 2025-06-01T00:00:00
      * @param end   ISO-8601 timestamp string, e.g. 2025-06-02T00:00:00
+     * @param seed  Optional random seed; the same seed returns the same data
      * @return List of EnvironmentalData
      */
     @GetMapping("/environmental")
@@ -51,47 +112,422 @@ public class DataApiController {
             LocalDateTime start,
             @RequestParam("end")
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
-            LocalDateTime end) {
-        return simulatorService.generateEnvironmentalData(start, end);
+            LocalDateTime end,
+            @RequestParam(value = "seed", required = false) Long seed) {
+        checkLimits(start, end, 0);
+        List<EnvironmentalData> points = seed == null
+                ? simulatorService.generateEnvironmentalData(start, end)
+                : simulatorService.generateEnvironmentalData(start, end, seed);
+        recordSimulation("environmental", "json", points.size());
+        return points;
+    }
+
+    /**
+     * GET /api/environmental with {@code Accept: application/x-ndjson}.
+     * Same data as {@link #getEnvironmentalData}, streamed one EnvironmentalData per line
+     * while it is generated.
+     */
+    @GetMapping(value = "/environmental", produces = NdjsonStream.MEDIA_TYPE)
+    public void streamEnvironmentalData(
+            @RequestParam("start")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime start,
+            @RequestParam("end")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime end,
+            @RequestParam(value = "seed", required = false) Long seed,
+            HttpServletResponse resp) throws IOException {
+        checkLimits(start, end, 0);
+        try (Stream<EnvironmentalData> points = simulatorService.streamEnvironmentalData(start, end,
+                     seed == null ? RandomUtil.newSeed() : seed);
+             NdjsonStream out = NdjsonStream.open(resp, objectMapper)) {
+            out.writeAll(points.iterator());
+            recordSimulation("environmental", "ndjson", out.rows());
+        }
     }
 
     /**
-     * GET /api/production?start={}&end={}&hives={comma-separated IDs}
-     * Returns a list of simulated ProductionData between specified timestamps for given hive IDs.
+     * GET /api/production?start={}&end={}&hives={comma-separated IDs}&seed={}
+     * Returns the simulated daily ProductionData between specified timestamps for given hive IDs.
+     * The simulation is partitioned by hive across cores and kept in columnar form, so large
+     * hive lists do not create one object per hive and day.
      *
      * @param start ISO-8601 timestamp string
      * @param end   ISO-8601 timestamp string
      * @param hives Comma-separated list of hive identifiers, e.g. "hive1,hive2"
-     * @return List of ProductionData
+     * @param seed  Optional random seed; the same seed returns the same data
+     * @return Array of ProductionData, day by day
      */
     @GetMapping("/production")
-    public List<ProductionData> getProductionData(
+    public ProductionSeries getProductionData(
             @RequestParam("start")
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
             LocalDateTime start,
             @RequestParam("end")
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
             LocalDateTime end,
-            @RequestParam("hives") String hives) {
+            @RequestParam("hives") String hives,
+            @RequestParam(value = "seed", required = false) Long seed) {
         List<String> hiveIds = Arrays.asList(hives.split(","));
-        return simulatorService.generateProductionData(start, end, hiveIds);
+        checkLimits(start, end, hiveIds.size());
+        ProductionSeries series = simulatorService.simulateProduction(start, end, hiveIds,
+                seed == null ? RandomUtil.newSeed() : seed);
+        recordSimulation("production", "json", (long) series.days() * series.hiveCount());
+        return series;
     }
 
     /**
-     * GET /api/urban/environmental
-     * Returns all 2021 weather records (WeatherRecord objects) from the UrBAN dataset.
+     * GET /api/production with {@code Accept: application/x-ndjson}.
+     * Same data as {@link #getProductionData}, streamed one ProductionData per line, day by
+     * day, while it is generated.
+     */
+    @GetMapping(value = "/production", produces = NdjsonStream.MEDIA_TYPE)
+    public void streamProductionData(
+            @RequestParam("start")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime start,
+            @RequestParam("end")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime end,
+            @RequestParam("hives") String hives,
+            @RequestParam(value = "seed", required = false) Long seed,
+            HttpServletResponse resp) throws IOException {
+        List<String> hiveIds = Arrays.asList(hives.split(","));
+        checkLimits(start, end, hiveIds.size());
+        try (Stream<ProductionData> points = simulatorService.streamProduction(start, end, hiveIds,
+                     seed == null ? RandomUtil.newSeed() : seed);
+             NdjsonStream out = NdjsonStream.open(resp, objectMapper)) {
+            out.writeAll(points.iterator());
+            recordSimulation("production", "ndjson", out.rows());
+        }
+    }
+
+    /**
+     * GET /api/urban/catalog
+     * Lists the dataset files by apiary, dataset and year, with their load state.
+     */
+    @GetMapping("/urban/catalog")
+    public List<CatalogEntry> getUrbanCatalog() {
+        List<CatalogEntry> entries = new ArrayList<>();
+        for (PartitionedStore<?> store : List.of(sensorRepo.getStore(), weatherRepo.getStore(),
+                inspectionRepo.getStore())) {
+            for (DatasetPartition partition : store.partitions()) {
+                DatasetSnapshot<?> snap = store.store(partition).peek();
+                CatalogEntry entry = new CatalogEntry();
+                entry.setApiary(partition.getApiary());
+                entry.setDataset(partition.getDataset());
+                entry.setYear(partition.getYear());
+                entry.setLoaded(snap != null);
+                entry.setRows(snap == null ? 0 : snap.getRows());
+                entry.setVersion(snap == null ? 0 : snap.getVersion());
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * GET /api/urban/environmental?start={}&end={}&fields={}&resolution={}&maxPoints={}&format={}&apiary={}
+     * Returns the weather records (WeatherRecord objects) from the UrBAN dataset.
+     * All parameters are optional; without them every year of the apiary is returned.
+     * With {@code resolution} the response is a list of rollup buckets instead of records;
+     * with {@code maxPoints} the records are downsampled (LTTB on temperature).
+     * With {@code format=columnar} the same records or buckets are returned as a
+     * {@link Columnar} body, one array per field.
+     *
+     * @param start      ISO-8601 timestamp, inclusive lower bound
+     * @param end        ISO-8601 timestamp, inclusive upper bound
+     * @param fields     Comma-separated properties to include, e.g. "temperature,humidity";
+     *                   dateTime is always included
+     * @param resolution Bucket size: 15m, 1h, 1d or 1w
+     * @param maxPoints  Maximum number of records to return, at least 1
+     * @param format     "rows" (default) or "columnar"
+     * @param apiary     Apiary name; the default apiary if omitted
      */
     @GetMapping("/urban/environmental")
-    public List<WeatherRecord> getUrbanEnvironmentalData() {
-        return weatherRepo.findAll();
+    public ResponseEntity<byte[]> getUrbanEnvironmentalData(
+            @RequestParam(value = "start", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime start,
+            @RequestParam(value = "end", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime end,
+            @RequestParam(value = "fields", required = false) List<String> fields,
+            @RequestParam(value = "resolution", required = false) String resolution,
+            @RequestParam(value = "maxPoints", required = false) Integer maxPoints,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "apiary", required = false) String apiary,
+            HttpServletRequest req) {
+        LocalDateTime from = start == null ? LocalDateTime.MIN : start;
+        LocalDateTime to   = end == null ? LocalDateTime.MAX : end;
+        Resolution res = resolution == null ? null : parseResolution(resolution);
+        checkMaxPoints(maxPoints);
+        boolean columnar = parseFormat(format);
+        String site = parseApiary(apiary);
+        long version = weatherRepo.snapshot(site, from, to).getVersion();
+        return responseCache.serve(req, "weather", version, () -> {
+            if (res != null) {
+                Rollup rollup = rollupService.weatherRollup(site, from, to, res, FieldSelection.of(fields));
+                return columnar ? ColumnarFormat.of(rollup) : new MappingJacksonValue(rollup);
+            }
+            List<WeatherRecord> records = maxPoints != null
+                    ? rollupService.weatherDownsampled(site, from, to, maxPoints)
+                    : weatherRepo.findBetween(site, from, to);
+            if (columnar) {
+                return ColumnarFormat.of(records, FieldSelection.of(fields));
+            }
+            return FieldSelection.apply(records, FieldSelection.of(fields, "dateTime"));
+        });
     }
 
     /**
-     * GET /api/urban/inspections/2021
-     * Returns all 2021 inspection records (Inspection2021Record objects) from the UrBAN dataset.
+     * GET /api/urban/inspections?start={}&end={}&hives={}&fields={}&apiary={}
+     * Returns the inspection records (InspectionRecord objects) from the UrBAN dataset.
+     * All parameters are optional; without them every inspection of the apiary is returned.
+     *
+     * @param start  ISO-8601 date, inclusive lower bound
+     * @param end    ISO-8601 date, inclusive upper bound
+     * @param hives  Comma-separated hive tag numbers
+     * @param fields Comma-separated properties to include; date and tagNumber are always included
+     * @param apiary Apiary name; the default apiary if omitted
+     */
+    @GetMapping("/urban/inspections")
+    public ResponseEntity<byte[]> getUrbanInspectionData(
+            @RequestParam(value = "start", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate start,
+            @RequestParam(value = "end", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate end,
+            @RequestParam(value = "hives", required = false) List<String> hives,
+            @RequestParam(value = "fields", required = false) List<String> fields,
+            @RequestParam(value = "apiary", required = false) String apiary,
+            HttpServletRequest req) {
+        return inspections(start == null ? LocalDate.MIN : start, end == null ? LocalDate.MAX : end,
+                hives, fields, apiary, req);
+    }
+
+    /**
+     * GET /api/urban/inspections/2021?start={}&end={}&hives={}&fields={}&apiary={}
+     * Same as {@link #getUrbanInspectionData}, with the dates defaulting to the 2021 season.
+     * Kept for existing clients.
      */
     @GetMapping("/urban/inspections/2021")
-    public List<Inspection2021Record> getUrbanInspectionData2021() {
-        return inspectionRepo.findAll();
+    public ResponseEntity<byte[]> getUrbanInspectionData2021(
+            @RequestParam(value = "start", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate start,
+            @RequestParam(value = "end", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate end,
+            @RequestParam(value = "hives", required = false) List<String> hives,
+            @RequestParam(value = "fields", required = false) List<String> fields,
+            @RequestParam(value = "apiary", required = false) String apiary,
+            HttpServletRequest req) {
+        return inspections(start == null ? LocalDate.of(2021, 1, 1) : start,
+                end == null ? LocalDate.of(2021, 12, 31) : end, hives, fields, apiary, req);
+    }
+
+    private ResponseEntity<byte[]> inspections(LocalDate start, LocalDate end, List<String> hives,
+                                               List<String> fields, String apiary, HttpServletRequest req) {
+        String site = parseApiary(apiary);
+        long version = inspectionRepo.snapshot(site, start, end).getVersion();
+        return responseCache.serve(req, "inspections", version, () -> FieldSelection.apply(
+                inspectionRepo.findBetween(site, start, end, hives),
+                FieldSelection.of(fields, "date", "tagNumber")));
+    }
+
+    /**
+     * GET /api/urban/summary?start={}&end={}&hives={}
+     * Returns the dashboard KPIs and chart series (per-hive frames, queen status counts,
+     * brood/adult frames per date) aggregated on the server in one pass.
+     *
+     * @param start ISO-8601 date, inclusive lower bound
+     * @param end   ISO-8601 date, inclusive upper bound
+     * @param hives Comma-separated hive tag numbers; all hives if omitted
+     * @param apiary Apiary name; the default apiary if omitted
+     * @return InspectionSummary
+     */
+    @GetMapping("/urban/summary")
+    public ResponseEntity<byte[]> getUrbanSummary(
+            @RequestParam("start")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate start,
+            @RequestParam("end")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate end,
+            @RequestParam(value = "hives", required = false) List<String> hives,
+            @RequestParam(value = "apiary", required = false) String apiary,
+            HttpServletRequest req) {
+        String site = parseApiary(apiary);
+        long version = inspectionRepo.snapshot(site, start, end).getVersion();
+        return responseCache.serve(req, "inspections", version,
+                () -> summaryService.summarize(site, start, end, hives));
+    }
+
+    /**
+     * GET /api/urban/sensor?start={}&end={}&hives={}&fields={}&resolution={}&maxPoints={}&format={}&apiary={}
+     * Returns hive sensor readings, serialized straight from the columnar store
+     * as SensorRecord-shaped objects, grouped by hive and then in time order.
+     * All parameters are optional; without them every reading is returned.
+     * With {@code resolution} the response is a list of per-hive rollup buckets;
+     * with {@code maxPoints} each hive's readings are downsampled (LTTB on temperature).
+     * With {@code format=columnar} the response is a {@link Columnar} body, one series per hive.
+     *
+     * @param start      ISO-8601 timestamp, inclusive lower bound
+     * @param end        ISO-8601 timestamp, inclusive upper bound
+     * @param hives      Comma-separated hive tag numbers
+     * @param fields     "temperature" and/or "humidity"; date and tagNumber are always included
+     * @param resolution Bucket size: 15m, 1h, 1d or 1w
+     * @param maxPoints  Maximum number of readings per hive, at least 1
+     * @param format     "rows" (default) or "columnar"
+     * @param apiary     Apiary name; the default apiary if omitted
+     */
+    @GetMapping("/urban/sensor")
+    public ResponseEntity<byte[]> getUrbanSensorData(
+            @RequestParam(value = "start", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime start,
+            @RequestParam(value = "end", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime end,
+            @RequestParam(value = "hives", required = false) List<String> hives,
+            @RequestParam(value = "fields", required = false) List<String> fields,
+            @RequestParam(value = "resolution", required = false) String resolution,
+            @RequestParam(value = "maxPoints", required = false) Integer maxPoints,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "apiary", required = false) String apiary,
+            HttpServletRequest req) {
+        LocalDateTime from = start == null ? LocalDateTime.MIN : start;
+        LocalDateTime to   = end == null ? LocalDateTime.MAX : end;
+        Resolution res = resolution == null ? null : parseResolution(resolution);
+        checkMaxPoints(maxPoints);
+        boolean columnar = parseFormat(format);
+        String site = parseApiary(apiary);
+        // Includes the live readings, so the ETag changes as soon as new data is ingested
+        long version = sensorRepo.version(site, from, to);
+        return responseCache.serve(req, "sensor", version, () -> {
+            if (res != null) {
+                Rollup rollup = rollupService.sensorRollup(site, from, to, hives, res, FieldSelection.of(fields));
+                return columnar ? ColumnarFormat.of(rollup) : rollup;
+            }
+            SensorSlice slice = maxPoints != null
+                    ? rollupService.sensorDownsampled(site, from, to, hives, maxPoints, FieldSelection.of(fields))
+                    : sensorRepo.slice(site, from, to, hives, FieldSelection.of(fields));
+            return columnar ? ColumnarFormat.of(slice) : slice;
+        });
+    }
+
+    /**
+     * GET /api/urban/hive-vs-ambient?start={}&end={}&hives={}&match={}&tolerance={}&resolution={}&format={}&apiary={}
+     * Returns each hive reading matched with the weather observation taken at that time, as
+     * {@code {date, tagNumber, temperature, ambientDate, ambientTemperature, delta}} objects
+     * grouped by hive and then in time order; {@code delta} is the hive temperature minus the
+     * ambient one. Dates are UTC: the weather's local standard time is converted first.
+     * With {@code resolution} the response is a list of per-hive rollup buckets of the three
+     * temperatures. With {@code format=columnar} the response is a {@link Columnar} body, one
+     * series per hive, where {@code ambientOffset} replaces {@code ambientDate}.
+     *
+     * @param start      ISO-8601 timestamp (UTC), inclusive lower bound
+     * @param end        ISO-8601 timestamp (UTC), inclusive upper bound
+     * @param hives      Comma-separated hive tag numbers
+     * @param match      "preceding": latest observation at or before the reading (default);
+     *                   "nearest": closest observation
+     * @param tolerance  Largest distance between a reading and its observation, e.g. PT1H;
+     *                   readings without an observation that close are left out; capped at P7D
+     * @param resolution Bucket size: 15m, 1h, 1d or 1w
+     * @param format     "rows" (default) or "columnar"
+     * @param apiary     Apiary name; the default apiary if omitted
+     */
+    @GetMapping("/urban/hive-vs-ambient")
+    public ResponseEntity<byte[]> getUrbanHiveVsAmbient(
+            @RequestParam(value = "start", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime start,
+            @RequestParam(value = "end", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime end,
+            @RequestParam(value = "hives", required = false) List<String> hives,
+            @RequestParam(value = "match", defaultValue = "preceding") String match,
+            @RequestParam(value = "tolerance", defaultValue = "PT1H") Duration tolerance,
+            @RequestParam(value = "resolution", required = false) String resolution,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "apiary", required = false) String apiary,
+            HttpServletRequest req) {
+        LocalDateTime from = start == null ? LocalDateTime.MIN : start;
+        LocalDateTime to   = end == null ? LocalDateTime.MAX : end;
+        Resolution res = resolution == null ? null : parseResolution(resolution);
+        boolean columnar = parseFormat(format);
+        AmbientJoin.Match mode;
+        try {
+            mode = AmbientJoin.Match.fromCode(match);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (tolerance.isNegative()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "tolerance must not be negative");
+        }
+        long toleranceSeconds = tolerance.toSeconds();
+        String site = parseApiary(apiary);
+        long version = hiveAmbientService.version(site, from, to, toleranceSeconds);
+        return responseCache.serve(req, "hive-vs-ambient", version, () -> {
+            if (res != null) {
+                Rollup rollup = hiveAmbientService.rollup(site, from, to, hives, mode, toleranceSeconds, res);
+                return columnar ? ColumnarFormat.of(rollup) : rollup;
+            }
+            AmbientJoin join = hiveAmbientService.join(site, from, to, hives, mode, toleranceSeconds);
+            return columnar ? ColumnarFormat.of(join) : join;
+        });
+    }
+
+    /**
+     * Points generated by one simulation request, as {@code urban.simulation.points}.
+     */
+    private void recordSimulation(String kind, String format, long points) {
+        DistributionSummary.builder("urban.simulation.points")
+                .description("Points generated per simulation request")
+                .tag("kind", kind)
+                .tag("format", format)
+                .register(meterRegistry)
+                .record(points);
+    }
+
+    private void checkLimits(LocalDateTime start, LocalDateTime end, int hiveCount) {
+        try {
+            simulatorService.checkLimits(start, end, hiveCount);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private String parseApiary(String apiary) {
+        try {
+            return catalog.apiary(apiary);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static boolean parseFormat(String format) {
+        try {
+            return ColumnarFormat.parse(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static void checkMaxPoints(Integer maxPoints) {
+        if (maxPoints != null && maxPoints < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "maxPoints must be at least 1, got " + maxPoints);
+        }
+    }
+
+    private static Resolution parseResolution(String code) {
+        try {
+            return Resolution.fromCode(code);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 }
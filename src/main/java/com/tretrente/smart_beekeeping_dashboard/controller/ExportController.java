@@ -1,23 +1,42 @@
 package com.tretrente.smart_beekeeping_dashboard.controller;
 
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetCatalog;
 import com.tretrente.smart_beekeeping_dashboard.repository.InspectionRepository;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorCursor;
 import com.tretrente.smart_beekeeping_dashboard.repository.SensorRepository;
 import com.tretrente.smart_beekeeping_dashboard.repository.WeatherRepository;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+import com.tretrente.smart_beekeeping_dashboard.model.InspectionRecord;
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 
+/**
+ * CSV downloads. Rows are streamed from the in-memory indexes straight into the
+ * response through {@link CsvExport}, so no intermediate lists are built.
+ * <p>
+ * Every export records {@code urban.export.rows}: rows scanned (every row of the requested
+ * period) and rows emitted (those of the requested hives), tagged by dataset.
+ * </p>
+ * Every export takes an optional {@code apiary}; only the years of the requested period
+ * are loaded.
+ */
 @RestController
 @RequestMapping("/api/export")
 public class ExportController {
@@ -25,14 +44,20 @@ public class ExportController {
     private final InspectionRepository inspectionRepo;
     private final SensorRepository sensorRepo;
     private final WeatherRepository weatherRepo;
+    private final MeterRegistry meterRegistry;
+    private final DatasetCatalog catalog;
 
     @Autowired
     public ExportController(InspectionRepository inspectionRepo,
                             SensorRepository sensorRepo,
-                            WeatherRepository weatherRepo) {
+                            WeatherRepository weatherRepo,
+                            MeterRegistry meterRegistry,
+                            DatasetCatalog catalog) {
         this.inspectionRepo = inspectionRepo;
         this.sensorRepo     = sensorRepo;
         this.weatherRepo    = weatherRepo;
+        this.meterRegistry  = meterRegistry;
+        this.catalog        = catalog;
     }
 
     // --- INSPECTIONS CSV (come prima) ---
@@ -41,43 +66,36 @@ public class ExportController {
             @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam("end")   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(value = "tags", required = false) List<String> tagNumbers,
+            @RequestParam(value = "apiary", required = false) String apiary,
+            HttpServletRequest req,
             HttpServletResponse resp
     ) throws IOException {
-        resp.setHeader("Content-Disposition", "attachment; filename=inspections.csv");
-        resp.setCharacterEncoding("UTF-8");
-
-        String[] headers = {
+        String site = parseApiary(apiary);
+        try (CsvExport csv = CsvExport.open(req, resp, "inspections.csv",
                 "Date","Tag","ColonySize",
                 "Fob1st","Fob2nd","Fob3rd","FoBrood",
                 "FramesHoney","QueenStatus",
-                "Open","Close","Notes"
-        };
-
-        try (CSVPrinter printer = new CSVPrinter(resp.getWriter(),
-                CSVFormat.DEFAULT.withHeader(headers))) {
-            inspectionRepo.findAll().stream()
-                    .filter(r -> !r.getDate().isBefore(startDate) && !r.getDate().isAfter(endDate))
-                    .filter(r -> tagNumbers == null || tagNumbers.isEmpty() || tagNumbers.contains(r.getTagNumber()))
-                    .forEach(r -> {
-                        try {
-                            printer.printRecord(
-                                    r.getDate(),
-                                    r.getTagNumber(),
-                                    r.getColonySize(),
-                                    r.getFob1st(),
-                                    r.getFob2nd(),
-                                    r.getFob3rd(),
-                                    r.getFoBrood(),
-                                    r.getFramesOfHoney(),
-                                    r.getQueenStatus(),
-                                    r.getOpen(),
-                                    r.getClose(),
-                                    r.getNotes()
-                            );
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
+                "Open","Close","Notes")) {
+            Iterator<InspectionRecord> it = inspectionRepo.iterateBetween(site, startDate, endDate, tagNumbers);
+            while (it.hasNext()) {
+                InspectionRecord r = it.next();
+                csv.row(
+                        r.getDate(),
+                        r.getTagNumber(),
+                        r.getColonySize(),
+                        r.getFob1st(),
+                        r.getFob2nd(),
+                        r.getFob3rd(),
+                        r.getFoBrood(),
+                        r.getFramesOfHoney(),
+                        r.getQueenStatus(),
+                        r.getOpen(),
+                        r.getClose(),
+                        r.getNotes()
+                );
+            }
+            recordRows("inspections", tagNumbers == null || tagNumbers.isEmpty()
+                    ? csv.rows() : inspectionRepo.countBetween(site, startDate, endDate), csv.rows());
         }
     }
 
@@ -87,30 +105,27 @@ public class ExportController {
             @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTs,
             @RequestParam("end")   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTs,
             @RequestParam(value = "tags", required = false) List<String> tagNumbers,
+            @RequestParam(value = "apiary", required = false) String apiary,
+            HttpServletRequest req,
             HttpServletResponse resp
     ) throws IOException {
-        resp.setHeader("Content-Disposition", "attachment; filename=sensor.csv");
-        resp.setCharacterEncoding("UTF-8");
-
-        String[] headers = { "Date","Tag","Temperature","Humidity" };
+        String site = parseApiary(apiary);
+        StringBuilder date = new StringBuilder(19);
 
-        try (CSVPrinter printer = new CSVPrinter(resp.getWriter(),
-                CSVFormat.DEFAULT.withHeader(headers))) {
-            sensorRepo.findAll().stream()
-                    .filter(r -> !r.getDate().isBefore(startTs) && !r.getDate().isAfter(endTs))
-                    .filter(r -> tagNumbers == null || tagNumbers.isEmpty() || tagNumbers.contains(r.getTagNumber()))
-                    .forEach(r -> {
-                        try {
-                            printer.printRecord(
-                                    r.getDate(),
-                                    r.getTagNumber(),
-                                    r.getTemperature(),
-                                    r.getHumidity()
-                            );
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
+        try (CsvExport csv = CsvExport.open(req, resp, "sensor.csv",
+                "Date","Tag","Temperature","Humidity")) {
+            // Indexed range query, read straight from the columnar series
+            SensorCursor c = sensorRepo.query(site, startTs, endTs, tagNumbers);
+            while (c.next()) {
+                date.setLength(0);
+                csv.value(EpochTime.appendIso(date, c.epochSecond(), false));
+                csv.value(c.tagNumber());
+                csv.value(c.temperature());
+                csv.value(c.humidity());
+                csv.endRow();
+            }
+            recordRows("sensor", tagNumbers == null || tagNumbers.isEmpty()
+                    ? csv.rows() : sensorRepo.countBetween(site, startTs, endTs), csv.rows());
         }
     }
 
@@ -119,29 +134,52 @@ public class ExportController {
     public void exportWeatherCsv(
             @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTs,
             @RequestParam("end")   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTs,
+            @RequestParam(value = "apiary", required = false) String apiary,
+            HttpServletRequest req,
             HttpServletResponse resp
     ) throws IOException {
-        resp.setHeader("Content-Disposition", "attachment; filename=weather.csv");
-        resp.setCharacterEncoding("UTF-8");
-
-        String[] headers = { "DateTime","Temperature","Humidity","Precipitation" };
+        String site = parseApiary(apiary);
+        try (CsvExport csv = CsvExport.open(req, resp, "weather.csv",
+                "DateTime","Temperature","Humidity","Precipitation")) {
+            // View over the shared snapshot, nothing is copied
+            for (WeatherRecord w : weatherRepo.findBetween(site, startTs, endTs)) {
+                csv.row(
+                        w.getDateTime(),
+                        reported(w.getTemperature()),
+                        reported(w.getHumidity()),
+                        reported(w.getPrecipitation())
+                );
+            }
+            recordRows("weather", csv.rows(), csv.rows());
+        }
+    }
 
-        try (CSVPrinter printer = new CSVPrinter(resp.getWriter(),
-                CSVFormat.DEFAULT.withHeader(headers))) {
-            weatherRepo.findAll().stream()
-                    .filter(w -> !w.getDateTime().isBefore(startTs) && !w.getDateTime().isAfter(endTs))
-                    .forEach(w -> {
-                        try {
-                            printer.printRecord(
-                                    w.getDateTime(),
-                                    w.getTemperature(),
-                                    w.getHumidity(),
-                                    w.getPrecipitation()
-                            );
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
+    /**
+     * Validated before the response is opened, so an unknown apiary is a plain 400.
+     */
+    private String parseApiary(String apiary) {
+        try {
+            return catalog.apiary(apiary);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
     }
+
+    /** Values the station did not report (NaN) are left empty, as in the source file. */
+    private static Object reported(double value) {
+        return Double.isNaN(value) ? "" : value;
+    }
+
+    private void recordRows(String dataset, long scanned, long emitted) {
+        rowSummary(dataset, "scanned").record(scanned);
+        rowSummary(dataset, "emitted").record(emitted);
+    }
+
+    private DistributionSummary rowSummary(String dataset, String stage) {
+        return DistributionSummary.builder("urban.export.rows")
+                .description("Rows per CSV export")
+                .tag("dataset", dataset)
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
 }
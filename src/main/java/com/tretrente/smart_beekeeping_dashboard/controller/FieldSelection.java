@@ -0,0 +1,51 @@
+package com.tretrente.smart_beekeeping_dashboard.controller;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.tretrente.smart_beekeeping_dashboard.config.JacksonConfig;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Helpers for the {@code fields=} query parameter of the UrBAN endpoints.
+ */
+final class FieldSelection {
+
+    private FieldSelection() { }
+
+    /**
+     * Normalize a requested field list.
+     *
+     * @param fields    Requested fields, possibly null or empty
+     * @param keyFields Fields that identify a row and are always kept (timestamp, hive tag)
+     * @return The field set to serialize, or null if every field is wanted
+     */
+    static Set<String> of(List<String> fields, String... keyFields) {
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+        Set<String> selected = new HashSet<>(fields);
+        selected.addAll(Arrays.asList(keyFields));
+        return selected;
+    }
+
+    /**
+     * Wrap a response body so Jackson only writes the selected properties of models
+     * annotated with {@code @JsonFilter(JacksonConfig.FIELDS_FILTER)}.
+     *
+     * @param body   Response body
+     * @param fields Field set from {@link #of}, or null for all fields
+     */
+    static MappingJacksonValue apply(Object body, Set<String> fields) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        SimpleBeanPropertyFilter filter = fields == null
+                ? SimpleBeanPropertyFilter.serializeAll()
+                : SimpleBeanPropertyFilter.filterOutAllExcept(fields);
+        value.setFilters(new SimpleFilterProvider().addFilter(JacksonConfig.FIELDS_FILTER, filter));
+        return value;
+    }
+}
@@ -0,0 +1,46 @@
+package com.tretrente.smart_beekeeping_dashboard.controller;
+
+import com.tretrente.smart_beekeeping_dashboard.service.LiveUpdateService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * REST controller streaming live updates to the dashboard as Server-Sent Events.
+ */
+@RestController
+@RequestMapping("/api")
+public class LiveController {
+
+    private final LiveUpdateService liveUpdateService;
+
+    public LiveController(LiveUpdateService liveUpdateService) {
+        this.liveUpdateService = liveUpdateService;
+    }
+
+    /**
+     * GET /api/live?interval={ms}
+     * Opens an event stream. {@code update} events carry a LiveUpdate (newest sensor
+     * readings per hive, reloaded datasets); a {@code resync} event means updates were
+     * missed and the client should fetch its data again.
+     *
+     * @param interval    Minimum milliseconds between two writes to this client
+     * @param lastEventId Sent by browsers when they reconnect; missed updates are replayed
+     */
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter live(
+            @RequestParam(value = "interval", required = false) Long interval,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            return liveUpdateService.subscribe(interval, lastEventId);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.tretrente.smart_beekeeping_dashboard.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Newline-delimited JSON body ({@code application/x-ndjson}) written straight to the
+ * servlet output stream, one JSON object per line.
+ * <p>
+ * The first line is flushed as soon as it is written and later lines every
+ * {@link #FLUSH_EVERY_ROWS} rows, so the client sees data immediately and memory use does
+ * not depend on the number of rows.
+ * </p>
+ */
+final class NdjsonStream implements Closeable {
+
+    static final String MEDIA_TYPE = "application/x-ndjson";
+    static final int FLUSH_EVERY_ROWS = 1_000;
+
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+    private long rows;
+
+    private NdjsonStream(JsonGenerator generator, ObjectWriter writer) {
+        this.generator = generator;
+        this.writer = writer;
+    }
+
+    /**
+     * Set the content type and open the body stream.
+     *
+     * @param mapper Mapper whose configuration (date formats, modules) is used for every row
+     */
+    static NdjsonStream open(HttpServletResponse resp, ObjectMapper mapper) throws IOException {
+        resp.setContentType(MEDIA_TYPE);
+        resp.setCharacterEncoding("UTF-8");
+        JsonGenerator generator = mapper.getFactory().createGenerator(resp.getOutputStream());
+        // Lines are terminated explicitly instead of separated by the default space
+        generator.setRootValueSeparator(null);
+        return new NdjsonStream(generator, mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE));
+    }
+
+    /**
+     * Write one row, flushing it to the client if it is the first one or the
+     * {@link #FLUSH_EVERY_ROWS}th since the last flush.
+     */
+    void write(Object value) throws IOException {
+        writer.writeValue(generator, value);
+        generator.writeRaw('\n');
+        if (++rows == 1 || rows % FLUSH_EVERY_ROWS == 0) {
+            generator.flush();
+        }
+    }
+
+    /**
+     * Write every remaining element of {@code values}.
+     */
+    void writeAll(Iterator<?> values) throws IOException {
+        while (values.hasNext()) {
+            write(values.next());
+        }
+    }
+
+    /**
+     * @return Number of rows written so far
+     */
+    long rows() {
+        return rows;
+    }
+
+    /**
+     * Flush the remaining rows and close the body.
+     */
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,255 @@
+package com.tretrente.smart_beekeeping_dashboard.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of serialized JSON responses for the read-only dataset endpoints.
+ * <p>
+ * Entries are keyed by request path and (sorted) query parameters and hold the JSON
+ * bytes plus, for bodies of at least {@link #GZIP_MIN_BYTES}, a gzipped copy. An entry is
+ * valid for one dataset version; after a reload the next request serializes again.
+ * Eviction is least-recently-used within {@code urban.cache.max-bytes}.
+ * </p>
+ * <p>
+ * Clients that prefer {@code application/cbor} in their {@code Accept} header get the same
+ * body encoded as CBOR by the same serializers, cached under its own entry.
+ * </p>
+ * Every response carries a strong ETag made of the dataset name, its version and a checksum
+ * of the body (suffixed {@code -gz} for the gzipped representation) and
+ * {@code Cache-Control: no-cache}, so browsers revalidate and get a 304 while the dataset
+ * is unchanged. The 304 itself is produced by Spring MVC from the ETag of the returned
+ * {@link ResponseEntity}.
+ */
+@Component
+public class ResponseCache {
+
+    /** Smaller bodies are not worth compressing. */
+    public static final int GZIP_MIN_BYTES = 1024;
+
+    public static final MediaType APPLICATION_CBOR = MediaType.parseMediaType("application/cbor");
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper;
+    private final long maxBytes;
+    private final boolean gzip;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxBytes Total size of the cached bodies; a single body above an eighth of it
+     *                 is served but not cached. 0 disables the cache.
+     * @param gzip     Keep a gzipped copy of every cacheable body
+     */
+    public ResponseCache(ObjectMapper objectMapper,
+                         @Value("${urban.cache.max-bytes:67108864}") long maxBytes,
+                         @Value("${urban.cache.gzip:true}") boolean gzip) {
+        this.objectMapper = objectMapper;
+        // Same modules, serializers and filters, CBOR output
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+        this.maxBytes = maxBytes;
+        this.gzip = gzip;
+    }
+
+    /**
+     * Serve a JSON (or CBOR) response from the cache, serializing {@code body} on a miss.
+     *
+     * @param req     Current request; its path and parameters form the cache key
+     * @param dataset Name of the dataset the response is derived from, e.g. "weather"
+     * @param version Version of that dataset, read before the body is computed
+     * @param body    Computes the response body (a {@link MappingJacksonValue} keeps its filters)
+     */
+    public ResponseEntity<byte[]> serve(HttpServletRequest req, String dataset, long version,
+                                        Supplier<Object> body) {
+        boolean cbor = prefersCbor(req);
+        String key = cbor ? key(req) + " cbor" : key(req);
+        Entry entry = get(key, version);
+        if (entry == null) {
+            misses.incrementAndGet();
+            entry = create(cbor ? cborMapper : objectMapper, dataset, version, body.get());
+            put(key, entry);
+        } else {
+            hits.incrementAndGet();
+        }
+
+        boolean gzipped = entry.gzip != null && acceptsGzip(req);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(cbor ? APPLICATION_CBOR : MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .eTag("\"" + entry.etag + (gzipped ? "-gz\"" : "\""))
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzipped) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzipped ? entry.gzip : entry.body);
+    }
+
+    /**
+     * @return Requests answered from the cache
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Requests that had to serialize the response
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Bytes currently held by cached bodies
+     */
+    public synchronized long sizeBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return Number of cached responses
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized Entry get(String key, long version) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.version == version ? entry : null;
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            bytes -= previous.size();
+        }
+        if (entry.size() > maxBytes / 8) {
+            return;
+        }
+        entries.put(key, entry);
+        bytes += entry.size();
+        Iterator<Entry> lru = entries.values().iterator();
+        while (bytes > maxBytes && lru.hasNext()) {
+            bytes -= lru.next().size();
+            lru.remove();
+        }
+    }
+
+    private Entry create(ObjectMapper mapper, String dataset, long version, Object body) {
+        byte[] encoded;
+        try {
+            ObjectWriter writer = mapper.writer();
+            if (body instanceof MappingJacksonValue value) {
+                if (value.getFilters() != null) {
+                    writer = writer.with(value.getFilters());
+                }
+                body = value.getValue();
+            }
+            encoded = writer.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(encoded);
+        String etag = dataset + "-v" + version + "-" + Long.toHexString(crc.getValue());
+        return new Entry(version, etag, encoded,
+                gzip && encoded.length >= GZIP_MIN_BYTES ? gzip(encoded) : null);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Path plus query parameters in name order, so {@code ?a=1&b=2} and {@code ?b=2&a=1}
+     * share an entry.
+     */
+    private static String key(HttpServletRequest req) {
+        StringBuilder key = new StringBuilder(req.getRequestURI());
+        char sep = '?';
+        for (Map.Entry<String, String[]> p : new TreeMap<>(req.getParameterMap()).entrySet()) {
+            key.append(sep).append(p.getKey()).append('=').append(String.join(",", p.getValue()));
+            sep = '&';
+        }
+        return key.toString();
+    }
+
+    /**
+     * Whether the {@code Accept} header ranks CBOR at least as high as JSON (or a wildcard
+     * covering it); JSON otherwise, including for a missing or malformed header.
+     */
+    private static boolean prefersCbor(HttpServletRequest req) {
+        String accept = req.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || !accept.contains("cbor")) {
+            return false;
+        }
+        double cbor = 0;
+        double json = 0;
+        try {
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                if (type.equalsTypeAndSubtype(APPLICATION_CBOR)) {
+                    cbor = Math.max(cbor, type.getQualityValue());
+                } else if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    json = Math.max(json, type.getQualityValue());
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        return cbor > 0 && cbor >= json;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest req) {
+        return AcceptEncoding.acceptsGzip(req.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    private static final class Entry {
+        final long version;
+        final String etag;
+        final byte[] body;
+        final byte[] gzip;
+
+        Entry(long version, String etag, byte[] body, byte[] gzip) {
+            this.version = version;
+            this.etag = etag;
+            this.body = body;
+            this.gzip = gzip;
+        }
+
+        long size() {
+            return body.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+}
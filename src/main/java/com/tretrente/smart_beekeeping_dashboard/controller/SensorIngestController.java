@@ -0,0 +1,66 @@
+package com.tretrente.smart_beekeeping_dashboard.controller;
+
+import com.tretrente.smart_beekeeping_dashboard.model.IngestResult;
+import com.tretrente.smart_beekeeping_dashboard.model.SensorRecord;
+import com.tretrente.smart_beekeeping_dashboard.service.SensorIngestService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * REST controller receiving live sensor readings from hive gateways.
+ * Accepted readings are persisted before the response is sent and show up in the
+ * {@code /api/urban/sensor} queries and exports alongside the dataset files. If they cannot
+ * be persisted the whole batch is discarded and the response is 503, so the gateway can
+ * send it again.
+ */
+@RestController
+@RequestMapping("/api/sensor")
+public class SensorIngestController {
+
+    private final SensorIngestService ingestService;
+
+    public SensorIngestController(SensorIngestService ingestService) {
+        this.ingestService = ingestService;
+    }
+
+    /**
+     * POST /api/sensor/ingest with a JSON array of SensorRecord objects, e.g.
+     * {@code [{"date":"2021-06-01T12:00:00","tagNumber":"3629","temperature":34.1,"humidity":52.0}]}.
+     * Dates are UTC.
+     *
+     * @return Accepted and rejected counts
+     */
+    @PostMapping(value = "/ingest", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public IngestResult ingestJson(@RequestBody List<SensorRecord> readings) {
+        return stored(() -> ingestService.ingest(readings));
+    }
+
+    /**
+     * POST /api/sensor/ingest with a {@code text/csv} body in the sensor_2021.csv layout,
+     * header optional, e.g. {@code 2021-06-01 12:00:00+00:00,3629,34.1,52.0}.
+     *
+     * @return Accepted and rejected counts
+     */
+    @PostMapping(value = "/ingest", consumes = "text/csv")
+    public IngestResult ingestCsv(@RequestBody byte[] body) {
+        return stored(() -> ingestService.ingestCsv(ByteBuffer.wrap(body)));
+    }
+
+    private static IngestResult stored(Supplier<IngestResult> ingest) {
+        try {
+            return ingest.get();
+        } catch (UncheckedIOException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Readings could not be stored", e);
+        }
+    }
+}
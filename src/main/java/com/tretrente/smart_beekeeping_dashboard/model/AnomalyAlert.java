@@ -0,0 +1,30 @@
+package com.tretrente.smart_beekeeping_dashboard.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Anomaly raised by the streaming detector for one hive:
+ * - date: time of the reading that opened the episode (UTC)
+ * - metric: "temperature" or "humidity"
+ * - kind: "high"/"low" (smoothed value far from the baseline) or "rise"/"fall" (fast change)
+ * - value: smoothed value at that time
+ * - baseline: rolling mean the value was compared with
+ * - score: standard deviations from the baseline for high/low, change per hour for rise/fall
+ * - live: true for readings posted to /api/sensor/ingest, false for the dataset files
+ */
+@Getter
+@Setter
+public class AnomalyAlert {
+    private String apiary;
+    private String tagNumber;
+    private LocalDateTime date;
+    private String metric;
+    private String kind;
+    private double value;
+    private double baseline;
+    private double score;
+    private boolean live;
+}
@@ -0,0 +1,21 @@
+package com.tretrente.smart_beekeeping_dashboard.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * One dataset file of the catalog:
+ * - apiary, dataset and year identify the file, e.g. "urban", "sensor", 2021
+ * - loaded: whether a query (or the startup preload) has parsed it yet
+ * - rows and version: of the loaded snapshot; 0 while not loaded
+ */
+@Getter
+@Setter
+public class CatalogEntry {
+    private String apiary;
+    private String dataset;
+    private int year;
+    private boolean loaded;
+    private int rows;
+    private long version;
+}
@@ -0,0 +1,158 @@
+package com.tretrente.smart_beekeeping_dashboard.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Response body of the {@code format=columnar} mode of the UrBAN endpoints: the rows of the
+ * default array of objects transposed into one array per field, so field names are written
+ * once per series instead of once per row:
+ * <pre>{@code
+ * {"fields":["temperature","humidity"],
+ *  "series":[{"tagNumber":"3629","size":3,"time":{"start":1622505600,"step":900},
+ *             "temperature":[25.8,26.0,26.2],"humidity":[61.5,61.2,60.9]}, ...]}
+ * }</pre>
+ * {@code time} holds epoch seconds on the same clock as the dates of the row format: when
+ * the rows are evenly spaced it is {@code {start, step}}, otherwise {@code {start, deltas}}
+ * with one delta per row after the first. {@code tagNumber} is omitted for series that do
+ * not belong to a hive. Whole numbers are written without a fraction.
+ */
+@JsonSerialize(using = ColumnarJsonSerializer.class)
+public final class Columnar {
+
+    private final String[] fields;
+    private final List<Series> series;
+
+    private Columnar(String[] fields, List<Series> series) {
+        this.fields = fields;
+        this.series = series;
+    }
+
+    public List<String> getFields() {
+        return List.of(fields);
+    }
+
+    public List<Series> getSeries() {
+        return series;
+    }
+
+    /**
+     * The rows of one hive (or of the whole dataset), in time order.
+     */
+    public static final class Series {
+        private final String tagNumber;
+        private final long[] time;
+        private final double[][] columns;
+
+        private Series(String tagNumber, long[] time, double[][] columns) {
+            this.tagNumber = tagNumber;
+            this.time = time;
+            this.columns = columns;
+        }
+
+        /**
+         * @return Hive tag number, or null for series that do not belong to a hive
+         */
+        public String getTagNumber() {
+            return tagNumber;
+        }
+
+        public int size() {
+            return time.length;
+        }
+
+        public long epochSecond(int i) {
+            return time[i];
+        }
+
+        /**
+         * @param field Index in {@link Columnar#getFields()}
+         */
+        public double value(int field, int i) {
+            return columns[field][i];
+        }
+
+        /**
+         * @return The step between consecutive rows if they are evenly spaced (0 for fewer
+         *         than two rows), otherwise -1
+         */
+        public long step() {
+            if (time.length < 2) {
+                return 0;
+            }
+            long step = time[1] - time[0];
+            for (int i = 2; i < time.length; i++) {
+                if (time[i] - time[i - 1] != step) {
+                    return -1;
+                }
+            }
+            return step;
+        }
+    }
+
+    /**
+     * Collects rows grouped by hive; a row with a different tag than the previous one starts
+     * a new series. Not thread-safe.
+     */
+    public static final class Builder {
+        private final String[] fields;
+        private final List<Series> series = new ArrayList<>();
+        private String tagNumber;
+        private long[] time = new long[64];
+        private double[][] columns;
+        private int size;
+
+        /**
+         * @param fields Names of the value fields, in the order passed to {@link #add}
+         */
+        public Builder(String... fields) {
+            this.fields = fields;
+            this.columns = new double[fields.length][64];
+        }
+
+        /**
+         * Add one row. Within a series, timestamps must be non-decreasing.
+         *
+         * @param tagNumber   Hive tag number, or null
+         * @param epochSecond Timestamp, in epoch seconds
+         * @param values      One value per field
+         */
+        public void add(String tagNumber, long epochSecond, double... values) {
+            if (size > 0 && !Objects.equals(tagNumber, this.tagNumber)) {
+                flush();
+            }
+            this.tagNumber = tagNumber;
+            if (size == time.length) {
+                time = Arrays.copyOf(time, size * 2);
+                for (int f = 0; f < fields.length; f++) {
+                    columns[f] = Arrays.copyOf(columns[f], size * 2);
+                }
+            }
+            time[size] = epochSecond;
+            for (int f = 0; f < fields.length; f++) {
+                columns[f][size] = values[f];
+            }
+            size++;
+        }
+
+        private void flush() {
+            double[][] cols = new double[fields.length][];
+            for (int f = 0; f < fields.length; f++) {
+                cols[f] = Arrays.copyOf(columns[f], size);
+            }
+            series.add(new Series(tagNumber, Arrays.copyOf(time, size), cols));
+            size = 0;
+        }
+
+        public Columnar build() {
+            if (size > 0) {
+                flush();
+            }
+            return new Columnar(fields, series);
+        }
+    }
+}
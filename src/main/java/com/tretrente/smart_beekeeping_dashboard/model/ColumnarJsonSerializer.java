@@ -0,0 +1,82 @@
+package com.tretrente.smart_beekeeping_dashboard.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a {@link Columnar} straight from its arrays. Works with any Jackson generator, so
+ * the same code produces the JSON and the CBOR representation.
+ */
+public class ColumnarJsonSerializer extends StdSerializer<Columnar> {
+
+    // Doubles up to 2^53 are exact integers
+    private static final double MAX_EXACT = 9007199254740992.0;
+
+    public ColumnarJsonSerializer() {
+        super(Columnar.class);
+    }
+
+    @Override
+    public void serialize(Columnar columnar, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        List<String> fields = columnar.getFields();
+        gen.writeStartObject(columnar);
+        gen.writeArrayFieldStart("fields");
+        for (String field : fields) {
+            gen.writeString(field);
+        }
+        gen.writeEndArray();
+        gen.writeArrayFieldStart("series");
+        for (Columnar.Series s : columnar.getSeries()) {
+            gen.writeStartObject();
+            if (s.getTagNumber() != null) {
+                gen.writeStringField("tagNumber", s.getTagNumber());
+            }
+            gen.writeNumberField("size", s.size());
+            writeTime(gen, s);
+            for (int f = 0; f < fields.size(); f++) {
+                gen.writeArrayFieldStart(fields.get(f));
+                for (int i = 0; i < s.size(); i++) {
+                    writeNumber(gen, s.value(f, i));
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    private static void writeTime(JsonGenerator gen, Columnar.Series s) throws IOException {
+        gen.writeObjectFieldStart("time");
+        if (s.size() > 0) {
+            gen.writeNumberField("start", s.epochSecond(0));
+        }
+        long step = s.step();
+        if (step >= 0) {
+            gen.writeNumberField("step", step);
+        } else {
+            gen.writeArrayFieldStart("deltas");
+            for (int i = 1; i < s.size(); i++) {
+                gen.writeNumber(s.epochSecond(i) - s.epochSecond(i - 1));
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * Counts, offsets and readings such as {@code 26.0} are written as integers: shorter in
+     * JSON ("26" instead of "26.0") and in CBOR (1 to 5 bytes instead of 9).
+     */
+    private static void writeNumber(JsonGenerator gen, double v) throws IOException {
+        if (v == Math.rint(v) && Math.abs(v) <= MAX_EXACT) {
+            gen.writeNumber((long) v);
+        } else {
+            gen.writeNumber(v);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.tretrente.smart_beekeeping_dashboard.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of one ingestion batch:
+ * - accepted: readings appended to the live buffer
+ * - rejected: malformed readings that were skipped
+ * - errors: reasons for the first rejected readings, e.g. "line 3: humidity: not a number"
+ */
+@Getter
+@Setter
+public class IngestResult {
+    private long accepted;
+    private long rejected;
+    private List<String> errors = new ArrayList<>();
+
+    public IngestResult() { }
+
+    public IngestResult(long accepted, long rejected, List<String> errors) {
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.errors = errors;
+    }
+}
@@ -1,12 +1,14 @@
 package com.tretrente.smart_beekeeping_dashboard.model;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.tretrente.smart_beekeeping_dashboard.config.JacksonConfig;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.time.LocalDate;
 
 /**
- * Represents one row from inspections_2021.csv:
+ * Represents one row of an {@code inspections_<year>.csv} file:
  * - date: inspection date (e.g., "2021-01-15")
  * - tagNumber: hive identifier
  * - colonySize: number of frames occupied by bees (proxy for population)
@@ -18,7 +20,8 @@ import java.time.LocalDate;
  */
 @Getter
 @Setter
-public class Inspection2021Record {
+@JsonFilter(JacksonConfig.FIELDS_FILTER)
+public class InspectionRecord {
     private LocalDate date;
     private String tagNumber;
     private int colonySize;
@@ -32,9 +35,9 @@ public class Inspection2021Record {
     private String close;
     private String notes;
 
-    public Inspection2021Record() { }
+    public InspectionRecord() { }
 
-    public Inspection2021Record(LocalDate date, String tagNumber, int colonySize,
+    public InspectionRecord(LocalDate date, String tagNumber, int colonySize,
                                 int fob1st, int fob2nd, int fob3rd, int foBrood,
                                 String queenStatus, int framesOfHoney,
                                 String open, String close, String notes) {
@@ -0,0 +1,78 @@
+package com.tretrente.smart_beekeeping_dashboard.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-side aggregation of inspection records for the dashboard:
+ * - hives: every hive inspected in any year of the apiary, for the hive selector
+ * - inspections: number of inspections matching the date and hive filter
+ * - kpis: average colony size, honey yield, brood/adult ratio and QR percentage
+ *   (null when no inspection matches)
+ * - byHive: honey and brood frames per selected hive
+ * - queenStatus: inspection count per queen status for the selected hives
+ * - byDate: brood and adult frames per inspection date, over all hives in the date range
+ */
+@Getter
+@Setter
+public class InspectionSummary {
+    private List<String> hives = new ArrayList<>();
+    private int inspections;
+    private Kpis kpis;
+    private List<HiveTotals> byHive = new ArrayList<>();
+    private Map<String, Integer> queenStatus = new LinkedHashMap<>();
+    private List<DateTotals> byDate = new ArrayList<>();
+
+    /**
+     * Headline figures for the KPI doughnuts.
+     */
+    @Getter
+    @Setter
+    public static class Kpis {
+        private double avgColonySize;
+        private int honeyFrames;
+        private double honeyKg;
+        private double avgBroodRatio;
+        private int qrPercent;
+    }
+
+    /**
+     * Frame totals for one hive.
+     */
+    @Getter
+    @Setter
+    public static class HiveTotals {
+        private String tagNumber;
+        private int honeyFrames;
+        private int broodFrames;
+
+        public HiveTotals() { }
+
+        public HiveTotals(String tagNumber) {
+            this.tagNumber = tagNumber;
+        }
+    }
+
+    /**
+     * Brood and adult frame totals for one inspection date.
+     */
+    @Getter
+    @Setter
+    public static class DateTotals {
+        private LocalDate date;
+        private int brood;
+        private int adult;
+
+        public DateTotals() { }
+
+        public DateTotals(LocalDate date) {
+            this.date = date;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.tretrente.smart_beekeeping_dashboard.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental update pushed to connected dashboards:
+ * - readings: number of sensor readings ingested since the previous update
+ * - sensor: newest reading of every hive that received data
+ * - datasets: names of the datasets that were reloaded (e.g. "weather", "inspections"),
+ *   whose charts and KPIs should be fetched again
+ */
+@Getter
+@Setter
+public class LiveUpdate {
+    private int readings;
+    private List<SensorRecord> sensor = new ArrayList<>();
+    private List<String> datasets = new ArrayList<>();
+}
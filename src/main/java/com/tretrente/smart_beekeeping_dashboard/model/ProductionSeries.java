@@ -0,0 +1,96 @@
+package com.tretrente.smart_beekeeping_dashboard.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simulated daily honey production of a set of hives, stored column-wise.
+ * <p>
+ * Instead of one {@link ProductionData} per hive and day, the quantities live in a single
+ * {@code double[]} laid out hive by hive: the value of hive {@code h} on day {@code d} is
+ * at {@code h * days + d}. Day {@code d} is {@code start.plusDays(d)}.
+ * </p>
+ * Serializes to the same JSON as the equivalent {@code List<ProductionData>}
+ * (day by day, hives in request order).
+ */
+@JsonSerialize(using = ProductionSeriesJsonSerializer.class)
+public final class ProductionSeries {
+
+    private final List<String> hiveIds;
+    private final LocalDateTime start;
+    private final int days;
+    private final double[] honey;
+
+    /**
+     * @param hiveIds Hive identifiers, in output order
+     * @param start   Timestamp of day 0
+     * @param days    Number of days per hive
+     * @param honey   Honey quantities (kg), {@code hiveIds.size() * days} values, hive-major
+     */
+    public ProductionSeries(List<String> hiveIds, LocalDateTime start, int days, double[] honey) {
+        if (honey.length != (long) hiveIds.size() * days) {
+            throw new IllegalArgumentException("Expected " + (long) hiveIds.size() * days
+                    + " values, got " + honey.length);
+        }
+        this.hiveIds = List.copyOf(hiveIds);
+        this.start = start;
+        this.days = days;
+        this.honey = honey;
+    }
+
+    public List<String> getHiveIds() {
+        return hiveIds;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public int hiveCount() {
+        return hiveIds.size();
+    }
+
+    public int days() {
+        return days;
+    }
+
+    public LocalDateTime timestamp(int day) {
+        return start.plusDays(day);
+    }
+
+    /**
+     * @return Honey produced by hive {@code hive} (index into {@link #getHiveIds()}) on day {@code day}
+     */
+    public double honey(int hive, int day) {
+        return honey[hive * days + day];
+    }
+
+    /**
+     * @return Total honey of one hive over the whole period
+     */
+    public double totalHoney(int hive) {
+        double sum = 0;
+        for (int i = hive * days, end = i + days; i < end; i++) {
+            sum += honey[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Materialize the series as record objects, day by day. Allocates one object graph per
+     * value; meant for small simulations.
+     */
+    public List<ProductionData> toRecords() {
+        List<ProductionData> result = new ArrayList<>(hiveIds.size() * days);
+        for (int d = 0; d < days; d++) {
+            LocalDateTime ts = timestamp(d);
+            for (int h = 0; h < hiveIds.size(); h++) {
+                result.add(new ProductionData(hiveIds.get(h), ts, honey(h, d)));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,38 @@
+package com.tretrente.smart_beekeeping_dashboard.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Writes a {@link ProductionSeries} as the array of {@link ProductionData} objects it
+ * stands for, straight from the columnar array. Each day's timestamp is formatted once.
+ */
+public class ProductionSeriesJsonSerializer extends StdSerializer<ProductionSeries> {
+
+    public ProductionSeriesJsonSerializer() {
+        super(ProductionSeries.class);
+    }
+
+    @Override
+    public void serialize(ProductionSeries series, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        List<String> hiveIds = series.getHiveIds();
+        gen.writeStartArray(series);
+        for (int d = 0; d < series.days(); d++) {
+            // Same text as Jackson's default LocalDateTime serializer
+            String timestamp = DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(series.timestamp(d));
+            for (int h = 0; h < hiveIds.size(); h++) {
+                gen.writeStartObject();
+                gen.writeStringField("hiveId", hiveIds.get(h));
+                gen.writeStringField("timestamp", timestamp);
+                gen.writeNumberField("honeyQuantity", series.honey(h, d));
+                gen.writeEndObject();
+            }
+        }
+        gen.writeEndArray();
+    }
+}
@@ -0,0 +1,52 @@
+package com.tretrente.smart_beekeeping_dashboard.model;
+
+/**
+ * Bucket sizes supported by the rollup API ({@code resolution=} parameter).
+ * Weekly buckets start on Monday 00:00; the others are aligned to the epoch.
+ */
+public enum Resolution {
+    M15("15m", 15 * 60, 0),
+    H1("1h", 60 * 60, 0),
+    D1("1d", 24 * 60 * 60, 0),
+    // 1970-01-01 was a Thursday: shift by 3 days so buckets start on Monday
+    W1("1w", 7 * 24 * 60 * 60, 3 * 24 * 60 * 60);
+
+    private final String code;
+    private final long seconds;
+    private final long alignOffset;
+
+    Resolution(String code, long seconds, long alignOffset) {
+        this.code = code;
+        this.seconds = seconds;
+        this.alignOffset = alignOffset;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+
+    /**
+     * @param epochSecond Timestamp, in epoch seconds
+     * @return Start of the bucket containing the timestamp, in epoch seconds
+     */
+    public long bucketStart(long epochSecond) {
+        return Math.floorDiv(epochSecond + alignOffset, seconds) * seconds - alignOffset;
+    }
+
+    /**
+     * @param code "15m", "1h", "1d" or "1w"
+     * @throws IllegalArgumentException for any other value
+     */
+    public static Resolution fromCode(String code) {
+        for (Resolution r : values()) {
+            if (r.code.equalsIgnoreCase(code)) {
+                return r;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported resolution '" + code + "', expected 15m, 1h, 1d or 1w");
+    }
+}
@@ -0,0 +1,39 @@
+package com.tretrente.smart_beekeeping_dashboard.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Response body of a rollup query: one or more {@link RollupSeries} (e.g. one per hive),
+ * serialized as a single flat JSON array of buckets:
+ * <pre>{@code
+ * [{"start":"2021-06-01T00:00:00","tagNumber":"3629","count":4,
+ *   "temperature":{"min":25.8,"max":26.2,"mean":26.0,"last":26.2,"sum":104.0}, ...}, ...]
+ * }</pre>
+ * {@code tagNumber} is omitted for series that do not belong to a hive.
+ */
+@JsonSerialize(using = RollupJsonSerializer.class)
+public final class Rollup {
+
+    private final List<RollupSeries> series;
+    private final Set<String> fields;
+
+    /**
+     * @param series Series to write, in order
+     * @param fields Value fields to include; null for all
+     */
+    public Rollup(List<RollupSeries> series, Set<String> fields) {
+        this.series = series;
+        this.fields = fields;
+    }
+
+    public List<RollupSeries> getSeries() {
+        return series;
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+}
@@ -0,0 +1,51 @@
+package com.tretrente.smart_beekeeping_dashboard.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a {@link Rollup} straight from the columnar bucket arrays.
+ */
+public class RollupJsonSerializer extends StdSerializer<Rollup> {
+
+    public RollupJsonSerializer() {
+        super(Rollup.class);
+    }
+
+    @Override
+    public void serialize(Rollup rollup, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        StringBuilder start = new StringBuilder(19);
+        gen.writeStartArray(rollup);
+        for (RollupSeries s : rollup.getSeries()) {
+            List<String> fields = s.getFields();
+            for (int i = 0; i < s.size(); i++) {
+                start.setLength(0);
+                gen.writeStartObject();
+                gen.writeStringField("start", EpochTime.appendIso(start, s.bucketStart(i)).toString());
+                if (s.getTagNumber() != null) {
+                    gen.writeStringField("tagNumber", s.getTagNumber());
+                }
+                gen.writeNumberField("count", s.count(i));
+                for (int f = 0; f < fields.size(); f++) {
+                    if (rollup.getFields() != null && !rollup.getFields().contains(fields.get(f))) {
+                        continue;
+                    }
+                    gen.writeObjectFieldStart(fields.get(f));
+                    gen.writeNumberField("min", s.min(f, i));
+                    gen.writeNumberField("max", s.max(f, i));
+                    gen.writeNumberField("mean", s.mean(f, i));
+                    gen.writeNumberField("last", s.last(f, i));
+                    gen.writeNumberField("sum", s.sum(f, i));
+                    gen.writeEndObject();
+                }
+                gen.writeEndObject();
+            }
+        }
+        gen.writeEndArray();
+    }
+}
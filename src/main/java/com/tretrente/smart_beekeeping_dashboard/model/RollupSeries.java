@@ -0,0 +1,232 @@
+package com.tretrente.smart_beekeeping_dashboard.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable, columnar time-bucketed statistics for one series (the weather station or one hive).
+ * <p>
+ * For every bucket the series stores its start (epoch seconds, UTC), the number of
+ * observations and, per field, the min, max, sum and last value. NaN values (not reported)
+ * are left out of a field's statistics, so the mean is derived as {@code sum} over the
+ * number of values of that field; a field without any value in a bucket reads NaN. {@link #slice(long, long)} returns a view over a bucket range
+ * without copying the arrays.
+ * </p>
+ */
+public final class RollupSeries {
+
+    private final String tagNumber;
+    private final Resolution resolution;
+    private final String[] fields;
+    private final long[] bucketStart;
+    private final int[] count;
+    private final int[][] valueCount;
+    private final double[][] min;
+    private final double[][] max;
+    private final double[][] sum;
+    private final double[][] last;
+    private final int from;
+    private final int to;
+
+    private RollupSeries(String tagNumber, Resolution resolution, String[] fields,
+                         long[] bucketStart, int[] count, int[][] valueCount,
+                         double[][] min, double[][] max, double[][] sum, double[][] last,
+                         int from, int to) {
+        this.tagNumber = tagNumber;
+        this.resolution = resolution;
+        this.fields = fields;
+        this.bucketStart = bucketStart;
+        this.count = count;
+        this.valueCount = valueCount;
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+        this.last = last;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @return Hive tag number, or null for series that do not belong to a hive
+     */
+    public String getTagNumber() {
+        return tagNumber;
+    }
+
+    public Resolution getResolution() {
+        return resolution;
+    }
+
+    public List<String> getFields() {
+        return List.of(fields);
+    }
+
+    /**
+     * @return Number of buckets in this view
+     */
+    public int size() {
+        return to - from;
+    }
+
+    public long bucketStart(int i) {
+        return bucketStart[from + i];
+    }
+
+    public int count(int i) {
+        return count[from + i];
+    }
+
+    public double min(int field, int i) {
+        return min[field][from + i];
+    }
+
+    public double max(int field, int i) {
+        return max[field][from + i];
+    }
+
+    public double sum(int field, int i) {
+        return sum[field][from + i];
+    }
+
+    public double mean(int field, int i) {
+        return sum[field][from + i] / valueCount[field][from + i];
+    }
+
+    public double last(int field, int i) {
+        return last[field][from + i];
+    }
+
+    /**
+     * View over the buckets whose start lies in {@code [fromEpoch, toEpoch]}.
+     */
+    public RollupSeries slice(long fromEpoch, long toEpoch) {
+        int lo = lowerBound(fromEpoch);
+        int hi = Math.max(lo, lowerBound(toEpoch + 1));
+        return new RollupSeries(tagNumber, resolution, fields, bucketStart, count, valueCount,
+                min, max, sum, last, lo, hi);
+    }
+
+    private int lowerBound(long key) {
+        int lo = from, hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (bucketStart[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Accumulates time-ordered observations into buckets. Not thread-safe.
+     */
+    public static final class Builder {
+        private final String tagNumber;
+        private final Resolution resolution;
+        private final String[] fields;
+        private long[] bucketStart;
+        private int[] count;
+        private int[][] valueCount;
+        private double[][] min;
+        private double[][] max;
+        private double[][] sum;
+        private double[][] last;
+        private int size;
+
+        /**
+         * @param tagNumber  Hive tag number, or null
+         * @param resolution Bucket size
+         * @param fields     Names of the value fields, in the order passed to {@link #add}
+         */
+        public Builder(String tagNumber, Resolution resolution, String... fields) {
+            this.tagNumber = tagNumber;
+            this.resolution = resolution;
+            this.fields = fields;
+            this.bucketStart = new long[64];
+            this.count = new int[64];
+            this.valueCount = new int[fields.length][64];
+            this.min = new double[fields.length][64];
+            this.max = new double[fields.length][64];
+            this.sum = new double[fields.length][64];
+            this.last = new double[fields.length][64];
+        }
+
+        /**
+         * Add one observation. Timestamps must be non-decreasing.
+         *
+         * @param epochSecond Timestamp, in epoch seconds
+         * @param values      One value per field
+         */
+        public void add(long epochSecond, double... values) {
+            long start = resolution.bucketStart(epochSecond);
+            if (size == 0 || bucketStart[size - 1] != start) {
+                if (size == bucketStart.length) {
+                    grow();
+                }
+                bucketStart[size] = start;
+                for (int f = 0; f < fields.length; f++) {
+                    min[f][size] = Double.POSITIVE_INFINITY;
+                    max[f][size] = Double.NEGATIVE_INFINITY;
+                    last[f][size] = Double.NaN;
+                }
+                size++;
+            }
+            int b = size - 1;
+            count[b]++;
+            for (int f = 0; f < fields.length; f++) {
+                double v = values[f];
+                if (Double.isNaN(v)) {
+                    continue;
+                }
+                valueCount[f][b]++;
+                if (v < min[f][b]) {
+                    min[f][b] = v;
+                }
+                if (v > max[f][b]) {
+                    max[f][b] = v;
+                }
+                sum[f][b] += v;
+                last[f][b] = v;
+            }
+        }
+
+        private void grow() {
+            int capacity = bucketStart.length * 2;
+            bucketStart = Arrays.copyOf(bucketStart, capacity);
+            count = Arrays.copyOf(count, capacity);
+            for (int f = 0; f < fields.length; f++) {
+                valueCount[f] = Arrays.copyOf(valueCount[f], capacity);
+                min[f] = Arrays.copyOf(min[f], capacity);
+                max[f] = Arrays.copyOf(max[f], capacity);
+                sum[f] = Arrays.copyOf(sum[f], capacity);
+                last[f] = Arrays.copyOf(last[f], capacity);
+            }
+        }
+
+        public RollupSeries build() {
+            int[][] vc = new int[fields.length][];
+            double[][] mn = new double[fields.length][];
+            double[][] mx = new double[fields.length][];
+            double[][] sm = new double[fields.length][];
+            double[][] ls = new double[fields.length][];
+            for (int f = 0; f < fields.length; f++) {
+                vc[f] = Arrays.copyOf(valueCount[f], size);
+                mn[f] = Arrays.copyOf(min[f], size);
+                mx[f] = Arrays.copyOf(max[f], size);
+                sm[f] = Arrays.copyOf(sum[f], size);
+                ls[f] = Arrays.copyOf(last[f], size);
+                for (int b = 0; b < size; b++) {
+                    if (vc[f][b] == 0) {
+                        mn[f][b] = Double.NaN;
+                        mx[f][b] = Double.NaN;
+                    }
+                }
+            }
+            return new RollupSeries(tagNumber, resolution, fields,
+                    Arrays.copyOf(bucketStart, size), Arrays.copyOf(count, size), vc,
+                    mn, mx, sm, ls, 0, size);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.tretrente.smart_beekeeping_dashboard.model;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.tretrente.smart_beekeeping_dashboard.config.JacksonConfig;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,9 +13,11 @@ import java.time.LocalDateTime;
  * - temperature: temperature in °C
  * - humidity: relative humidity in %
  * - precipitation: precipitation amount in mm
+ * Values the station did not report are NaN.
  */
 @Getter
 @Setter
+@JsonFilter(JacksonConfig.FIELDS_FILTER)
 public class WeatherRecord {
     private LocalDateTime dateTime;
     private double temperature;
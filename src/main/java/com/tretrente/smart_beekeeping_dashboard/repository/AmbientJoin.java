@@ -0,0 +1,181 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+
+import java.util.Collection;
+
+/**
+ * As-of join of hive sensor readings with the ambient weather observations.
+ * <p>
+ * Sensor timestamps are UTC while the weather file is in local standard time, so weather
+ * timestamps are shifted by the station's UTC offset before they are compared. Each hive's
+ * readings and the weather observations are both sorted by time, so one merge pass per hive
+ * matches every reading with the latest observation at or before it ({@link Match#PRECEDING})
+ * or the closest one ({@link Match#NEAREST}): O(readings + observations) with no hashing.
+ * Observations without a temperature are skipped, and readings without an observation
+ * within the tolerance are left out.
+ * </p>
+ * The result is two parallel {@code int[]} of matched row positions, one into the sensor
+ * series and one into the weather index; values are read from the sources on access.
+ */
+@JsonSerialize(using = AmbientJoinJsonSerializer.class)
+public final class AmbientJoin {
+
+    /**
+     * Which weather observation a reading is matched with.
+     */
+    public enum Match {
+        /** Latest observation at or before the reading */
+        PRECEDING,
+        /** Closest observation before or after the reading; the earlier one on a tie */
+        NEAREST;
+
+        public static Match fromCode(String code) {
+            for (Match m : values()) {
+                if (m.name().equalsIgnoreCase(code)) {
+                    return m;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported match '" + code + "', expected preceding or nearest");
+        }
+    }
+
+    private final SensorSeries sensor;
+    private final TimeIndex<WeatherRecord> weather;
+    private final long weatherOffsetSeconds;
+    private final int[] sensorRows;
+    private final int[] weatherRows;
+    private final int size;
+
+    private AmbientJoin(SensorSeries sensor, TimeIndex<WeatherRecord> weather, long weatherOffsetSeconds,
+                        int[] sensorRows, int[] weatherRows, int size) {
+        this.sensor = sensor;
+        this.weather = weather;
+        this.weatherOffsetSeconds = weatherOffsetSeconds;
+        this.sensorRows = sensorRows;
+        this.weatherRows = weatherRows;
+        this.size = size;
+    }
+
+    /**
+     * Join the readings of {@code sensor} between two timestamps with {@code weather}.
+     *
+     * @param sensor               Hive readings, UTC
+     * @param weather              Weather observations, local standard time
+     * @param weatherOffsetSeconds UTC offset of the weather timestamps, e.g. -18000 for UTC-05:00
+     * @param from                 Lower bound of the readings, inclusive, in epoch seconds (UTC)
+     * @param to                   Upper bound of the readings, inclusive, in epoch seconds (UTC)
+     * @param tagNumbers           Hives to include; null or empty for all
+     * @param match                Observation a reading is matched with
+     * @param toleranceSeconds     Largest distance between a reading and its observation
+     */
+    public static AmbientJoin join(SensorSeries sensor, TimeIndex<WeatherRecord> weather, long weatherOffsetSeconds,
+                                   long from, long to, Collection<String> tagNumbers, Match match,
+                                   long toleranceSeconds) {
+        int hives = sensor.hiveCount();
+        int[] starts = new int[hives];
+        int[] ends = new int[hives];
+        int capacity = 0;
+        for (int h = 0; h < hives; h++) {
+            if (tagNumbers == null || tagNumbers.isEmpty() || tagNumbers.contains(sensor.hiveTag(h))) {
+                int[] range = sensor.range(h, from, to);
+                starts[h] = range[0];
+                ends[h] = range[1];
+                capacity += range[1] - range[0];
+            }
+        }
+
+        int[] sensorRows = new int[capacity];
+        int[] weatherRows = new int[capacity];
+        int n = 0;
+        int m = weather.size();
+        for (int h = 0; h < hives; h++) {
+            if (starts[h] == ends[h]) {
+                continue;
+            }
+            // Weather times are compared in local standard time: a UTC reading at t is t + offset there
+            int j = weather.lowerBound(sensor.epochSecond(starts[h]) + weatherOffsetSeconds);
+            for (int i = starts[h]; i < ends[h]; i++) {
+                long key = sensor.epochSecond(i) + weatherOffsetSeconds;
+                while (j < m && weather.time(j) <= key) {
+                    j++;
+                }
+                // j is the first observation after the reading, j - 1 the last one at or before it;
+                // observations without a temperature are passed over
+                int best = withTemperature(weather, j - 1, -1);
+                int after = match == Match.NEAREST ? withTemperature(weather, j, 1) : m;
+                if (after < m && (best < 0 || weather.time(after) - key < key - weather.time(best))) {
+                    best = after;
+                }
+                if (best >= 0 && Math.abs(weather.time(best) - key) <= toleranceSeconds) {
+                    sensorRows[n] = i;
+                    weatherRows[n] = best;
+                    n++;
+                }
+            }
+        }
+        return new AmbientJoin(sensor, weather, weatherOffsetSeconds, sensorRows, weatherRows, n);
+    }
+
+    /**
+     * First observation from {@code i} on, stepping by {@code step}, that has a temperature.
+     *
+     * @return Its position; -1 or {@code weather.size()} if there is none
+     */
+    private static int withTemperature(TimeIndex<WeatherRecord> weather, int i, int step) {
+        while (i >= 0 && i < weather.size() && Double.isNaN(weather.records().get(i).getTemperature())) {
+            i += step;
+        }
+        return i;
+    }
+
+    /**
+     * @return Number of matched readings, grouped by hive and then in time order
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Tag number of the hive of the reading
+     */
+    public String tagNumber(int i) {
+        return sensor.hiveTag(sensor.hiveIdAt(sensorRows[i]));
+    }
+
+    /**
+     * @return Time of the reading, in epoch seconds (UTC)
+     */
+    public long epochSecond(int i) {
+        return sensor.epochSecond(sensorRows[i]);
+    }
+
+    /**
+     * @return Hive temperature of the reading, °C
+     */
+    public double temperature(int i) {
+        return sensor.temperature(sensorRows[i]);
+    }
+
+    /**
+     * @return Time of the matched weather observation, in epoch seconds (UTC)
+     */
+    public long ambientEpochSecond(int i) {
+        return weather.time(weatherRows[i]) - weatherOffsetSeconds;
+    }
+
+    /**
+     * @return Temperature of the matched weather observation, °C
+     */
+    public double ambientTemperature(int i) {
+        return weather.records().get(weatherRows[i]).getTemperature();
+    }
+
+    /**
+     * @return Hive temperature minus ambient temperature, °C
+     */
+    public double delta(int i) {
+        return temperature(i) - ambientTemperature(i);
+    }
+}
@@ -0,0 +1,46 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+
+import java.io.IOException;
+
+/**
+ * Writes an {@link AmbientJoin} as a JSON array of objects, one per matched reading:
+ * {@code date}, {@code tagNumber}, {@code temperature}, {@code ambientDate} (UTC),
+ * {@code ambientTemperature} and {@code delta}.
+ */
+public class AmbientJoinJsonSerializer extends StdSerializer<AmbientJoin> {
+
+    public AmbientJoinJsonSerializer() {
+        super(AmbientJoin.class);
+    }
+
+    @Override
+    public void serialize(AmbientJoin join, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        StringBuilder date = new StringBuilder(19);
+        char[] buf = new char[19];
+        gen.writeStartArray(join, join.size());
+        for (int i = 0; i < join.size(); i++) {
+            gen.writeStartObject();
+            date.setLength(0);
+            EpochTime.appendIso(date, join.epochSecond(i));
+            date.getChars(0, date.length(), buf, 0);
+            gen.writeFieldName("date");
+            gen.writeString(buf, 0, date.length());
+            gen.writeStringField("tagNumber", join.tagNumber(i));
+            gen.writeNumberField("temperature", join.temperature(i));
+            date.setLength(0);
+            EpochTime.appendIso(date, join.ambientEpochSecond(i));
+            date.getChars(0, date.length(), buf, 0);
+            gen.writeFieldName("ambientDate");
+            gen.writeString(buf, 0, date.length());
+            gen.writeNumberField("ambientTemperature", join.ambientTemperature(i));
+            gen.writeNumberField("delta", join.delta(i));
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+}
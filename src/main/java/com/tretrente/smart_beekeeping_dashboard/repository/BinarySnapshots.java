@@ -0,0 +1,164 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshots of parsed datasets, so that later boots skip CSV parsing.
+ * <p>
+ * After a dataset has been parsed from its CSV source, it is encoded with its
+ * {@link SnapshotCodec} into {@code <dir>/<name>.snap}. The file header records the
+ * length and CRC32C checksum of the source bytes, and a CRC32C of the snapshot itself
+ * ends the file. On the next load the snapshot is memory-mapped and decoded only if it is
+ * intact and the source still matches, otherwise the CSV is parsed again and the snapshot
+ * rewritten. Snapshot failures never break loading: they are logged and the CSV result is
+ * used.
+ * </p>
+ */
+@Component
+public class BinarySnapshots {
+
+    private static final Logger log = LoggerFactory.getLogger(BinarySnapshots.class);
+
+    /** "SBDS" */
+    private static final int MAGIC = 0x53424453;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 28;
+    private static final int TRAILER_BYTES = 8;
+
+    private final Path dir;
+    private final boolean enabled;
+
+    /**
+     * Parses a dataset from its CSV bytes.
+     *
+     * @param <S> type of the parsed data
+     */
+    @FunctionalInterface
+    public interface Parser<S> {
+        S parse(ByteBuffer csv) throws IOException;
+    }
+
+    /**
+     * @param dir     Directory holding the snapshot files (created on demand)
+     * @param enabled false to always parse the CSV and never write snapshots
+     */
+    public BinarySnapshots(@Value("${urban.snapshots.dir:${java.io.tmpdir}/smart-beekeeping-dashboard/snapshots}") String dir,
+                           @Value("${urban.snapshots.enabled:true}") boolean enabled) {
+        this.dir = Path.of(dir);
+        this.enabled = enabled;
+    }
+
+    /**
+     * Load a dataset from its snapshot when it is up to date with {@code csv}, otherwise
+     * parse the CSV and write a new snapshot.
+     *
+     * @param name   Dataset name, used as the snapshot file name
+     * @param csv    Source bytes (position to limit)
+     * @param codec  Snapshot encoding
+     * @param parser CSV parser, used when there is no valid snapshot
+     */
+    public <S> S load(String name, ByteBuffer csv, SnapshotCodec<S> codec, Parser<S> parser) throws IOException {
+        if (!enabled) {
+            return parser.parse(csv);
+        }
+        long checksum = checksum(csv);
+        Path file = dir.resolve(name + ".snap");
+
+        S data = read(file, csv.remaining(), checksum, codec);
+        if (data != null) {
+            log.debug("Dataset '{}' loaded from snapshot {}", name, file);
+            return data;
+        }
+        data = parser.parse(csv);
+        write(file, csv.remaining(), checksum, codec, data);
+        return data;
+    }
+
+    private static long checksum(ByteBuffer csv) {
+        CRC32C crc = new CRC32C();
+        crc.update(csv.duplicate());
+        return crc.getValue();
+    }
+
+    /**
+     * @return The decoded data, or null when the snapshot is missing, stale, corrupt or
+     * unreadable
+     */
+    private <S> S read(Path file, long sourceLength, long checksum, SnapshotCodec<S> codec) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            ByteBuffer buf = CsvChunks.map(file);
+            int size = buf.limit();
+            if (size < HEADER_BYTES + TRAILER_BYTES) {
+                log.warn("Snapshot {} is truncated, parsing the CSV again", file);
+                return null;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buf.slice(0, size - TRAILER_BYTES));
+            if (crc.getValue() != buf.getLong(size - TRAILER_BYTES)) {
+                log.warn("Snapshot {} is corrupt, parsing the CSV again", file);
+                return null;
+            }
+            buf.limit(size - TRAILER_BYTES);
+            if (buf.getInt() != MAGIC || buf.getInt() != FORMAT_VERSION || buf.getInt() != codec.version()
+                    || buf.getLong() != sourceLength || buf.getLong() != checksum) {
+                log.info("Snapshot {} is out of date, parsing the CSV again", file);
+                return null;
+            }
+            return codec.read(buf);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot read snapshot {}, parsing the CSV again: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Write to a temporary file and move it into place, so readers never see a partial file.
+     * The trailer is the CRC32C of every byte before it.
+     */
+    private <S> void write(Path file, long sourceLength, long checksum, SnapshotCodec<S> codec, S data) {
+        Path tmp = null;
+        try {
+            Files.createDirectories(dir);
+            tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            CRC32C crc = new CRC32C();
+            try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16), crc))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(codec.version());
+                out.writeLong(sourceLength);
+                out.writeLong(checksum);
+                codec.write(data, out);
+                // Taken before the trailer is written, which it does not cover
+                out.writeLong(crc.getValue());
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Wrote snapshot {} ({} bytes)", file, Files.size(file));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot write snapshot {}: {}", file, e.toString());
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // best effort
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import com.tretrente.smart_beekeeping_dashboard.util.HeapEstimator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read-only time series held as {@link GorillaBlock}s, a compact alternative to the
+ * columnar {@link SensorSeries} and {@link TimeIndex} for data kept resident for a long
+ * time.
+ * <p>
+ * Rows are grouped by key (the hive tag; a single null key for the weather) and, within a
+ * key, cut into blocks of at most {@code blockRows} consecutive rows. A {@link Scan} skips
+ * the blocks that end before the range by binary search over their last timestamps, decodes
+ * the others one row at a time and stops at the first block starting after the range, so
+ * nothing is decompressed up front and a scan allocates one decoder.
+ * </p>
+ */
+public final class CompressedSeries {
+
+    /** Block size used by {@link #of(SensorSeries)} and {@link #of(TimeIndex)}. */
+    public static final int DEFAULT_BLOCK_ROWS = 1024;
+
+    private static final String[] SENSOR_FIELDS = { "temperature", "humidity" };
+    private static final String[] WEATHER_FIELDS = { "temperature", "humidity", "precipitation" };
+
+    private final String[] fields;
+    private final String[] keys;
+    // Blocks of key k: [keyBlocks[k], keyBlocks[k + 1])
+    private final int[] keyBlocks;
+    private final GorillaBlock[] blocks;
+    private final long[] lastTimes;
+    private final int rows;
+
+    private CompressedSeries(String[] fields, String[] keys, int[] keyBlocks, List<GorillaBlock> blocks) {
+        this.fields = fields;
+        this.keys = keys;
+        this.keyBlocks = keyBlocks;
+        this.blocks = blocks.toArray(new GorillaBlock[0]);
+        this.lastTimes = new long[this.blocks.length];
+        int total = 0;
+        for (int b = 0; b < this.blocks.length; b++) {
+            lastTimes[b] = this.blocks[b].lastTime();
+            total += this.blocks[b].rows();
+        }
+        this.rows = total;
+    }
+
+    /**
+     * Compress sensor readings, one key per hive; fields {@code temperature}, {@code humidity}.
+     */
+    public static CompressedSeries of(SensorSeries series) {
+        return of(series, DEFAULT_BLOCK_ROWS);
+    }
+
+    public static CompressedSeries of(SensorSeries series, int blockRows) {
+        String[] keys = new String[series.hiveCount()];
+        int[] keyBlocks = new int[keys.length + 1];
+        List<GorillaBlock> blocks = new ArrayList<>();
+        double[] values = new double[SENSOR_FIELDS.length];
+        for (int h = 0; h < keys.length; h++) {
+            keys[h] = series.hiveTag(h);
+            keyBlocks[h] = blocks.size();
+            GorillaBlock.Encoder encoder = new GorillaBlock.Encoder(values.length);
+            for (int i = series.hiveStart(h); i < series.hiveEnd(h); i++) {
+                values[0] = series.temperature(i);
+                values[1] = series.humidity(i);
+                encoder = add(encoder, series.epochSecond(i), values, blockRows, blocks);
+            }
+            flush(encoder, blocks);
+        }
+        keyBlocks[keys.length] = blocks.size();
+        return new CompressedSeries(SENSOR_FIELDS, keys, keyBlocks, blocks);
+    }
+
+    /**
+     * Compress weather observations under a single null key, with the timestamps of the
+     * index; fields {@code temperature}, {@code humidity}, {@code precipitation}.
+     */
+    public static CompressedSeries of(TimeIndex<WeatherRecord> weather) {
+        return of(weather, DEFAULT_BLOCK_ROWS);
+    }
+
+    public static CompressedSeries of(TimeIndex<WeatherRecord> weather, int blockRows) {
+        List<GorillaBlock> blocks = new ArrayList<>();
+        double[] values = new double[WEATHER_FIELDS.length];
+        GorillaBlock.Encoder encoder = new GorillaBlock.Encoder(values.length);
+        List<WeatherRecord> records = weather.records();
+        for (int i = 0; i < records.size(); i++) {
+            WeatherRecord w = records.get(i);
+            values[0] = w.getTemperature();
+            values[1] = w.getHumidity();
+            values[2] = w.getPrecipitation();
+            encoder = add(encoder, weather.time(i), values, blockRows, blocks);
+        }
+        flush(encoder, blocks);
+        return new CompressedSeries(WEATHER_FIELDS, new String[] { null }, new int[] { 0, blocks.size() }, blocks);
+    }
+
+    private static GorillaBlock.Encoder add(GorillaBlock.Encoder encoder, long epochSecond, double[] values,
+                                            int blockRows, List<GorillaBlock> blocks) {
+        if (encoder.rows() == blockRows) {
+            blocks.add(encoder.build());
+            encoder = new GorillaBlock.Encoder(values.length);
+        }
+        encoder.add(epochSecond, values);
+        return encoder;
+    }
+
+    private static void flush(GorillaBlock.Encoder encoder, List<GorillaBlock> blocks) {
+        if (encoder.rows() > 0) {
+            blocks.add(encoder.build());
+        }
+    }
+
+    /**
+     * @return Number of rows
+     */
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * @return Names of the value columns, in {@link Scan#value} order
+     */
+    public List<String> fields() {
+        return List.of(fields);
+    }
+
+    /**
+     * @return Keys in scan order: hive tags, or a single null for the weather
+     */
+    public List<String> keys() {
+        return Arrays.asList(keys);
+    }
+
+    public int blockCount() {
+        return blocks.length;
+    }
+
+    /**
+     * @return Approximate heap size of the blocks and their index
+     */
+    public long estimatedBytes() {
+        long bytes = HeapEstimator.array(blocks.length, HeapEstimator.REFERENCE)
+                + HeapEstimator.array(lastTimes.length, 8) + HeapEstimator.array(keyBlocks.length, 4);
+        for (GorillaBlock block : blocks) {
+            bytes += block.estimatedBytes();
+        }
+        for (String key : keys) {
+            bytes += HeapEstimator.string(key);
+        }
+        return bytes;
+    }
+
+    /**
+     * Rows with {@code from <= epochSecond <= to} of the requested keys, grouped by key and
+     * then in time order.
+     *
+     * @param from   Lower bound, inclusive, in epoch seconds
+     * @param to     Upper bound, inclusive, in epoch seconds
+     * @param wanted Keys to include; null or empty for all
+     */
+    public Scan scan(long from, long to, Collection<String> wanted) {
+        // (first block, end block, key) triples
+        int[] ranges = new int[3 * keys.length];
+        int n = 0;
+        for (int k = 0; k < keys.length; k++) {
+            if (wanted != null && !wanted.isEmpty() && !wanted.contains(keys[k])) {
+                continue;
+            }
+            // First block of the key that ends at or after `from`
+            ranges[n++] = TimeIndex.lowerBound(lastTimes, keyBlocks[k], keyBlocks[k + 1], from);
+            ranges[n++] = keyBlocks[k + 1];
+            ranges[n++] = k;
+        }
+        return new Scan(Arrays.copyOf(ranges, n), from, to);
+    }
+
+    /**
+     * @return Scan over every row
+     */
+    public Scan scan() {
+        return scan(Long.MIN_VALUE, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Forward-only view over the rows of a {@link #scan}, decoded as it advances:
+     * <pre>{@code
+     * CompressedSeries.Scan s = series.scan(from, to, null);
+     * while (s.next()) {
+     *     sum += s.value(0);
+     * }
+     * }</pre>
+     * Not thread-safe.
+     */
+    public final class Scan {
+        private final int[] ranges;
+        private final long from;
+        private final long to;
+        private final GorillaBlock.Decoder decoder = new GorillaBlock.Decoder(fields.length);
+        private int range = -3;
+        private int block;
+        private int end;
+        private int key;
+        private boolean decoding;
+
+        private Scan(int[] ranges, long from, long to) {
+            this.ranges = ranges;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Advance to the next row in range.
+         *
+         * @return false once every key is exhausted
+         */
+        public boolean next() {
+            while (true) {
+                if (decoding) {
+                    if (decoder.next()) {
+                        long t = decoder.epochSecond();
+                        if (t > to) {
+                            // Blocks are in time order: the rest of the key is out of range
+                            decoding = false;
+                            block = end;
+                        } else if (t >= from) {
+                            return true;
+                        }
+                        continue;
+                    }
+                    decoding = false;
+                    block++;
+                }
+                if (block >= end) {
+                    range += 3;
+                    if (range >= ranges.length) {
+                        return false;
+                    }
+                    block = ranges[range];
+                    end = ranges[range + 1];
+                    key = ranges[range + 2];
+                    continue;
+                }
+                if (blocks[block].firstTime() > to) {
+                    block = end;
+                    continue;
+                }
+                decoder.reset(blocks[block]);
+                decoding = true;
+            }
+        }
+
+        public long epochSecond() {
+            return decoder.epochSecond();
+        }
+
+        /**
+         * @return Key of the current row: its hive tag, or null for the weather
+         */
+        public String key() {
+            return keys[key];
+        }
+
+        /**
+         * @param field Index in {@link #fields()}
+         */
+        public double value(int field) {
+            return decoder.value(field);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Helpers to read a CSV file as raw bytes and parse it in parallel.
+ * <p>
+ * The data lines are cut into byte ranges that start right after a newline, so every
+ * range holds whole lines and can be parsed independently. Ranges are parsed on a
+ * {@link ForkJoinPool} and the per-range results are returned in file order for the
+ * caller to merge. Quoted fields spanning several lines are not supported, which is fine
+ * for the sensor and weather logs.
+ * </p>
+ */
+public final class CsvChunks {
+
+    /** Files are not split into ranges smaller than this. */
+    public static final int MIN_CHUNK_BYTES = 1 << 20;
+
+    private CsvChunks() { }
+
+    /**
+     * Parser for the whole lines in {@code [from, to)} of a buffer.
+     *
+     * @param <R> per-range result
+     */
+    @FunctionalInterface
+    public interface ChunkParser<R> {
+        R parse(ByteBuffer buf, int from, int to) throws IOException;
+    }
+
+    /**
+     * Map a file read-only into memory.
+     */
+    public static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+    }
+
+    /**
+     * Bytes of a resource: memory-mapped when it is a plain file, read into the heap
+     * otherwise (e.g. when packaged inside the application jar).
+     */
+    public static ByteBuffer bytes(Resource resource) throws IOException {
+        if (resource.isFile()) {
+            return map(resource.getFile().toPath());
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return ByteBuffer.wrap(in.readAllBytes());
+        }
+    }
+
+    /**
+     * @return Position of the first byte after a leading UTF-8 byte order mark, if any
+     */
+    public static int skipBom(ByteBuffer buf) {
+        int pos = buf.position();
+        if (buf.limit() - pos >= 3 && (buf.get(pos) & 0xFF) == 0xEF
+                && (buf.get(pos + 1) & 0xFF) == 0xBB && (buf.get(pos + 2) & 0xFF) == 0xBF) {
+            return pos + 3;
+        }
+        return pos;
+    }
+
+    /**
+     * @return Index of the first {@code '\n'} in {@code [from, to)}, or {@code to}
+     */
+    public static int lineEnd(ByteBuffer buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == '\n') {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Text of the line starting at {@code from}, without its line terminator.
+     */
+    public static String line(ByteBuffer buf, int from) {
+        int end = lineEnd(buf, from, buf.limit());
+        if (end > from && buf.get(end - 1) == '\r') {
+            end--;
+        }
+        byte[] bytes = new byte[end - from];
+        buf.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Cut {@code [from, to)} into at most {@code maxChunks} newline-aligned ranges of at
+     * least {@link #MIN_CHUNK_BYTES} bytes each.
+     *
+     * @return Boundaries {@code b}; range {@code i} is {@code [b[i], b[i + 1])}
+     */
+    public static int[] split(ByteBuffer buf, int from, int to, int maxChunks) {
+        int chunks = (int) Math.max(1, Math.min(maxChunks, (long) (to - from) / MIN_CHUNK_BYTES));
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = from;
+        int n = 1;
+        for (int i = 1; i < chunks; i++) {
+            int target = from + (int) ((long) (to - from) * i / chunks);
+            int cut = Math.max(target, bounds[n - 1]);
+            cut = Math.min(lineEnd(buf, cut, to) + 1, to);
+            if (cut > bounds[n - 1] && cut < to) {
+                bounds[n++] = cut;
+            }
+        }
+        bounds[n++] = to;
+        return n == bounds.length ? bounds : Arrays.copyOf(bounds, n);
+    }
+
+    /**
+     * Parse every range of {@code bounds} on {@code pool}. A single range is parsed on the
+     * calling thread.
+     *
+     * @return One result per range, in file order
+     */
+    public static <R> List<R> parse(ForkJoinPool pool, ByteBuffer buf, int[] bounds,
+                                    ChunkParser<R> parser) throws IOException {
+        int chunks = bounds.length - 1;
+        if (chunks == 1) {
+            return List.of(parser.parse(buf, bounds[0], bounds[1]));
+        }
+        List<Callable<R>> tasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int from = bounds[i], to = bounds[i + 1];
+            tasks.add(() -> parser.parse(buf, from, to));
+        }
+        List<R> results = new ArrayList<>(chunks);
+        try {
+            for (Future<R> f : pool.invokeAll(tasks)) {
+                results.add(f.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(cause);
+        }
+        return results;
+    }
+}
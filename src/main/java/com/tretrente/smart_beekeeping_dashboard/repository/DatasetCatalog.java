@@ -0,0 +1,153 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Catalog of the dataset files, partitioned by apiary and year.
+ * <p>
+ * Files are discovered once at startup under {@code urban.datasets.dir}, laid out as
+ * {@code <dir>/<apiary>/<dataset>_<year>.csv} (e.g. {@code urban/sensor_2021.csv}); when
+ * the property is empty the files bundled under {@code classpath:data/} are used. Each file
+ * is a {@link DatasetPartition}: repositories load them independently and only when a
+ * query's time range overlaps their year.
+ * </p>
+ */
+@Component
+public class DatasetCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetCatalog.class);
+
+    private static final Pattern FILE_NAME = Pattern.compile("(sensor|weather|inspections)_(\\d{4})\\.csv");
+
+    private final List<DatasetPartition> partitions;
+    private final List<String> apiaries;
+    private final String defaultApiary;
+
+    /**
+     * @param dir           Directory holding one subdirectory per apiary; empty for the
+     *                      bundled files
+     * @param defaultApiary Apiary used when a request does not name one; empty for "urban"
+     *                      when present, otherwise the first apiary in name order
+     */
+    public DatasetCatalog(@Value("${urban.datasets.dir:}") String dir,
+                          @Value("${urban.datasets.apiary:}") String defaultApiary) {
+        String pattern = dir.isBlank()
+                ? "classpath*:data/*/*.csv"
+                : "file:" + dir.replace('\\', '/').replaceAll("/$", "") + "/*/*.csv";
+        this.partitions = discover(pattern);
+
+        TreeSet<String> names = new TreeSet<>();
+        partitions.forEach(p -> names.add(p.getApiary()));
+        this.apiaries = List.copyOf(names);
+        if (!defaultApiary.isBlank()) {
+            this.defaultApiary = defaultApiary;
+        } else if (names.isEmpty() || names.contains("urban")) {
+            this.defaultApiary = "urban";
+        } else {
+            this.defaultApiary = names.first();
+        }
+        log.info("Dataset catalog: {} files, apiaries {} (default '{}') from {}",
+                partitions.size(), apiaries, this.defaultApiary, pattern);
+    }
+
+    /**
+     * @param dataset "sensor", "weather" or "inspections"
+     * @return The partitions of that dataset, by apiary and then year
+     */
+    public List<DatasetPartition> partitions(String dataset) {
+        return partitions.stream().filter(p -> p.getDataset().equals(dataset)).toList();
+    }
+
+    /**
+     * @return Every partition, by apiary, dataset and then year
+     */
+    public List<DatasetPartition> partitions() {
+        return partitions;
+    }
+
+    /**
+     * @return Apiary names, sorted
+     */
+    public List<String> apiaries() {
+        return apiaries;
+    }
+
+    public String defaultApiary() {
+        return defaultApiary;
+    }
+
+    /**
+     * Resolve the apiary named by a request.
+     *
+     * @param apiary Apiary name; null or blank for the default apiary
+     * @return A catalogued apiary name
+     * @throws IllegalArgumentException if no file belongs to that apiary
+     */
+    public String apiary(String apiary) {
+        if (apiary == null || apiary.isBlank()) {
+            return defaultApiary;
+        }
+        if (!apiaries.contains(apiary)) {
+            throw new IllegalArgumentException("Unknown apiary '" + apiary + "', expected one of " + apiaries);
+        }
+        return apiary;
+    }
+
+    private static List<DatasetPartition> discover(String pattern) {
+        Resource[] resources;
+        try {
+            resources = new PathMatchingResourcePatternResolver().getResources(pattern);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list dataset files " + pattern, e);
+        }
+        List<DatasetPartition> result = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Resource resource : resources) {
+            String apiary = apiary(resource);
+            Matcher m = FILE_NAME.matcher(String.valueOf(resource.getFilename()));
+            if (apiary == null || !m.matches()) {
+                log.debug("Ignoring {}: not <apiary>/<dataset>_<year>.csv", resource);
+                continue;
+            }
+            DatasetPartition partition = new DatasetPartition(m.group(1), apiary, Integer.parseInt(m.group(2)), resource);
+            // The same file can be on the classpath twice (e.g. exploded and packaged)
+            if (names.add(partition.getName())) {
+                result.add(partition);
+            }
+        }
+        result.sort(Comparator.comparing(DatasetPartition::getApiary)
+                .thenComparing(DatasetPartition::getDataset)
+                .thenComparingInt(DatasetPartition::getYear));
+        return List.copyOf(result);
+    }
+
+    /**
+     * @return Name of the directory holding the file, or null if it cannot be determined
+     */
+    private static String apiary(Resource resource) {
+        try {
+            String path = resource.getURL().getPath();
+            int end = path.lastIndexOf('/');
+            int start = end <= 0 ? -1 : path.lastIndexOf('/', end - 1);
+            return start < 0 ? null : path.substring(start + 1, end);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
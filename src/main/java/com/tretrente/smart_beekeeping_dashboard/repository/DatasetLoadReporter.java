@@ -0,0 +1,99 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads the most recent year of every apiary of every {@link DatasetRepository} once the
+ * application is ready and logs, per file, the row count, parse time and estimated heap
+ * footprint. Older years are parsed when a query first reaches them.
+ * <p>
+ * Preloading can be turned off with {@code urban.datasets.preload=false}, in which case
+ * every file is parsed lazily on first use. When virtual threads are enabled
+ * ({@code spring.threads.virtual.enabled=true} on Java 21+), the datasets are loaded
+ * concurrently, one virtual thread each, so their file reads overlap.
+ * </p>
+ */
+@Component
+public class DatasetLoadReporter {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetLoadReporter.class);
+
+    private final List<DatasetRepository> repositories;
+    private final boolean preload;
+    private final boolean virtualThreads;
+
+    public DatasetLoadReporter(List<DatasetRepository> repositories,
+                               @Value("${urban.datasets.preload:true}") boolean preload,
+                               Environment environment) {
+        this.repositories = repositories;
+        this.preload = preload;
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadDatasets() {
+        if (!preload) {
+            log.info("Dataset preloading disabled; datasets will be parsed on first use");
+            return;
+        }
+        long startNanos = System.nanoTime();
+        long totalBytes = 0;
+        List<DatasetStore<?>> stores = new ArrayList<>();
+        for (DatasetRepository repository : repositories) {
+            stores.addAll(repository.getStore().latest());
+        }
+        for (DatasetSnapshot<?> snap : loadAll(stores)) {
+            totalBytes += snap.getEstimatedBytes();
+            log.info(format(snap));
+        }
+        log.info("Datasets ready: {} files in {} ms, ~{} MiB estimated heap",
+                stores.size(), (System.nanoTime() - startNanos) / 1_000_000,
+                String.format("%.1f", totalBytes / (1024.0 * 1024.0)));
+    }
+
+    /**
+     * @return The snapshot of every store, in the given order
+     */
+    private List<DatasetSnapshot<?>> loadAll(List<DatasetStore<?>> stores) {
+        List<DatasetSnapshot<?>> result = new ArrayList<>(stores.size());
+        if (!virtualThreads) {
+            for (DatasetStore<?> store : stores) {
+                result.add(store.snapshot());
+            }
+            return result;
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("dataset-load-");
+        executor.setVirtualThreads(true);
+        List<CompletableFuture<? extends DatasetSnapshot<?>>> loads = new ArrayList<>(stores.size());
+        for (DatasetStore<?> store : stores) {
+            loads.add(CompletableFuture.supplyAsync(store::snapshot, executor));
+        }
+        for (CompletableFuture<? extends DatasetSnapshot<?>> load : loads) {
+            result.add(load.join());
+        }
+        return result;
+    }
+
+    /**
+     * One report line for a snapshot, e.g.
+     * {@code dataset 'sensor/urban/2021' v1: 80235 rows, 412 ms, ~12.3 MiB (161 B/row)}.
+     */
+    static String format(DatasetSnapshot<?> snap) {
+        long perRow = snap.getRows() == 0 ? 0 : snap.getEstimatedBytes() / snap.getRows();
+        return String.format("dataset '%s' v%d: %d rows, %d ms, ~%.1f MiB (%d B/row)",
+                snap.getName(), snap.getVersion(), snap.getRows(), snap.getLoadMillis(),
+                snap.getEstimatedBytes() / (1024.0 * 1024.0), perRow);
+    }
+}
@@ -0,0 +1,68 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+import lombok.Getter;
+import org.springframework.core.io.Resource;
+
+import java.time.LocalDateTime;
+
+/**
+ * One CSV file of the {@link DatasetCatalog}: a dataset ("sensor", "weather" or
+ * "inspections") of one apiary for one year, e.g. {@code urban/sensor_2021.csv}.
+ * The file is expected to hold the rows of its calendar year, in the dataset's own
+ * timestamps; queries outside that year skip it without reading it.
+ */
+@Getter
+public final class DatasetPartition {
+    private final String dataset;
+    private final String apiary;
+    private final int year;
+    private final Resource resource;
+
+    // [from, to) in epoch seconds
+    private final long from;
+    private final long to;
+
+    /**
+     * @param dataset  Dataset name, e.g. "sensor"
+     * @param apiary   Apiary name, the directory holding the file
+     * @param year     Calendar year covered by the file
+     * @param resource The CSV file
+     */
+    public DatasetPartition(String dataset, String apiary, int year, Resource resource) {
+        this.dataset = dataset;
+        this.apiary = apiary;
+        this.year = year;
+        this.resource = resource;
+        this.from = EpochTime.toEpochSecond(LocalDateTime.of(year, 1, 1, 0, 0));
+        this.to = EpochTime.toEpochSecond(LocalDateTime.of(year + 1, 1, 1, 0, 0));
+    }
+
+    /**
+     * @return Name used in reports and snapshot versions, e.g. "sensor/urban/2021"
+     */
+    public String getName() {
+        return dataset + "/" + apiary + "/" + year;
+    }
+
+    /**
+     * @return Name usable as a file name, e.g. "sensor-urban-2021"
+     */
+    public String getId() {
+        return dataset + "-" + apiary + "-" + year;
+    }
+
+    /**
+     * @param from Lower bound, inclusive, in epoch seconds
+     * @param to   Upper bound, inclusive, in epoch seconds
+     * @return true if the file may hold rows in {@code [from, to]}
+     */
+    public boolean overlaps(long from, long to) {
+        return from < this.to && to >= this.from;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
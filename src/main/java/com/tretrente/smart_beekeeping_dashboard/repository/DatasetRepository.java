@@ -0,0 +1,19 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+/**
+ * Common contract of the repositories backed by a {@link PartitionedStore}.
+ */
+public interface DatasetRepository {
+
+    /**
+     * @return The stores holding this repository's parsed data, one per catalogued file
+     */
+    PartitionedStore<?> getStore();
+
+    /**
+     * Re-reads the loaded partitions and atomically swaps in their new snapshots.
+     */
+    default void reload() {
+        getStore().reload();
+    }
+}
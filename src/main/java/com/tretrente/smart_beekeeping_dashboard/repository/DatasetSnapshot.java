@@ -0,0 +1,42 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import lombok.Getter;
+
+/**
+ * Immutable, versioned view of one parsed dataset.
+ * <p>
+ * A snapshot is never modified after it has been published by its {@link DatasetStore};
+ * a reload produces a new snapshot with a higher version instead.
+ * </p>
+ *
+ * @param <S> type of the parsed data (e.g. an unmodifiable list of records)
+ */
+@Getter
+public final class DatasetSnapshot<S> {
+    private final String name;
+    private final long version;
+    private final S data;
+    private final int rows;
+    private final long loadMillis;
+    private final long estimatedBytes;
+
+    /**
+     * Full-argument constructor.
+     *
+     * @param name           Dataset name, e.g. "weather"
+     * @param version        Monotonic version, starting at 1 for the first load
+     * @param data           Parsed, immutable data
+     * @param rows           Number of rows held by the snapshot
+     * @param loadMillis     Time spent parsing the source, in milliseconds
+     * @param estimatedBytes Approximate retained heap size of the data, in bytes
+     */
+    public DatasetSnapshot(String name, long version, S data, int rows,
+                           long loadMillis, long estimatedBytes) {
+        this.name = name;
+        this.version = version;
+        this.data = data;
+        this.rows = rows;
+        this.loadMillis = loadMillis;
+        this.estimatedBytes = estimatedBytes;
+    }
+}
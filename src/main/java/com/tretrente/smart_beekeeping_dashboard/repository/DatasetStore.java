@@ -0,0 +1,149 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Load-once holder for a parsed dataset.
+ * <p>
+ * The source is parsed on the first call to {@link #snapshot()} (or eagerly at startup,
+ * see {@link DatasetLoadReporter}) and the result is kept as an immutable
+ * {@link DatasetSnapshot}. Readers never block on each other: they simply read the
+ * current reference. {@link #reload()} parses the source again and swaps the new
+ * snapshot in atomically, so in-flight readers keep working on the previous one.
+ * </p>
+ *
+ * @param <S> type of the parsed data
+ */
+public class DatasetStore<S> {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetStore.class);
+
+    private final String name;
+    private final Supplier<S> loader;
+    private final ToIntFunction<S> rowCounter;
+    private final ToLongFunction<S> footprint;
+
+    private final AtomicReference<DatasetSnapshot<S>> current = new AtomicReference<>();
+    private final Object loadLock = new Object();
+    private final List<Consumer<? super DatasetSnapshot<S>>> loadListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param name       Dataset name used in reports, e.g. "sensor"
+     * @param loader     Parses the source and returns immutable data
+     * @param rowCounter Returns the number of rows in the parsed data
+     * @param footprint  Returns the approximate retained heap size of the parsed data
+     */
+    public DatasetStore(String name, Supplier<S> loader,
+                        ToIntFunction<S> rowCounter, ToLongFunction<S> footprint) {
+        this.name = name;
+        this.loader = loader;
+        this.rowCounter = rowCounter;
+        this.footprint = footprint;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the current snapshot, parsing the source first if it has not been loaded yet.
+     *
+     * @return Current snapshot (never null)
+     */
+    public DatasetSnapshot<S> snapshot() {
+        DatasetSnapshot<S> snap = current.get();
+        if (snap != null) {
+            return snap;
+        }
+        synchronized (loadLock) {
+            snap = current.get();
+            if (snap == null) {
+                snap = load(1);
+                current.set(snap);
+            }
+            return snap;
+        }
+    }
+
+    /**
+     * Shortcut for {@code snapshot().getData()}.
+     */
+    public S data() {
+        return snapshot().getData();
+    }
+
+    /**
+     * Parses the source again and atomically replaces the current snapshot.
+     *
+     * @return The newly published snapshot
+     */
+    public DatasetSnapshot<S> reload() {
+        synchronized (loadLock) {
+            DatasetSnapshot<S> previous = current.get();
+            DatasetSnapshot<S> next = load(previous == null ? 1 : previous.getVersion() + 1);
+            current.set(next);
+            return next;
+        }
+    }
+
+    /**
+     * Version of the current snapshot, without triggering a load.
+     *
+     * @return Current version, or 0 while nothing has been loaded
+     */
+    public long version() {
+        DatasetSnapshot<S> snap = current.get();
+        return snap == null ? 0 : snap.getVersion();
+    }
+
+    /**
+     * Current snapshot, without triggering a load.
+     *
+     * @return Current snapshot, or null while nothing has been loaded
+     */
+    public DatasetSnapshot<S> peek() {
+        return current.get();
+    }
+
+    /**
+     * Register a callback invoked with every snapshot this store loads from now on
+     * (first load and reloads), on the loading thread, before the snapshot is published.
+     */
+    public void onLoad(Consumer<? super DatasetSnapshot<S>> listener) {
+        loadListeners.add(listener);
+    }
+
+    /**
+     * @return true once a snapshot has been published
+     */
+    public boolean isLoaded() {
+        return current.get() != null;
+    }
+
+    private DatasetSnapshot<S> load(long version) {
+        long startNanos = System.nanoTime();
+        S data = loader.get();
+        long loadMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        DatasetSnapshot<S> snap = new DatasetSnapshot<>(
+                name, version, data,
+                rowCounter.applyAsInt(data),
+                loadMillis,
+                footprint.applyAsLong(data));
+        log.debug("Loaded dataset '{}' v{}: {} rows in {} ms",
+                name, version, snap.getRows(), loadMillis);
+        for (Consumer<? super DatasetSnapshot<S>> listener : loadListeners) {
+            listener.accept(snap);
+        }
+        return snap;
+    }
+}
@@ -0,0 +1,364 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import com.tretrente.smart_beekeeping_dashboard.util.HeapEstimator;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Compressed block of time-ordered rows, each a timestamp and a fixed number of double
+ * columns, in the encoding of Facebook's Gorilla time-series store.
+ * <p>
+ * Timestamps (epoch seconds) are stored as the delta of the previous delta: a reading every
+ * ~15 minutes with a few seconds of jitter costs 1 to 9 bits instead of 64.
+ * <pre>
+ *   0                          same delta as before
+ *   10   + 7 bits              delta of delta in [-63, 64]
+ *   110  + 9 bits              in [-255, 256]
+ *   1110 + 12 bits             in [-2047, 2048]
+ *   1111 + 64 bits             anything else (also the first delta)
+ * </pre>
+ * Each value is XORed with the previous value of its column; slowly changing values share
+ * sign, exponent and leading mantissa bits, so only the bits in between are written.
+ * <pre>
+ *   0                          same value
+ *   10 + meaningful bits       they fit in the previous value's leading/trailing zero window
+ *   11 + 5 bits leading zeros + 6 bits length - 1 + meaningful bits
+ * </pre>
+ * The first row is written in full. Blocks are immutable; {@link Decoder} walks one in a
+ * single forward pass without allocating. The bits are 64-bit big-endian words, held in the
+ * heap or read in place from a {@link SegmentFile} mapping.
+ * </p>
+ */
+public final class GorillaBlock {
+
+    private final long firstTime;
+    private final long lastTime;
+    private final int rows;
+    private final int columns;
+    private final LongBuffer bits;
+
+    private GorillaBlock(long firstTime, long lastTime, int rows, int columns, LongBuffer bits) {
+        this.firstTime = firstTime;
+        this.lastTime = lastTime;
+        this.rows = rows;
+        this.columns = columns;
+        this.bits = bits;
+    }
+
+    public long firstTime() {
+        return firstTime;
+    }
+
+    public long lastTime() {
+        return lastTime;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int columns() {
+        return columns;
+    }
+
+    /**
+     * @return Number of 64-bit words of encoded bits
+     */
+    public int words() {
+        return bits.limit();
+    }
+
+    /**
+     * @return Approximate heap size of the block; the bits count only when they are in the heap
+     */
+    public long estimatedBytes() {
+        long object = HeapEstimator.object(8 * 2 + 4 * 2 + HeapEstimator.REFERENCE);
+        return bits.hasArray() ? object + HeapEstimator.array(bits.capacity(), 8) : object;
+    }
+
+    /**
+     * Write the encoded bits, {@link #words()} longs, to be read back with {@link #wrap}.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        for (int i = 0; i < bits.limit(); i++) {
+            out.writeLong(bits.get(i));
+        }
+    }
+
+    /**
+     * A block over bits written by {@link #writeTo}, read in place.
+     *
+     * @param bits Exactly the block's words
+     */
+    static GorillaBlock wrap(long firstTime, long lastTime, int rows, int columns, LongBuffer bits) {
+        return new GorillaBlock(firstTime, lastTime, rows, columns, bits);
+    }
+
+    /**
+     * @return A decoder positioned before the first row
+     */
+    public Decoder decoder() {
+        Decoder decoder = new Decoder(columns);
+        decoder.reset(this);
+        return decoder;
+    }
+
+    /**
+     * Appends rows with non-decreasing timestamps. Not thread-safe.
+     */
+    public static final class Encoder {
+        private final int columns;
+        private long[] bits = new long[16];
+        private int position;
+        private int rows;
+        private long firstTime;
+        private long previousTime;
+        private long previousDelta;
+        private final long[] previousValue;
+        private final int[] previousLeading;
+        private final int[] previousTrailing;
+
+        public Encoder(int columns) {
+            this.columns = columns;
+            this.previousValue = new long[columns];
+            this.previousLeading = new int[columns];
+            this.previousTrailing = new int[columns];
+        }
+
+        public int rows() {
+            return rows;
+        }
+
+        /**
+         * @param epochSecond Timestamp, not before the previous row's
+         * @param values      One value per column; only read during the call
+         */
+        public void add(long epochSecond, double[] values) {
+            if (rows == 0) {
+                firstTime = epochSecond;
+                write(epochSecond, 64);
+                for (int c = 0; c < columns; c++) {
+                    previousValue[c] = Double.doubleToRawLongBits(values[c]);
+                    previousLeading[c] = Integer.MAX_VALUE;
+                    write(previousValue[c], 64);
+                }
+            } else {
+                long delta = epochSecond - previousTime;
+                writeDeltaOfDelta(rows == 1 ? Long.MIN_VALUE : delta - previousDelta, delta);
+                previousDelta = delta;
+                for (int c = 0; c < columns; c++) {
+                    writeValue(c, Double.doubleToRawLongBits(values[c]));
+                }
+            }
+            previousTime = epochSecond;
+            rows++;
+        }
+
+        public GorillaBlock build() {
+            return new GorillaBlock(firstTime, previousTime, rows, columns,
+                    LongBuffer.wrap(Arrays.copyOf(bits, (position + 63) >>> 6)));
+        }
+
+        /**
+         * @param dod   Delta of delta, or {@code Long.MIN_VALUE} for the first delta
+         * @param delta The delta itself, written in full when the delta of delta does not fit
+         */
+        private void writeDeltaOfDelta(long dod, long delta) {
+            if (dod == 0) {
+                write(0, 1);
+            } else if (dod >= -63 && dod <= 64) {
+                write(0b10, 2);
+                write(dod, 7);
+            } else if (dod >= -255 && dod <= 256) {
+                write(0b110, 3);
+                write(dod, 9);
+            } else if (dod >= -2047 && dod <= 2048) {
+                write(0b1110, 4);
+                write(dod, 12);
+            } else {
+                write(0b1111, 4);
+                write(delta, 64);
+            }
+        }
+
+        private void writeValue(int c, long value) {
+            long xor = value ^ previousValue[c];
+            previousValue[c] = value;
+            if (xor == 0) {
+                write(0, 1);
+                return;
+            }
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (leading >= previousLeading[c] && trailing >= previousTrailing[c]) {
+                write(0b10, 2);
+                write(xor >>> previousTrailing[c], 64 - previousLeading[c] - previousTrailing[c]);
+            } else {
+                int length = 64 - leading - trailing;
+                write(0b11, 2);
+                write(leading, 5);
+                write(length - 1, 6);
+                write(xor >>> trailing, length);
+                previousLeading[c] = leading;
+                previousTrailing[c] = trailing;
+            }
+        }
+
+        /**
+         * Write the low {@code n} bits of {@code value}, most significant first.
+         */
+        private void write(long value, int n) {
+            if (position + n > (long) bits.length << 6) {
+                bits = Arrays.copyOf(bits, bits.length * 2);
+            }
+            int word = position >>> 6;
+            int used = position & 63;
+            long v = n == 64 ? value : value & ((1L << n) - 1);
+            int free = 64 - used;
+            if (n <= free) {
+                bits[word] |= v << (free - n);
+            } else {
+                bits[word] |= v >>> (n - free);
+                bits[word + 1] |= v << (64 - (n - free));
+            }
+            position += n;
+        }
+    }
+
+    /**
+     * Forward-only reader of a block's rows, reusable across blocks with the same number of
+     * columns. Not thread-safe.
+     */
+    public static final class Decoder {
+        private final long[] value;
+        private final int[] leading;
+        private final int[] trailing;
+        private LongBuffer bits;
+        private int rows;
+        private int position;
+        private int row;
+        private long time;
+        private long delta;
+
+        public Decoder(int columns) {
+            this.value = new long[columns];
+            this.leading = new int[columns];
+            this.trailing = new int[columns];
+        }
+
+        /**
+         * Position the decoder before the first row of {@code block}.
+         */
+        public void reset(GorillaBlock block) {
+            if (block.columns != value.length) {
+                throw new IllegalArgumentException("block has " + block.columns + " columns, expected " + value.length);
+            }
+            bits = block.bits;
+            rows = block.rows;
+            position = 0;
+            row = -1;
+            delta = 0;
+        }
+
+        /**
+         * Advance to the next row.
+         *
+         * @return false once every row has been read
+         */
+        public boolean next() {
+            if (++row >= rows) {
+                return false;
+            }
+            if (row == 0) {
+                time = read(64);
+                for (int c = 0; c < value.length; c++) {
+                    value[c] = read(64);
+                }
+                return true;
+            }
+            readDeltaOfDelta();
+            time += delta;
+            for (int c = 0; c < value.length; c++) {
+                readValue(c);
+            }
+            return true;
+        }
+
+        /**
+         * Skip rows until the current one is at or after {@code epochSecond}.
+         *
+         * @return false if no such row remains
+         */
+        public boolean seek(long epochSecond) {
+            while (next()) {
+                if (time >= epochSecond) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public long epochSecond() {
+            return time;
+        }
+
+        public double value(int column) {
+            return Double.longBitsToDouble(value[column]);
+        }
+
+        private void readDeltaOfDelta() {
+            if (read(1) == 0) {
+                return;
+            }
+            if (read(1) == 0) {
+                delta += signed(read(7), 7);
+            } else if (read(1) == 0) {
+                delta += signed(read(9), 9);
+            } else if (read(1) == 0) {
+                delta += signed(read(12), 12);
+            } else {
+                delta = read(64);
+            }
+        }
+
+        private void readValue(int c) {
+            if (read(1) == 0) {
+                return;
+            }
+            if (read(1) == 1) {
+                leading[c] = (int) read(5);
+                int length = (int) read(6) + 1;
+                trailing[c] = 64 - leading[c] - length;
+            }
+            int length = 64 - leading[c] - trailing[c];
+            value[c] ^= read(length) << trailing[c];
+        }
+
+        /**
+         * Sign-extend an n-bit value. The encoder's ranges are shifted by one towards the
+         * positive side ([-63, 64] in 7 bits), so all-ones-but-sign patterns above the
+         * positive limit wrap to negative values.
+         */
+        private static long signed(long v, int n) {
+            long limit = 1L << (n - 1);
+            return v > limit ? v - (1L << n) : v;
+        }
+
+        private long read(int n) {
+            int word = position >>> 6;
+            int used = position & 63;
+            position += n;
+            int free = 64 - used;
+            long v;
+            if (n <= free) {
+                v = bits.get(word) >>> (free - n);
+            } else {
+                v = (bits.get(word) << (n - free)) | (bits.get(word + 1) >>> (64 - (n - free)));
+            }
+            return n == 64 ? v : v & ((1L << n) - 1);
+        }
+    }
+}
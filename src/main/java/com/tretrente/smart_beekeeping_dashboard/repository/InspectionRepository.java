@@ -1,55 +1,178 @@
 package com.tretrente.smart_beekeeping_dashboard.repository;
 
-import com.tretrente.smart_beekeeping_dashboard.model.Inspection2021Record;
+import com.tretrente.smart_beekeeping_dashboard.model.InspectionRecord;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Repository;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.TreeSet;
+
+import static com.tretrente.smart_beekeeping_dashboard.util.HeapEstimator.*;
 
 /**
- * Repository to load hive inspection data for 2021 from inspections_2021.csv.
+ * Repository to load the hive inspection files of the {@link DatasetCatalog}
+ * ({@code inspections_<year>.csv}).
  * Handles numeric fields that may be in "6.0" format or empty.
+ * Each file is parsed once, when a query first needs its year, into an immutable,
+ * date-sorted {@link DatasetStore} snapshot indexed by hive and date for range queries.
  */
 @Repository
-public class InspectionRepository {
-
-    // Path to the 2021 inspections CSV (inside src/main/resources/data/urban/)
-    private static final String CSV_PATH = "data/urban/inspections_2021.csv";
+public class InspectionRepository implements DatasetRepository {
 
     // Formatter for the date field in format "yyyy-MM-dd"
     private static final DateTimeFormatter DATE_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    // InspectionRecord: header + 7 references + 6 ints, plus its LocalDate and list slot
+    private static final long BYTES_PER_RECORD = object(7 * REFERENCE + 6 * 4) + LOCAL_DATE + REFERENCE;
+
+    private final PartitionedStore<TimeIndex<InspectionRecord>> store;
+
+    private final DatasetCatalog catalog;
+    private final BinarySnapshots snapshots;
+
     /**
-     * Reads all rows from inspections_2021.csv and returns a list of Inspection2021Record.
+     * @param catalog   Dataset files, by apiary and year
+     * @param snapshots Binary snapshot cache, used to skip parsing on later boots
+     */
+    public InspectionRepository(DatasetCatalog catalog, BinarySnapshots snapshots) {
+        this.catalog = catalog;
+        this.snapshots = snapshots;
+        this.store = new PartitionedStore<>("inspections", catalog.partitions("inspections"), this::load,
+                TimeIndex::size, InspectionRepository::estimateBytes,
+                InspectionRepository::combine, index(List.of()));
+    }
+
+    @Override
+    public PartitionedStore<TimeIndex<InspectionRecord>> getStore() {
+        return store;
+    }
+
+    /**
+     * Snapshot of the files of {@code apiary} whose year overlaps {@code [start, end]};
+     * the other years are not loaded.
      *
-     * @return List of Inspection2021Record for 2021
+     * @param apiary Apiary name; null for the default apiary
+     * @throws IllegalArgumentException if the apiary is not catalogued
      */
-    public List<Inspection2021Record> findAll() {
-        List<Inspection2021Record> result = new ArrayList<>();
+    public DatasetSnapshot<TimeIndex<InspectionRecord>> snapshot(String apiary, LocalDate start, LocalDate end) {
+        return store.snapshot(catalog.apiary(apiary), epochSecond(start), epochSecond(end));
+    }
 
+    /**
+     * Returns the inspections with {@code start <= date <= end} for the given hives, in date
+     * order, using the per-hive time index.
+     *
+     * @param apiary     Apiary name; null for the default apiary
+     * @param start      First day (inclusive)
+     * @param end        Last day (inclusive)
+     * @param tagNumbers Hive tags to include; null or empty for all hives
+     * @return Matching records (unmodifiable when no hive filter is given)
+     */
+    public List<InspectionRecord> findBetween(String apiary, LocalDate start, LocalDate end,
+                                              Collection<String> tagNumbers) {
+        return snapshot(apiary, start, end).getData().range(epochSecond(start), epochSecond(end), tagNumbers);
+    }
+
+    /**
+     * Streaming variant of {@link #findBetween}: the matching records are produced lazily,
+     * in date order, without collecting them into a list.
+     */
+    public Iterator<InspectionRecord> iterateBetween(String apiary, LocalDate start, LocalDate end,
+                                                     Collection<String> tagNumbers) {
+        return snapshot(apiary, start, end).getData().iterator(epochSecond(start), epochSecond(end), tagNumbers);
+    }
+
+    /**
+     * Number of inspections with {@code start <= date <= end}, over all hives.
+     */
+    public int countBetween(String apiary, LocalDate start, LocalDate end) {
+        return snapshot(apiary, start, end).getData().range(epochSecond(start), epochSecond(end)).size();
+    }
+
+    /**
+     * Tag numbers of every hive inspected in any catalogued file of the apiary, whatever the
+     * year, so the hive selector does not depend on the date range shown.
+     *
+     * @param apiary Apiary name; null for the default apiary
+     * @return Tag numbers, sorted
+     * @throws IllegalArgumentException if the apiary is not catalogued
+     */
+    public List<String> findTagNumbers(String apiary) {
+        String site = catalog.apiary(apiary);
+        TreeSet<String> tags = new TreeSet<>();
+        for (DatasetPartition p : store.partitions()) {
+            if (p.getApiary().equals(site)) {
+                tags.addAll(store.store(p).snapshot().getData().keys());
+            }
+        }
+        return new ArrayList<>(tags);
+    }
+
+    private static long epochSecond(LocalDate date) {
+        return date.toEpochDay() * 86_400L;
+    }
+
+    /**
+     * Loads the index of one file from its binary snapshot, or from the CSV when the
+     * snapshot is missing or stale.
+     */
+    private TimeIndex<InspectionRecord> load(DatasetPartition partition) {
         try {
-            ClassPathResource resource = new ClassPathResource(CSV_PATH);
-            BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)
-            );
+            return snapshots.load(partition.getId(), CsvChunks.bytes(partition.getResource()),
+                    SnapshotCodecs.INSPECTIONS, InspectionRepository::parse);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return index(List.of());
+        }
+    }
+
+    /**
+     * Several years in one index, records in date order.
+     */
+    private static TimeIndex<InspectionRecord> combine(List<TimeIndex<InspectionRecord>> parts) {
+        List<InspectionRecord> records = new ArrayList<>();
+        for (TimeIndex<InspectionRecord> part : parts) {
+            records.addAll(part.records());
+        }
+        return index(records);
+    }
+
+    private static TimeIndex<InspectionRecord> index(List<InspectionRecord> records) {
+        return TimeIndex.build(records, r -> epochSecond(r.getDate()), InspectionRecord::getTagNumber);
+    }
+
+    /**
+     * Reads all rows of an inspections CSV and returns a per-hive time index over the
+     * InspectionRecords. Public so benchmarks can run it on synthetic files.
+     *
+     * @param bytes Whole file in the {@code inspections_<year>.csv} layout
+     */
+    public static TimeIndex<InspectionRecord> parse(ByteBuffer bytes) throws IOException {
+        List<InspectionRecord> result = new ArrayList<>();
 
-            CSVFormat format = CSVFormat.DEFAULT
-                    .withFirstRecordAsHeader()
-                    .withIgnoreHeaderCase()
-                    .withTrim();
+        Reader reader = new StringReader(StandardCharsets.UTF_8.decode(bytes.duplicate()).toString());
 
-            CSVParser parser = format.parse(reader);
+        CSVFormat format = CSVFormat.DEFAULT.builder()
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .setIgnoreHeaderCase(true)
+                .setTrim(true)
+                .build();
 
+        try (CSVParser parser = format.parse(reader)) {
             for (CSVRecord record : parser) {
                 // Parse date
                 LocalDate date = LocalDate.parse(record.get("Date"), DATE_FORMATTER);
@@ -68,7 +191,7 @@ public class InspectionRepository {
                 String close = record.get("Close");
                 String notes = record.get("Notes");
 
-                Inspection2021Record rec = new Inspection2021Record(
+                InspectionRecord rec = new InspectionRecord(
                         date,
                         tagNumber,
                         colonySize,
@@ -82,20 +205,25 @@ public class InspectionRepository {
 
                 result.add(rec);
             }
-
-            parser.close();
-        } catch (Exception e) {
-            e.printStackTrace();
         }
 
-        return result;
+        return index(result);
+    }
+
+    private static long estimateBytes(TimeIndex<InspectionRecord> index) {
+        long bytes = array(index.size(), REFERENCE) + index.size() * BYTES_PER_RECORD + index.indexBytes();
+        for (InspectionRecord r : index.records()) {
+            bytes += string(r.getTagNumber()) + string(r.getQueenStatus())
+                    + string(r.getOpen()) + string(r.getClose()) + string(r.getNotes());
+        }
+        return bytes;
     }
 
     /**
      * If the input is null, empty, or something like "6.0", convert to int.
      * Returns 0 if empty or unparsable.
      */
-    private int parseIntFromPossiblyDecimal(String raw) {
+    private static int parseIntFromPossiblyDecimal(String raw) {
         if (raw == null || raw.isBlank()) {
             return 0;
         }
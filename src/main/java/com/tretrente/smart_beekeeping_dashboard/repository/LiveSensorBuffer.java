@@ -0,0 +1,201 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded in-memory buffer of recently ingested sensor readings, one ring per hive.
+ * <p>
+ * Writers claim consecutive sequence numbers with a single atomic add and publish each
+ * reading into slot {@code seq % capacity}; once a ring is full the oldest readings are
+ * overwritten. Neither writers nor readers take a lock: a reader copies the slots of the
+ * last {@code capacity} sequence numbers and skips those that are not published yet or
+ * already overwritten. {@link #version()} increases after every appended batch, so
+ * readers can tell when a copy is stale.
+ * </p>
+ * Hive tags come from clients, so the number of rings is capped: readings of hives beyond
+ * {@code maxHives} are not buffered ({@link #admits}).
+ */
+public final class LiveSensorBuffer {
+
+    private final int capacity;
+    private final int maxHives;
+    private final ConcurrentMap<String, Ring> rings = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * @param capacity Readings kept per hive, rounded up to a power of two
+     * @param maxHives Hives buffered at most
+     */
+    public LiveSensorBuffer(int capacity, int maxHives) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        if (maxHives < 1) {
+            throw new IllegalArgumentException("maxHives must be positive: " + maxHives);
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.maxHives = maxHives;
+    }
+
+    /**
+     * @return Readings kept per hive
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Whether readings of {@code tagNumber} can be buffered: the hive has a ring
+     *         already, or there is room for a new one
+     */
+    public boolean admits(String tagNumber) {
+        return rings.containsKey(tagNumber) || rings.size() < maxHives;
+    }
+
+    /**
+     * @return Number of batches appended so far
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * @return Number of readings currently held, over all hives
+     */
+    public int size() {
+        int size = 0;
+        for (Ring ring : rings.values()) {
+            size += (int) Math.min(ring.claimed.get(), capacity);
+        }
+        return size;
+    }
+
+    /**
+     * Append every reading of {@code batch}, hive by hive, in time order. Hives that would
+     * exceed {@code maxHives} are skipped. Safe to call from any number of threads at once.
+     */
+    public void append(SensorSeries batch) {
+        if (batch.size() == 0) {
+            return;
+        }
+        for (int h = 0; h < batch.hiveCount(); h++) {
+            Ring ring = rings.get(batch.hiveTag(h));
+            if (ring == null && (ring = newRing(batch.hiveTag(h))) == null) {
+                continue;
+            }
+            ring.append(batch, batch.hiveStart(h), batch.hiveEnd(h));
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Rings are only created here, one at a time, so their number never exceeds the cap.
+     *
+     * @return The hive's ring, or null if there are {@code maxHives} rings already
+     */
+    private synchronized Ring newRing(String tagNumber) {
+        Ring ring = rings.get(tagNumber);
+        if (ring == null && rings.size() < maxHives) {
+            ring = new Ring(capacity);
+            rings.put(tagNumber, ring);
+        }
+        return ring;
+    }
+
+    /**
+     * Copy the readings currently held into a hive/time-sorted series.
+     */
+    public SensorSeries snapshot() {
+        SensorSeries.Builder builder = new SensorSeries.Builder(size());
+        rings.forEach((tag, ring) -> ring.copyTo(tag, builder, 0));
+        return builder.build();
+    }
+
+    /**
+     * Copy the readings appended since the previous call made with the same
+     * {@code positions} map, which records how far each hive's ring has been read and is
+     * updated in place. Readings already overwritten, or claimed but not yet published by
+     * a concurrent writer, are skipped.
+     *
+     * @param positions Read position per hive tag, owned by the caller
+     * @return The new readings as a hive/time-sorted series
+     */
+    public SensorSeries since(Map<String, Long> positions) {
+        SensorSeries.Builder builder = new SensorSeries.Builder();
+        rings.forEach((tag, ring) -> positions.put(tag,
+                ring.copyTo(tag, builder, positions.getOrDefault(tag, 0L))));
+        return builder.build();
+    }
+
+    /** One published reading; {@code seq} tells readers which claim wrote the slot. */
+    private static final class Reading {
+        final long seq;
+        final long epochSecond;
+        final double temperature;
+        final double humidity;
+
+        Reading(long seq, long epochSecond, double temperature, double humidity) {
+            this.seq = seq;
+            this.epochSecond = epochSecond;
+            this.temperature = temperature;
+            this.humidity = humidity;
+        }
+    }
+
+    private static final class Ring {
+        private final AtomicReferenceArray<Reading> slots;
+        private final int mask;
+        private final AtomicLong claimed = new AtomicLong();
+
+        Ring(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        void append(SensorSeries batch, int from, int to) {
+            int n = to - from;
+            long first = claimed.getAndAdd(n);
+            // Of an oversized batch only the newest readings would survive anyway
+            for (int i = Math.max(0, n - slots.length()); i < n; i++) {
+                int row = from + i;
+                Reading reading = new Reading(first + i, batch.epochSecond(row),
+                        batch.temperature(row), batch.humidity(row));
+                publish((int) reading.seq & mask, reading);
+            }
+        }
+
+        /**
+         * Store the reading unless a writer that wrapped around the ring meanwhile already
+         * stored a newer one in the same slot.
+         */
+        private void publish(int slot, Reading reading) {
+            Reading previous;
+            do {
+                previous = slots.get(slot);
+                if (previous != null && previous.seq > reading.seq) {
+                    return;
+                }
+            } while (!slots.compareAndSet(slot, previous, reading));
+        }
+
+        /**
+         * Copy the published readings with sequence numbers in {@code [from, claimed)}.
+         *
+         * @return The claimed count the copy stopped at
+         */
+        long copyTo(String tag, SensorSeries.Builder builder, long from) {
+            long end = claimed.get();
+            for (long seq = Math.max(from, end - slots.length()); seq < end; seq++) {
+                Reading r = slots.get((int) seq & mask);
+                if (r != null && r.seq == seq) {
+                    builder.add(tag, r.epochSecond, r.temperature, r.humidity);
+                }
+            }
+            return end;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import com.tretrente.smart_beekeeping_dashboard.util.Versions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * The {@link DatasetStore}s of one dataset, one per {@link DatasetPartition} of the
+ * {@link DatasetCatalog}.
+ * <p>
+ * {@link #snapshot(String, long, long)} prunes the partitions to those of the requested
+ * apiary whose year overlaps the time range, so only they are loaded. A range spanning
+ * several years is answered by a combined snapshot, built once per combination of
+ * partition versions and cached until one of them is reloaded; only the few most recently
+ * used combinations are kept. Its version is {@link Versions#combine} of the partition
+ * versions.
+ * </p>
+ *
+ * @param <S> type of the parsed data
+ */
+public class PartitionedStore<S> {
+
+    /** Combined snapshots kept, e.g. a dashboard on 2021 + 2022 and an export of every year. */
+    private static final int COMBINED_CACHE_SIZE = 4;
+
+    private final String name;
+    private final Map<DatasetPartition, DatasetStore<S>> stores = new LinkedHashMap<>();
+    private final Function<List<S>, S> combiner;
+    private final ToIntFunction<S> rowCounter;
+    private final ToLongFunction<S> footprint;
+    private final S empty;
+
+    // key: combined snapshot name, e.g. "weather/urban/2021+2022"; access-ordered, guarded by itself
+    private final LinkedHashMap<String, Combined<S>> combined = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Combined<S>> eldest) {
+            return size() > COMBINED_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * @param name       Dataset name, e.g. "sensor"
+     * @param partitions Partitions of the dataset, by apiary and then year
+     * @param loader     Parses one partition and returns immutable data
+     * @param rowCounter Returns the number of rows in the parsed data
+     * @param footprint  Returns the approximate retained heap size of the parsed data
+     * @param combiner   Combines the data of several partitions, in year order, into one
+     * @param empty      Data returned when no partition matches a query
+     */
+    public PartitionedStore(String name, List<DatasetPartition> partitions,
+                            Function<DatasetPartition, S> loader,
+                            ToIntFunction<S> rowCounter, ToLongFunction<S> footprint,
+                            Function<List<S>, S> combiner, S empty) {
+        this.name = name;
+        this.combiner = combiner;
+        this.rowCounter = rowCounter;
+        this.footprint = footprint;
+        this.empty = empty;
+        for (DatasetPartition p : partitions) {
+            stores.put(p, new DatasetStore<>(p.getName(), () -> loader.apply(p), rowCounter, footprint));
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Every partition, by apiary and then year
+     */
+    public List<DatasetPartition> partitions() {
+        return List.copyOf(stores.keySet());
+    }
+
+    /**
+     * @return The store of every partition, in partition order
+     */
+    public List<DatasetStore<S>> stores() {
+        return List.copyOf(stores.values());
+    }
+
+    /**
+     * @return The store of one partition
+     */
+    public DatasetStore<S> store(DatasetPartition partition) {
+        return stores.get(partition);
+    }
+
+    /**
+     * @return The stores of the most recent year of every apiary, the ones a dashboard
+     * opens on
+     */
+    public List<DatasetStore<S>> latest() {
+        Map<String, DatasetPartition> latest = new LinkedHashMap<>();
+        for (DatasetPartition p : stores.keySet()) {
+            latest.merge(p.getApiary(), p, (a, b) -> b.getYear() > a.getYear() ? b : a);
+        }
+        return latest.values().stream().map(stores::get).toList();
+    }
+
+    /**
+     * Snapshot of the partitions of {@code apiary} overlapping {@code [from, to]}, loading
+     * them if needed. Partitions outside the range are not touched.
+     *
+     * @param apiary Catalogued apiary name
+     * @param from   Lower bound, inclusive, in epoch seconds
+     * @param to     Upper bound, inclusive, in epoch seconds
+     * @return The partition's own snapshot when a single one matches, a combined snapshot
+     * when several do, an empty snapshot with version 0 when none does
+     */
+    public DatasetSnapshot<S> snapshot(String apiary, long from, long to) {
+        List<DatasetStore<S>> matching = new ArrayList<>();
+        StringJoiner years = new StringJoiner("+", name + "/" + apiary + "/", "");
+        for (Map.Entry<DatasetPartition, DatasetStore<S>> e : stores.entrySet()) {
+            DatasetPartition p = e.getKey();
+            if (p.getApiary().equals(apiary) && p.overlaps(from, to)) {
+                matching.add(e.getValue());
+                years.add(Integer.toString(p.getYear()));
+            }
+        }
+        if (matching.isEmpty()) {
+            return new DatasetSnapshot<>(name + "/" + apiary, 0, empty, 0, 0, 0);
+        }
+        if (matching.size() == 1) {
+            return matching.get(0).snapshot();
+        }
+
+        List<DatasetSnapshot<S>> parts = new ArrayList<>(matching.size());
+        long[] versions = new long[matching.size()];
+        for (int i = 0; i < versions.length; i++) {
+            DatasetSnapshot<S> part = matching.get(i).snapshot();
+            parts.add(part);
+            versions[i] = part.getVersion();
+        }
+        String key = years.toString();
+        Combined<S> current;
+        synchronized (combined) {
+            current = combined.get(key);
+        }
+        // Compared partition by partition: the combined version is only a hash of them
+        if (current != null && Arrays.equals(current.versions, versions)) {
+            return current.snapshot;
+        }
+        long startNanos = System.nanoTime();
+        S data = combiner.apply(parts.stream().map(DatasetSnapshot::getData).toList());
+        DatasetSnapshot<S> next = new DatasetSnapshot<>(key, Versions.combine(versions), data,
+                rowCounter.applyAsInt(data), (System.nanoTime() - startNanos) / 1_000_000,
+                footprint.applyAsLong(data));
+        // A concurrent caller may have stored the same or a newer combination; either is fine
+        synchronized (combined) {
+            combined.put(key, new Combined<>(versions, next));
+        }
+        return next;
+    }
+
+    /**
+     * Parses again every partition loaded so far; the others stay unloaded.
+     */
+    public void reload() {
+        for (DatasetStore<S> store : stores.values()) {
+            if (store.isLoaded()) {
+                store.reload();
+            }
+        }
+    }
+
+    /** A combined snapshot and the partition versions it was built from. */
+    private static final class Combined<S> {
+        final long[] versions;
+        final DatasetSnapshot<S> snapshot;
+
+        Combined(long[] versions, DatasetSnapshot<S> snapshot) {
+            this.versions = versions;
+            this.snapshot = snapshot;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Immutable segment file of the {@link SegmentStore}: readings sorted by hive and then by
+ * timestamp, cut into blocks of at most {@link #BLOCK_ROWS} rows of one hive, followed by
+ * an index of the blocks.
+ * <pre>
+ *   header  int magic "SBSG", int format version, long first log, long last log
+ *   blocks  per block: the words of a {@link GorillaBlock} of (temperature, humidity) rows
+ *   index   int hives; per hive its tag (UTF) and int block count;
+ *           per block long first and last timestamp, int rows, int offset in the file, int words
+ *   trailer long index offset, long CRC32C of every byte before it
+ * </pre>
+ * The file is memory-mapped and only the index is read into the heap. A {@link Cursor}
+ * finds the blocks overlapping a time range by binary search over their last timestamps
+ * and decodes their rows straight from the mapping, so a segment costs page cache, not
+ * heap, and about half the bytes of plain columns.
+ */
+final class SegmentFile {
+
+    /** Rows per block, at most. */
+    static final int BLOCK_ROWS = 1024;
+
+    /** "SBSG" */
+    private static final int MAGIC = 0x53425347;
+    private static final int FORMAT_VERSION = 3;
+    private static final int COLUMNS = 2;
+    private static final int HEADER_BYTES = 24;
+    private static final int TRAILER_BYTES = 16;
+
+    private final Path file;
+    private final long first;
+    private final long last;
+    private final String[] tags;
+    // Blocks of hive h: [hiveBlocks[h], hiveBlocks[h + 1])
+    private final int[] hiveBlocks;
+    private final GorillaBlock[] blocks;
+    private final long[] lastTimes;
+    private final long rows;
+
+    private SegmentFile(Path file, long first, long last, String[] tags, int[] hiveBlocks, GorillaBlock[] blocks) {
+        this.file = file;
+        this.first = first;
+        this.last = last;
+        this.tags = tags;
+        this.hiveBlocks = hiveBlocks;
+        this.blocks = blocks;
+        this.lastTimes = new long[blocks.length];
+        long total = 0;
+        for (int b = 0; b < blocks.length; b++) {
+            lastTimes[b] = blocks[b].lastTime();
+            total += blocks[b].rows();
+        }
+        this.rows = total;
+    }
+
+    /**
+     * Map a segment file and read its index, after checking its checksum.
+     *
+     * @throws IOException if the file is unreadable, truncated, corrupt or of another version
+     */
+    static SegmentFile open(Path file) throws IOException {
+        ByteBuffer buf = CsvChunks.map(file);
+        int size = buf.limit();
+        if (size < HEADER_BYTES + 4 + TRAILER_BYTES || buf.getInt(0) != MAGIC || buf.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("not a segment file of this version");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buf.slice(0, size - 8));
+        if (crc.getValue() != buf.getLong(size - 8)) {
+            throw new IOException("checksum mismatch");
+        }
+        long indexOffset = buf.getLong(size - TRAILER_BYTES);
+        if (indexOffset < HEADER_BYTES || indexOffset > size - TRAILER_BYTES) {
+            throw new IOException("index offset out of bounds: " + indexOffset);
+        }
+        byte[] index = new byte[size - TRAILER_BYTES - (int) indexOffset];
+        buf.get((int) indexOffset, index);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(index));
+        String[] tags = new String[in.readInt()];
+        int[] hiveBlocks = new int[tags.length + 1];
+        List<GorillaBlock> blocks = new ArrayList<>();
+        for (int h = 0; h < tags.length; h++) {
+            tags[h] = in.readUTF();
+            int count = in.readInt();
+            hiveBlocks[h] = blocks.size();
+            for (int b = 0; b < count; b++) {
+                long firstTime = in.readLong();
+                long lastTime = in.readLong();
+                int rows = in.readInt();
+                int offset = in.readInt();
+                int words = in.readInt();
+                if (rows <= 0 || words <= 0 || offset < HEADER_BYTES || offset + 8L * words > indexOffset) {
+                    throw new IOException("block out of bounds in " + tags[h]);
+                }
+                blocks.add(GorillaBlock.wrap(firstTime, lastTime, rows, COLUMNS,
+                        buf.slice(offset, 8 * words).asLongBuffer()));
+            }
+        }
+        hiveBlocks[tags.length] = blocks.size();
+        return new SegmentFile(file, buf.getLong(8), buf.getLong(16), tags, hiveBlocks,
+                blocks.toArray(new GorillaBlock[0]));
+    }
+
+    Path file() {
+        return file;
+    }
+
+    /**
+     * @return Sequence number of the first log compacted into this segment
+     */
+    long first() {
+        return first;
+    }
+
+    /**
+     * @return Sequence number of the last log compacted into this segment
+     */
+    long last() {
+        return last;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    /**
+     * @return Hive tags, in file order (ascending)
+     */
+    List<String> tags() {
+        return List.of(tags);
+    }
+
+    /**
+     * Rows with {@code from <= epochSecond <= to} of the requested hives, grouped by hive
+     * and then in time order.
+     *
+     * @param tagNumbers Hives to include; null or empty for all
+     */
+    Cursor cursor(long from, long to, Collection<String> tagNumbers) {
+        // (first block, end block, hive) triples
+        int[] ranges = new int[3 * tags.length];
+        int n = 0;
+        for (int h = 0; h < tags.length; h++) {
+            if (tagNumbers != null && !tagNumbers.isEmpty() && !tagNumbers.contains(tags[h])) {
+                continue;
+            }
+            ranges[n++] = TimeIndex.lowerBound(lastTimes, hiveBlocks[h], hiveBlocks[h + 1], from);
+            ranges[n++] = hiveBlocks[h + 1];
+            ranges[n++] = h;
+        }
+        return new Cursor(Arrays.copyOf(ranges, n), from, to);
+    }
+
+    /**
+     * Forward-only view over the rows of a {@link #cursor}, decoded from the mapping as it
+     * advances. Not thread-safe.
+     */
+    final class Cursor {
+        private final int[] ranges;
+        private final long from;
+        private final long to;
+        private final GorillaBlock.Decoder decoder = new GorillaBlock.Decoder(COLUMNS);
+        private int range = -3;
+        private int block;
+        private int end;
+        private int hive;
+        private boolean decoding;
+
+        private Cursor(int[] ranges, long from, long to) {
+            this.ranges = ranges;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Advance to the next row in range.
+         *
+         * @return false once every hive is exhausted
+         */
+        boolean next() {
+            while (true) {
+                if (decoding) {
+                    if (decoder.next()) {
+                        long t = decoder.epochSecond();
+                        if (t > to) {
+                            // Blocks are in time order: the rest of the hive is out of range
+                            decoding = false;
+                            block = end;
+                        } else if (t >= from) {
+                            return true;
+                        }
+                        continue;
+                    }
+                    decoding = false;
+                    block++;
+                }
+                if (block >= end) {
+                    range += 3;
+                    if (range >= ranges.length) {
+                        return false;
+                    }
+                    block = ranges[range];
+                    end = ranges[range + 1];
+                    hive = ranges[range + 2];
+                    continue;
+                }
+                if (blocks[block].firstTime() > to) {
+                    block = end;
+                    continue;
+                }
+                decoder.reset(blocks[block]);
+                decoding = true;
+            }
+        }
+
+        String tagNumber() {
+            return tags[hive];
+        }
+
+        long epochSecond() {
+            return decoder.epochSecond();
+        }
+
+        double temperature() {
+            return decoder.value(0);
+        }
+
+        double humidity() {
+            return decoder.value(1);
+        }
+    }
+
+    /**
+     * Writes a segment file from rows added in hive and then time order, one block at a
+     * time. Not thread-safe.
+     */
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final CRC32C crc = new CRC32C();
+        private final DataOutputStream out;
+        private final DataOutputStream index;
+        private final ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        private final double[] values = new double[COLUMNS];
+        private GorillaBlock.Encoder encoder = new GorillaBlock.Encoder(COLUMNS);
+        private final ByteArrayOutputStream hiveIndex = new ByteArrayOutputStream();
+        private final DataOutputStream hiveBlocks = new DataOutputStream(hiveIndex);
+        private long position;
+        private long lastTime;
+        private int hives;
+        private String tag;
+        private int blocks;
+
+        /**
+         * @param file  File to write, created or truncated
+         * @param first Sequence number of the first log held
+         * @param last  Sequence number of the last log held
+         */
+        Writer(Path file, long first, long last) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+            index = new DataOutputStream(indexBytes);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(first);
+            out.writeLong(last);
+            position = HEADER_BYTES;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the row is out of hive/time order
+         */
+        void add(String tagNumber, long epochSecond, double temp, double hum) throws IOException {
+            if (!tagNumber.equals(tag)) {
+                if (tag != null && tagNumber.compareTo(tag) < 0) {
+                    throw new IllegalArgumentException("hive " + tagNumber + " after " + tag);
+                }
+                endHive();
+                tag = tagNumber;
+            } else if (epochSecond < lastTime) {
+                throw new IllegalArgumentException("reading of " + tag + " out of time order");
+            }
+            if (encoder.rows() == BLOCK_ROWS) {
+                writeBlock();
+            }
+            values[0] = temp;
+            values[1] = hum;
+            encoder.add(epochSecond, values);
+            lastTime = epochSecond;
+        }
+
+        /**
+         * Every row of a sorted series.
+         */
+        void addAll(SensorSeries series) throws IOException {
+            for (int h = 0; h < series.hiveCount(); h++) {
+                String tagNumber = series.hiveTag(h);
+                for (int i = series.hiveStart(h); i < series.hiveEnd(h); i++) {
+                    add(tagNumber, series.epochSecond(i), series.temperature(i), series.humidity(i));
+                }
+            }
+        }
+
+        /**
+         * Write the index and the trailer and force the file to disk.
+         */
+        void finish() throws IOException {
+            endHive();
+            long indexOffset = position;
+            out.writeInt(hives);
+            indexBytes.writeTo(out);
+            out.writeLong(indexOffset);
+            out.flush();
+            // The checksum covers everything written so far, the index offset included
+            DataOutputStream trailer = new DataOutputStream(Channels.newOutputStream(channel));
+            trailer.writeLong(crc.getValue());
+            trailer.flush();
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private void endHive() throws IOException {
+            if (tag == null) {
+                return;
+            }
+            if (encoder.rows() > 0) {
+                writeBlock();
+            }
+            index.writeUTF(tag);
+            index.writeInt(blocks);
+            hiveBlocks.flush();
+            hiveIndex.writeTo(index);
+            hiveIndex.reset();
+            hives++;
+            blocks = 0;
+        }
+
+        private void writeBlock() throws IOException {
+            GorillaBlock block = encoder.build();
+            encoder = new GorillaBlock.Encoder(COLUMNS);
+            if (position + 8L * block.words() > Integer.MAX_VALUE) {
+                throw new IOException("segment larger than 2 GB");
+            }
+            block.writeTo(out);
+            hiveBlocks.writeLong(block.firstTime());
+            hiveBlocks.writeLong(block.lastTime());
+            hiveBlocks.writeInt(block.rows());
+            hiveBlocks.writeInt((int) position);
+            hiveBlocks.writeInt(block.words());
+            position += 8L * block.words();
+            blocks++;
+        }
+    }
+}
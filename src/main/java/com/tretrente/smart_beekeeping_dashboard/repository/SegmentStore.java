@@ -0,0 +1,607 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local persistence of the sensor readings ingested at runtime, so they survive a restart
+ * or a crash.
+ * <p>
+ * A batch is acknowledged only once it is in a {@link WriteAheadLog} forced to disk.
+ * Writers hand their encoded batch to a single committer thread and wait; the committer
+ * writes every batch queued meanwhile and forces the log once for all of them (group
+ * commit), so the fsync cost is shared by concurrent requests. When the log reaches
+ * {@code urban.storage.wal-max-bytes} it is sealed and a new one started; a background
+ * thread then sorts the sealed logs into an immutable, hive/time-sorted {@link SegmentFile}
+ * and deletes them. Once there are more than {@code urban.storage.max-segments} segments they
+ * are merged into one, hive by hive, without reading them into memory.
+ * </p>
+ * <p>
+ * Files are named after the logs they hold: {@code wal-<n>.log} and
+ * {@code segment-<first>-<last>.seg}. Segments are written to a temporary file and moved
+ * into place, and a log is deleted only after the segment holding it is durable. On
+ * startup the store loads the segments, drops the leftovers of an interrupted compaction
+ * (logs or segments already covered by another segment), replays the remaining logs up to
+ * their last complete record and compacts them.
+ * </p>
+ * Segments are served from their memory mapping; only the batches of the logs not compacted
+ * yet are held in the heap. {@link #query} reads the readings of a time range from both.
+ * Disabled unless {@code urban.storage.enabled} is set.
+ */
+@Component
+public class SegmentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentStore.class);
+
+    private static final Pattern LOG_NAME = Pattern.compile("wal-(\\d+)\\.log");
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)-(\\d+)\\.seg");
+
+    private final Path dir;
+    private final boolean enabled;
+    private final long walMaxBytes;
+    private final int maxSegments;
+
+    // Group commit: writers queue their records and wait, the committer writes them
+    private final Object commitLock = new Object();
+    private List<Pending> queue = new ArrayList<>();
+    private boolean running = true;
+    private final Thread committer;
+    private final ExecutorService compactor;
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong committedBatches = new AtomicLong();
+
+    // Guarded by this
+    // Log being written; only the committer thread replaces it, and reads it without the lock
+    private Log active;
+    private final List<SegmentFile> segments = new ArrayList<>();
+    private final List<Log> sealed = new ArrayList<>();
+    // Batches of the sealed and active logs, sorted; null when it must be rebuilt
+    private SensorSeries tail = SensorSeries.EMPTY;
+    private long readings;
+    private long version;
+
+    /**
+     * @param dir         Directory of the log and segment files (created on demand)
+     * @param enabled     true to persist ingested readings; otherwise they are kept in memory only
+     * @param walMaxBytes Size at which a log is sealed and compacted into a segment
+     * @param maxSegments Segments kept before they are merged into one
+     */
+    public SegmentStore(@Value("${urban.storage.dir:data/segments}") String dir,
+                        @Value("${urban.storage.enabled:false}") boolean enabled,
+                        @Value("${urban.storage.wal-max-bytes:16777216}") long walMaxBytes,
+                        @Value("${urban.storage.max-segments:8}") int maxSegments) {
+        this.dir = Path.of(dir);
+        this.enabled = enabled;
+        this.walMaxBytes = walMaxBytes;
+        this.maxSegments = Math.max(1, maxSegments);
+        this.committer = new Thread(this::commitLoop, "segment-committer");
+        this.committer.setDaemon(true);
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "segment-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        if (!enabled) {
+            return;
+        }
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot recover the segment store in " + this.dir, e);
+        }
+        committer.start();
+        compactor.execute(this::compact);
+    }
+
+    /**
+     * @return false if ingested readings are not persisted
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Persist a batch. Returns once the batch is durable; concurrent calls are committed
+     * together.
+     *
+     * @throws UncheckedIOException if the batch could not be written; it is then not stored
+     */
+    public void append(SensorSeries batch) {
+        if (!enabled || batch.size() == 0) {
+            return;
+        }
+        Pending pending;
+        try {
+            pending = new Pending(WriteAheadLog.encode(batch), batch);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        boolean interrupted = false;
+        synchronized (commitLock) {
+            if (!running) {
+                throw new UncheckedIOException(new IOException("The segment store is closed"));
+            }
+            queue.add(pending);
+            commitLock.notifyAll();
+            // Keep waiting when interrupted: the batch is committed anyway and the caller must know the outcome
+            while (!pending.done) {
+                try {
+                    commitLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (pending.error != null) {
+            throw new UncheckedIOException("Cannot persist " + batch.size() + " readings", pending.error);
+        }
+    }
+
+    /**
+     * @return Number of committed batches so far, plus one if readings were recovered
+     *         on startup; 0 while the store is empty
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Reads the persisted readings with {@code from <= epochSecond <= to}: the overlapping
+     * blocks of each segment, from its mapping, and the matching rows of the logs not
+     * compacted yet.
+     *
+     * @param from Lower bound, inclusive, in epoch seconds
+     * @param to   Upper bound, inclusive, in epoch seconds
+     * @return Readings in range, sorted by hive and then by timestamp
+     */
+    public SensorSeries query(long from, long to) {
+        List<SegmentFile> files;
+        SensorSeries logs;
+        synchronized (this) {
+            // A merge deletes its inputs once swapped out; their mappings stay readable
+            files = List.copyOf(segments);
+            if (tail == null) {
+                List<SensorSeries> batches = new ArrayList<>();
+                for (Log l : sealed) {
+                    batches.addAll(l.batches);
+                }
+                batches.addAll(active.batches);
+                tail = concat(batches);
+            }
+            logs = tail;
+        }
+        SensorSeries.Builder builder = new SensorSeries.Builder();
+        for (SegmentFile file : files) {
+            SegmentFile.Cursor c = file.cursor(from, to, null);
+            while (c.next()) {
+                builder.add(c.tagNumber(), c.epochSecond(), c.temperature(), c.humidity());
+            }
+        }
+        SensorCursor c = logs.query(from, to, null);
+        while (c.next()) {
+            builder.add(c.tagNumber(), c.epochSecond(), c.temperature(), c.humidity());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return Number of persisted readings
+     */
+    public synchronized long readings() {
+        return readings;
+    }
+
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return Number of logs not compacted yet, the one being written included
+     */
+    public synchronized int logCount() {
+        return enabled ? sealed.size() + 1 : 0;
+    }
+
+    /**
+     * @return Number of log writes, each forced to disk once
+     */
+    public long commits() {
+        return commits.get();
+    }
+
+    /**
+     * @return Number of batches written; divided by {@link #commits()}, the batches
+     *         sharing one fsync
+     */
+    public long committedBatches() {
+        return committedBatches.get();
+    }
+
+    /**
+     * Commit the queued batches and stop the background threads. Compaction in progress
+     * is finished; sealed logs left over are compacted on the next start.
+     */
+    @PreDestroy
+    public void close() {
+        synchronized (commitLock) {
+            running = false;
+            commitLock.notifyAll();
+        }
+        compactor.shutdown();
+        if (!enabled) {
+            return;
+        }
+        try {
+            committer.join();
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+            active.wal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Cannot close {}: {}", active.wal.file(), e.toString());
+        }
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(dir);
+        List<Segment> found = new ArrayList<>();
+        List<Path> logs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Matcher segment = SEGMENT_NAME.matcher(name);
+                if (name.endsWith(".tmp")) {
+                    // Segment whose compaction did not finish; its logs are still there
+                    Files.delete(file);
+                } else if (segment.matches()) {
+                    found.add(new Segment(file, Long.parseLong(segment.group(1)), Long.parseLong(segment.group(2))));
+                } else if (LOG_NAME.matcher(name).matches()) {
+                    logs.add(file);
+                }
+            }
+        }
+
+        // A merge may have stopped before deleting its inputs: drop the segments another one covers
+        found.sort(Comparator.comparingLong((Segment s) -> s.first).thenComparingLong(s -> -s.last));
+        long covered = 0;
+        for (Segment s : found) {
+            if (s.last <= covered) {
+                Files.delete(s.file);
+                continue;
+            }
+            try {
+                SegmentFile segment = SegmentFile.open(s.file);
+                segments.add(segment);
+                readings += segment.rows();
+            } catch (IOException | RuntimeException e) {
+                Path aside = s.file.resolveSibling(s.file.getFileName() + ".corrupt");
+                Files.move(s.file, aside, StandardCopyOption.REPLACE_EXISTING);
+                log.error("Segment {} is unreadable, moved to {}: {}", s.file, aside, e.toString());
+            }
+            covered = Math.max(covered, s.last);
+        }
+
+        logs.sort(Comparator.comparingLong(SegmentStore::sequence));
+        long next = covered + 1;
+        for (Path file : logs) {
+            long sequence = sequence(file);
+            next = Math.max(next, sequence + 1);
+            if (sequence <= covered) {
+                // Compacted, the process stopped before deleting it
+                Files.delete(file);
+                continue;
+            }
+            Log recovered = new Log(WriteAheadLog.open(file, sequence));
+            int records = recovered.wal.recover(recovered.batches::add);
+            if (records == 0) {
+                recovered.wal.close();
+                Files.delete(file);
+                continue;
+            }
+            log.info("Replayed {} batches from {}", records, file);
+            recovered.wal.close();
+            sealed.add(recovered);
+            for (SensorSeries batch : recovered.batches) {
+                readings += batch.size();
+            }
+        }
+        active = new Log(WriteAheadLog.open(dir.resolve(logName(next)), next));
+        syncDirectory();
+
+        tail = null;
+        version = readings > 0 ? 1 : 0;
+        if (readings > 0) {
+            log.info("Segment store {}: {} readings in {} segments and {} logs", dir, readings,
+                    segments.size(), sealed.size());
+        }
+    }
+
+    private void commitLoop() {
+        while (true) {
+            List<Pending> group;
+            synchronized (commitLock) {
+                while (queue.isEmpty() && running) {
+                    try {
+                        commitLock.wait();
+                    } catch (InterruptedException e) {
+                        // Only close() stops the committer, after the queue is drained
+                    }
+                }
+                if (queue.isEmpty()) {
+                    return;
+                }
+                group = queue;
+                queue = new ArrayList<>();
+            }
+            IOException error = null;
+            try {
+                commit(group);
+            } catch (IOException e) {
+                log.error("Cannot write {} batches to {}", group.size(), active.wal.file(), e);
+                error = e;
+            }
+            synchronized (commitLock) {
+                for (Pending p : group) {
+                    p.error = error;
+                    p.done = true;
+                }
+                commitLock.notifyAll();
+            }
+            if (error == null && active.wal.size() >= walMaxBytes) {
+                try {
+                    roll();
+                } catch (IOException e) {
+                    // The group is durable either way; the next commit tries again
+                    log.error("Cannot start a new log in {}", dir, e);
+                }
+            }
+        }
+    }
+
+    private void commit(List<Pending> group) throws IOException {
+        ByteBuffer[] records = new ByteBuffer[group.size()];
+        List<SensorSeries> batches = new ArrayList<>(group.size());
+        long rows = 0;
+        for (int i = 0; i < records.length; i++) {
+            records[i] = group.get(i).record;
+            batches.add(group.get(i).batch);
+            rows += group.get(i).batch.size();
+        }
+        active.wal.write(records);
+        commits.incrementAndGet();
+        committedBatches.addAndGet(records.length);
+        synchronized (this) {
+            active.batches.addAll(batches);
+            tail = null;
+            readings += rows;
+            version++;
+        }
+    }
+
+    /**
+     * Seal the active log, start the next one and compact the sealed logs in the background.
+     */
+    private void roll() throws IOException {
+        long next = active.wal.sequence() + 1;
+        Log rolled = new Log(WriteAheadLog.open(dir.resolve(logName(next)), next));
+        syncDirectory();
+        active.wal.close();
+        synchronized (this) {
+            sealed.add(active);
+            active = rolled;
+        }
+        compactor.execute(this::compact);
+    }
+
+    /**
+     * Sort the sealed logs into a new segment, then merge the segments if there are too many.
+     * On failure the logs stay in place and are compacted on the next roll or start.
+     */
+    private void compact() {
+        try {
+            List<Log> logs;
+            synchronized (this) {
+                logs = List.copyOf(sealed);
+            }
+            if (!logs.isEmpty()) {
+                List<SensorSeries> batches = new ArrayList<>();
+                for (Log l : logs) {
+                    batches.addAll(l.batches);
+                }
+                SensorSeries data = concat(batches);
+                SegmentFile segment = writeSegment(logs.get(0).wal.sequence(),
+                        logs.get(logs.size() - 1).wal.sequence(), w -> w.addAll(data));
+                synchronized (this) {
+                    segments.add(segment);
+                    sealed.removeAll(logs);
+                    tail = null;
+                }
+                for (Log l : logs) {
+                    Files.deleteIfExists(l.wal.file());
+                }
+                log.debug("Compacted {} logs into {} ({} readings)", logs.size(), segment.file(), data.size());
+            }
+
+            List<SegmentFile> inputs;
+            synchronized (this) {
+                if (segments.size() <= maxSegments) {
+                    return;
+                }
+                inputs = List.copyOf(segments);
+            }
+            SegmentFile merged = writeSegment(inputs.get(0).first(), inputs.get(inputs.size() - 1).last(),
+                    w -> merge(inputs, w));
+            synchronized (this) {
+                segments.removeAll(inputs);
+                segments.add(0, merged);
+            }
+            for (SegmentFile s : inputs) {
+                Files.deleteIfExists(s.file());
+            }
+            log.debug("Merged {} segments into {} ({} readings)", inputs.size(), merged.file(), merged.rows());
+        } catch (IOException | RuntimeException e) {
+            log.error("Compaction in {} failed, will retry", dir, e);
+        }
+    }
+
+    /**
+     * Write the rows of several segments in hive and time order: for each hive, a k-way
+     * merge of the segments' cursors over that hive. Only one block per segment is read at
+     * a time; readings with the same timestamp keep the order of the segments.
+     */
+    private static void merge(List<SegmentFile> inputs, SegmentFile.Writer writer) throws IOException {
+        TreeSet<String> tags = new TreeSet<>();
+        for (SegmentFile s : inputs) {
+            tags.addAll(s.tags());
+        }
+        SegmentFile.Cursor[] cursors = new SegmentFile.Cursor[inputs.size()];
+        boolean[] more = new boolean[cursors.length];
+        for (String tag : tags) {
+            Set<String> hive = Set.of(tag);
+            for (int i = 0; i < cursors.length; i++) {
+                cursors[i] = inputs.get(i).cursor(Long.MIN_VALUE, Long.MAX_VALUE, hive);
+                more[i] = cursors[i].next();
+            }
+            while (true) {
+                int min = -1;
+                for (int i = 0; i < cursors.length; i++) {
+                    if (more[i] && (min < 0 || cursors[i].epochSecond() < cursors[min].epochSecond())) {
+                        min = i;
+                    }
+                }
+                if (min < 0) {
+                    break;
+                }
+                SegmentFile.Cursor c = cursors[min];
+                writer.add(tag, c.epochSecond(), c.temperature(), c.humidity());
+                more[min] = c.next();
+            }
+        }
+    }
+
+    private SegmentFile writeSegment(long first, long last, SegmentContent content) throws IOException {
+        Path file = dir.resolve("segment-" + first + "-" + last + ".seg");
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (SegmentFile.Writer writer = new SegmentFile.Writer(tmp, first, last)) {
+                content.write(writer);
+                writer.finish();
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        syncDirectory();
+        return SegmentFile.open(file);
+    }
+
+    /**
+     * Make file creations, renames and deletions in the directory durable.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the file contents are forced regardless
+        }
+    }
+
+    private static SensorSeries concat(List<SensorSeries> batches) {
+        int size = 0;
+        for (SensorSeries b : batches) {
+            size += b.size();
+        }
+        SensorSeries.Builder builder = new SensorSeries.Builder(size);
+        for (SensorSeries b : batches) {
+            for (int h = 0; h < b.hiveCount(); h++) {
+                String tag = b.hiveTag(h);
+                for (int i = b.hiveStart(h); i < b.hiveEnd(h); i++) {
+                    builder.add(tag, b.epochSecond(i), b.temperature(i), b.humidity(i));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private static String logName(long sequence) {
+        return "wal-" + sequence + ".log";
+    }
+
+    private static long sequence(Path logFile) {
+        Matcher m = LOG_NAME.matcher(logFile.getFileName().toString());
+        if (!m.matches()) {
+            throw new IllegalArgumentException("not a log file: " + logFile);
+        }
+        return Long.parseLong(m.group(1));
+    }
+
+    /** A log file and the batches it holds. */
+    private static final class Log {
+        final WriteAheadLog wal;
+        final List<SensorSeries> batches = new ArrayList<>();
+
+        Log(WriteAheadLog wal) {
+            this.wal = wal;
+        }
+    }
+
+    /** Rows written to a new segment. */
+    private interface SegmentContent {
+        void write(SegmentFile.Writer writer) throws IOException;
+    }
+
+    /** A segment file found on startup and the logs it was compacted from. */
+    private static final class Segment {
+        final Path file;
+        final long first;
+        final long last;
+
+        Segment(Path file, long first, long last) {
+            this.file = file;
+            this.first = first;
+            this.last = last;
+        }
+    }
+
+    /** A batch waiting for the committer. */
+    private static final class Pending {
+        final ByteBuffer record;
+        final SensorSeries batch;
+        // Guarded by commitLock
+        boolean done;
+        IOException error;
+
+        Pending(ByteBuffer record, SensorSeries batch) {
+            this.record = record;
+            this.batch = batch;
+        }
+    }
+}
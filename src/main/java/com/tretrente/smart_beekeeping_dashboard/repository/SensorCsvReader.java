@@ -0,0 +1,605 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Specialized parser for sensor logs with the fixed layout
+ * {@code Date,Tag number,temperature,humidity}.
+ * <p>
+ * The file is read as raw bytes (see {@link CsvChunks#bytes}) and every line is
+ * decoded in place: timestamps ({@code yyyy-MM-dd HH:mm:ss} followed by {@code Z} or
+ * {@code ±HH:MM}) are turned into epoch seconds arithmetically, tags are resolved through
+ * a small byte-keyed dictionary and decimals are accumulated into a long mantissa. No
+ * String is created per line. Malformed lines are skipped and counted; the first
+ * {@link #MAX_REPORTED_ERRORS} are kept with their line number for reporting.
+ * </p>
+ * {@link #parallel} splits large files into newline-aligned chunks, parses each with its
+ * own reader and merges the results in file order.
+ * Files with a different header are left to {@link #readGeneric(Reader)}, which goes
+ * through commons-csv and resolves columns by name.
+ */
+public final class SensorCsvReader {
+
+    /** Expected columns, in order. Compared case-insensitively, ignoring surrounding blanks. */
+    public static final String[] HEADER = { "Date", "Tag number", "temperature", "humidity" };
+
+    public static final int MAX_REPORTED_ERRORS = 20;
+
+    /** Rough size of one line, used to pre-size the builder from the file length. */
+    private static final int BYTES_PER_LINE = 40;
+
+    private static final DateTimeFormatter FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssXXX");
+
+    /** Exact powers of ten; m / 10^k is correctly rounded for m < 2^53 and k <= 22. */
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final SensorSeries.Builder builder;
+    private final TagDictionary tags = new TagDictionary();
+    private final List<Long> errorLines = new ArrayList<>();
+    private final List<String> errorMessages = new ArrayList<>();
+    private long lines;
+    private long errors;
+
+    /** Reason the last field failed to parse. */
+    private String error;
+
+    /**
+     * @param expectedRows Capacity hint for the underlying builder
+     */
+    public SensorCsvReader(int expectedRows) {
+        this.builder = new SensorSeries.Builder(expectedRows);
+    }
+
+    /**
+     * @return Row count guess for a file of {@code buf.remaining()} bytes
+     */
+    public static int estimateRows(ByteBuffer buf) {
+        return buf.remaining() / BYTES_PER_LINE;
+    }
+
+    /**
+     * Parse a whole file held in {@code buf}. Convenience for
+     * {@code new SensorCsvReader(..).parse(buf)} followed by {@link #build()}.
+     *
+     * @return The parsed series, or null when the header does not match {@link #HEADER}
+     */
+    public static SensorSeries read(ByteBuffer buf) {
+        SensorCsvReader reader = new SensorCsvReader(estimateRows(buf));
+        return reader.parse(buf) ? reader.build() : null;
+    }
+
+    /**
+     * Parse a whole file in parallel on {@code pool}. The data lines are split into at most
+     * {@code pool.getParallelism()} newline-aligned chunks; each is parsed by its own reader
+     * and the rows, line counts and errors are merged in file order.
+     *
+     * @return A reader holding the merged result, or null when the header does not match
+     *         {@link #HEADER}
+     */
+    public static SensorCsvReader parallel(ByteBuffer buf, ForkJoinPool pool) throws IOException {
+        int start = dataStart(buf);
+        if (start < 0) {
+            return null;
+        }
+        int[] bounds = CsvChunks.split(buf, start, buf.limit(), pool.getParallelism());
+        List<SensorCsvReader> chunks = CsvChunks.parse(pool, buf, bounds, (b, from, to) -> {
+            SensorCsvReader chunk = new SensorCsvReader((to - from) / BYTES_PER_LINE);
+            chunk.parseLines(b, from, to);
+            return chunk;
+        });
+        if (chunks.size() == 1) {
+            chunks.get(0).lines++; // header
+            chunks.get(0).shiftErrors(1);
+            return chunks.get(0);
+        }
+
+        int rows = 0;
+        for (SensorCsvReader chunk : chunks) {
+            rows += chunk.builder.size();
+        }
+        SensorCsvReader merged = new SensorCsvReader(rows);
+        merged.lines = 1;
+        for (SensorCsvReader chunk : chunks) {
+            merged.builder.addAll(chunk.builder);
+            for (int i = 0; i < chunk.errorLines.size(); i++) {
+                merged.report(merged.lines + chunk.errorLines.get(i), chunk.errorMessages.get(i));
+            }
+            merged.errors += chunk.errors;
+            merged.lines += chunk.lines;
+        }
+        return merged;
+    }
+
+    /**
+     * Parse the bytes between the buffer's position and limit. The first line must be the
+     * header; the buffer's position is not modified.
+     *
+     * @return false (and nothing parsed) when the header does not match {@link #HEADER}
+     */
+    public boolean parse(ByteBuffer buf) {
+        int start = dataStart(buf);
+        if (start < 0) {
+            return false;
+        }
+        lines = 1;
+        parseLines(buf, start, buf.limit());
+        return true;
+    }
+
+    /**
+     * Parse the data lines between the buffer's position and limit, for payloads where the
+     * header is optional (e.g. ingestion batches). A leading {@link #HEADER} line is skipped;
+     * the buffer's position is not modified.
+     */
+    public void parseRows(ByteBuffer buf) {
+        int start = dataStart(buf);
+        if (start < 0) {
+            start = CsvChunks.skipBom(buf);
+        } else {
+            lines = 1;
+        }
+        parseLines(buf, start, buf.limit());
+    }
+
+    /**
+     * @return Position of the first data line, or -1 when the header does not match
+     */
+    private static int dataStart(ByteBuffer buf) {
+        int pos = CsvChunks.skipBom(buf);
+        int limit = buf.limit();
+        int eol = CsvChunks.lineEnd(buf, pos, limit);
+        if (!headerMatches(buf, pos, eol)) {
+            return -1;
+        }
+        return Math.min(eol + 1, limit);
+    }
+
+    /**
+     * Parse data lines in {@code [from, to)}, which must start at a line boundary.
+     */
+    private void parseLines(ByteBuffer buf, int from, int to) {
+        int[] comma = new int[3];
+        int pos = from;
+        while (pos < to) {
+            lines++;
+            int start = pos;
+            int commas = 0;
+            int i = pos;
+            byte b;
+            while (i < to && (b = buf.get(i)) != '\n') {
+                if (b == ',') {
+                    if (commas < 3) {
+                        comma[commas] = i;
+                    }
+                    commas++;
+                }
+                i++;
+            }
+            pos = i + 1;
+            int end = i;
+            if (end > start && buf.get(end - 1) == '\r') {
+                end--;
+            }
+            if (commas == 0 && isBlank(buf, start, end)) {
+                continue;
+            }
+            if (commas != 3) {
+                reject("expected 4 fields, found " + (commas + 1));
+                continue;
+            }
+            parseLine(buf, start, comma[0], comma[1], comma[2], end);
+        }
+    }
+
+    private void parseLine(ByteBuffer buf, int start, int c1, int c2, int c3, int end) {
+        long epoch = parseTimestamp(buf, trimStart(buf, start, c1), trimEnd(buf, start, c1));
+        if (epoch == Long.MIN_VALUE) {
+            reject("Date: " + error);
+            return;
+        }
+        String tag = tags.lookup(buf, trimStart(buf, c1 + 1, c2), trimEnd(buf, c1 + 1, c2));
+        if (tag == null) {
+            reject("Tag number: empty");
+            return;
+        }
+        double temp = parseDecimal(buf, trimStart(buf, c2 + 1, c3), trimEnd(buf, c2 + 1, c3));
+        if (Double.isNaN(temp)) {
+            reject("temperature: " + error);
+            return;
+        }
+        double hum = parseDecimal(buf, trimStart(buf, c3 + 1, end), trimEnd(buf, c3 + 1, end));
+        if (Double.isNaN(hum)) {
+            reject("humidity: " + error);
+            return;
+        }
+        builder.add(tag, epoch, temp, hum);
+    }
+
+    private void reject(String message) {
+        errors++;
+        report(lines, message);
+    }
+
+    private void report(long line, String message) {
+        if (errorLines.size() < MAX_REPORTED_ERRORS) {
+            errorLines.add(line);
+            errorMessages.add(message);
+        }
+    }
+
+    private void shiftErrors(long by) {
+        errorLines.replaceAll(line -> line + by);
+    }
+
+    /**
+     * @return The readings parsed so far, sorted by hive and then by timestamp
+     */
+    public SensorSeries build() {
+        return builder.build();
+    }
+
+    /**
+     * @return Number of lines read, header included
+     */
+    public long lineCount() {
+        return lines;
+    }
+
+    /**
+     * @return Number of malformed lines that were skipped
+     */
+    public long errorCount() {
+        return errors;
+    }
+
+    /**
+     * @return Messages for the first {@link #MAX_REPORTED_ERRORS} skipped lines
+     */
+    public List<String> errors() {
+        List<String> result = new ArrayList<>(errorLines.size());
+        for (int i = 0; i < errorLines.size(); i++) {
+            result.add("line " + errorLines.get(i) + ": " + errorMessages.get(i));
+        }
+        return result;
+    }
+
+    // --- Field decoders ---
+
+    /**
+     * {@code yyyy-MM-dd HH:mm:ss} followed by {@code Z} or {@code ±HH:MM}.
+     *
+     * @return Epoch seconds, or {@link Long#MIN_VALUE} (with {@link #error} set)
+     */
+    private long parseTimestamp(ByteBuffer buf, int from, int to) {
+        int len = to - from;
+        if (len != 20 && len != 25) {
+            error = "expected yyyy-MM-dd HH:mm:ss+HH:MM";
+            return Long.MIN_VALUE;
+        }
+        if (buf.get(from + 4) != '-' || buf.get(from + 7) != '-' || buf.get(from + 10) != ' '
+                || buf.get(from + 13) != ':' || buf.get(from + 16) != ':') {
+            error = "expected yyyy-MM-dd HH:mm:ss+HH:MM";
+            return Long.MIN_VALUE;
+        }
+        int year = digits(buf, from, 4);
+        int month = digits(buf, from + 5, 2);
+        int day = digits(buf, from + 8, 2);
+        int hour = digits(buf, from + 11, 2);
+        int minute = digits(buf, from + 14, 2);
+        int second = digits(buf, from + 17, 2);
+        if ((year | month | day | hour | minute | second) < 0) {
+            error = "non-digit in date or time";
+            return Long.MIN_VALUE;
+        }
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            error = "date or time out of range";
+            return Long.MIN_VALUE;
+        }
+
+        int offsetSeconds;
+        byte sign = buf.get(from + 19);
+        if (len == 20) {
+            if (sign != 'Z') {
+                error = "expected Z or ±HH:MM offset";
+                return Long.MIN_VALUE;
+            }
+            offsetSeconds = 0;
+        } else {
+            int oh = digits(buf, from + 20, 2);
+            int om = digits(buf, from + 23, 2);
+            if ((sign != '+' && sign != '-') || buf.get(from + 22) != ':' || (oh | om) < 0
+                    || oh > 18 || om > 59) {
+                error = "expected Z or ±HH:MM offset";
+                return Long.MIN_VALUE;
+            }
+            offsetSeconds = (oh * 3600 + om * 60) * (sign == '-' ? -1 : 1);
+        }
+        return daysFromCivil(year, month, day) * 86_400L
+                + hour * 3600 + minute * 60 + second - offsetSeconds;
+    }
+
+    /**
+     * Plain decimal ({@code -12.34}). Values with up to 15 significant digits and no
+     * exponent are computed exactly from a long mantissa; anything else falls back to
+     * {@link Double#parseDouble}.
+     *
+     * @return The value, or NaN (with {@link #error} set)
+     */
+    private double parseDecimal(ByteBuffer buf, int from, int to) {
+        if (from >= to) {
+            error = "empty";
+            return Double.NaN;
+        }
+        int i = from;
+        boolean negative = false;
+        byte b = buf.get(i);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+        for (; i < to; i++) {
+            b = buf.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            } else if (b == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                return parseSlow(buf, from, to);
+            }
+        }
+        if (digits == 0) {
+            error = "not a number";
+            return Double.NaN;
+        }
+        if (digits > 15) {
+            return parseSlow(buf, from, to);
+        }
+        double value = fraction > 0 ? mantissa / POW10[fraction] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private double parseSlow(ByteBuffer buf, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        String s = new String(bytes, StandardCharsets.US_ASCII);
+        try {
+            double value = Double.parseDouble(s);
+            if (Double.isFinite(value)) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        error = "not a number: '" + s + "'";
+        return Double.NaN;
+    }
+
+    /**
+     * @return Value of {@code n} ASCII digits, or -1 if any byte is not a digit
+     */
+    private static int digits(ByteBuffer buf, int from, int n) {
+        int value = 0;
+        for (int i = from; i < from + n; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+                return leap ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date (non-negative years).
+     */
+    static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468;
+    }
+
+    // --- Line helpers ---
+
+    private static boolean headerMatches(ByteBuffer buf, int from, int to) {
+        if (to > from && buf.get(to - 1) == '\r') {
+            to--;
+        }
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        String[] columns = new String(bytes, StandardCharsets.UTF_8).split(",", -1);
+        if (columns.length != HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < columns.length; i++) {
+            if (!columns[i].trim().equalsIgnoreCase(HEADER[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBlank(ByteBuffer buf, int from, int to) {
+        return trimStart(buf, from, to) == to;
+    }
+
+    /** Skips leading blanks and an opening double quote. */
+    private static int trimStart(ByteBuffer buf, int from, int to) {
+        while (from < to && isSpace(buf.get(from))) {
+            from++;
+        }
+        if (from < to && buf.get(from) == '"') {
+            from++;
+        }
+        return from;
+    }
+
+    /** Skips trailing blanks and a closing double quote. */
+    private static int trimEnd(ByteBuffer buf, int from, int to) {
+        while (to > from && isSpace(buf.get(to - 1))) {
+            to--;
+        }
+        if (to > from && buf.get(to - 1) == '"') {
+            to--;
+        }
+        return to;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    /**
+     * Interns tag numbers by their bytes so a tag seen before costs a hash and a
+     * comparison, not a String. Open addressing with linear probing.
+     */
+    private static final class TagDictionary {
+        private byte[][] keys = new byte[16][];
+        private String[] values = new String[16];
+        private int[] hashes = new int[16];
+        private int size;
+
+        /**
+         * @return The tag as a String, or null if {@code [from, to)} is empty
+         */
+        String lookup(ByteBuffer buf, int from, int to) {
+            if (from >= to) {
+                return null;
+            }
+            int h = 0;
+            for (int i = from; i < to; i++) {
+                h = 31 * h + buf.get(i);
+            }
+            int mask = keys.length - 1;
+            for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+                byte[] key = keys[slot];
+                if (key == null) {
+                    return insert(buf, from, to, h, slot);
+                }
+                if (hashes[slot] == h && equals(key, buf, from, to)) {
+                    return values[slot];
+                }
+            }
+        }
+
+        private String insert(ByteBuffer buf, int from, int to, int h, int slot) {
+            byte[] key = new byte[to - from];
+            buf.get(from, key);
+            String value = new String(key, StandardCharsets.UTF_8);
+            keys[slot] = key;
+            values[slot] = value;
+            hashes[slot] = h;
+            if (++size * 2 > keys.length) {
+                rehash();
+            }
+            return value;
+        }
+
+        private void rehash() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            int[] oldHashes = hashes;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldKeys.length * 2];
+            hashes = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int slot = oldHashes[i] & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                    hashes[slot] = oldHashes[i];
+                }
+            }
+        }
+
+        private static boolean equals(byte[] key, ByteBuffer buf, int from, int to) {
+            if (key.length != to - from) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buf.get(from + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // --- Generic path ---
+
+    /**
+     * General-purpose parser: columns are resolved by (case-insensitive) header name and
+     * each value goes through commons-csv, {@link OffsetDateTime#parse} and
+     * {@link Double#parseDouble}. Used for files that do not follow {@link #HEADER}.
+     */
+    public static SensorSeries readGeneric(Reader reader) throws IOException {
+        SensorSeries.Builder builder = new SensorSeries.Builder(64 * 1024);
+
+        CSVFormat format = CSVFormat.DEFAULT.builder()
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .setIgnoreHeaderCase(true)
+                .setTrim(true)
+                .build();
+
+        try (CSVParser parser = format.parse(reader)) {
+            for (CSVRecord record : parser) {
+                String dateStr = record.get("Date");
+                OffsetDateTime odt = OffsetDateTime.parse(dateStr, FORMATTER);
+
+                String tagNumber = record.get("Tag number");
+                double temp     = Double.parseDouble(record.get("temperature"));
+                double humidity = Double.parseDouble(record.get("humidity"));
+
+                builder.add(tagNumber, odt.toEpochSecond(), temp, humidity);
+            }
+        }
+        return builder.build();
+    }
+}
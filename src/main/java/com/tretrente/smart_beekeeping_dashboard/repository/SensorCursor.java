@@ -0,0 +1,107 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import com.tretrente.smart_beekeeping_dashboard.model.SensorRecord;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+
+import java.time.LocalDateTime;
+
+/**
+ * Forward-only view over one or more row ranges of a {@link SensorSeries}.
+ * <p>
+ * Typical use:
+ * <pre>{@code
+ * SensorCursor c = series.cursor();
+ * while (c.next()) {
+ *     write(c.epochSecond(), c.tagNumber(), c.temperature(), c.humidity());
+ * }
+ * }</pre>
+ * The accessors read straight from the primitive columns; nothing is allocated per row
+ * unless {@link #dateTime()} or {@link #toRecord()} is called. A cursor is not thread-safe.
+ * </p>
+ */
+public final class SensorCursor {
+
+    private final SensorSeries series;
+    private final int[] ranges;
+    private int range;
+    private int end;
+    private int row;
+    // Rows of the hive of the last hiveId() call
+    private int hive;
+    private int hiveStart;
+    private int hiveEnd;
+
+    SensorCursor(SensorSeries series, int from, int to) {
+        this(series, new int[] { from, to });
+    }
+
+    /**
+     * @param ranges Consecutive {@code [from, to)} row pairs, visited in order
+     */
+    SensorCursor(SensorSeries series, int[] ranges) {
+        this.series = series;
+        this.ranges = ranges;
+        this.range = -2;
+        this.row = 0;
+        this.end = 0;
+    }
+
+    /**
+     * Advance to the next row.
+     *
+     * @return false once every range is exhausted
+     */
+    public boolean next() {
+        if (++row < end) {
+            return true;
+        }
+        while ((range += 2) < ranges.length) {
+            row = ranges[range];
+            end = ranges[range + 1];
+            if (row < end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Index of the current row in the underlying series
+     */
+    public int row() {
+        return row;
+    }
+
+    public long epochSecond() {
+        return series.epochSecond(row);
+    }
+
+    public LocalDateTime dateTime() {
+        return EpochTime.toLocalDateTime(series.epochSecond(row));
+    }
+
+    public int hiveId() {
+        if (row < hiveStart || row >= hiveEnd) {
+            hive = series.hiveIdAt(row);
+            hiveStart = series.hiveStart(hive);
+            hiveEnd = series.hiveEnd(hive);
+        }
+        return hive;
+    }
+
+    public String tagNumber() {
+        return series.hiveTag(hiveId());
+    }
+
+    public double temperature() {
+        return series.temperature(row);
+    }
+
+    public double humidity() {
+        return series.humidity(row);
+    }
+
+    public SensorRecord toRecord() {
+        return series.record(row);
+    }
+}
@@ -1,71 +1,251 @@
 package com.tretrente.smart_beekeeping_dashboard.repository;
 
-import com.tretrente.smart_beekeeping_dashboard.model.SensorRecord;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
-import org.springframework.core.io.ClassPathResource;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+import com.tretrente.smart_beekeeping_dashboard.util.Versions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Repository;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.time.OffsetDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Repository to load temperature and humidity readings from sensor_2021.csv.
+ * Repository to load temperature and humidity readings from the sensor files of the
+ * {@link DatasetCatalog} ({@code sensor_<year>.csv}).
+ * Each file is parsed once, when a query first needs its year, into a columnar
+ * {@link SensorSeries} snapshot, sorted by hive and then by timestamp. Timestamps are
+ * normalized to UTC.
+ * Parsing goes through the byte-level {@link SensorCsvReader}, in parallel chunks; the
+ * result is cached as a binary snapshot (see {@link BinarySnapshots}).
+ * Readings posted at runtime belong to the default apiary. They are persisted by the
+ * {@link SegmentStore} and also kept in a bounded {@link LiveSensorBuffer} for the live
+ * updates; queries of the default apiary see the historical series merged with the
+ * persisted readings, or with the buffer when persistence is disabled (see
+ * {@link #snapshot(String, LocalDateTime, LocalDateTime)}).
  */
 @Repository
-public class SensorRepository {
+public class SensorRepository implements DatasetRepository {
 
-    // Path to the 2021 sensor CSV
-    private static final String CSV_PATH = "data/urban/sensor_2021.csv";
+    private static final Logger log = LoggerFactory.getLogger(SensorRepository.class);
+
+    // Marks the name of a snapshot merged with ingested readings
+    private static final String MERGED = "+ingested@";
+
+    private final PartitionedStore<SensorSeries> store;
+
+    private final DatasetCatalog catalog;
+    private final ForkJoinPool ingestPool;
+    private final BinarySnapshots snapshots;
+    private final LiveSensorBuffer live;
+    private final SegmentStore storage;
 
     /**
-     * Formatter for timestamps in format "yyyy-MM-dd HH:mm:ssXXX",
+     * @param catalog      Dataset files, by apiary and year
+     * @param ingestPool   Pool used to parse the CSV in parallel chunks
+     * @param snapshots    Binary snapshot cache, used to skip parsing on later boots
+     * @param storage      Persistence of the ingested readings
+     * @param liveCapacity Ingested readings kept in memory per hive
+     * @param liveMaxHives Hives whose ingested readings are kept in memory, at most
+     */
+    public SensorRepository(DatasetCatalog catalog, ForkJoinPool ingestPool, BinarySnapshots snapshots,
+                            SegmentStore storage,
+                            @Value("${urban.sensor.live-capacity:16384}") int liveCapacity,
+                            @Value("${urban.sensor.live-max-hives:1024}") int liveMaxHives) {
+        this.catalog = catalog;
+        this.ingestPool = ingestPool;
+        this.snapshots = snapshots;
+        this.storage = storage;
+        this.live = new LiveSensorBuffer(liveCapacity, liveMaxHives);
+        this.store = new PartitionedStore<>("sensor", catalog.partitions("sensor"), this::load,
+                SensorSeries::size, SensorSeries::estimatedBytes,
+                parts -> parts.stream().reduce(SensorSeries::merge).orElse(SensorSeries.EMPTY),
+                SensorSeries.EMPTY);
+    }
+
+    @Override
+    public PartitionedStore<SensorSeries> getStore() {
+        return store;
+    }
+
+    /**
+     * Persist ingested readings, then append them to the live buffer. They are visible to
+     * the next query.
      *
+     * @param batch Readings to append
+     * @throws java.io.UncheckedIOException if the readings could not be persisted; they are
+     *                                      then discarded
      */
-    private static final DateTimeFormatter FORMATTER =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssXXX");
+    public void append(SensorSeries batch) {
+        storage.append(batch);
+        live.append(batch);
+    }
 
-    public List<SensorRecord> findAll() {
-        List<SensorRecord> result = new ArrayList<>();
+    /**
+     * @return Buffer holding the readings ingested at runtime
+     */
+    public LiveSensorBuffer live() {
+        return live;
+    }
 
-        try {
-            var resource = new ClassPathResource(CSV_PATH);
-            var reader = new BufferedReader(
-                    new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)
-            );
+    /**
+     * Version of the readings of {@code apiary} within {@code [start, end]}: the version of
+     * the files covering the range, combined with the ingested version for the default
+     * apiary. The files are loaded if needed but nothing is merged, so it is cheap enough to
+     * compute before a cache lookup.
+     *
+     * @param apiary Apiary name; null for the default apiary
+     * @throws IllegalArgumentException if the apiary is not catalogued
+     */
+    public long version(String apiary, LocalDateTime start, LocalDateTime end) {
+        String name = catalog.apiary(apiary);
+        long base = store.snapshot(name, EpochTime.toEpochSecond(start), EpochTime.toEpochSecond(end)).getVersion();
+        long ingestedVersion = ingestedVersion(name);
+        return ingestedVersion == 0 ? base : Versions.combine(base, ingestedVersion);
+    }
 
-            CSVFormat format = CSVFormat.DEFAULT
-                    .withFirstRecordAsHeader()
-                    .withIgnoreHeaderCase()
-                    .withTrim();
+    /**
+     * Returns the files of {@code apiary} whose year overlaps {@code [start, end]}, the
+     * other years staying unloaded. For the default apiary, once readings were ingested, the
+     * readings of the range are merged with the ingested ones (read from the
+     * {@link SegmentStore}, or the live buffer) into a copy limited to the range, named after
+     * it (see {@link #isMerged}) and versioned as {@link #version}. That copy is built per
+     * call and not cached, so its size follows the query rather than the history.
+     *
+     * @param apiary Apiary name; null for the default apiary
+     * @return Current snapshot (never null)
+     * @throws IllegalArgumentException if the apiary is not catalogued
+     */
+    public DatasetSnapshot<SensorSeries> snapshot(String apiary, LocalDateTime start, LocalDateTime end) {
+        String name = catalog.apiary(apiary);
+        long from = EpochTime.toEpochSecond(start), to = EpochTime.toEpochSecond(end);
+        DatasetSnapshot<SensorSeries> base = store.snapshot(name, from, to);
+        long ingestedVersion = ingestedVersion(name);
+        if (ingestedVersion == 0) {
+            return base;
+        }
 
-            CSVParser parser = format.parse(reader);
+        long startNanos = System.nanoTime();
+        SensorSeries ingested = storage.isEnabled() ? storage.query(from, to) : live.snapshot();
+        SensorSeries data = SensorSeries.merge(base.getData(), ingested, from, to);
+        return new DatasetSnapshot<>(base.getName() + MERGED + from + ".." + to,
+                Versions.combine(base.getVersion(), ingestedVersion), data, data.size(),
+                (System.nanoTime() - startNanos) / 1_000_000, data.estimatedBytes());
+    }
 
-            for (CSVRecord record : parser) {
-                String dateStr = record.get("Date");
-                OffsetDateTime odt = OffsetDateTime.parse(dateStr, FORMATTER);
-                LocalDateTime dateTime = odt.toLocalDateTime();
+    /**
+     * @return true if the snapshot holds ingested readings merged for a single query range;
+     *         it is rebuilt by every call, so data derived from it is not worth caching
+     */
+    public static boolean isMerged(DatasetSnapshot<SensorSeries> snapshot) {
+        return snapshot.getName().contains(MERGED);
+    }
 
-                String tagNumber = record.get("Tag number");
-                double temp     = Double.parseDouble(record.get("temperature"));
-                double humidity = Double.parseDouble(record.get("humidity"));
+    /**
+     * Returns the columnar sensor series covering {@code [start, end]}, historical and live
+     * readings together, sorted by hive and then by timestamp. It may hold readings outside
+     * the range: filter them with {@link SensorSeries#range}.
+     *
+     * @return Shared, immutable SensorSeries
+     */
+    public SensorSeries series(String apiary, LocalDateTime start, LocalDateTime end) {
+        return snapshot(apiary, start, end).getData();
+    }
 
-                SensorRecord sr = new SensorRecord(dateTime, tagNumber, temp, humidity);
-                result.add(sr);
-            }
+    /**
+     * Returns a cursor over the readings with {@code start <= date <= end} of the requested
+     * hives, grouped by hive and then in time order. Each hive's range is located by binary
+     * search, so the cost does not depend on how much data lies outside the range.
+     *
+     * @param apiary     Apiary name; null for the default apiary
+     * @param start      Lower bound (inclusive)
+     * @param end        Upper bound (inclusive)
+     * @param tagNumbers Hive tags to include; null or empty for all hives
+     * @return Cursor over the matching readings
+     */
+    public SensorCursor query(String apiary, LocalDateTime start, LocalDateTime end,
+                              Collection<String> tagNumbers) {
+        return series(apiary, start, end)
+                .query(EpochTime.toEpochSecond(start), EpochTime.toEpochSecond(end), tagNumbers);
+    }
+
+    /**
+     * Number of readings with {@code start <= date <= end}, over all hives. Costs one binary
+     * search per hive; the ingested readings are counted apart rather than merged.
+     */
+    public long countBetween(String apiary, LocalDateTime start, LocalDateTime end) {
+        String name = catalog.apiary(apiary);
+        long from = EpochTime.toEpochSecond(start);
+        long to = EpochTime.toEpochSecond(end);
+        long count = count(store.snapshot(name, from, to).getData(), from, to);
+        if (ingestedVersion(name) != 0) {
+            count += count(storage.isEnabled() ? storage.query(from, to) : live.snapshot(), from, to);
+        }
+        return count;
+    }
+
+    private static long count(SensorSeries series, long from, long to) {
+        long count = 0;
+        for (int h = 0; h < series.hiveCount(); h++) {
+            int[] r = series.range(h, from, to);
+            count += r[1] - r[0];
+        }
+        return count;
+    }
 
-            parser.close();
+    /**
+     * Same filter as {@link #query}, packaged for JSON serialization.
+     *
+     * @param fields Value fields to include; null for all
+     */
+    public SensorSlice slice(String apiary, LocalDateTime start, LocalDateTime end,
+                             Collection<String> tagNumbers, Set<String> fields) {
+        return new SensorSlice(series(apiary, start, end), EpochTime.toEpochSecond(start),
+                EpochTime.toEpochSecond(end), tagNumbers, fields);
+    }
+
+    /** Version of the ingested readings seen by {@code apiary}'s queries; 0 if there are none. */
+    private long ingestedVersion(String apiary) {
+        if (!apiary.equals(catalog.defaultApiary())) {
+            return 0;
+        }
+        return storage.isEnabled() ? storage.version() : live.version();
+    }
+
+    private SensorSeries load(DatasetPartition partition) {
+        Resource resource = partition.getResource();
+        try {
+            return snapshots.load(partition.getId(), CsvChunks.bytes(resource), SnapshotCodecs.SENSOR,
+                    bytes -> parse(resource, bytes));
         } catch (Exception e) {
             e.printStackTrace();
+            return SensorSeries.EMPTY;
         }
+    }
 
-        return result;
+    private SensorSeries parse(Resource resource, ByteBuffer bytes) throws IOException {
+        SensorCsvReader reader = SensorCsvReader.parallel(bytes, ingestPool);
+        if (reader != null) {
+            if (reader.errorCount() > 0) {
+                log.warn("{}: skipped {} malformed lines out of {}",
+                        resource.getFilename(), reader.errorCount(), reader.lineCount());
+                reader.errors().forEach(e -> log.warn("{}: {}", resource.getFilename(), e));
+            }
+            return reader.build();
+        }
+
+        // Unexpected layout: resolve the columns by name
+        log.info("{}: header differs from {}, using the generic CSV parser",
+                resource.getFilename(), String.join(",", SensorCsvReader.HEADER));
+        try (var in = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            return SensorCsvReader.readGeneric(in);
+        }
     }
 }
@@ -0,0 +1,500 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.tretrente.smart_beekeeping_dashboard.model.SensorRecord;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.tretrente.smart_beekeeping_dashboard.util.HeapEstimator.*;
+
+/**
+ * Columnar, immutable storage for sensor readings.
+ * <p>
+ * Instead of one {@link SensorRecord} object per reading, every field lives in its own
+ * primitive array: epoch-second timestamps (UTC), temperature and humidity. Rows are
+ * sorted by hive tag and then by timestamp, so each hive occupies the contiguous row range
+ * {@code [hiveStart(id), hiveEnd(id))}; the hive of a row is not stored but follows from
+ * these offsets.
+ * </p>
+ * Rows are read through a {@link SensorCursor}; {@link #record(int)} materializes a single
+ * row as a {@link SensorRecord} when an object is really needed.
+ */
+@JsonSerialize(using = SensorSeriesJsonSerializer.class)
+public final class SensorSeries {
+
+    /** An empty series, used when the source cannot be read. */
+    public static final SensorSeries EMPTY = new Builder().build();
+
+    private static final int[] NO_ROWS = { 0, 0 };
+
+    private final String[] hiveTags;
+    private final int[] hiveOffsets;
+    private final long[] epochSeconds;
+    private final double[] temperature;
+    private final double[] humidity;
+
+    private SensorSeries(String[] hiveTags, int[] hiveOffsets,
+                         long[] epochSeconds, double[] temperature, double[] humidity) {
+        this.hiveTags = hiveTags;
+        this.hiveOffsets = hiveOffsets;
+        this.epochSeconds = epochSeconds;
+        this.temperature = temperature;
+        this.humidity = humidity;
+    }
+
+    /**
+     * Wrap already sorted columns, e.g. decoded from a binary snapshot.
+     *
+     * @param hiveTags     Sorted tag dictionary
+     * @param hiveOffsets  First row of each hive, plus the total row count
+     * @param epochSeconds Timestamps, sorted within each hive
+     */
+    static SensorSeries of(String[] hiveTags, int[] hiveOffsets, long[] epochSeconds,
+                           double[] temperature, double[] humidity) {
+        return new SensorSeries(hiveTags, hiveOffsets, epochSeconds, temperature, humidity);
+    }
+
+    /**
+     * Merge two series into one, hive by hive in time order. Within a hive, readings with
+     * equal timestamps keep {@code a}'s before {@code b}'s. Linear in the combined size.
+     */
+    public static SensorSeries merge(SensorSeries a, SensorSeries b) {
+        return merge(a, b, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Merge the readings of two series with {@code from <= epochSecond <= to}, as
+     * {@link #merge(SensorSeries, SensorSeries)} does. Each hive's rows are located by binary
+     * search, so the cost is linear in the readings within the range only. If either series
+     * is empty the other one is returned as is, readings outside the range included.
+     */
+    public static SensorSeries merge(SensorSeries a, SensorSeries b, long from, long to) {
+        if (b.size() == 0) {
+            return a;
+        }
+        if (a.size() == 0) {
+            return b;
+        }
+        String[] tags = unionSorted(a.hiveTags, b.hiveTags);
+        int[][] rangesA = new int[tags.length][];
+        int[][] rangesB = new int[tags.length][];
+        int size = 0;
+        for (int h = 0; h < tags.length; h++) {
+            int ha = a.hiveId(tags[h]), hb = b.hiveId(tags[h]);
+            rangesA[h] = ha < 0 ? NO_ROWS : a.range(ha, from, to);
+            rangesB[h] = hb < 0 ? NO_ROWS : b.range(hb, from, to);
+            size += rangesA[h][1] - rangesA[h][0] + rangesB[h][1] - rangesB[h][0];
+        }
+        int[] offsets = new int[tags.length + 1];
+        long[] ts = new long[size];
+        double[] temp = new double[size];
+        double[] hum = new double[size];
+
+        int out = 0;
+        for (int h = 0; h < tags.length; h++) {
+            offsets[h] = out;
+            int i = rangesA[h][0], iEnd = rangesA[h][1];
+            int j = rangesB[h][0], jEnd = rangesB[h][1];
+            while (i < iEnd && j < jEnd) {
+                if (a.epochSeconds[i] <= b.epochSeconds[j]) {
+                    ts[out] = a.epochSeconds[i];
+                    temp[out] = a.temperature[i];
+                    hum[out++] = a.humidity[i++];
+                } else {
+                    ts[out] = b.epochSeconds[j];
+                    temp[out] = b.temperature[j];
+                    hum[out++] = b.humidity[j++];
+                }
+            }
+            out = copyRows(a, i, iEnd, ts, temp, hum, out);
+            out = copyRows(b, j, jEnd, ts, temp, hum, out);
+        }
+        offsets[tags.length] = out;
+        return of(tags, offsets, ts, temp, hum);
+    }
+
+    private static int copyRows(SensorSeries src, int from, int to,
+                                long[] ts, double[] temp, double[] hum, int out) {
+        int n = to - from;
+        System.arraycopy(src.epochSeconds, from, ts, out, n);
+        System.arraycopy(src.temperature, from, temp, out, n);
+        System.arraycopy(src.humidity, from, hum, out, n);
+        return out + n;
+    }
+
+    private static String[] unionSorted(String[] a, String[] b) {
+        String[] result = new String[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            int cmp = a[i].compareTo(b[j]);
+            result[n++] = cmp <= 0 ? a[i] : b[j];
+            if (cmp <= 0) {
+                i++;
+            }
+            if (cmp >= 0) {
+                j++;
+            }
+        }
+        while (i < a.length) {
+            result[n++] = a[i++];
+        }
+        while (j < b.length) {
+            result[n++] = b[j++];
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * @return Number of readings
+     */
+    public int size() {
+        return epochSeconds.length;
+    }
+
+    /**
+     * @return Number of distinct hives (size of the tag dictionary)
+     */
+    public int hiveCount() {
+        return hiveTags.length;
+    }
+
+    /**
+     * @param hiveId Dictionary id
+     * @return Tag number of the hive
+     */
+    public String hiveTag(int hiveId) {
+        return hiveTags[hiveId];
+    }
+
+    /**
+     * @param tagNumber Hive tag number, e.g. "3629"
+     * @return Dictionary id of the hive, or -1 if it has no readings
+     */
+    public int hiveId(String tagNumber) {
+        int idx = Arrays.binarySearch(hiveTags, tagNumber);
+        return idx >= 0 ? idx : -1;
+    }
+
+    /**
+     * @return All hive tag numbers, in dictionary (sorted) order
+     */
+    public List<String> hiveTags() {
+        return List.of(hiveTags);
+    }
+
+    /** First row of the given hive. */
+    public int hiveStart(int hiveId) {
+        return hiveOffsets[hiveId];
+    }
+
+    /** Row after the last row of the given hive. */
+    public int hiveEnd(int hiveId) {
+        return hiveOffsets[hiveId + 1];
+    }
+
+    public long epochSecond(int row) {
+        return epochSeconds[row];
+    }
+
+    /**
+     * Hive of a row, found by binary search over the hive offsets. Cursors remember the
+     * current hive's rows instead of searching for every row.
+     */
+    public int hiveIdAt(int row) {
+        Objects.checkIndex(row, size());
+        // Last hive starting at or before the row; empty hives share their successor's start
+        int lo = 0, hi = hiveTags.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (hiveOffsets[mid] <= row) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    public double temperature(int row) {
+        return temperature[row];
+    }
+
+    public double humidity(int row) {
+        return humidity[row];
+    }
+
+    /**
+     * @return Cursor over every reading
+     */
+    public SensorCursor cursor() {
+        return new SensorCursor(this, 0, size());
+    }
+
+    /**
+     * @return Cursor over the readings of one hive
+     */
+    public SensorCursor cursor(int hiveId) {
+        return new SensorCursor(this, hiveStart(hiveId), hiveEnd(hiveId));
+    }
+
+    /**
+     * Rows of one hive with {@code from <= epochSecond <= to}, found by binary search.
+     *
+     * @return {@code [fromRow, toRow)} pair
+     */
+    public int[] range(int hiveId, long from, long to) {
+        int lo = TimeIndex.lowerBound(epochSeconds, hiveStart(hiveId), hiveEnd(hiveId), from);
+        int hi = TimeIndex.upperBound(epochSeconds, lo, hiveEnd(hiveId), to);
+        return new int[] { lo, hi };
+    }
+
+    /**
+     * Cursor over the readings with {@code from <= epochSecond <= to} of the requested hives,
+     * grouped by hive (in dictionary order) and then in time order. Costs O(h log n) to
+     * position plus O(k) to iterate k matching rows.
+     *
+     * @param from       Lower bound, inclusive, in epoch seconds
+     * @param to         Upper bound, inclusive, in epoch seconds
+     * @param tagNumbers Hive tags to include; null or empty for all hives
+     */
+    public SensorCursor query(long from, long to, Collection<String> tagNumbers) {
+        boolean all = tagNumbers == null || tagNumbers.isEmpty();
+        int[] ranges = new int[2 * hiveTags.length];
+        int n = 0;
+        for (int h = 0; h < hiveTags.length; h++) {
+            if (!all && !tagNumbers.contains(hiveTags[h])) {
+                continue;
+            }
+            int[] r = range(h, from, to);
+            ranges[n++] = r[0];
+            ranges[n++] = r[1];
+        }
+        return new SensorCursor(this, Arrays.copyOf(ranges, n));
+    }
+
+    /**
+     * Cursor over an explicit, ascending list of rows (e.g. the output of a downsampler).
+     * Runs of consecutive rows are visited as one range.
+     */
+    public SensorCursor rows(int[] rows) {
+        int[] ranges = new int[2 * rows.length];
+        int n = 0;
+        for (int row : rows) {
+            if (n > 0 && ranges[n - 1] == row) {
+                ranges[n - 1] = row + 1;
+            } else {
+                ranges[n++] = row;
+                ranges[n++] = row + 1;
+            }
+        }
+        return new SensorCursor(this, Arrays.copyOf(ranges, n));
+    }
+
+    /**
+     * Materialize one row as a record object.
+     */
+    public SensorRecord record(int row) {
+        return new SensorRecord(EpochTime.toLocalDateTime(epochSeconds[row]),
+                hiveTags[hiveIdAt(row)], temperature[row], humidity[row]);
+    }
+
+    /**
+     * Materialize every row as record objects. Meant for callers that need the
+     * object API; allocates one object graph per reading.
+     */
+    public List<SensorRecord> toRecords() {
+        List<SensorRecord> result = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            result.add(record(i));
+        }
+        return result;
+    }
+
+    /**
+     * @return Approximate retained heap size, in bytes
+     */
+    public long estimatedBytes() {
+        long bytes = object(5 * REFERENCE)
+                + array(hiveTags.length, REFERENCE)
+                + array(hiveOffsets.length, 4)
+                + array(epochSeconds.length, 8)
+                + array(temperature.length, 8)
+                + array(humidity.length, 8);
+        for (String tag : hiveTags) {
+            bytes += string(tag);
+        }
+        return bytes;
+    }
+
+    /**
+     * Accumulates readings in any order and produces a hive/time-sorted {@link SensorSeries}.
+     * Not thread-safe.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> tags = new ArrayList<>();
+        private int[] hiveIds;
+        private long[] epochSeconds;
+        private double[] temperature;
+        private double[] humidity;
+        private int size;
+
+        public Builder() {
+            this(1024);
+        }
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            hiveIds = new int[capacity];
+            epochSeconds = new long[capacity];
+            temperature = new double[capacity];
+            humidity = new double[capacity];
+        }
+
+        /**
+         * Append one reading.
+         *
+         * @return this builder
+         */
+        public Builder add(String tagNumber, long epochSecond, double temp, double hum) {
+            Integer id = dictionary.get(tagNumber);
+            if (id == null) {
+                id = tags.size();
+                dictionary.put(tagNumber, id);
+                tags.add(tagNumber);
+            }
+            if (size == epochSeconds.length) {
+                grow();
+            }
+            hiveIds[size] = id;
+            epochSeconds[size] = epochSecond;
+            temperature[size] = temp;
+            humidity[size] = hum;
+            size++;
+            return this;
+        }
+
+        /**
+         * Append every reading of another builder, in its insertion order.
+         *
+         * @return this builder
+         */
+        public Builder addAll(Builder other) {
+            int[] remap = new int[other.tags.size()];
+            for (int i = 0; i < remap.length; i++) {
+                String tag = other.tags.get(i);
+                Integer id = dictionary.get(tag);
+                if (id == null) {
+                    id = tags.size();
+                    dictionary.put(tag, id);
+                    tags.add(tag);
+                }
+                remap[i] = id;
+            }
+            int needed = size + other.size;
+            if (needed > epochSeconds.length) {
+                hiveIds = Arrays.copyOf(hiveIds, needed);
+                epochSeconds = Arrays.copyOf(epochSeconds, needed);
+                temperature = Arrays.copyOf(temperature, needed);
+                humidity = Arrays.copyOf(humidity, needed);
+            }
+            for (int i = 0; i < other.size; i++) {
+                hiveIds[size + i] = remap[other.hiveIds[i]];
+            }
+            System.arraycopy(other.epochSeconds, 0, epochSeconds, size, other.size);
+            System.arraycopy(other.temperature, 0, temperature, size, other.size);
+            System.arraycopy(other.humidity, 0, humidity, size, other.size);
+            size = needed;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        private void grow() {
+            int capacity = epochSeconds.length + (epochSeconds.length >> 1);
+            hiveIds = Arrays.copyOf(hiveIds, capacity);
+            epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+            temperature = Arrays.copyOf(temperature, capacity);
+            humidity = Arrays.copyOf(humidity, capacity);
+        }
+
+        /**
+         * Sort the accumulated readings by hive tag then timestamp and freeze them.
+         * Readings of the same hive with equal timestamps keep their insertion order.
+         */
+        public SensorSeries build() {
+            String[] sortedTags = tags.toArray(new String[0]);
+            Arrays.sort(sortedTags);
+            int hives = sortedTags.length;
+            int[] remap = new int[hives];
+            for (int newId = 0; newId < hives; newId++) {
+                remap[dictionary.get(sortedTags[newId])] = newId;
+            }
+
+            // Counting sort by hive
+            int[] offsets = new int[hives + 1];
+            for (int i = 0; i < size; i++) {
+                offsets[remap[hiveIds[i]] + 1]++;
+            }
+            for (int h = 0; h < hives; h++) {
+                offsets[h + 1] += offsets[h];
+            }
+            int[] order = new int[size];
+            int[] fill = Arrays.copyOf(offsets, hives);
+            for (int i = 0; i < size; i++) {
+                order[fill[remap[hiveIds[i]]]++] = i;
+            }
+
+            // Within each hive, order rows by timestamp
+            for (int h = 0; h < hives; h++) {
+                sortByTime(order, offsets[h], offsets[h + 1]);
+            }
+
+            long[] outTs = new long[size];
+            double[] outTemp = new double[size];
+            double[] outHum = new double[size];
+            for (int h = 0; h < hives; h++) {
+                for (int row = offsets[h]; row < offsets[h + 1]; row++) {
+                    int src = order[row];
+                    outTs[row] = epochSeconds[src];
+                    outTemp[row] = temperature[src];
+                    outHum[row] = humidity[src];
+                }
+            }
+            return new SensorSeries(sortedTags, offsets, outTs, outTemp, outHum);
+        }
+
+        /**
+         * Sort {@code order[from, to)} by timestamp. Rows usually arrive already in order,
+         * which is detected in one pass; otherwise the row indices are sorted by their
+         * timestamp with a stable sort, so equal timestamps keep their insertion order.
+         */
+        private void sortByTime(int[] order, int from, int to) {
+            boolean sorted = true;
+            for (int i = from + 1; i < to && sorted; i++) {
+                sorted = epochSeconds[order[i - 1]] <= epochSeconds[order[i]];
+            }
+            if (sorted) {
+                return;
+            }
+            Integer[] rows = new Integer[to - from];
+            for (int i = from; i < to; i++) {
+                rows[i - from] = order[i];
+            }
+            Arrays.sort(rows, Comparator.comparingLong(row -> epochSeconds[row]));
+            for (int i = 0; i < rows.length; i++) {
+                order[from + i] = rows[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Writes a {@link SensorSeries} as a JSON array of {@code SensorRecord}-shaped objects
+ * ({@code date}, {@code tagNumber}, {@code temperature}, {@code humidity}) directly from
+ * the columns, without materializing record objects.
+ */
+public class SensorSeriesJsonSerializer extends StdSerializer<SensorSeries> {
+
+    public SensorSeriesJsonSerializer() {
+        super(SensorSeries.class);
+    }
+
+    @Override
+    public void serialize(SensorSeries series, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartArray(series, series.size());
+        writeRows(gen, series.cursor(), null);
+        gen.writeEndArray();
+    }
+
+    /**
+     * Write one JSON object per cursor row. {@code date} and {@code tagNumber} are always
+     * written; {@code temperature} and {@code humidity} only if {@code fields} is null or
+     * contains them.
+     */
+    static void writeRows(JsonGenerator gen, SensorCursor c, Set<String> fields) throws IOException {
+        boolean temperature = fields == null || fields.contains("temperature");
+        boolean humidity = fields == null || fields.contains("humidity");
+        StringBuilder date = new StringBuilder(19);
+        char[] buf = new char[19];
+        while (c.next()) {
+            date.setLength(0);
+            EpochTime.appendIso(date, c.epochSecond());
+            date.getChars(0, date.length(), buf, 0);
+            gen.writeStartObject();
+            gen.writeFieldName("date");
+            gen.writeString(buf, 0, date.length());
+            gen.writeStringField("tagNumber", c.tagNumber());
+            if (temperature) {
+                gen.writeNumberField("temperature", c.temperature());
+            }
+            if (humidity) {
+                gen.writeNumberField("humidity", c.humidity());
+            }
+            gen.writeEndObject();
+        }
+    }
+}
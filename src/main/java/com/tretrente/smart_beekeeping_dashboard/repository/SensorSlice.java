@@ -0,0 +1,50 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * A time/hive-filtered slice of a {@link SensorSeries}, optionally projected to a subset of
+ * fields. Serializes to JSON like the series itself, straight from the columns.
+ */
+@JsonSerialize(using = SensorSliceJsonSerializer.class)
+public final class SensorSlice {
+
+    private final Supplier<SensorCursor> cursors;
+    private final Set<String> fields;
+
+    /**
+     * @param series     Source series
+     * @param from       Lower bound, inclusive, in epoch seconds
+     * @param to         Upper bound, inclusive, in epoch seconds
+     * @param tagNumbers Hive tags to include; null or empty for all hives
+     * @param fields     Value fields to write ("temperature", "humidity"); null for all
+     */
+    public SensorSlice(SensorSeries series, long from, long to,
+                       Collection<String> tagNumbers, Set<String> fields) {
+        this(() -> series.query(from, to, tagNumbers), fields);
+    }
+
+    /**
+     * @param cursors Creates a fresh cursor over the rows of the slice
+     * @param fields  Value fields to write ("temperature", "humidity"); null for all
+     */
+    public SensorSlice(Supplier<SensorCursor> cursors, Set<String> fields) {
+        this.cursors = cursors;
+        this.fields = fields;
+    }
+
+    /**
+     * @return A new cursor over the rows of the slice
+     */
+    public SensorCursor cursor() {
+        return cursors.get();
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+}
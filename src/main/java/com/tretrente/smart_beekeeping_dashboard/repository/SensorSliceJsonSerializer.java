@@ -0,0 +1,25 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link SensorSlice} as a JSON array of {@code SensorRecord}-shaped objects,
+ * limited to the slice's rows and fields.
+ */
+public class SensorSliceJsonSerializer extends StdSerializer<SensorSlice> {
+
+    public SensorSliceJsonSerializer() {
+        super(SensorSlice.class);
+    }
+
+    @Override
+    public void serialize(SensorSlice slice, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartArray(slice);
+        SensorSeriesJsonSerializer.writeRows(gen, slice.cursor(), slice.getFields());
+        gen.writeEndArray();
+    }
+}
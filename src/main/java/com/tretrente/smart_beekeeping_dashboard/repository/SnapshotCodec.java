@@ -0,0 +1,25 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary encoding of one parsed dataset, used by {@link BinarySnapshots}.
+ *
+ * @param <S> type of the parsed data
+ */
+public interface SnapshotCodec<S> {
+
+    /**
+     * Version of the encoding. Snapshots written with another version are discarded.
+     */
+    int version();
+
+    void write(S data, DataOutputStream out) throws IOException;
+
+    /**
+     * Decode the data starting at the buffer's position.
+     */
+    S read(ByteBuffer buf);
+}
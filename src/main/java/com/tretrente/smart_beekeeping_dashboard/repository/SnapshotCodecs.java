@@ -0,0 +1,249 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import com.tretrente.smart_beekeeping_dashboard.model.InspectionRecord;
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Snapshot encodings of the three UrBAN datasets.
+ * <p>
+ * Timestamps are stored as zig-zag varint deltas from the previous row (two bytes for a
+ * 15-minute step) and doubles as packed big-endian columns that are copied back in bulk.
+ * Strings are length-prefixed UTF-8.
+ * </p>
+ */
+public final class SnapshotCodecs {
+
+    private SnapshotCodecs() { }
+
+    /**
+     * {@link SensorSeries}: hive dictionary and offsets, then the timestamp, temperature
+     * and humidity columns in row order.
+     */
+    public static final SnapshotCodec<SensorSeries> SENSOR = new SnapshotCodec<>() {
+        @Override
+        public int version() {
+            return 1;
+        }
+
+        @Override
+        public void write(SensorSeries series, DataOutputStream out) throws IOException {
+            int hives = series.hiveCount();
+            out.writeInt(hives);
+            for (int h = 0; h < hives; h++) {
+                writeString(out, series.hiveTag(h));
+            }
+            for (int h = 0; h < hives; h++) {
+                out.writeInt(series.hiveStart(h));
+            }
+            int n = series.size();
+            out.writeInt(n);
+            long previous = 0;
+            for (int i = 0; i < n; i++) {
+                writeVarLong(out, series.epochSecond(i) - previous);
+                previous = series.epochSecond(i);
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeDouble(series.temperature(i));
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeDouble(series.humidity(i));
+            }
+        }
+
+        @Override
+        public SensorSeries read(ByteBuffer buf) {
+            int hives = buf.getInt();
+            String[] tags = new String[hives];
+            for (int h = 0; h < hives; h++) {
+                tags[h] = readString(buf);
+            }
+            int[] offsets = new int[hives + 1];
+            for (int h = 0; h < hives; h++) {
+                offsets[h] = buf.getInt();
+            }
+            int n = buf.getInt();
+            offsets[hives] = n;
+            long[] epochSeconds = readDeltas(buf, n);
+            double[] temperature = readDoubles(buf, n);
+            double[] humidity = readDoubles(buf, n);
+            return SensorSeries.of(tags, offsets, epochSeconds, temperature, humidity);
+        }
+    };
+
+    /**
+     * Weather observations: timestamp (UTC-normalized local time), temperature, humidity
+     * and precipitation columns, in time order.
+     */
+    public static final SnapshotCodec<TimeIndex<WeatherRecord>> WEATHER = new SnapshotCodec<>() {
+        // 2: values the station did not report are NaN instead of 0
+        @Override
+        public int version() {
+            return 2;
+        }
+
+        @Override
+        public void write(TimeIndex<WeatherRecord> index, DataOutputStream out) throws IOException {
+            List<WeatherRecord> records = index.records();
+            out.writeInt(records.size());
+            long previous = 0;
+            for (WeatherRecord w : records) {
+                long ts = EpochTime.toEpochSecond(w.getDateTime());
+                writeVarLong(out, ts - previous);
+                previous = ts;
+            }
+            for (WeatherRecord w : records) {
+                out.writeDouble(w.getTemperature());
+            }
+            for (WeatherRecord w : records) {
+                out.writeDouble(w.getHumidity());
+            }
+            for (WeatherRecord w : records) {
+                out.writeDouble(w.getPrecipitation());
+            }
+        }
+
+        @Override
+        public TimeIndex<WeatherRecord> read(ByteBuffer buf) {
+            int n = buf.getInt();
+            long[] ts = readDeltas(buf, n);
+            double[] temperature = readDoubles(buf, n);
+            double[] humidity = readDoubles(buf, n);
+            double[] precipitation = readDoubles(buf, n);
+            List<WeatherRecord> records = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                records.add(new WeatherRecord(EpochTime.toLocalDateTime(ts[i]),
+                        temperature[i], humidity[i], precipitation[i]));
+            }
+            return TimeIndex.build(records, w -> EpochTime.toEpochSecond(w.getDateTime()));
+        }
+    };
+
+    /**
+     * Inspections, row by row: date as a day delta, counts as varints, text fields as strings.
+     */
+    public static final SnapshotCodec<TimeIndex<InspectionRecord>> INSPECTIONS = new SnapshotCodec<>() {
+        @Override
+        public int version() {
+            return 1;
+        }
+
+        @Override
+        public void write(TimeIndex<InspectionRecord> index, DataOutputStream out) throws IOException {
+            List<InspectionRecord> records = index.records();
+            out.writeInt(records.size());
+            long previous = 0;
+            for (InspectionRecord r : records) {
+                long day = r.getDate().toEpochDay();
+                writeVarLong(out, day - previous);
+                previous = day;
+                writeString(out, r.getTagNumber());
+                writeVarLong(out, r.getColonySize());
+                writeVarLong(out, r.getFob1st());
+                writeVarLong(out, r.getFob2nd());
+                writeVarLong(out, r.getFob3rd());
+                writeVarLong(out, r.getFoBrood());
+                writeString(out, r.getQueenStatus());
+                writeVarLong(out, r.getFramesOfHoney());
+                writeString(out, r.getOpen());
+                writeString(out, r.getClose());
+                writeString(out, r.getNotes());
+            }
+        }
+
+        @Override
+        public TimeIndex<InspectionRecord> read(ByteBuffer buf) {
+            int n = buf.getInt();
+            List<InspectionRecord> records = new ArrayList<>(n);
+            long day = 0;
+            for (int i = 0; i < n; i++) {
+                day += readVarLong(buf);
+                records.add(new InspectionRecord(
+                        LocalDate.ofEpochDay(day),
+                        readString(buf),
+                        (int) readVarLong(buf),
+                        (int) readVarLong(buf), (int) readVarLong(buf), (int) readVarLong(buf),
+                        (int) readVarLong(buf),
+                        readString(buf),
+                        (int) readVarLong(buf),
+                        readString(buf), readString(buf),
+                        readString(buf)));
+            }
+            return TimeIndex.build(records, r -> r.getDate().toEpochDay() * 86_400L,
+                    InspectionRecord::getTagNumber);
+        }
+    };
+
+    // --- Primitives ---
+
+    /** Zig-zag LEB128: small magnitudes of either sign take few bytes. */
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    static long readVarLong(ByteBuffer buf) {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf.get();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * @return {@code n} values stored as varint deltas from the previous value
+     */
+    private static long[] readDeltas(ByteBuffer buf, int n) {
+        long[] values = new long[n];
+        long previous = 0;
+        for (int i = 0; i < n; i++) {
+            previous += readVarLong(buf);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    private static double[] readDoubles(ByteBuffer buf, int n) {
+        double[] values = new double[n];
+        buf.slice(buf.position(), n * 8).order(buf.order()).asDoubleBuffer().get(values);
+        buf.position(buf.position() + n * 8);
+        return values;
+    }
+
+    /** Null is written as length -1. */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int len = buf.getInt();
+        if (len < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,303 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import com.tretrente.smart_beekeeping_dashboard.util.HeapEstimator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Immutable, time-sorted list of records with a per-key (hive) index.
+ * <p>
+ * Records are kept in timestamp order together with a parallel {@code long[]} of their
+ * timestamps. For each distinct key (e.g. a hive tag number) the index also stores the
+ * positions of that key's records, again in time order. A {@code [from, to]} query is
+ * answered with binary searches, so it costs O(log n + k) for k matching records
+ * instead of a full scan.
+ * </p>
+ *
+ * @param <T> record type
+ */
+public final class TimeIndex<T> {
+
+    private final List<T> records;
+    private final long[] times;
+    private final String[] keys;
+    private final int[][] positions;
+
+    private TimeIndex(List<T> records, long[] times, String[] keys, int[][] positions) {
+        this.records = records;
+        this.times = times;
+        this.keys = keys;
+        this.positions = positions;
+    }
+
+    /**
+     * Build an index over records that have no key (e.g. weather observations).
+     *
+     * @param records Records in any order
+     * @param time    Timestamp of a record, in epoch seconds
+     */
+    public static <T> TimeIndex<T> build(List<T> records, ToLongFunction<T> time) {
+        return build(records, time, null);
+    }
+
+    /**
+     * Build an index over keyed records. The sort is stable: records with equal timestamps
+     * keep their input order.
+     *
+     * @param records Records in any order
+     * @param time    Timestamp of a record, in epoch seconds
+     * @param key     Key of a record (e.g. its hive tag), or null for an unkeyed index
+     */
+    public static <T> TimeIndex<T> build(List<T> records, ToLongFunction<T> time, Function<T, String> key) {
+        List<T> sorted = new ArrayList<>(records);
+        sorted.sort(Comparator.comparingLong(time));
+
+        long[] times = new long[sorted.size()];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = time.applyAsLong(sorted.get(i));
+        }
+
+        String[] keys = new String[0];
+        int[][] positions = new int[0][];
+        if (key != null) {
+            Map<String, List<Integer>> byKey = new HashMap<>();
+            for (int i = 0; i < sorted.size(); i++) {
+                String k = key.apply(sorted.get(i));
+                if (k != null) {
+                    byKey.computeIfAbsent(k, x -> new ArrayList<>()).add(i);
+                }
+            }
+            keys = byKey.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            positions = new int[keys.length][];
+            for (int k = 0; k < keys.length; k++) {
+                positions[k] = byKey.get(keys[k]).stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+        return new TimeIndex<>(Collections.unmodifiableList(sorted), times, keys, positions);
+    }
+
+    /**
+     * @return All records in time order (unmodifiable)
+     */
+    public List<T> records() {
+        return records;
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    /**
+     * @return Timestamp of the record at {@code position} in {@link #records()}, in epoch seconds
+     */
+    public long time(int position) {
+        return times[position];
+    }
+
+    /**
+     * @return Position of the first record with a timestamp at or after {@code epochSecond};
+     *         {@link #size()} if there is none
+     */
+    public int lowerBound(long epochSecond) {
+        return lowerBound(times, 0, times.length, epochSecond);
+    }
+
+    /**
+     * @return Distinct keys, sorted; empty for an unkeyed index
+     */
+    public List<String> keys() {
+        return List.of(keys);
+    }
+
+    /**
+     * @return Approximate heap size of the index structures (timestamps and per-key
+     *         positions), excluding the records themselves
+     */
+    public long indexBytes() {
+        long bytes = HeapEstimator.array(times.length, 8) + HeapEstimator.array(keys.length, HeapEstimator.REFERENCE);
+        for (int[] pos : positions) {
+            bytes += HeapEstimator.array(pos.length, 4);
+        }
+        for (String k : keys) {
+            bytes += HeapEstimator.string(k);
+        }
+        return bytes;
+    }
+
+    /**
+     * Records with {@code from <= time <= to}, in time order.
+     * The result is a view over the shared snapshot.
+     */
+    public List<T> range(long from, long to) {
+        int lo = lowerBound(times, 0, times.length, from);
+        int hi = upperBound(times, lo, times.length, to);
+        return records.subList(lo, hi);
+    }
+
+    /**
+     * Records with {@code from <= time <= to} whose key is in {@code wanted}, in time order.
+     * A null or empty {@code wanted} means all keys.
+     */
+    public List<T> range(long from, long to, Collection<String> wanted) {
+        if (wanted == null || wanted.isEmpty()) {
+            return range(from, to);
+        }
+        Set<String> distinct = new HashSet<>(wanted);
+        int count = 0;
+        int[][] hits = new int[distinct.size()][];
+        int n = 0;
+        for (String k : distinct) {
+            int idx = Arrays.binarySearch(keys, k);
+            if (idx < 0) {
+                continue;
+            }
+            int[] pos = positions[idx];
+            int lo = lowerBound(pos, from);
+            int hi = upperBound(pos, lo, to);
+            hits[n++] = Arrays.copyOfRange(pos, lo, hi);
+            count += hi - lo;
+        }
+
+        // Positions point into the time-sorted list, so sorting them restores time order
+        int[] merged = new int[count];
+        int at = 0;
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(hits[i], 0, merged, at, hits[i].length);
+            at += hits[i].length;
+        }
+        if (n > 1) {
+            Arrays.sort(merged);
+        }
+        List<T> result = new ArrayList<>(count);
+        for (int p : merged) {
+            result.add(records.get(p));
+        }
+        return result;
+    }
+
+    /**
+     * Lazily iterate the records with {@code from <= time <= to} whose key is in
+     * {@code wanted}, in time order, without collecting them first. The per-key position
+     * ranges are merged on the fly, so memory use is O(number of keys).
+     * A null or empty {@code wanted} means all keys.
+     */
+    public Iterator<T> iterator(long from, long to, Collection<String> wanted) {
+        if (wanted == null || wanted.isEmpty()) {
+            return range(from, to).iterator();
+        }
+        Set<String> distinct = new HashSet<>(wanted);
+        int[][] lists = new int[distinct.size()][];
+        int[] next = new int[distinct.size()];
+        int[] end = new int[distinct.size()];
+        int n = 0;
+        for (String k : distinct) {
+            int idx = Arrays.binarySearch(keys, k);
+            if (idx < 0) {
+                continue;
+            }
+            int[] pos = positions[idx];
+            lists[n] = pos;
+            next[n] = lowerBound(pos, from);
+            end[n] = upperBound(pos, next[n], to);
+            n++;
+        }
+        int count = n;
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                for (int i = 0; i < count; i++) {
+                    if (next[i] < end[i]) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public T next() {
+                int best = -1;
+                for (int i = 0; i < count; i++) {
+                    if (next[i] < end[i] && (best < 0 || lists[i][next[i]] < lists[best][next[best]])) {
+                        best = i;
+                    }
+                }
+                if (best < 0) {
+                    throw new NoSuchElementException();
+                }
+                return records.get(lists[best][next[best]++]);
+            }
+        };
+    }
+
+    /**
+     * First index in {@code a[from, to)} with {@code a[i] >= key}.
+     */
+    static int lowerBound(long[] a, int from, int to, long key) {
+        int lo = from, hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * First index in {@code a[from, to)} with {@code a[i] > key}.
+     */
+    static int upperBound(long[] a, int from, int to, long key) {
+        int lo = from, hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int lowerBound(int[] pos, long key) {
+        int lo = 0, hi = pos.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[pos[mid]] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int upperBound(int[] pos, int from, long key) {
+        int lo = from, hi = pos.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[pos[mid]] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -1,87 +1,186 @@
 package com.tretrente.smart_beekeeping_dashboard.repository;
 
 import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Repository;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.tretrente.smart_beekeeping_dashboard.util.HeapEstimator.*;
 
 /**
- * Repository to load all entries from weather_2021.csv.
+ * Repository to load the weather files of the {@link DatasetCatalog} ({@code weather_<year>.csv}).
  * Handles empty numeric fields by defaulting to 0.
+ * Each file is parsed once, when a query first needs its year, into an immutable,
+ * time-sorted {@link DatasetStore} snapshot indexed by timestamp for range queries.
  */
 @Repository
-public class WeatherRepository {
-
-    // Path to the CSV file under resources/data/urban
-    private static final String CSV_PATH = "data/urban/weather_2021.csv";
+public class WeatherRepository implements DatasetRepository {
 
     // Formatter for timestamps in format "yyyy-MM-dd HH:mm:ss"
     private static final DateTimeFormatter FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    // WeatherRecord: header + reference + 3 doubles, plus its LocalDateTime and list slot
+    private static final long BYTES_PER_RECORD = object(REFERENCE + 3 * 8) + LOCAL_DATE_TIME + REFERENCE;
+
+    private final PartitionedStore<TimeIndex<WeatherRecord>> store;
+
+    private final DatasetCatalog catalog;
+    private final ForkJoinPool ingestPool;
+    private final BinarySnapshots snapshots;
+
+    /**
+     * @param catalog    Dataset files, by apiary and year
+     * @param ingestPool Pool used to parse the CSV in parallel chunks
+     * @param snapshots  Binary snapshot cache, used to skip parsing on later boots
+     */
+    public WeatherRepository(DatasetCatalog catalog, ForkJoinPool ingestPool, BinarySnapshots snapshots) {
+        this.catalog = catalog;
+        this.ingestPool = ingestPool;
+        this.snapshots = snapshots;
+        this.store = new PartitionedStore<>("weather", catalog.partitions("weather"), this::load,
+                TimeIndex::size,
+                index -> array(index.size(), REFERENCE) + index.size() * BYTES_PER_RECORD + index.indexBytes(),
+                WeatherRepository::combine, index(List.of()));
+    }
+
+    @Override
+    public PartitionedStore<TimeIndex<WeatherRecord>> getStore() {
+        return store;
+    }
+
     /**
-     * Reads the CSV, parses each row, and returns a list of WeatherRecord.
+     * Snapshot of the files of {@code apiary} whose year overlaps {@code [start, end]};
+     * the other years are not loaded.
      *
-     * @return List of WeatherRecord for 2021
+     * @param apiary Apiary name; null for the default apiary
+     * @throws IllegalArgumentException if the apiary is not catalogued
      */
-    public List<WeatherRecord> findAll() {
-        List<WeatherRecord> result = new ArrayList<>();
+    public DatasetSnapshot<TimeIndex<WeatherRecord>> snapshot(String apiary, LocalDateTime start, LocalDateTime end) {
+        return store.snapshot(catalog.apiary(apiary), EpochTime.toEpochSecond(start), EpochTime.toEpochSecond(end));
+    }
+
+    /**
+     * Returns the records with {@code start <= dateTime <= end}, in time order,
+     * located by binary search over the time index.
+     *
+     * @param apiary Apiary name; null for the default apiary
+     * @param start  Lower bound (inclusive)
+     * @param end    Upper bound (inclusive)
+     * @return Unmodifiable view over the matching records
+     */
+    public List<WeatherRecord> findBetween(String apiary, LocalDateTime start, LocalDateTime end) {
+        return snapshot(apiary, start, end).getData()
+                .range(EpochTime.toEpochSecond(start), EpochTime.toEpochSecond(end));
+    }
 
+    /**
+     * Loads the time index of one file from its binary snapshot, or from the CSV when the
+     * snapshot is missing or stale.
+     */
+    private TimeIndex<WeatherRecord> load(DatasetPartition partition) {
         try {
-            ClassPathResource resource = new ClassPathResource(CSV_PATH);
-            BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)
-            );
+            return snapshots.load(partition.getId(), CsvChunks.bytes(partition.getResource()),
+                    SnapshotCodecs.WEATHER, bytes -> parse(bytes, ingestPool));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return index(List.of());
+        }
+    }
 
-            CSVFormat format = CSVFormat.DEFAULT
-                    .withFirstRecordAsHeader()
-                    .withIgnoreHeaderCase()
-                    .withTrim();
+    /**
+     * Several years in one index, records in time order.
+     */
+    private static TimeIndex<WeatherRecord> combine(List<TimeIndex<WeatherRecord>> parts) {
+        List<WeatherRecord> records = new ArrayList<>();
+        for (TimeIndex<WeatherRecord> part : parts) {
+            records.addAll(part.records());
+        }
+        return index(records);
+    }
+
+    private static TimeIndex<WeatherRecord> index(List<WeatherRecord> records) {
+        return TimeIndex.build(records, w -> EpochTime.toEpochSecond(w.getDateTime()));
+    }
 
-            CSVParser parser = format.parse(reader);
+    /**
+     * Reads the CSV, parses each row, and returns a time index over the WeatherRecords.
+     * Large files are split into newline-aligned chunks parsed in parallel.
+     * Public so benchmarks can run it on synthetic files.
+     *
+     * @param bytes      Whole file in the {@code weather_<year>.csv} layout
+     * @param ingestPool Pool parsing the chunks
+     */
+    public static TimeIndex<WeatherRecord> parse(ByteBuffer bytes, ForkJoinPool ingestPool) throws IOException {
+        List<WeatherRecord> result = new ArrayList<>();
+
+        // Header names are read once and handed to every chunk
+        int headerStart = CsvChunks.skipBom(bytes);
+        String headerLine = CsvChunks.line(bytes, headerStart);
+        String[] header = CSVParser.parse(headerLine, CSVFormat.DEFAULT).getRecords().get(0).values();
+        CSVFormat format = CSVFormat.DEFAULT.builder()
+                .setHeader(header)
+                .setIgnoreHeaderCase(true)
+                .setTrim(true)
+                .build();
 
+        int dataStart = Math.min(CsvChunks.lineEnd(bytes, headerStart, bytes.limit()) + 1, bytes.limit());
+        int[] bounds = CsvChunks.split(bytes, dataStart, bytes.limit(), ingestPool.getParallelism());
+        for (List<WeatherRecord> chunk : CsvChunks.parse(ingestPool, bytes, bounds,
+                (buf, from, to) -> parseChunk(buf, from, to, format))) {
+            result.addAll(chunk);
+        }
+
+        return index(result);
+    }
+
+    /**
+     * Parses the whole lines in {@code [from, to)}.
+     */
+    private static List<WeatherRecord> parseChunk(ByteBuffer buf, int from, int to, CSVFormat format)
+            throws IOException {
+        List<WeatherRecord> result = new ArrayList<>();
+        String text = StandardCharsets.UTF_8.decode(buf.slice(from, to - from)).toString();
+
+        try (CSVParser parser = CSVParser.parse(text, format)) {
             for (CSVRecord record : parser) {
                 String dateStr = record.get("Date/Time (LST)"); // e.g. "2021-06-01 00:00:00"
                 LocalDateTime dateTime = LocalDateTime.parse(dateStr, FORMATTER);
 
-                // “Temp (°C)” might be empty or something unexpected → default to 0
-                double temperature   = parseDoubleOrZero(record.get("Temp (°C)"));
-                double humidity      = parseDoubleOrZero(record.get("Rel Hum (%)"));
-                double precipitation = parseDoubleOrZero(record.get("Precip. Amount (mm)"));
+                // Values the station did not report are empty: keep them as NaN, not as 0
+                double temperature   = parseDoubleOrNaN(record.get("Temp (°C)"));
+                double humidity      = parseDoubleOrNaN(record.get("Rel Hum (%)"));
+                double precipitation = parseDoubleOrNaN(record.get("Precip. Amount (mm)"));
 
                 WeatherRecord wr = new WeatherRecord(dateTime, temperature, humidity, precipitation);
                 result.add(wr);
             }
-
-            parser.close();
-        } catch (Exception e) {
-            e.printStackTrace();
         }
-
         return result;
     }
 
     /**
-     * Parse a String to double, returning 0 if empty or invalid.
+     * Parse a String to double, returning NaN if empty or invalid.
      */
-    private double parseDoubleOrZero(String raw) {
+    private static double parseDoubleOrNaN(String raw) {
         if (raw == null || raw.isBlank()) {
-            return 0.0;
+            return Double.NaN;
         }
         try {
             return Double.parseDouble(raw);
         } catch (NumberFormatException ex) {
-            return 0.0;
+            return Double.NaN;
         }
     }
 }
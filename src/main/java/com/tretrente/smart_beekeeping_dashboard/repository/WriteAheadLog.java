@@ -0,0 +1,155 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * One append-only write-ahead log file of ingested sensor batches.
+ * <p>
+ * Each record is {@code [int length][int CRC32C][payload]}, the payload being the batch in
+ * the {@link SnapshotCodecs#SENSOR} encoding. Records are written in groups and the file
+ * is forced to disk once per group ({@link #write}), so concurrent writers share one
+ * fsync. On recovery a torn or corrupt record ends the log: it and anything after it were
+ * never acknowledged, and the file is truncated back to the last valid record
+ * ({@link #recover}).
+ * </p>
+ * Not thread-safe: {@link SegmentStore} writes from a single thread.
+ */
+public final class WriteAheadLog implements AutoCloseable {
+
+    private static final int HEADER = 8;
+
+    private final long sequence;
+    private final Path file;
+    private final FileChannel channel;
+    private long size;
+
+    private WriteAheadLog(long sequence, Path file, FileChannel channel, long size) {
+        this.sequence = sequence;
+        this.file = file;
+        this.channel = channel;
+        this.size = size;
+    }
+
+    /**
+     * Create an empty log, or open an existing one to append to it.
+     *
+     * @param sequence Position of the log among the others, part of its file name
+     */
+    public static WriteAheadLog open(Path file, long sequence) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        return new WriteAheadLog(sequence, file, channel, channel.size());
+    }
+
+    /**
+     * Encode a batch as one log record.
+     */
+    public static ByteBuffer encode(SensorSeries batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER + 64 + batch.size() * 20);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(0);
+        SnapshotCodecs.SENSOR.write(batch, out);
+        out.flush();
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), HEADER, record.capacity() - HEADER);
+        record.putInt(0, record.capacity() - HEADER);
+        record.putInt(4, (int) crc.getValue());
+        return record;
+    }
+
+    /**
+     * Read back every valid record of an existing log, in order, and cut a torn or corrupt
+     * tail so that new records follow the last valid one.
+     *
+     * @param batches Receives the batch of each record
+     * @return Number of records recovered
+     */
+    public int recover(Consumer<SensorSeries> batches) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file));
+        int records = 0;
+        CRC32C crc = new CRC32C();
+        while (buf.remaining() >= HEADER) {
+            int start = buf.position();
+            int length = buf.getInt();
+            int checksum = buf.getInt();
+            if (length < 0 || length > buf.remaining()) {
+                buf.position(start);
+                break;
+            }
+            ByteBuffer payload = buf.slice(buf.position(), length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                buf.position(start);
+                break;
+            }
+            batches.accept(SnapshotCodecs.SENSOR.read(payload));
+            buf.position(start + HEADER + length);
+            records++;
+        }
+        size = buf.position();
+        if (size < channel.size()) {
+            channel.truncate(size);
+            channel.force(true);
+        }
+        return records;
+    }
+
+    /**
+     * Append records and force them to disk. If writing fails, the file is cut back to
+     * its previous size so that a later group does not follow a partial record.
+     *
+     * @param records Encoded records, see {@link #encode}
+     */
+    public void write(ByteBuffer[] records) throws IOException {
+        long before = size;
+        try {
+            channel.position(before);
+            long remaining = 0;
+            for (ByteBuffer r : records) {
+                remaining += r.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(records);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            try {
+                channel.truncate(before);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        size = channel.position();
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * @return Bytes written so far
+     */
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
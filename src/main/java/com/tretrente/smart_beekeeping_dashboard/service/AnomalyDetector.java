@@ -0,0 +1,213 @@
+package com.tretrente.smart_beekeeping_dashboard.service;
+
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+
+/**
+ * Incremental anomaly detector for one hive's temperature and humidity readings.
+ * <p>
+ * Each metric keeps, in a few doubles per hive ({@link State}):
+ * - a fast EWMA, the smoothed current value (time constant {@code fastWindow})
+ * - an exponentially weighted mean and variance, the baseline (time constant {@code slowWindow})
+ * - the rate of change of the fast EWMA, in units per hour
+ * The decay factors depend on the time since the previous reading, so irregular sampling
+ * and gaps are handled; after a gap longer than the slow window the state starts over.
+ * </p>
+ * An alert opens when the fast value leaves the baseline by more than {@code zThreshold}
+ * standard deviations ("high"/"low") or moves faster than the metric's rate limit
+ * ("rise"/"fall"), and closes once it is back under half the threshold, so an episode
+ * raises one alert. Readings are processed without allocating; only alerts reach the
+ * {@link AlertSink}.
+ */
+public final class AnomalyDetector {
+
+    public static final String TEMPERATURE = "temperature";
+    public static final String HUMIDITY = "humidity";
+
+    private final double fastSeconds;
+    private final double slowSeconds;
+    private final double zThreshold;
+    private final double[] maxRate;
+    private final double[] minStd;
+
+    /**
+     * Receives the alerts raised while processing readings.
+     */
+    @FunctionalInterface
+    public interface AlertSink {
+        /**
+         * @param epochSecond Time of the reading that opened the alert
+         * @param metric      {@link #TEMPERATURE} or {@link #HUMIDITY}
+         * @param kind        "high", "low", "rise" or "fall"
+         * @param value       Fast EWMA at that time
+         * @param baseline    Baseline mean at that time
+         * @param score       Standard deviations from the baseline, or rate per hour
+         */
+        void alert(long epochSecond, String metric, String kind, double value, double baseline, double score);
+    }
+
+    /**
+     * @param fastWindowSeconds Time constant of the smoothed value
+     * @param slowWindowSeconds Time constant of the baseline mean and variance; also the
+     *                          warm-up before alerts are raised
+     * @param zThreshold        Deviation from the baseline, in standard deviations
+     * @param maxTempRate       Temperature change of the smoothed value, °C per hour
+     * @param maxHumidityRate   Humidity change of the smoothed value, % per hour
+     * @param minTempStd        Lower bound of the temperature standard deviation, so a very
+     *                          stable baseline does not turn noise into alerts
+     * @param minHumidityStd    Same for humidity
+     */
+    public AnomalyDetector(double fastWindowSeconds, double slowWindowSeconds, double zThreshold,
+                           double maxTempRate, double maxHumidityRate,
+                           double minTempStd, double minHumidityStd) {
+        if (fastWindowSeconds <= 0 || slowWindowSeconds <= fastWindowSeconds) {
+            throw new IllegalArgumentException("windows must satisfy 0 < fast < slow");
+        }
+        this.fastSeconds = fastWindowSeconds;
+        this.slowSeconds = slowWindowSeconds;
+        this.zThreshold = zThreshold;
+        this.maxRate = new double[] { maxTempRate, maxHumidityRate };
+        this.minStd = new double[] { minTempStd, minHumidityStd };
+    }
+
+    /**
+     * Process the readings {@code [from, to)} of one hive of {@code series}, in time order.
+     * Readings not newer than the state's last one (duplicates, late arrivals) are skipped.
+     *
+     * @return Number of readings processed
+     */
+    public int process(State state, SensorSeries series, int from, int to, AlertSink sink) {
+        int processed = 0;
+        for (int i = from; i < to; i++) {
+            if (update(state, series.epochSecond(i), series.temperature(i), series.humidity(i), sink)) {
+                processed++;
+            }
+        }
+        return processed;
+    }
+
+    /**
+     * Process one reading.
+     *
+     * @return false if the reading was skipped because it is not newer than the last one
+     */
+    public boolean update(State s, long epochSecond, double temperature, double humidity, AlertSink sink) {
+        long dt = epochSecond - s.last;
+        if (s.count > 0 && dt <= 0) {
+            return false;
+        }
+        if (s.count == 0 || dt > slowSeconds) {
+            s.reset(epochSecond, temperature, humidity);
+            return true;
+        }
+        if (dt != s.dt) {
+            // Readings mostly come at a fixed interval, so the exponentials are rarely recomputed
+            s.dt = dt;
+            s.fastAlpha = -Math.expm1(-dt / fastSeconds);
+            s.slowAlpha = -Math.expm1(-dt / slowSeconds);
+        }
+        s.last = epochSecond;
+        s.count++;
+        boolean warm = epochSecond - s.first >= slowSeconds;
+        int base = 0;
+        for (int m = 0; m < 2; m++, base += State.STRIDE) {
+            double x = m == 0 ? temperature : humidity;
+            double[] v = s.values;
+            double previousFast = v[base + State.FAST];
+            double fast = previousFast + s.fastAlpha * (x - previousFast);
+            double mean = v[base + State.MEAN];
+            double var = v[base + State.VAR];
+
+            if (warm) {
+                check(s, m, epochSecond, fast, mean, var, (fast - previousFast) * 3600.0 / dt, sink);
+            }
+
+            // West's incremental exponentially weighted mean and variance
+            double diff = x - mean;
+            double incr = s.slowAlpha * diff;
+            v[base + State.FAST] = fast;
+            v[base + State.MEAN] = mean + incr;
+            v[base + State.VAR] = (1 - s.slowAlpha) * (var + diff * incr);
+        }
+        return true;
+    }
+
+    private void check(State s, int m, long t, double fast, double mean, double var, double rate,
+                       AlertSink sink) {
+        String metric = m == 0 ? TEMPERATURE : HUMIDITY;
+        double z = (fast - mean) / Math.max(Math.sqrt(var), minStd[m]);
+        int flag = 1 << (2 * m);
+        if ((s.open & flag) == 0) {
+            if (Math.abs(z) > zThreshold) {
+                s.open |= flag;
+                sink.alert(t, metric, z > 0 ? "high" : "low", fast, mean, z);
+            }
+        } else if (Math.abs(z) < zThreshold / 2) {
+            s.open &= ~flag;
+        }
+
+        flag <<= 1;
+        if ((s.open & flag) == 0) {
+            if (Math.abs(rate) > maxRate[m]) {
+                s.open |= flag;
+                sink.alert(t, metric, rate > 0 ? "rise" : "fall", fast, mean, rate);
+            }
+        } else if (Math.abs(rate) < maxRate[m] / 2) {
+            s.open &= ~flag;
+        }
+    }
+
+    /**
+     * Rolling statistics of one hive: fixed size, whatever the number of readings.
+     */
+    public static final class State {
+        static final int FAST = 0, MEAN = 1, VAR = 2, STRIDE = 3;
+
+        // Per metric (temperature, then humidity): fast EWMA, baseline mean, baseline variance
+        private final double[] values = new double[2 * STRIDE];
+        private long first;
+        private long last;
+        private long count;
+        private long dt;
+        private double fastAlpha;
+        private double slowAlpha;
+        // Open alerts, two bits per metric: deviation, rate
+        private int open;
+
+        public State() { }
+
+        private State(State other) {
+            System.arraycopy(other.values, 0, values, 0, values.length);
+            first = other.first;
+            last = other.last;
+            count = other.count;
+            dt = other.dt;
+            fastAlpha = other.fastAlpha;
+            slowAlpha = other.slowAlpha;
+            open = other.open;
+        }
+
+        /**
+         * @return Independent copy, to continue a stream from where another one stopped
+         */
+        public State copy() {
+            return new State(this);
+        }
+
+        /**
+         * @return Time of the last processed reading, in epoch seconds; 0 before the first
+         */
+        public long last() {
+            return last;
+        }
+
+        private void reset(long t, double temperature, double humidity) {
+            values[FAST] = values[MEAN] = temperature;
+            values[STRIDE + FAST] = values[STRIDE + MEAN] = humidity;
+            values[VAR] = values[STRIDE + VAR] = 0;
+            first = last = t;
+            count = 1;
+            dt = 0;
+            open = 0;
+        }
+    }
+}
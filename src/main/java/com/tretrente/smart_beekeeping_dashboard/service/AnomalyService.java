@@ -0,0 +1,224 @@
+package com.tretrente.smart_beekeeping_dashboard.service;
+
+import com.tretrente.smart_beekeeping_dashboard.model.AnomalyAlert;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetCatalog;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetPartition;
+import com.tretrente.smart_beekeeping_dashboard.repository.PartitionedStore;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorRepository;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Runs the {@link AnomalyDetector} over every sensor reading the application sees:
+ * - each sensor file, when it is loaded or reloaded (on the loading thread, before its
+ *   snapshot is published); its alerts replace those of the previous load
+ * - every batch posted to {@code /api/sensor/ingest}, continuing per hive from the state
+ *   at the end of the latest loaded file of the default apiary
+ * Live alerts are kept in a bounded buffer, {@code urban.anomaly.max-live-alerts}.
+ * Every alert is counted in {@code urban.anomaly.alerts}.
+ */
+@Service
+public class AnomalyService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnomalyService.class);
+
+    private final AnomalyDetector detector;
+    private final SensorRepository sensorRepo;
+    private final DatasetCatalog catalog;
+    private final MeterRegistry meterRegistry;
+    private final int maxLiveAlerts;
+
+    // key: partition name, e.g. "sensor/urban/2021"
+    private final ConcurrentMap<String, Scan> scans = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private final Map<String, AnomalyDetector.State> liveStates = new HashMap<>();
+    private final ArrayDeque<AnomalyAlert> liveAlerts = new ArrayDeque<>();
+
+    /**
+     * @param fastWindow      Time constant of the smoothed value
+     * @param slowWindow      Time constant of the baseline mean and variance
+     * @param zThreshold      Deviation from the baseline raising a high/low alert, in
+     *                        standard deviations
+     * @param maxTempRate     Temperature change raising a rise/fall alert, °C per hour
+     * @param maxHumidityRate Humidity change raising a rise/fall alert, % per hour
+     * @param minTempStd      Lower bound of the temperature standard deviation, °C
+     * @param minHumidityStd  Lower bound of the humidity standard deviation, %
+     * @param maxLiveAlerts   Alerts on ingested readings kept in memory
+     */
+    public AnomalyService(SensorRepository sensorRepo, DatasetCatalog catalog, MeterRegistry meterRegistry,
+                          @Value("${urban.anomaly.fast-window:PT1H}") Duration fastWindow,
+                          @Value("${urban.anomaly.slow-window:PT24H}") Duration slowWindow,
+                          @Value("${urban.anomaly.z-threshold:4}") double zThreshold,
+                          @Value("${urban.anomaly.temperature-rate:3}") double maxTempRate,
+                          @Value("${urban.anomaly.humidity-rate:10}") double maxHumidityRate,
+                          @Value("${urban.anomaly.min-temperature-std:0.5}") double minTempStd,
+                          @Value("${urban.anomaly.min-humidity-std:2}") double minHumidityStd,
+                          @Value("${urban.anomaly.max-live-alerts:1000}") int maxLiveAlerts) {
+        this.detector = new AnomalyDetector(fastWindow.toSeconds(), slowWindow.toSeconds(), zThreshold,
+                maxTempRate, maxHumidityRate, minTempStd, minHumidityStd);
+        this.sensorRepo = sensorRepo;
+        this.catalog = catalog;
+        this.meterRegistry = meterRegistry;
+        this.maxLiveAlerts = maxLiveAlerts;
+
+        PartitionedStore<SensorSeries> store = sensorRepo.getStore();
+        for (DatasetPartition partition : store.partitions()) {
+            store.store(partition).onLoad(snap -> scan(partition, snap.getData()));
+            if (store.store(partition).peek() != null) {
+                scan(partition, store.store(partition).peek().getData());
+            }
+        }
+    }
+
+    /**
+     * Run the detector over a batch of ingested readings.
+     *
+     * @param batch Readings sorted by hive and then by time
+     */
+    public synchronized void process(SensorSeries batch) {
+        for (int h = 0; h < batch.hiveCount(); h++) {
+            String tag = batch.hiveTag(h);
+            AnomalyDetector.State state = liveStates.computeIfAbsent(tag, this::seed);
+            detector.process(state, batch, batch.hiveStart(h), batch.hiveEnd(h),
+                    sink(catalog.defaultApiary(), tag, true, alert -> {
+                        liveAlerts.addLast(alert);
+                        if (liveAlerts.size() > maxLiveAlerts) {
+                            liveAlerts.removeFirst();
+                        }
+                    }));
+        }
+    }
+
+    /**
+     * Alerts of one apiary between two timestamps, in time order. The sensor files
+     * covering the range are loaded (and so scanned) first if needed.
+     *
+     * @param apiary     Apiary name; null for the default apiary
+     * @param start      Lower bound (inclusive)
+     * @param end        Upper bound (inclusive)
+     * @param tagNumbers Hives to include; null or empty for all
+     * @param limit      Maximum number of alerts; the most recent ones are kept
+     * @throws IllegalArgumentException if the apiary is not catalogued
+     */
+    public List<AnomalyAlert> alerts(String apiary, LocalDateTime start, LocalDateTime end,
+                                     Collection<String> tagNumbers, int limit) {
+        String name = catalog.apiary(apiary);
+        sensorRepo.version(name, start, end);
+        long from = EpochTime.toEpochSecond(start), to = EpochTime.toEpochSecond(end);
+
+        List<AnomalyAlert> result = new ArrayList<>();
+        for (Scan scan : scans.values()) {
+            if (scan.partition.getApiary().equals(name) && scan.partition.overlaps(from, to)) {
+                select(scan.alerts, start, end, tagNumbers, result);
+            }
+        }
+        if (name.equals(catalog.defaultApiary())) {
+            synchronized (this) {
+                select(liveAlerts, start, end, tagNumbers, result);
+            }
+        }
+        result.sort(Comparator.comparing(AnomalyAlert::getDate));
+        return result.size() > limit ? result.subList(result.size() - limit, result.size()) : result;
+    }
+
+    private void scan(DatasetPartition partition, SensorSeries series) {
+        long startNanos = System.nanoTime();
+        List<AnomalyAlert> alerts = new ArrayList<>();
+        Map<String, AnomalyDetector.State> states = new HashMap<>();
+        long readings = 0;
+        for (int h = 0; h < series.hiveCount(); h++) {
+            String tag = series.hiveTag(h);
+            AnomalyDetector.State state = new AnomalyDetector.State();
+            readings += detector.process(state, series, series.hiveStart(h), series.hiveEnd(h),
+                    sink(partition.getApiary(), tag, false, alerts::add));
+            states.put(tag, state);
+        }
+        scans.put(partition.getName(), new Scan(partition, List.copyOf(alerts), states));
+        log.debug("Anomaly scan of '{}': {} readings, {} alerts in {} ms", partition.getName(), readings,
+                alerts.size(), (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Live state of a hive seen for the first time: a copy of its state at the end of the
+     * latest loaded file of the default apiary, so the baseline is already warm.
+     */
+    private AnomalyDetector.State seed(String tag) {
+        Scan latest = null;
+        for (Scan scan : scans.values()) {
+            if (scan.partition.getApiary().equals(catalog.defaultApiary()) && scan.states.containsKey(tag)
+                    && (latest == null || scan.partition.getYear() > latest.partition.getYear())) {
+                latest = scan;
+            }
+        }
+        return latest == null ? new AnomalyDetector.State() : latest.states.get(tag).copy();
+    }
+
+    private AnomalyDetector.AlertSink sink(String apiary, String tag, boolean live,
+                                           Consumer<AnomalyAlert> target) {
+        return (t, metric, kind, value, baseline, score) -> {
+            AnomalyAlert alert = new AnomalyAlert();
+            alert.setApiary(apiary);
+            alert.setTagNumber(tag);
+            alert.setDate(EpochTime.toLocalDateTime(t));
+            alert.setMetric(metric);
+            alert.setKind(kind);
+            alert.setValue(value);
+            alert.setBaseline(baseline);
+            alert.setScore(score);
+            alert.setLive(live);
+            target.accept(alert);
+            Counter.builder("urban.anomaly.alerts")
+                    .description("Anomalies raised by the streaming detector")
+                    .tag("metric", metric)
+                    .tag("kind", kind)
+                    .tag("source", live ? "live" : "file")
+                    .register(meterRegistry)
+                    .increment();
+        };
+    }
+
+    private static void select(Collection<AnomalyAlert> alerts, LocalDateTime start, LocalDateTime end,
+                               Collection<String> tagNumbers, List<AnomalyAlert> result) {
+        for (AnomalyAlert a : alerts) {
+            if (!a.getDate().isBefore(start) && !a.getDate().isAfter(end)
+                    && (tagNumbers == null || tagNumbers.isEmpty() || tagNumbers.contains(a.getTagNumber()))) {
+                result.add(a);
+            }
+        }
+    }
+
+    /**
+     * Result of the detector over one loaded sensor file.
+     */
+    private static final class Scan {
+        final DatasetPartition partition;
+        final List<AnomalyAlert> alerts;
+        final Map<String, AnomalyDetector.State> states;
+
+        Scan(DatasetPartition partition, List<AnomalyAlert> alerts, Map<String, AnomalyDetector.State> states) {
+            this.partition = partition;
+            this.alerts = alerts;
+            this.states = states;
+        }
+    }
+}
@@ -2,20 +2,83 @@ package com.tretrente.smart_beekeeping_dashboard.service;
 
 import com.tretrente.smart_beekeeping_dashboard.model.EnvironmentalData;
 import com.tretrente.smart_beekeeping_dashboard.model.ProductionData;
+import com.tretrente.smart_beekeeping_dashboard.model.ProductionSeries;
+import com.tretrente.smart_beekeeping_dashboard.util.FastRandom;
 import com.tretrente.smart_beekeeping_dashboard.util.RandomUtil;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Service responsible for simulating environmental and production data for beekeeping.
  * Generates lists of data points based on simple statistical models.
+ * Every simulation draws from its own {@link FastRandom}; passing the same seed
+ * reproduces the same data.
+ * The {@code stream*} variants produce the same points lazily, one at a time, so callers
+ * can write them out without holding the whole range in memory.
  */
 @Service
 public class DataSimulatorService {
 
+    /** Default upper bound on the simulated period, in days (about ten years). */
+    public static final int DEFAULT_MAX_DAYS = 3660;
+    /** Default upper bound on the number of hives per production request. */
+    public static final int DEFAULT_MAX_HIVES = 10_000;
+
+    private final ForkJoinPool pool;
+    private final int maxDays;
+    private final int maxHives;
+
+    /**
+     * Simulator with one worker per available core and the default limits.
+     */
+    public DataSimulatorService() {
+        this(0, DEFAULT_MAX_DAYS, DEFAULT_MAX_HIVES);
+    }
+
+    /**
+     * @param parallelism Worker threads for {@link #simulateProduction}; 0 or less means one
+     *                    per available core
+     * @param maxDays     Longest period a request may simulate, see {@link #checkLimits}
+     * @param maxHives    Largest hive list a request may simulate
+     */
+    @Autowired
+    public DataSimulatorService(@Value("${simulator.parallelism:0}") int parallelism,
+                                @Value("${simulator.max-days:" + DEFAULT_MAX_DAYS + "}") int maxDays,
+                                @Value("${simulator.max-hives:" + DEFAULT_MAX_HIVES + "}") int maxHives) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxDays = maxDays;
+        this.maxHives = maxHives;
+    }
+
+    /**
+     * Reject requests whose size the server is not willing to simulate.
+     *
+     * @param start     Starting timestamp (inclusive)
+     * @param end       Ending timestamp (exclusive)
+     * @param hiveCount Number of hives, 0 for the environmental simulation
+     * @throws IllegalArgumentException if the period is longer than {@code simulator.max-days}
+     *                                  or there are more than {@code simulator.max-hives} hives
+     */
+    public void checkLimits(LocalDateTime start, LocalDateTime end, int hiveCount) {
+        if (start.isBefore(end) && start.plusDays(maxDays).isBefore(end)) {
+            throw new IllegalArgumentException("Range exceeds the limit of " + maxDays + " days");
+        }
+        if (hiveCount > maxHives) {
+            throw new IllegalArgumentException("Hive count " + hiveCount + " exceeds the limit of " + maxHives);
+        }
+    }
+
     /**
      * Simulate environmental data for a given time range with a fixed time step (e.g., hourly).
      *
@@ -24,22 +87,39 @@ public class DataSimulatorService {
      * @return List of EnvironmentalData
      */
     public List<EnvironmentalData> generateEnvironmentalData(LocalDateTime start, LocalDateTime end) {
-        List<EnvironmentalData> result = new ArrayList<>();
-        LocalDateTime current = start;
+        return generateEnvironmentalData(start, end, RandomUtil.newSeed());
+    }
 
-        while (current.isBefore(end)) {
-            double temp = RandomUtil.gaussian(20.0, 5.0);               // e.g. mean 20°C, standard deviation 5
-            double humidity = RandomUtil.uniform(40.0, 90.0);            // humidity between 40% and 90%
-            double precipitation = RandomUtil.uniform(0.0, 10.0);        // mm of rain
-            double flowerIndex = computeFlowerIndex(current);            // calculate flower availability index
+    /**
+     * Same as {@link #generateEnvironmentalData(LocalDateTime, LocalDateTime)}, reproducible.
+     *
+     * @param seed Random seed
+     */
+    public List<EnvironmentalData> generateEnvironmentalData(LocalDateTime start, LocalDateTime end, long seed) {
+        return streamEnvironmentalData(start, end, seed).collect(Collectors.toCollection(ArrayList::new));
+    }
 
-            EnvironmentalData data = new EnvironmentalData(current, temp, humidity, precipitation, flowerIndex);
-            result.add(data);
+    /**
+     * Lazy form of {@link #generateEnvironmentalData(LocalDateTime, LocalDateTime, long)}:
+     * each hourly point is drawn when the stream reaches it.
+     *
+     * @param start Starting timestamp (inclusive)
+     * @param end   Ending timestamp (exclusive)
+     * @param seed  Random seed
+     * @return Sequential stream of EnvironmentalData, in time order
+     */
+    public Stream<EnvironmentalData> streamEnvironmentalData(LocalDateTime start, LocalDateTime end, long seed) {
+        FastRandom rng = new FastRandom(seed);
+        // Advance by 1 hour
+        return Stream.iterate(start, current -> current.isBefore(end), current -> current.plusHours(1))
+                .map(current -> {
+                    double temp = rng.nextGaussian(20.0, 5.0);                   // e.g. mean 20°C, standard deviation 5
+                    double humidity = rng.nextDouble(40.0, 90.0);                // humidity between 40% and 90%
+                    double precipitation = rng.nextDouble(0.0, 10.0);            // mm of rain
+                    double flowerIndex = computeFlowerIndex(current, rng);       // calculate flower availability index
 
-            // Advance by 1 hour
-            current = current.plusHours(1);
-        }
-        return result;
+                    return new EnvironmentalData(current, temp, humidity, precipitation, flowerIndex);
+                });
     }
 
     /**
@@ -47,19 +127,20 @@ public class DataSimulatorService {
      * Peak bloom in spring/early summer (March–June), lower availability in winter.
      *
      * @param timestamp LocalDateTime used to determine the month
+     * @param rng       Random source
      * @return Double between 0.0 and 1.0 representing flower availability
      */
-    private double computeFlowerIndex(LocalDateTime timestamp) {
+    private double computeFlowerIndex(LocalDateTime timestamp, FastRandom rng) {
         int month = timestamp.getMonthValue();
         switch (month) {
             case 3, 4, 5, 6:
-                return RandomUtil.uniform(0.7, 1.0);  // spring/early summer
+                return rng.nextDouble(0.7, 1.0);  // spring/early summer
             case 7, 8:
-                return RandomUtil.uniform(0.4, 0.7);  // midsummer
+                return rng.nextDouble(0.4, 0.7);  // midsummer
             case 9, 10:
-                return RandomUtil.uniform(0.3, 0.6);  // early autumn
+                return rng.nextDouble(0.3, 0.6);  // early autumn
             default:
-                return RandomUtil.uniform(0.0, 0.3);  // late autumn/winter
+                return rng.nextDouble(0.0, 0.3);  // late autumn/winter
         }
     }
 
@@ -72,27 +153,115 @@ public class DataSimulatorService {
      * @return List of ProductionData
      */
     public List<ProductionData> generateProductionData(LocalDateTime start, LocalDateTime end, List<String> hiveIds) {
-        List<ProductionData> result = new ArrayList<>();
-        LocalDateTime current = start;
+        return generateProductionData(start, end, hiveIds, RandomUtil.newSeed());
+    }
 
-        while (current.isBefore(end)) {
-            // Get the flower availability index for this timestamp
-            double flowerIndex = computeFlowerIndex(current);
+    /**
+     * Same as {@link #generateProductionData(LocalDateTime, LocalDateTime, List)}, reproducible.
+     * Runs {@link #simulateProduction} and materializes its result.
+     *
+     * @param seed Random seed
+     */
+    public List<ProductionData> generateProductionData(LocalDateTime start, LocalDateTime end,
+                                                       List<String> hiveIds, long seed) {
+        return simulateProduction(start, end, hiveIds, seed).toRecords();
+    }
 
-            for (String hiveId : hiveIds) {
-                // Honey yield depends on flowerIndex plus some random noise
-                double baseYield = flowerIndex * 2.0;              // up to 2 kg of honey per day at peak
-                double noise = RandomUtil.gaussian(0.0, 0.3);       // random variability
-                double honeyQty = Math.max(0.0, baseYield + noise);
+    /**
+     * Simulate daily honey production (see {@link #generateProductionData}) into a columnar
+     * {@link ProductionSeries}, partitioning the hives across the simulator's pool.
+     * <p>
+     * The flower index of each day is drawn once from the run seed and shared by all hives.
+     * Each hive's noise comes from its own stream, derived from the seed and the hive id, so
+     * a hive's values depend only on (seed, hive id, period): the output is identical at any
+     * parallelism and does not change when other hives are added to the request.
+     * </p>
+     *
+     * @param start   Starting timestamp (inclusive)
+     * @param end     Ending timestamp (exclusive)
+     * @param hiveIds Hive identifiers
+     * @param seed    Random seed
+     */
+    public ProductionSeries simulateProduction(LocalDateTime start, LocalDateTime end,
+                                               List<String> hiveIds, long seed) {
+        int days = daysBetween(start, end);
+        double[] flowerIndex = new double[days];
+        FastRandom shared = new FastRandom(seed);
+        for (int d = 0; d < days; d++) {
+            flowerIndex[d] = computeFlowerIndex(start.plusDays(d), shared);
+        }
 
-                ProductionData pd = new ProductionData(hiveId, current, honeyQty);
-                result.add(pd);
+        int hives = hiveIds.size();
+        double[] honey = new double[Math.multiplyExact(hives, days)];
+        int chunk = Math.max(1, hives / (pool.getParallelism() * 4));
+        int chunks = (hives + chunk - 1) / chunk;
+        pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+            for (int h = c * chunk, last = Math.min(hives, h + chunk); h < last; h++) {
+                FastRandom rng = FastRandom.forStream(seed, hash(hiveIds.get(h)));
+                for (int d = 0, i = h * days; d < days; d++, i++) {
+                    // Honey yield depends on flowerIndex plus some random noise
+                    double baseYield = flowerIndex[d] * 2.0;       // up to 2 kg of honey per day at peak
+                    double noise = rng.nextGaussian(0.0, 0.3);      // random variability
+                    honey[i] = Math.max(0.0, baseYield + noise);
+                }
             }
+        })).join();
+
+        return new ProductionSeries(hiveIds, start, days, honey);
+    }
 
-            // Advance by 1 day (assuming daily production)
-            current = current.plusDays(1);
+    /**
+     * Lazy form of {@link #simulateProduction}, in the same day-by-day order and with the same
+     * values for a given seed. Only one random stream per hive is kept, so memory depends on
+     * the number of hives but not on the length of the period.
+     *
+     * @param start   Starting timestamp (inclusive)
+     * @param end     Ending timestamp (exclusive)
+     * @param hiveIds Hive identifiers
+     * @param seed    Random seed
+     * @return Sequential stream of ProductionData, day by day and in hive order within a day
+     */
+    public Stream<ProductionData> streamProduction(LocalDateTime start, LocalDateTime end,
+                                                   List<String> hiveIds, long seed) {
+        int days = daysBetween(start, end);
+        FastRandom shared = new FastRandom(seed);
+        FastRandom[] hiveRng = new FastRandom[hiveIds.size()];
+        for (int h = 0; h < hiveRng.length; h++) {
+            hiveRng[h] = FastRandom.forStream(seed, hash(hiveIds.get(h)));
         }
+        return IntStream.range(0, days).boxed().flatMap(d -> {
+            LocalDateTime timestamp = start.plusDays(d);
+            double baseYield = computeFlowerIndex(timestamp, shared) * 2.0;
+            return IntStream.range(0, hiveRng.length).mapToObj(h -> new ProductionData(hiveIds.get(h), timestamp,
+                    Math.max(0.0, baseYield + hiveRng[h].nextGaussian(0.0, 0.3))));
+        });
+    }
+
+    /**
+     * @return Number of daily steps {@code start + n days} that fall before {@code end}
+     */
+    private static int daysBetween(LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            return 0;
+        }
+        long days = ChronoUnit.DAYS.between(start, end);
+        if (start.plusDays(days).isBefore(end)) {
+            days++;
+        }
+        return Math.toIntExact(days);
+    }
+
+    /** 64-bit FNV-1a of the hive id, used to pick the hive's random stream. */
+    private static long hash(String hiveId) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < hiveId.length(); i++) {
+            h = (h ^ hiveId.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
 
-        return result;
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
     }
 }
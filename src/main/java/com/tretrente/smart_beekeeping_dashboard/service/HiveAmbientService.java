@@ -0,0 +1,149 @@
+package com.tretrente.smart_beekeeping_dashboard.service;
+
+import com.tretrente.smart_beekeeping_dashboard.model.Resolution;
+import com.tretrente.smart_beekeeping_dashboard.model.Rollup;
+import com.tretrente.smart_beekeeping_dashboard.model.RollupSeries;
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import com.tretrente.smart_beekeeping_dashboard.repository.AmbientJoin;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetCatalog;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetPartition;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetSnapshot;
+import com.tretrente.smart_beekeeping_dashboard.repository.PartitionedStore;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorRepository;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import com.tretrente.smart_beekeeping_dashboard.repository.TimeIndex;
+import com.tretrente.smart_beekeeping_dashboard.repository.WeatherRepository;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+import com.tretrente.smart_beekeeping_dashboard.util.Versions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Correlates the hive sensor readings (UTC) with the ambient weather observations (local
+ * standard time, {@code urban.weather.utc-offset}) through an {@link AmbientJoin}, so the
+ * hive temperature can be compared with the outside temperature it was measured against.
+ * Tolerances are capped at {@link #MAX_TOLERANCE_SECONDS}: observations are hourly, so a
+ * longer one matches nothing more useful and only widens the weather files read.
+ */
+@Service
+public class HiveAmbientService {
+
+    /** Largest tolerance applied, one week; longer ones are capped. */
+    public static final long MAX_TOLERANCE_SECONDS = 7 * 86_400L;
+
+    private static final String[] FIELDS = { "temperature", "ambientTemperature", "delta" };
+
+    private final SensorRepository sensorRepo;
+    private final WeatherRepository weatherRepo;
+    private final DatasetCatalog catalog;
+    private final long weatherOffsetSeconds;
+
+    /**
+     * @param weatherOffset UTC offset of the weather files' local standard time (no daylight
+     *                      saving time)
+     */
+    public HiveAmbientService(SensorRepository sensorRepo, WeatherRepository weatherRepo, DatasetCatalog catalog,
+                              @Value("${urban.weather.utc-offset:-05:00}") ZoneOffset weatherOffset) {
+        this.sensorRepo = sensorRepo;
+        this.weatherRepo = weatherRepo;
+        this.catalog = catalog;
+        this.weatherOffsetSeconds = weatherOffset.getTotalSeconds();
+    }
+
+    /**
+     * Version of the sensor and weather data behind a query: changes when either of them is
+     * reloaded or readings are ingested.
+     *
+     * @throws IllegalArgumentException if the apiary is not catalogued
+     */
+    public long version(String apiary, LocalDateTime start, LocalDateTime end, long toleranceSeconds) {
+        return Versions.combine(sensorRepo.version(apiary, start, end),
+                weather(apiary, start, end, toleranceSeconds).getVersion());
+    }
+
+    /**
+     * Hive readings between two timestamps (UTC, inclusive) matched with a weather observation.
+     *
+     * @param apiary           Apiary name; null for the default apiary
+     * @param tagNumbers       Hives to include; null or empty for all
+     * @param toleranceSeconds Largest distance between a reading and its observation
+     * @throws IllegalArgumentException if the apiary is not catalogued
+     */
+    public AmbientJoin join(String apiary, LocalDateTime start, LocalDateTime end, Collection<String> tagNumbers,
+                            AmbientJoin.Match match, long toleranceSeconds) {
+        SensorSeries sensor = sensorRepo.series(apiary, start, end);
+        TimeIndex<WeatherRecord> weather = weather(apiary, start, end, toleranceSeconds).getData();
+        return AmbientJoin.join(sensor, weather, weatherOffsetSeconds,
+                EpochTime.toEpochSecond(start), EpochTime.toEpochSecond(end), tagNumbers, match,
+                capTolerance(toleranceSeconds));
+    }
+
+    /**
+     * The matched readings bucketed per hive: hive temperature, ambient temperature and their
+     * difference. Bucket starts are UTC.
+     */
+    public Rollup rollup(String apiary, LocalDateTime start, LocalDateTime end, Collection<String> tagNumbers,
+                         AmbientJoin.Match match, long toleranceSeconds, Resolution resolution) {
+        AmbientJoin join = join(apiary, start, end, tagNumbers, match, toleranceSeconds);
+        List<RollupSeries> series = new ArrayList<>();
+        RollupSeries.Builder b = null;
+        double[] values = new double[FIELDS.length];
+        for (int i = 0; i < join.size(); i++) {
+            // Rows are grouped by hive, so a new tag starts a new series
+            if (b == null || !Objects.equals(join.tagNumber(i), join.tagNumber(i - 1))) {
+                if (b != null) {
+                    series.add(b.build());
+                }
+                b = new RollupSeries.Builder(join.tagNumber(i), resolution, FIELDS);
+            }
+            values[0] = join.temperature(i);
+            values[1] = join.ambientTemperature(i);
+            values[2] = join.delta(i);
+            b.add(join.epochSecond(i), values);
+        }
+        if (b != null) {
+            series.add(b.build());
+        }
+        return new Rollup(series, null);
+    }
+
+    /**
+     * Weather files covering the readings of {@code [start, end]} once shifted to local
+     * standard time, widened by the tolerance so a reading near a year boundary can match an
+     * observation of the neighbouring file. The range is first clamped to the years of the
+     * apiary's weather files, so open ranges ({@link LocalDateTime#MIN}, {@link LocalDateTime#MAX})
+     * cannot overflow when widened.
+     */
+    private DatasetSnapshot<TimeIndex<WeatherRecord>> weather(String apiary, LocalDateTime start, LocalDateTime end,
+                                                              long toleranceSeconds) {
+        String site = catalog.apiary(apiary);
+        PartitionedStore<TimeIndex<WeatherRecord>> store = weatherRepo.getStore();
+        long lo = Long.MAX_VALUE;
+        long hi = Long.MIN_VALUE;
+        for (DatasetPartition p : store.partitions()) {
+            if (p.getApiary().equals(site)) {
+                lo = Math.min(lo, p.getFrom());
+                hi = Math.max(hi, p.getTo() - 1);
+            }
+        }
+        if (lo > hi) {
+            // No weather file: the snapshot is empty whatever the range
+            return store.snapshot(site, 0, 0);
+        }
+        long tolerance = capTolerance(toleranceSeconds);
+        long from = Math.min(Math.max(EpochTime.toEpochSecond(start), lo), hi);
+        long to = Math.min(Math.max(EpochTime.toEpochSecond(end), lo), hi);
+        return store.snapshot(site, from + weatherOffsetSeconds - tolerance, to + weatherOffsetSeconds + tolerance);
+    }
+
+    private static long capTolerance(long toleranceSeconds) {
+        return Math.min(toleranceSeconds, MAX_TOLERANCE_SECONDS);
+    }
+}
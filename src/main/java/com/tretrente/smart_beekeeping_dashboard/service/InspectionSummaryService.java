@@ -0,0 +1,97 @@
+package com.tretrente.smart_beekeeping_dashboard.service;
+
+import com.tretrente.smart_beekeeping_dashboard.model.InspectionRecord;
+import com.tretrente.smart_beekeeping_dashboard.model.InspectionSummary;
+import com.tretrente.smart_beekeeping_dashboard.repository.InspectionRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Service computing the dashboard's inspection KPIs and chart series in a single pass
+ * over the indexed inspection dataset.
+ */
+@Service
+public class InspectionSummaryService {
+
+    // Honey yield estimate used by the dashboard: kg of honey per full frame
+    private static final double KG_PER_HONEY_FRAME = 1.5;
+
+    private final InspectionRepository inspectionRepo;
+
+    public InspectionSummaryService(InspectionRepository inspectionRepo) {
+        this.inspectionRepo = inspectionRepo;
+    }
+
+    /**
+     * Summarize inspections between two dates.
+     *
+     * @param apiary     Apiary name; null for the default apiary
+     * @param start      First day (inclusive)
+     * @param end        Last day (inclusive)
+     * @param tagNumbers Hives included in the KPIs, per-hive totals and queen status counts;
+     *                   null or empty for all hives
+     * @return Aggregated summary
+     */
+    public InspectionSummary summarize(String apiary, LocalDate start, LocalDate end,
+                                       Collection<String> tagNumbers) {
+        Set<String> selected = tagNumbers == null || tagNumbers.isEmpty() ? null : new HashSet<>(tagNumbers);
+
+        InspectionSummary summary = new InspectionSummary();
+        summary.setHives(inspectionRepo.findTagNumbers(apiary));
+
+        TreeMap<String, InspectionSummary.HiveTotals> byHive = new TreeMap<>();
+        int count = 0, honeyFrames = 0, colonySize = 0, queenRight = 0;
+        double broodRatioSum = 0;
+        InspectionSummary.DateTotals day = null;
+
+        // Records come back in date order, so per-date totals can be closed as we go
+        for (InspectionRecord r : inspectionRepo.findBetween(apiary, start, end, null)) {
+            int adult = r.getFob1st() + r.getFob2nd() + r.getFob3rd();
+            if (day == null || !day.getDate().equals(r.getDate())) {
+                day = new InspectionSummary.DateTotals(r.getDate());
+                summary.getByDate().add(day);
+            }
+            day.setBrood(day.getBrood() + r.getFoBrood());
+            day.setAdult(day.getAdult() + adult);
+
+            if (selected != null && !selected.contains(r.getTagNumber())) {
+                continue;
+            }
+            count++;
+            honeyFrames += r.getFramesOfHoney();
+            colonySize += r.getColonySize();
+            broodRatioSum += adult > 0 ? (double) r.getFoBrood() / adult : 0;
+            if ("QR".equals(r.getQueenStatus())) {
+                queenRight++;
+            }
+            summary.getQueenStatus().merge(r.getQueenStatus(), 1, Integer::sum);
+
+            InspectionSummary.HiveTotals hive =
+                    byHive.computeIfAbsent(r.getTagNumber(), InspectionSummary.HiveTotals::new);
+            hive.setHoneyFrames(hive.getHoneyFrames() + r.getFramesOfHoney());
+            hive.setBroodFrames(hive.getBroodFrames() + r.getFoBrood());
+        }
+
+        summary.setInspections(count);
+        summary.getByHive().addAll(byHive.values());
+        if (count > 0) {
+            InspectionSummary.Kpis kpis = new InspectionSummary.Kpis();
+            kpis.setHoneyFrames(honeyFrames);
+            kpis.setHoneyKg(round1(honeyFrames * KG_PER_HONEY_FRAME));
+            kpis.setAvgColonySize(round1((double) colonySize / count));
+            kpis.setAvgBroodRatio(broodRatioSum / count);
+            kpis.setQrPercent((int) Math.round(100.0 * queenRight / count));
+            summary.setKpis(kpis);
+        }
+        return summary;
+    }
+
+    private static double round1(double v) {
+        return Math.round(v * 10) / 10.0;
+    }
+}
@@ -0,0 +1,297 @@
+package com.tretrente.smart_beekeeping_dashboard.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tretrente.smart_beekeeping_dashboard.model.LiveUpdate;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetRepository;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetStore;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorRepository;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import com.tretrente.smart_beekeeping_dashboard.util.BroadcastBuffer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Service pushing incremental updates to connected dashboards over Server-Sent Events.
+ * <p>
+ * A single ticker thread checks, every {@code urban.live.tick-millis}, for newly ingested
+ * sensor readings and reloaded datasets. Everything that changed since the previous tick
+ * is coalesced into one {@link LiveUpdate}, serialized once and appended to a shared
+ * {@link BroadcastBuffer}. Each subscriber only keeps its position in that buffer: when its
+ * own interval has elapsed, all pending updates are sent to it in a single write. Writes
+ * run on a small sender pool; a subscriber whose previous write is still in progress is
+ * skipped, so a slow client only receives larger, less frequent batches and never holds
+ * up the others. A client that falls behind the whole buffer gets a {@code resync} event
+ * and reloads its data.
+ * </p>
+ */
+@Service
+public class LiveUpdateService {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveUpdateService.class);
+
+    // Idle subscribers get a comment line this often, so dead connections are noticed
+    private static final long HEARTBEAT_MILLIS = 15_000;
+    private static final long MAX_INTERVAL_MILLIS = 60_000;
+    private static final long RECONNECT_MILLIS = 3_000;
+
+    private final SensorRepository sensorRepo;
+    private final List<DatasetRepository> repositories;
+    private final ObjectMapper objectMapper;
+    private final BroadcastBuffer<String> updates;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService ticker;
+    private final ExecutorService senders;
+    private final long tickMillis;
+    private final long defaultIntervalMillis;
+    private final long timeoutMillis;
+    private final int maxSubscribers;
+
+    // Read positions of the ticker thread
+    private final Map<String, Long> sensorPositions = new HashMap<>();
+    private final Map<String, Long> datasetVersions = new HashMap<>();
+
+    /**
+     * @param tickMillis            How often changes are collected into one update
+     * @param defaultIntervalMillis Minimum time between two writes to the same client,
+     *                              unless the client asks for another interval
+     * @param bufferSize            Updates kept for clients that lag behind
+     * @param timeoutMillis         Lifetime of one connection; browsers reconnect and resume
+     * @param maxSubscribers        Open connections accepted at once
+     * @param senderThreads         Threads writing to the clients
+     */
+    public LiveUpdateService(SensorRepository sensorRepo, List<DatasetRepository> repositories,
+                             ObjectMapper objectMapper,
+                             @Value("${urban.live.tick-millis:500}") long tickMillis,
+                             @Value("${urban.live.interval-millis:2000}") long defaultIntervalMillis,
+                             @Value("${urban.live.buffer-size:256}") int bufferSize,
+                             @Value("${urban.live.timeout-millis:1800000}") long timeoutMillis,
+                             @Value("${urban.live.max-subscribers:1000}") int maxSubscribers,
+                             @Value("${urban.live.sender-threads:4}") int senderThreads) {
+        this.sensorRepo = sensorRepo;
+        this.repositories = repositories;
+        this.objectMapper = objectMapper;
+        this.updates = new BroadcastBuffer<>(bufferSize);
+        this.tickMillis = tickMillis;
+        this.defaultIntervalMillis = defaultIntervalMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.maxSubscribers = maxSubscribers;
+        this.senders = Executors.newFixedThreadPool(senderThreads, daemon("live-sender"));
+        this.ticker = Executors.newSingleThreadScheduledExecutor(daemon("live-ticker"));
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Open a new SSE stream.
+     *
+     * @param intervalMillis Minimum time between two writes to this client; null for the
+     *                       default. Clamped to {@code [tick, 60 s]}.
+     * @param lastEventId    Id of the last update the client received before reconnecting,
+     *                       or null; missed updates still in the buffer are replayed, and a
+     *                       client that missed more gets a {@code resync}. Ids that are not
+     *                       ours (malformed, negative, ahead of the buffer) start from now.
+     * @return Emitter to return from the controller
+     * @throws IllegalStateException when {@code urban.live.max-subscribers} streams are open
+     */
+    public SseEmitter subscribe(Long intervalMillis, String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many live subscribers (" + maxSubscribers + ")");
+        }
+        long interval = intervalMillis == null ? defaultIntervalMillis
+                : Math.max(tickMillis, Math.min(intervalMillis, MAX_INTERVAL_MILLIS));
+        long head = updates.head();
+        long cursor = head;
+        boolean resync = false;
+        long lastId = parseEventId(lastEventId);
+        if (lastId >= 0 && lastId < head) {
+            // Clamp to what the buffer still holds; older updates are lost
+            long oldest = updates.oldest();
+            resync = lastId + 1 < oldest;
+            cursor = Math.max(lastId + 1, oldest);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber s = new Subscriber(emitter, interval, cursor, resync);
+        emitter.onCompletion(() -> subscribers.remove(s));
+        emitter.onTimeout(() -> subscribers.remove(s));
+        emitter.onError(e -> subscribers.remove(s));
+        try {
+            // Commits the response so the browser sees the stream open right away
+            emitter.send(SseEmitter.event().reconnectTime(RECONNECT_MILLIS).comment("connected"));
+        } catch (Exception e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        subscribers.add(s);
+        return emitter;
+    }
+
+    /**
+     * @return The event id, or -1 if there is none or it is not a non-negative number
+     */
+    private static long parseEventId(String lastEventId) {
+        if (lastEventId == null) {
+            return -1;
+        }
+        try {
+            return Math.max(-1, Long.parseLong(lastEventId.trim()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return Number of open streams
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void tick() {
+        try {
+            publishChanges();
+            long head = updates.head();
+            long now = System.currentTimeMillis();
+            for (Subscriber s : subscribers) {
+                long idle = now - s.lastSent;
+                if (idle < s.intervalMillis || (s.cursor == head && !s.resync && idle < HEARTBEAT_MILLIS)) {
+                    continue;
+                }
+                if (s.busy.compareAndSet(false, true)) {
+                    senders.execute(() -> deliver(s, head, now));
+                }
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the scheduled task
+            log.warn("Live update tick failed", e);
+        }
+    }
+
+    /**
+     * Collect what changed since the previous tick and publish it as one update.
+     */
+    private void publishChanges() {
+        List<String> reloaded = new ArrayList<>();
+        for (DatasetRepository repository : repositories) {
+            // Clients only care which dataset changed, not which of its files
+            String dataset = repository.getStore().getName();
+            for (DatasetStore<?> store : repository.getStore().stores()) {
+                long version = store.version();
+                Long previous = datasetVersions.put(store.getName(), version);
+                // 0 -> 1 is the initial load, not new data
+                if (previous != null && previous > 0 && previous != version
+                        && !reloaded.contains(dataset)) {
+                    reloaded.add(dataset);
+                }
+            }
+        }
+        SensorSeries fresh = sensorRepo.live().since(sensorPositions);
+        if (fresh.size() == 0 && reloaded.isEmpty()) {
+            return;
+        }
+
+        LiveUpdate update = new LiveUpdate();
+        update.setReadings(fresh.size());
+        for (int h = 0; h < fresh.hiveCount(); h++) {
+            update.getSensor().add(fresh.record(fresh.hiveEnd(h) - 1));
+        }
+        update.setDatasets(reloaded);
+        try {
+            updates.publish(objectMapper.writeValueAsString(update));
+        } catch (JsonProcessingException e) {
+            log.warn("Cannot serialize live update", e);
+        }
+    }
+
+    /**
+     * Send every update in {@code [s.cursor, head)} to one subscriber in a single write.
+     * The JSON payloads are the buffer's shared strings; only the event framing is per client.
+     */
+    private void deliver(Subscriber s, long head, long now) {
+        try {
+            Set<ResponseBodyEmitter.DataWithMediaType> frames = new LinkedHashSet<>();
+            List<String> pending = s.resync ? null : updates.read(s.cursor, head);
+            if (pending == null) {
+                frames.addAll(SseEmitter.event().name("resync").id(Long.toString(head - 1)).data("{}").build());
+            } else if (pending.isEmpty()) {
+                frames.addAll(SseEmitter.event().comment("keepalive").build());
+            } else {
+                for (int i = 0; i < pending.size(); i++) {
+                    frames.addAll(SseEmitter.event().name("update").id(Long.toString(s.cursor + i))
+                            .data(pending.get(i)).build());
+                }
+            }
+            s.emitter.send(frames);
+            s.cursor = head;
+            s.resync = false;
+            s.lastSent = now;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the emitter timed out; the container completes it
+            log.debug("Live subscriber dropped: {}", e.toString());
+            subscribers.remove(s);
+        } catch (RuntimeException e) {
+            log.warn("Cannot deliver live updates, closing the stream", e);
+            subscribers.remove(s);
+            s.emitter.completeWithError(e);
+        } finally {
+            s.busy.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        senders.shutdownNow();
+        for (Subscriber s : subscribers) {
+            s.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /** One open stream and its position in the broadcast buffer. */
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final long intervalMillis;
+        final AtomicBoolean busy = new AtomicBoolean();
+        // Only touched by the sender holding `busy`, and read by the ticker after release
+        volatile long cursor;
+        volatile boolean resync;
+        volatile long lastSent;
+
+        Subscriber(SseEmitter emitter, long intervalMillis, long cursor, boolean resync) {
+            this.emitter = emitter;
+            this.intervalMillis = intervalMillis;
+            this.cursor = cursor;
+            this.resync = resync;
+            this.lastSent = System.currentTimeMillis();
+        }
+    }
+}
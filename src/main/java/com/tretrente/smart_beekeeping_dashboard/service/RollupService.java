@@ -0,0 +1,185 @@
+package com.tretrente.smart_beekeeping_dashboard.service;
+
+import com.tretrente.smart_beekeeping_dashboard.model.Resolution;
+import com.tretrente.smart_beekeeping_dashboard.model.Rollup;
+import com.tretrente.smart_beekeeping_dashboard.model.RollupSeries;
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetSnapshot;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorCursor;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorRepository;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSlice;
+import com.tretrente.smart_beekeeping_dashboard.repository.TimeIndex;
+import com.tretrente.smart_beekeeping_dashboard.repository.WeatherRepository;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+import com.tretrente.smart_beekeeping_dashboard.util.Lttb;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Service producing chart-sized views of the weather and sensor time series:
+ * - bucketed rollups (min/max/mean/last/sum per 15m, 1h, 1d or 1w bucket)
+ * - LTTB downsampling of raw points to a target point count
+ * <p>
+ * Rollups are computed once per snapshot (the years covering the query), version, hive
+ * and resolution over the whole snapshot and cached; a query only slices the cached
+ * buckets by binary search, so a year-long view costs a few microseconds after the first
+ * request.
+ * </p>
+ */
+@Service
+public class RollupService {
+
+    private static final String[] WEATHER_FIELDS = { "temperature", "humidity", "precipitation" };
+    private static final String[] SENSOR_FIELDS = { "temperature", "humidity" };
+
+    private final WeatherRepository weatherRepo;
+    private final SensorRepository sensorRepo;
+
+    // key: dataset:version:hive:resolution
+    private final ConcurrentMap<String, RollupSeries> cache = new ConcurrentHashMap<>();
+
+    public RollupService(WeatherRepository weatherRepo, SensorRepository sensorRepo) {
+        this.weatherRepo = weatherRepo;
+        this.sensorRepo = sensorRepo;
+    }
+
+    /**
+     * Weather rollup between two timestamps (bucket starts, inclusive).
+     *
+     * @param apiary Apiary name; null for the default apiary
+     * @param fields Value fields to include; null for all
+     */
+    public Rollup weatherRollup(String apiary, LocalDateTime start, LocalDateTime end, Resolution resolution,
+                                Set<String> fields) {
+        DatasetSnapshot<TimeIndex<WeatherRecord>> snap = weatherRepo.snapshot(apiary, start, end);
+        RollupSeries series = cached(snap, "-", resolution, () -> {
+            RollupSeries.Builder b = new RollupSeries.Builder(null, resolution, WEATHER_FIELDS);
+            for (WeatherRecord w : snap.getData().records()) {
+                b.add(EpochTime.toEpochSecond(w.getDateTime()),
+                        w.getTemperature(), w.getHumidity(), w.getPrecipitation());
+            }
+            return b.build();
+        });
+        return new Rollup(List.of(series.slice(bucketFrom(start, resolution), EpochTime.toEpochSecond(end))), fields);
+    }
+
+    /**
+     * Sensor rollup per hive between two timestamps (bucket starts, inclusive).
+     *
+     * @param apiary     Apiary name; null for the default apiary
+     * @param tagNumbers Hives to include; null or empty for all
+     * @param fields     Value fields to include; null for all
+     */
+    public Rollup sensorRollup(String apiary, LocalDateTime start, LocalDateTime end, Collection<String> tagNumbers,
+                               Resolution resolution, Set<String> fields) {
+        long from = bucketFrom(start, resolution), to = EpochTime.toEpochSecond(end);
+        // From the start of the first bucket, so that it is complete with ingested readings too
+        DatasetSnapshot<SensorSeries> snap = sensorRepo.snapshot(apiary,
+                from < EpochTime.toEpochSecond(LocalDateTime.MIN) ? start : EpochTime.toLocalDateTime(from), end);
+        SensorSeries sensor = snap.getData();
+
+        List<RollupSeries> result = new ArrayList<>();
+        for (int h = 0; h < sensor.hiveCount(); h++) {
+            String tag = sensor.hiveTag(h);
+            if (tagNumbers != null && !tagNumbers.isEmpty() && !tagNumbers.contains(tag)) {
+                continue;
+            }
+            int hive = h;
+            Supplier<RollupSeries> compute = () -> {
+                RollupSeries.Builder b = new RollupSeries.Builder(tag, resolution, SENSOR_FIELDS);
+                SensorCursor c = sensor.cursor(hive);
+                while (c.next()) {
+                    b.add(c.epochSecond(), c.temperature(), c.humidity());
+                }
+                return b.build();
+            };
+            // A merged snapshot is built for this query alone: caching its rollups would only
+            // fill the cache with one entry per range
+            RollupSeries series = SensorRepository.isMerged(snap)
+                    ? compute.get() : cached(snap, tag, resolution, compute);
+            result.add(series.slice(from, to));
+        }
+        return new Rollup(result, fields);
+    }
+
+    /**
+     * Raw weather records between two timestamps, reduced to at most {@code maxPoints}
+     * with LTTB on the temperature curve.
+     */
+    public List<WeatherRecord> weatherDownsampled(String apiary, LocalDateTime start, LocalDateTime end,
+                                                  int maxPoints) {
+        List<WeatherRecord> slice = weatherRepo.findBetween(apiary, start, end);
+        int[] keep = Lttb.downsample(slice.size(),
+                i -> EpochTime.toEpochSecond(slice.get(i).getDateTime()),
+                i -> slice.get(i).getTemperature(),
+                maxPoints);
+        if (keep.length == slice.size()) {
+            return slice;
+        }
+        List<WeatherRecord> result = new ArrayList<>(keep.length);
+        for (int i : keep) {
+            result.add(slice.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Raw sensor readings between two timestamps, reduced per hive to at most
+     * {@code maxPoints} with LTTB on the temperature curve.
+     *
+     * @param fields Value fields to include; null for all
+     */
+    public SensorSlice sensorDownsampled(String apiary, LocalDateTime start, LocalDateTime end,
+                                         Collection<String> tagNumbers, int maxPoints, Set<String> fields) {
+        SensorSeries sensor = sensorRepo.series(apiary, start, end);
+        long from = EpochTime.toEpochSecond(start), to = EpochTime.toEpochSecond(end);
+
+        int[] rows = new int[0];
+        int n = 0;
+        for (int h = 0; h < sensor.hiveCount(); h++) {
+            if (tagNumbers != null && !tagNumbers.isEmpty() && !tagNumbers.contains(sensor.hiveTag(h))) {
+                continue;
+            }
+            int[] range = sensor.range(h, from, to);
+            int base = range[0];
+            int[] keep = Lttb.downsample(range[1] - base,
+                    i -> sensor.epochSecond(base + i),
+                    i -> sensor.temperature(base + i),
+                    maxPoints);
+            rows = Arrays.copyOf(rows, n + keep.length);
+            for (int i : keep) {
+                rows[n++] = base + i;
+            }
+        }
+        int[] selected = rows;
+        return new SensorSlice(() -> sensor.rows(selected), fields);
+    }
+
+    private RollupSeries cached(DatasetSnapshot<?> snap, String hive, Resolution resolution,
+                                Supplier<RollupSeries> compute) {
+        String datasetPrefix = snap.getName() + ":";
+        String versionPrefix = datasetPrefix + snap.getVersion() + ":";
+        RollupSeries series = cache.get(versionPrefix + hive + ":" + resolution);
+        if (series != null) {
+            return series;
+        }
+        // A new snapshot version makes every rollup of the previous one obsolete
+        cache.keySet().removeIf(k -> k.startsWith(datasetPrefix) && !k.startsWith(versionPrefix));
+        return cache.computeIfAbsent(versionPrefix + hive + ":" + resolution, k -> compute.get());
+    }
+
+    /** Start of the bucket containing {@code start}, so a partial first bucket is included. */
+    private static long bucketFrom(LocalDateTime start, Resolution resolution) {
+        return resolution.bucketStart(EpochTime.toEpochSecond(start));
+    }
+}
@@ -0,0 +1,169 @@
+package com.tretrente.smart_beekeeping_dashboard.service;
+
+import com.tretrente.smart_beekeeping_dashboard.model.IngestResult;
+import com.tretrente.smart_beekeeping_dashboard.model.SensorRecord;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorCsvReader;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorRepository;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service validating batches of live sensor readings and appending them to the
+ * {@link SensorRepository}, which persists them. Malformed readings are skipped and
+ * reported; the rest of the batch is kept and passed on to the {@link AnomalyService}.
+ * Readings dated before {@link #EARLIEST} or more than {@link #MAX_AHEAD_SECONDS} after the
+ * server clock are rejected, as are readings of new hives once the live buffer holds its
+ * maximum number of hives.
+ */
+@Service
+public class SensorIngestService {
+
+    /** Earliest reading date accepted. */
+    public static final LocalDateTime EARLIEST = LocalDateTime.of(2000, 1, 1, 0, 0);
+    /** How far ahead of the server clock a reading may be dated (clock skew), in seconds. */
+    public static final long MAX_AHEAD_SECONDS = 86_400;
+
+    private final SensorRepository sensorRepo;
+    private final AnomalyService anomalyService;
+    private final Counter accepted;
+    private final Counter rejected;
+
+    public SensorIngestService(SensorRepository sensorRepo, AnomalyService anomalyService,
+                               MeterRegistry meterRegistry) {
+        this.sensorRepo = sensorRepo;
+        this.anomalyService = anomalyService;
+        this.accepted = readingCounter(meterRegistry, "accepted");
+        this.rejected = readingCounter(meterRegistry, "rejected");
+    }
+
+    /**
+     * Ingest SensorRecord-shaped readings; {@code date} is taken as UTC.
+     *
+     * @param readings Readings in any order
+     * @return Accepted and rejected counts
+     */
+    public IngestResult ingest(List<SensorRecord> readings) {
+        SensorSeries.Builder batch = new SensorSeries.Builder(readings.size());
+        List<String> errors = new ArrayList<>();
+        long rejected = 0;
+        long latest = latest();
+        for (int i = 0; i < readings.size(); i++) {
+            SensorRecord r = readings.get(i);
+            String error = validate(r);
+            if (error == null) {
+                error = validate(r.getTagNumber().trim(), EpochTime.toEpochSecond(r.getDate()), latest);
+            }
+            if (error != null) {
+                if (errors.size() < SensorCsvReader.MAX_REPORTED_ERRORS) {
+                    errors.add("reading " + i + ": " + error);
+                }
+                rejected++;
+                continue;
+            }
+            batch.add(r.getTagNumber().trim(), EpochTime.toEpochSecond(r.getDate()),
+                    r.getTemperature(), r.getHumidity());
+        }
+        SensorSeries series = batch.build();
+        sensorRepo.append(series);
+        anomalyService.process(series);
+        return count(new IngestResult(batch.size(), rejected, errors));
+    }
+
+    /**
+     * Ingest CSV lines in the sensor_2021.csv layout
+     * ({@code Date,Tag number,temperature,humidity}); the header line is optional.
+     *
+     * @param csv Raw request body
+     * @return Accepted and rejected counts
+     */
+    public IngestResult ingestCsv(ByteBuffer csv) {
+        SensorCsvReader reader = new SensorCsvReader(SensorCsvReader.estimateRows(csv));
+        reader.parseRows(csv);
+        SensorSeries parsed = reader.build();
+        List<String> errors = new ArrayList<>(reader.errors());
+        long rejected = reader.errorCount();
+        SensorSeries.Builder batch = new SensorSeries.Builder(parsed.size());
+        long latest = latest();
+        for (int h = 0; h < parsed.hiveCount(); h++) {
+            String tag = parsed.hiveTag(h);
+            for (int i = parsed.hiveStart(h); i < parsed.hiveEnd(h); i++) {
+                String error = validate(tag, parsed.epochSecond(i), latest);
+                if (error != null) {
+                    if (errors.size() < SensorCsvReader.MAX_REPORTED_ERRORS) {
+                        errors.add("reading of " + tag + " at " + EpochTime.toLocalDateTime(parsed.epochSecond(i))
+                                + ": " + error);
+                    }
+                    rejected++;
+                    continue;
+                }
+                batch.add(tag, parsed.epochSecond(i), parsed.temperature(i), parsed.humidity(i));
+            }
+        }
+        SensorSeries series = batch.build();
+        sensorRepo.append(series);
+        anomalyService.process(series);
+        return count(new IngestResult(batch.size(), rejected, errors));
+    }
+
+    private IngestResult count(IngestResult result) {
+        accepted.increment(result.getAccepted());
+        rejected.increment(result.getRejected());
+        return result;
+    }
+
+    private static Counter readingCounter(MeterRegistry registry, String result) {
+        return Counter.builder("urban.sensor.ingest.readings")
+                .description("Sensor readings posted to /api/sensor/ingest")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * @return Latest reading date accepted now, in epoch seconds
+     */
+    private static long latest() {
+        return System.currentTimeMillis() / 1000 + MAX_AHEAD_SECONDS;
+    }
+
+    /**
+     * Checks that apply to readings in either format, once parsed.
+     *
+     * @return Error message, or null if the reading is accepted
+     */
+    private String validate(String tagNumber, long epochSecond, long latest) {
+        if (epochSecond < EpochTime.toEpochSecond(EARLIEST) || epochSecond > latest) {
+            return "date: outside " + EARLIEST.toLocalDate() + " .. " + EpochTime.toLocalDateTime(latest).toLocalDate();
+        }
+        if (!sensorRepo.live().admits(tagNumber)) {
+            return "tagNumber: too many hives";
+        }
+        return null;
+    }
+
+    private static String validate(SensorRecord r) {
+        if (r == null) {
+            return "empty";
+        }
+        if (r.getDate() == null) {
+            return "date: missing";
+        }
+        if (r.getTagNumber() == null || r.getTagNumber().isBlank()) {
+            return "tagNumber: empty";
+        }
+        if (!Double.isFinite(r.getTemperature())) {
+            return "temperature: not a number";
+        }
+        if (!Double.isFinite(r.getHumidity())) {
+            return "humidity: not a number";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,87 @@
+package com.tretrente.smart_beekeeping_dashboard.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring of immutable messages shared by many readers.
+ * <p>
+ * A single publisher appends messages under increasing sequence numbers; every reader
+ * keeps its own position and reads the same message instances, so fan-out costs no copy
+ * per reader. Readers that fall more than {@code capacity} messages behind are told so
+ * by {@link #read} and must resynchronize. Reads never block the publisher.
+ * </p>
+ *
+ * @param <T> message type; must be immutable
+ */
+public final class BroadcastBuffer<T> {
+
+    private final AtomicReferenceArray<Entry<T>> slots;
+    private final AtomicLong head = new AtomicLong();
+
+    private static final class Entry<T> {
+        final long seq;
+        final T message;
+
+        Entry(long seq, T message) {
+            this.seq = seq;
+            this.message = message;
+        }
+    }
+
+    /**
+     * @param capacity Messages kept for readers that lag behind
+     */
+    public BroadcastBuffer(int capacity) {
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * @return Sequence number the next message will get, i.e. the number published so far
+     */
+    public long head() {
+        return head.get();
+    }
+
+    /**
+     * @return Sequence number of the oldest message that can still be read
+     */
+    public long oldest() {
+        return Math.max(0, head.get() - slots.length());
+    }
+
+    /**
+     * Append a message. Must only be called from one thread at a time.
+     *
+     * @return Sequence number of the message
+     */
+    public long publish(T message) {
+        long seq = head.get();
+        slots.set((int) (seq % slots.length()), new Entry<>(seq, message));
+        head.set(seq + 1);
+        return seq;
+    }
+
+    /**
+     * Messages with sequence numbers in {@code [from, to)}.
+     *
+     * @return The messages in order, or null when some of them were already overwritten
+     *         or the range is not one of published messages
+     */
+    public List<T> read(long from, long to) {
+        if (from < 0 || from > to || to > head.get() || to - from > slots.length()) {
+            return null;
+        }
+        List<T> result = new ArrayList<>((int) Math.max(0, to - from));
+        for (long seq = from; seq < to; seq++) {
+            Entry<T> e = slots.get((int) (seq % slots.length()));
+            if (e == null || e.seq != seq) {
+                return null;
+            }
+            result.add(e.message);
+        }
+        return result;
+    }
+}
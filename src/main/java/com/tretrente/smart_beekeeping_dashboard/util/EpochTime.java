@@ -0,0 +1,80 @@
+package com.tretrente.smart_beekeeping_dashboard.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Conversions between {@link LocalDateTime} and epoch seconds (interpreted as UTC),
+ * plus an allocation-free ISO-8601 formatter used when serializing columnar data.
+ */
+public final class EpochTime {
+
+    private EpochTime() { }
+
+    public static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Append the timestamp as {@code yyyy-MM-ddTHH:mm:ss}, the format Jackson uses for
+     * {@link LocalDateTime}. Years are assumed to be in the 0000–9999 range.
+     *
+     * @param sb          Target builder
+     * @param epochSecond Seconds since 1970-01-01T00:00:00
+     * @return The same builder
+     */
+    public static StringBuilder appendIso(StringBuilder sb, long epochSecond) {
+        return appendIso(sb, epochSecond, true);
+    }
+
+    /**
+     * Append the timestamp in ISO-8601 local form.
+     *
+     * @param sb            Target builder
+     * @param epochSecond   Seconds since 1970-01-01T00:00:00
+     * @param alwaysSeconds If false, ":00" seconds are omitted, matching {@link LocalDateTime#toString()}
+     * @return The same builder
+     */
+    public static StringBuilder appendIso(StringBuilder sb, long epochSecond, boolean alwaysSeconds) {
+        long days = Math.floorDiv(epochSecond, 86_400L);
+        int secOfDay = (int) Math.floorMod(epochSecond, 86_400L);
+
+        // Civil-from-days (H. Hinnant), valid for the proleptic Gregorian calendar
+        long z = days + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long doe = z - era * 146_097;
+        long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+
+        int hour = secOfDay / 3600;
+        int minute = (secOfDay / 60) % 60;
+        int second = secOfDay % 60;
+
+        pad4(sb, year).append('-');
+        pad2(sb, month).append('-');
+        pad2(sb, day).append('T');
+        pad2(sb, hour).append(':');
+        pad2(sb, minute);
+        if (alwaysSeconds || second != 0) {
+            pad2(sb.append(':'), second);
+        }
+        return sb;
+    }
+
+    private static StringBuilder pad2(StringBuilder sb, int v) {
+        return sb.append((char) ('0' + v / 10)).append((char) ('0' + v % 10));
+    }
+
+    private static StringBuilder pad4(StringBuilder sb, int v) {
+        pad2(sb, v / 100);
+        return pad2(sb, v % 100);
+    }
+}
@@ -0,0 +1,95 @@
+package com.tretrente.smart_beekeeping_dashboard.util;
+
+/**
+ * Small, seedable pseudo-random generator (SplitMix64) for simulations.
+ * <p>
+ * The whole state is one {@code long}, so instances are cheap to create and sampling
+ * never allocates. Gaussian samples use the Marsaglia polar method, which produces two
+ * values per round; the second one is cached for the next call. The same seed always
+ * yields the same sequence. Not thread-safe: use one instance per thread (see
+ * {@link RandomUtil}) or per independent stream (see {@link #forStream(long, long)}).
+ * </p>
+ */
+public final class FastRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long state;
+    private double spareGaussian;
+    private boolean hasSpare;
+
+    public FastRandom(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Generator for stream {@code stream} (e.g. a hive index) of a seeded run. Streams of
+     * the same seed are statistically independent and do not depend on the order in which
+     * they are created, which keeps partitioned simulations reproducible.
+     */
+    public static FastRandom forStream(long seed, long stream) {
+        return new FastRandom(mix(seed ^ mix(stream * GOLDEN_GAMMA + GOLDEN_GAMMA)));
+    }
+
+    public long nextLong() {
+        return mix(state += GOLDEN_GAMMA);
+    }
+
+    /**
+     * @return Uniform double in {@code [0, 1)}
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * @return Uniform double in {@code [min, max)}
+     */
+    public double nextDouble(double min, double max) {
+        return min + (max - min) * nextDouble();
+    }
+
+    /**
+     * @return Uniform integer in {@code [min, max]}
+     */
+    public int nextInt(int min, int max) {
+        long range = (long) max - min + 1;
+        // Multiply-shift: maps 32 random bits onto the range with negligible bias
+        return (int) (min + (((nextLong() >>> 32) * range) >>> 32));
+    }
+
+    /**
+     * @return Standard normal sample (mean 0, standard deviation 1)
+     */
+    public double nextGaussian() {
+        if (hasSpare) {
+            hasSpare = false;
+            return spareGaussian;
+        }
+        double u, v, s;
+        do {
+            u = 2 * nextDouble() - 1;
+            v = 2 * nextDouble() - 1;
+            s = u * u + v * v;
+        } while (s >= 1 || s == 0);
+        double factor = Math.sqrt(-2 * Math.log(s) / s);
+        spareGaussian = v * factor;
+        hasSpare = true;
+        return u * factor;
+    }
+
+    /**
+     * @return Normal sample with the given mean and standard deviation
+     */
+    public double nextGaussian(double mean, double sd) {
+        return mean + sd * nextGaussian();
+    }
+
+    /** SplitMix64 finalizer (variant 13 of Stafford's mixers). */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,64 @@
+package com.tretrente.smart_beekeeping_dashboard.util;
+
+/**
+ * Rough retained-size estimates for the objects held by the in-memory datasets.
+ * <p>
+ * Figures assume a 64-bit JVM with compressed oops (12-byte object headers,
+ * 4-byte references, 8-byte alignment). They are meant for reporting, not for
+ * exact accounting.
+ * </p>
+ */
+public final class HeapEstimator {
+
+    /** Reference slot in an object or array. */
+    public static final long REFERENCE = 4;
+
+    /** LocalDate: header + int + short + short. */
+    public static final long LOCAL_DATE = 24;
+
+    /** LocalTime: header + byte fields + int nanos. */
+    public static final long LOCAL_TIME = 24;
+
+    /** LocalDateTime together with the LocalDate and LocalTime it references. */
+    public static final long LOCAL_DATE_TIME = 24 + LOCAL_DATE + LOCAL_TIME;
+
+    private HeapEstimator() { }
+
+    /**
+     * Align a raw size to the 8-byte object boundary.
+     */
+    public static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Size of an object with a header plus the given field bytes.
+     *
+     * @param fieldBytes Sum of the field sizes
+     * @return Aligned object size
+     */
+    public static long object(long fieldBytes) {
+        return align(12 + fieldBytes);
+    }
+
+    /**
+     * Size of a String together with its (Latin-1) backing array; 0 for null.
+     */
+    public static long string(String s) {
+        if (s == null) {
+            return 0;
+        }
+        return object(4 + 4 + 1 + 1) + array(s.length(), 1);
+    }
+
+    /**
+     * Size of a primitive or reference array.
+     *
+     * @param length      Number of elements
+     * @param elementSize Size of one element, in bytes
+     * @return Aligned array size
+     */
+    public static long array(long length, long elementSize) {
+        return align(16 + length * elementSize);
+    }
+}
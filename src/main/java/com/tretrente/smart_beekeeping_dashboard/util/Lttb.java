@@ -0,0 +1,83 @@
+package com.tretrente.smart_beekeeping_dashboard.util;
+
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling (S. Steinarsson, 2013).
+ * <p>
+ * Picks {@code threshold} points out of {@code n} so that the shape of a line chart is
+ * preserved: the first and last points are always kept, and from every intermediate
+ * bucket the point forming the largest triangle with the previously selected point and
+ * the average of the next bucket is chosen.
+ * </p>
+ */
+public final class Lttb {
+
+    private Lttb() { }
+
+    /**
+     * @param n         Number of input points, indexed 0..n-1 and ordered by x
+     * @param x         X value (timestamp) of point i
+     * @param y         Y value of point i
+     * @param threshold Maximum number of points to keep: 1 keeps the first point, 2 the first
+     *                  and the last
+     * @return Indices of the selected points, ascending
+     * @throws IllegalArgumentException if {@code threshold} is below 1
+     */
+    public static int[] downsample(int n, IntToLongFunction x, IntToDoubleFunction y, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be at least 1, got " + threshold);
+        }
+        if (threshold >= n) {
+            int[] all = new int[n];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        if (threshold < 3) {
+            return threshold == 1 ? new int[] { 0 } : new int[] { 0, n - 1 };
+        }
+
+        int[] sampled = new int[threshold];
+        int k = 0;
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        sampled[k++] = a;
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // Average of the next bucket
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgX = 0, avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += x.applyAsLong(j);
+                avgY += y.applyAsDouble(j);
+            }
+            int avgLen = avgEnd - avgStart;
+            avgX /= avgLen;
+            avgY /= avgLen;
+
+            // Point of the current bucket with the largest triangle
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double ax = x.applyAsLong(a), ay = y.applyAsDouble(a);
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((ax - avgX) * (y.applyAsDouble(j) - ay)
+                        - (ax - x.applyAsLong(j)) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled[k++] = next;
+            a = next;
+        }
+
+        sampled[k] = n - 1;
+        return sampled;
+    }
+}
@@ -1,14 +1,35 @@
 package com.tretrente.smart_beekeeping_dashboard.util;
 
-import org.apache.commons.math3.distribution.NormalDistribution;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Utility class providing methods to generate random values
  * according to desired statistical distributions.
+ * <p>
+ * Samples come from a per-thread {@link FastRandom}, so no object is created per call.
+ * Code that needs reproducible results should create its own seeded {@link FastRandom}
+ * instead.
+ * </p>
  */
 public class RandomUtil {
 
+    private static final ThreadLocal<FastRandom> RANDOM =
+            ThreadLocal.withInitial(() -> new FastRandom(newSeed()));
+
+    /**
+     * @return The calling thread's generator
+     */
+    public static FastRandom current() {
+        return RANDOM.get();
+    }
+
+    /**
+     * @return A fresh, unpredictable seed
+     */
+    public static long newSeed() {
+        return ThreadLocalRandom.current().nextLong() ^ System.nanoTime();
+    }
+
     /**
      * Generate a random double following a normal distribution.
      *
@@ -17,8 +38,7 @@ public class RandomUtil {
      * @return Random sample (double)
      */
     public static double gaussian(double mean, double sd) {
-        NormalDistribution dist = new NormalDistribution(mean, sd);
-        return dist.sample();
+        return current().nextGaussian(mean, sd);
     }
 
     /**
@@ -29,7 +49,7 @@ public class RandomUtil {
      * @return Random sample (double)
      */
     public static double uniform(double min, double max) {
-        return ThreadLocalRandom.current().nextDouble(min, max);
+        return current().nextDouble(min, max);
     }
 
     /**
@@ -40,6 +60,6 @@ public class RandomUtil {
      * @return Random integer
      */
     public static int uniformInt(int min, int max) {
-        return ThreadLocalRandom.current().nextInt(min, max + 1);
+        return current().nextInt(min, max);
     }
 }
@@ -0,0 +1,37 @@
+package com.tretrente.smart_beekeeping_dashboard.util;
+
+/**
+ * Version numbers of data derived from several sources, e.g. a snapshot combining
+ * partitions or a join of two datasets.
+ * <p>
+ * A sum or a fixed linear combination of the source versions lets different states share
+ * a version ({@code 1 + 3 == 2 + 2}). {@link #combine} mixes every version in turn through
+ * the SplitMix64 finalizer instead, so the result depends on each source and its position,
+ * and two different states collide with a probability of about 2<sup>-64</sup>. The result
+ * identifies a state; it is not ordered.
+ * </p>
+ */
+public final class Versions {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private Versions() { }
+
+    /**
+     * @param versions Versions of the sources, in a fixed order
+     * @return A version for their combination; never 0, which stands for "no data"
+     */
+    public static long combine(long... versions) {
+        long h = GOLDEN_GAMMA * (versions.length + 1);
+        for (long v : versions) {
+            h = mix(h ^ v) + GOLDEN_GAMMA;
+        }
+        return h == 0 ? 1 : h;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -68,40 +68,83 @@ async function fetchJson(url) {
   return res.json();
 }
 
+// ─── Columnar responses (format=columnar) ─────────────────────────
+// Timestamps come as {start, step} or {start, deltas} in epoch seconds;
+// rebuild the "YYYY-MM-DDTHH:mm:ss" labels of the row format
+function seriesLabels(s) {
+  const labels = new Array(s.size);
+  let t = s.time.start;
+  for (let i = 0; i < s.size; i++) {
+    if (i > 0) t += s.time.deltas ? s.time.deltas[i - 1] : s.time.step;
+    labels[i] = new Date(t * 1000).toISOString().slice(0, 19);
+  }
+  return labels;
+}
+
 // ─── Populate the hive <select> once ──────────────────────────────
+// Returns the summary fetched for it: with no hive selected yet it covers
+// every hive, so the initial load can render it instead of fetching it again.
 async function initHiveSelect() {
-  const raw = await fetchJson('/api/urban/inspections/2021');
-  const unique = Array.from(new Set(raw.map(d => d.tagNumber)));
   hiveSelect.innerHTML = '';
-  unique.forEach(id => {
+  const summary = await fetchSummary();
+  summary.hives.forEach(id => {
     const opt = document.createElement('option');
     opt.value       = id;
     opt.textContent = id;
     hiveSelect.appendChild(opt);
   });
+  return summary;
 }
 
 // ─── Helpers to build ISO timestamps ──────────────────────────────
 function startISO() { return `${startInput.value}T00:00:00`; }
 function endISO()   { return `${endInput.value}T23:59:59`; }
 
+function selectedHives() {
+  return Array.from(hiveSelect.selectedOptions).map(o => o.value);
+}
+
+// ─── Inspection summary (KPIs + chart series), aggregated server-side ─
+async function fetchSummary() {
+  const params = new URLSearchParams({ start: startInput.value, end: endInput.value });
+  const hives  = selectedHives();
+  if (hives.length) params.set('hives', hives.join(','));
+  return fetchJson(`/api/urban/summary?${params}`);
+}
+
 // ─── Environmental Data ──────────────────────────────────────────
+// Above this many days the hourly series is replaced by daily rollups
+const ROLLUP_AFTER_DAYS = 31;
+
 async function loadEnvironmental() {
   tempHumChart?.destroy();
   precipChart?.destroy();
 
-  const raw = await fetchJson('/api/urban/environmental');
-  const s   = new Date(startISO()), e = new Date(endISO());
-
-  const filtered = raw.filter(d => {
-    const ts = new Date(d.dateTime);
-    return ts >= s && ts <= e;
-  });
-
-  const labels = filtered.map(d => d.dateTime);
-  const temps  = filtered.map(d => d.temperature);
-  const hums   = filtered.map(d => d.humidity);
-  const precs  = filtered.map(d => d.precipitation);
+  const params = new URLSearchParams({ start: startISO(), end: endISO() });
+  const days   = (new Date(endISO()) - new Date(startISO())) / 86400000;
+
+  // One array per field instead of one object per record
+  params.set('format', 'columnar');
+  let labels = [], temps = [], hums = [], precs = [];
+  if (days > ROLLUP_AFTER_DAYS) {
+    // Long ranges: daily buckets computed (and cached) server-side
+    params.set('resolution', '1d');
+    const { series } = await fetchJson(`/api/urban/environmental?${params}`);
+    for (const s of series) {
+      labels = labels.concat(seriesLabels(s));
+      temps  = temps.concat(s['temperature.mean']);
+      hums   = hums.concat(s['humidity.mean']);
+      precs  = precs.concat(s['precipitation.sum']);
+    }
+  } else {
+    const { series } = await fetchJson(`/api/urban/environmental?${params}`);
+    for (const s of series) {
+      labels = labels.concat(seriesLabels(s));
+      temps  = temps.concat(s.temperature);
+      hums   = hums.concat(s.humidity);
+      precs  = precs.concat(s.precipitation);
+    }
+  }
 
   // Temperature & Humidity
   {
@@ -142,32 +185,13 @@ async function loadEnvironmental() {
 }
 
 // ─── Production & Population ─────────────────────────────────────
-async function loadProduction() {
+function loadProduction(summary) {
   honeyChart?.destroy();
   broodChart?.destroy();
 
-  const raw = await fetchJson('/api/urban/inspections/2021');
-  const s   = new Date(startISO()), e = new Date(endISO());
-  const selected = Array.from(hiveSelect.selectedOptions).map(o => o.value);
-
-  const filtered = raw.filter(r => {
-    const dt = new Date(`${r.date}T00:00:00`);
-    return dt >= s && dt <= e && selected.includes(r.tagNumber);
-  });
-
-  // aggregate per hive
-  const byHive = {};
-  filtered.forEach(r => {
-    if (!byHive[r.tagNumber]) {
-      byHive[r.tagNumber] = { honey: 0, brood: 0 };
-    }
-    byHive[r.tagNumber].honey += r.framesOfHoney;
-    byHive[r.tagNumber].brood += r.foBrood;
-  });
-
-  const labels    = Object.keys(byHive);
-  const honeyData = labels.map(h => byHive[h].honey);
-  const broodData = labels.map(h => byHive[h].brood);
+  const labels    = summary.byHive.map(h => h.tagNumber);
+  const honeyData = summary.byHive.map(h => h.honeyFrames);
+  const broodData = summary.byHive.map(h => h.broodFrames);
 
   // Honey Frames chart
   {
@@ -203,21 +227,9 @@ async function loadProduction() {
 }
 
 // ─── Queen Status Distribution ───────────────────────────────────
-async function loadQueen() {
+function loadQueen(summary) {
   queenChart?.destroy();
-    const raw = await fetchJson('/api/urban/inspections/2021');
-    const s = new Date(startISO()), e = new Date(endISO());
-    const selectedHives = Array.from(hiveSelect.selectedOptions).map(o => o.value);
-
-    const filtered = raw.filter(d => {
-      const dt = new Date(`${d.date}T00:00:00`);
-      return dt >= s && dt <= e && selectedHives.includes(d.tagNumber);
-    });
-
-    const counts = filtered.reduce((acc, d) => {
-      acc[d.queenStatus] = (acc[d.queenStatus] || 0) + 1;
-      return acc;
-    }, {});
+    const counts = summary.queenStatus;
 
     const labels = Object.keys(counts);
     const vals   = labels.map(l => counts[l]);
@@ -241,24 +253,12 @@ async function loadQueen() {
   }
 
 // ─── Brood vs Adult Stacked ──────────────────────────────────────
-async function loadStacked() {
+function loadStacked(summary) {
   stackedChart?.destroy();
 
-  const raw = await fetchJson('/api/urban/inspections/2021');
-  const s   = new Date(startISO()), e = new Date(endISO());
-
-  const byDate = {};
-  raw.forEach(d => {
-    const dt = new Date(`${d.date}T00:00:00`);
-    if (dt < s || dt > e) return;
-    byDate[d.date] ??= { brood: 0, adult: 0 };
-    byDate[d.date].brood += d.foBrood;
-    byDate[d.date].adult += d.fob1st + d.fob2nd + d.fob3rd;
-  });
-
-  const dates = Object.keys(byDate).sort();
-  const brood = dates.map(d => byDate[d].brood);
-  const adult = dates.map(d => byDate[d].adult);
+  const dates = summary.byDate.map(d => d.date);
+  const brood = summary.byDate.map(d => d.brood);
+  const adult = summary.byDate.map(d => d.adult);
 
   const ctx = document.getElementById('stackedFramesChart').getContext('2d');
   stackedChart = new Chart(ctx, {
@@ -277,50 +277,77 @@ async function loadStacked() {
   });
 }
 
-// ─── KPIs Calculation & Rendering ────────────────────────────────
-async function updateKPIs() {
-  const raw = await fetchJson('/api/urban/inspections/2021');
-  const s   = new Date(startISO()), e = new Date(endISO());
-  const selected = Array.from(hiveSelect.selectedOptions).map(o => o.value);
-
-  const filt = raw.filter(d => {
-    const dt = new Date(`${d.date}T00:00:00`);
-    return dt >= s && dt <= e && selected.includes(d.tagNumber);
-  });
-  if (!filt.length) return;
-
-  const totalFrames  = filt.reduce((sum,r) => sum + r.framesOfHoney, 0);
-  const honeyKg      = parseFloat((totalFrames * 1.5).toFixed(1));
-  const avgColony    = parseFloat((filt.reduce((s,r) => s + r.colonySize, 0) / filt.length).toFixed(1));
-  const ratios       = filt.map(r => {
-    const adult = r.fob1st + r.fob2nd + r.fob3rd;
-    return adult > 0 ? r.foBrood / adult : 0;
-  });
-  const avgRatio     = ratios.reduce((a,b) => a + b, 0) / ratios.length;
-  const qrPercent    = Math.round(filt.filter(r => r.queenStatus === 'QR').length / filt.length * 100);
+// ─── KPIs Rendering (computed server-side) ───────────────────────
+function updateKPIs(summary) {
+  const k = summary.kpis;
+  if (!k) return;
 
-  renderKpi('colonySizeChart', 'colonySizeText', avgColony,  100, COLORS.forestGreen);
-  renderKpi('honeyYieldChart', 'honeyYieldText', honeyKg,    200, COLORS.honeyYellow);
-  renderKpi('broodRatioChart', 'broodRatioText', avgRatio,   1,   COLORS.skyBlue);
-  renderKpi('qrPercentChart',  'qrPercentText',  qrPercent, 100, COLORS.amberBrown);
+  renderKpi('colonySizeChart', 'colonySizeText', k.avgColonySize, 100, COLORS.forestGreen);
+  renderKpi('honeyYieldChart', 'honeyYieldText', k.honeyKg,       200, COLORS.honeyYellow);
+  renderKpi('broodRatioChart', 'broodRatioText', k.avgBroodRatio, 1,   COLORS.skyBlue);
+  renderKpi('qrPercentChart',  'qrPercentText',  k.qrPercent,     100, COLORS.amberBrown);
 }
 
 // ─── Reload everything ───────────────────────────────────────────
+function renderSummary(summary) {
+  loadProduction(summary);
+  loadQueen(summary);
+  loadStacked(summary);
+  updateKPIs(summary);
+}
+
+async function reloadSummary() {
+  renderSummary(await fetchSummary());
+}
+
 async function reloadAll() {
-  await Promise.all([
-    loadEnvironmental(),
-    loadProduction(),
-    loadQueen(),
-    loadStacked()
+  const [summary] = await Promise.all([
+    fetchSummary(),
+    loadEnvironmental()
   ]);
-  await updateKPIs();
+  renderSummary(summary);
+}
+
+// ─── Live updates (Server-Sent Events) ───────────────────────────
+// The server pushes only what changed; a chart is re-fetched only when its
+// dataset was reloaded, and everything when updates were missed.
+const latestByHive = {};
+
+function renderLive() {
+  const panel = document.getElementById('liveSensors');
+  panel.innerHTML = '';
+  Object.values(latestByHive)
+    .sort((a, b) => a.tagNumber.localeCompare(b.tagNumber))
+    .forEach(r => {
+      const item = document.createElement('span');
+      item.className   = 'live-reading';
+      item.textContent = `${r.tagNumber}: ${r.temperature.toFixed(1)} °C · `
+                       + `${r.humidity.toFixed(0)} % (${r.date.replace('T', ' ')})`;
+      panel.appendChild(item);
+    });
+}
+
+function subscribeLive() {
+  if (!window.EventSource) return;
+  const source = new EventSource('/api/live');
+  source.addEventListener('update', e => {
+    const update = JSON.parse(e.data);
+    update.sensor.forEach(r => latestByHive[r.tagNumber] = r);
+    if (update.sensor.length) renderLive();
+    // The summary depends on this page's range and hives: fetch it, but only it
+    if (update.datasets.includes('inspections')) reloadSummary();
+    if (update.datasets.includes('weather')) loadEnvironmental();
+  });
+  source.addEventListener('resync', reloadAll);
 }
 
 // ─── Wire up Confirm + Initial Load ─────────────────────────────
 document.addEventListener('DOMContentLoaded', async () => {
-  await initHiveSelect();
+  const summary = await initHiveSelect();
   Array.from(hiveSelect.options).forEach(o => o.selected = true);
-  reloadAll();
+  renderSummary(summary);
+  loadEnvironmental();
+  subscribeLive();
 });
 
 confirmBtn.addEventListener('click', reloadAll);
\ No newline at end of file
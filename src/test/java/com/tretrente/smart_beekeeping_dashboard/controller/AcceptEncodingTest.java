@@ -0,0 +1,24 @@
+package com.tretrente.smart_beekeeping_dashboard.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AcceptEncodingTest {
+
+	@Test
+	void gzipListedWithAPositiveQuality() {
+		for (String header : new String[] { "gzip", "GZIP", "deflate, gzip", "gzip;q=0.5, br", "x-gzip",
+				"br;q=1.0, gzip ; Q=0.001", "*", "identity, *;q=0.1", "gzip;q=1, gzip;q=0" }) {
+			assertThat(AcceptEncoding.acceptsGzip(header)).as(header).isTrue();
+		}
+	}
+
+	@Test
+	void gzipRefusedOrMissing() {
+		for (String header : new String[] { "", "identity", "br, deflate", "gzip;q=0", "gzip;q=0.000",
+				"identity, *;q=0", "*;q=0.5, gzip;q=0", "gzip;q=x", "gzip;q=2", "notgzip", null }) {
+			assertThat(AcceptEncoding.acceptsGzip(header)).as(header).isFalse();
+		}
+	}
+}
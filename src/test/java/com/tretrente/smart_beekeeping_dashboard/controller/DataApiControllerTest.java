@@ -0,0 +1,174 @@
+package com.tretrente.smart_beekeeping_dashboard.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class DataApiControllerTest {
+
+	private static final String CBOR = "application/cbor";
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Test
+	void openRangeWithHugeToleranceStillMatchesTheWeather() throws Exception {
+		// No start: LocalDateTime.MIN, widened by a tolerance of ~1 billion years. Unclamped,
+		// the weather range overflowed and came back empty.
+		mvc.perform(get("/api/urban/hive-vs-ambient").param("end", "2021-06-20T00:00:00")
+				.param("tolerance", "PT2562047788015215H"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$").isNotEmpty());
+		mvc.perform(get("/api/urban/hive-vs-ambient").param("tolerance", "PT2562047788015215H")
+				.param("resolution", "1w"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$").isNotEmpty());
+	}
+
+	@Test
+	void maxPointsBelowOneIsABadRequest() throws Exception {
+		for (String path : new String[] { "/api/urban/environmental", "/api/urban/sensor" }) {
+			for (String maxPoints : new String[] { "0", "-1" }) {
+				mvc.perform(get(path).param("maxPoints", maxPoints)).andExpect(status().isBadRequest());
+			}
+			// The first and last record of the day; hives only applies to the sensor readings
+			mvc.perform(get(path).param("start", "2021-07-01T00:00:00").param("end", "2021-07-02T00:00:00")
+					.param("hives", "3629").param("maxPoints", "2"))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.length()").value(2));
+		}
+	}
+
+	@Test
+	void summaryCountsEveryInspection() throws Exception {
+		mvc.perform(get("/api/urban/summary").param("start", "2021-01-01").param("end", "2021-12-31"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.inspections").value(109))
+				.andExpect(jsonPath("$.hives").isNotEmpty());
+	}
+
+	@Test
+	void cborIsServedWhenPreferred() throws Exception {
+		MockHttpServletResponse json = summary().andReturn().getResponse();
+		assertThat(json.getContentType()).isEqualTo("application/json");
+
+		for (String accept : new String[] { CBOR, "application/json;q=0.5, application/cbor", "application/cbor, */*" }) {
+			MockHttpServletResponse cbor = summary(accept, null, null).andReturn().getResponse();
+			assertThat(cbor.getContentType()).as(accept).isEqualTo(CBOR);
+			assertThat(new ObjectMapper(new CBORFactory()).readTree(cbor.getContentAsByteArray())).as(accept)
+					.isEqualTo(new ObjectMapper().readTree(json.getContentAsByteArray()));
+		}
+		for (String accept : new String[] { "application/cbor;q=0.5, application/json", "application/cbor;q=x" }) {
+			assertThat(summary(accept, null, null).andReturn().getResponse().getContentType()).as(accept)
+					.isEqualTo("application/json");
+		}
+	}
+
+	@Test
+	void etagsAreValidatedPerRepresentation() throws Exception {
+		String json = etag(null, null);
+		String cbor = etag(CBOR, null);
+		String jsonGzip = etag(null, "gzip");
+		String cborGzip = etag(CBOR, "gzip");
+		assertThat(new String[] { json, cbor, jsonGzip, cborGzip }).doesNotHaveDuplicates();
+		assertThat(jsonGzip).isEqualTo(json.replaceFirst("\"$", "-gz\""));
+		assertThat(cborGzip).isEqualTo(cbor.replaceFirst("\"$", "-gz\""));
+
+		// Only the representation a tag was issued for is not modified
+		summary(null, null, json).andExpect(status().isNotModified());
+		summary(CBOR, null, cbor).andExpect(status().isNotModified());
+		summary(null, "gzip", jsonGzip).andExpect(status().isNotModified());
+		summary(CBOR, "gzip", cborGzip).andExpect(status().isNotModified());
+		summary(CBOR, null, json).andExpect(status().isOk());
+		summary(null, null, cbor).andExpect(status().isOk());
+		summary(null, null, jsonGzip).andExpect(status().isOk());
+		summary(null, "gzip", json).andExpect(status().isOk());
+	}
+
+	@Test
+	void gzippedBodyMatchesThePlainOne() throws Exception {
+		byte[] plain = summary().andReturn().getResponse().getContentAsByteArray();
+		MockHttpServletResponse gzipped = summary(null, "gzip", null)
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+				.andReturn().getResponse();
+		assertThat(gunzip(gzipped.getContentAsByteArray())).isEqualTo(plain);
+	}
+
+	@Test
+	void responsesVaryByAcceptAndEncoding() throws Exception {
+		for (String accept : new String[] { null, CBOR }) {
+			MockHttpServletResponse ok = summary(accept, "gzip", null).andReturn().getResponse();
+			assertThat(vary(ok)).as(accept).containsExactlyInAnyOrder(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+			MockHttpServletResponse notModified = summary(accept, "gzip", ok.getHeader(HttpHeaders.ETAG))
+					.andExpect(status().isNotModified())
+					.andReturn().getResponse();
+			assertThat(vary(notModified)).as(accept)
+					.containsExactlyInAnyOrder(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+		}
+	}
+
+	private ResultActions summary() throws Exception {
+		return summary(null, null, null);
+	}
+
+	/** The 2021 inspection summary, large enough to be gzipped. */
+	private ResultActions summary(String accept, String encoding, String ifNoneMatch) throws Exception {
+		MockHttpServletRequestBuilder request = get("/api/urban/summary")
+				.param("start", "2021-01-01").param("end", "2021-12-31");
+		if (accept != null) {
+			request.header(HttpHeaders.ACCEPT, accept);
+		}
+		if (encoding != null) {
+			request.header(HttpHeaders.ACCEPT_ENCODING, encoding);
+		}
+		if (ifNoneMatch != null) {
+			request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+		}
+		return mvc.perform(request);
+	}
+
+	private String etag(String accept, String encoding) throws Exception {
+		String etag = summary(accept, encoding, null).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).isNotNull();
+		return etag;
+	}
+
+	/** Header names of every Vary header, whether repeated or comma-separated. */
+	private static List<String> vary(MockHttpServletResponse response) {
+		List<String> names = new ArrayList<>();
+		for (String header : response.getHeaders(HttpHeaders.VARY)) {
+			for (String name : header.split(",")) {
+				names.add(name.trim());
+			}
+		}
+		return names;
+	}
+
+	private static byte[] gunzip(byte[] bytes) throws IOException {
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+			return in.readAllBytes();
+		}
+	}
+}
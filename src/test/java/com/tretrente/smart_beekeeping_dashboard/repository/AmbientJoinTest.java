@@ -0,0 +1,64 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import com.tretrente.smart_beekeeping_dashboard.model.WeatherRecord;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AmbientJoinTest {
+
+	private static final LocalDateTime NINE = LocalDateTime.of(2021, 7, 15, 9, 0);
+	private static final long HOUR = 3600;
+
+	// Hourly observations from 07:00; the station reported nothing at 09:00 and 10:00
+	private final TimeIndex<WeatherRecord> weather = TimeIndex.build(List.of(
+			observation(-2, 18.0),
+			observation(-1, 19.0),
+			observation(0, Double.NaN),
+			observation(1, Double.NaN),
+			observation(2, 22.0)), w -> EpochTime.toEpochSecond(w.getDateTime()));
+
+	@Test
+	void precedingSkipsMissingTemperatures() {
+		AmbientJoin join = join(AmbientJoin.Match.PRECEDING, 0, 3 * HOUR);
+		assertThat(join.size()).isEqualTo(1);
+		assertThat(join.ambientEpochSecond(0)).isEqualTo(time(-1));
+		assertThat(join.ambientTemperature(0)).isEqualTo(19.0);
+		assertThat(join.delta(0)).isEqualTo(35.0 - 19.0);
+	}
+
+	@Test
+	void nearestSkipsMissingTemperaturesOnBothSides() {
+		// 10:40: the 11:00 observation is the closest one with a temperature
+		AmbientJoin join = join(AmbientJoin.Match.NEAREST, 100 * 60, 3 * HOUR);
+		assertThat(join.ambientTemperature(0)).isEqualTo(22.0);
+		// 09:20: 08:00 is closer than 11:00
+		join = join(AmbientJoin.Match.NEAREST, 20 * 60, 3 * HOUR);
+		assertThat(join.ambientTemperature(0)).isEqualTo(19.0);
+	}
+
+	@Test
+	void readingIsLeftOutWhenNoTemperatureIsWithinTolerance() {
+		assertThat(join(AmbientJoin.Match.PRECEDING, 30 * 60, HOUR).size()).isZero();
+		assertThat(join(AmbientJoin.Match.NEAREST, 0, HOUR / 2).size()).isZero();
+	}
+
+	/** One reading of 35 °C, {@code offset} seconds after 09:00, joined with UTC weather. */
+	private AmbientJoin join(AmbientJoin.Match match, long offset, long tolerance) {
+		long t = time(0) + offset;
+		SensorSeries sensor = new SensorSeries.Builder().add("3629", t, 35.0, 50.0).build();
+		return AmbientJoin.join(sensor, weather, 0, t, t, null, match, tolerance);
+	}
+
+	private static WeatherRecord observation(int hours, double temperature) {
+		return new WeatherRecord(NINE.plusHours(hours), temperature, 60.0, 0.0);
+	}
+
+	private static long time(int hours) {
+		return EpochTime.toEpochSecond(NINE.plusHours(hours));
+	}
+}
@@ -0,0 +1,112 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinarySnapshotsTest {
+
+	private static final String CSV = "Date,Tag number,temperature,humidity\n"
+			+ "2021-06-19 00:04:58+00:00,3629,26.24,35.45\n"
+			+ "2021-06-19 00:19:58+00:00,3629,-0.0,35.92\n"
+			+ "2021-06-19 00:04:58+00:00,3630,25.5,36.0\n";
+
+	@TempDir
+	Path dir;
+
+	private int parses;
+
+	@Test
+	void roundTripSkipsTheCsv() throws IOException {
+		SensorSeries parsed = load(CSV);
+		assertThat(parses).isEqualTo(1);
+		assertThat(snapshot()).exists();
+
+		SensorSeries loaded = load(CSV);
+		assertThat(parses).isEqualTo(1);
+		assertSameRows(loaded, parsed);
+	}
+
+	@Test
+	void corruptPayloadIsReparsed() throws IOException {
+		SensorSeries parsed = load(CSV);
+		long size = Files.size(snapshot());
+		// A value byte of the payload, then the stored checksum itself
+		assertReparsed(parsed, size / 2);
+		assertReparsed(parsed, size - 1);
+	}
+
+	@Test
+	void truncatedSnapshotIsReparsed() throws IOException {
+		SensorSeries parsed = load(CSV);
+		for (long keep : new long[] { Files.size(snapshot()) - 9, 27, 0 }) {
+			try (FileChannel channel = FileChannel.open(snapshot(), StandardOpenOption.WRITE)) {
+				channel.truncate(keep);
+			}
+			int before = parses;
+			assertSameRows(load(CSV), parsed);
+			assertThat(parses).as("parses after truncating to %d bytes", keep).isEqualTo(before + 1);
+		}
+		// The last parse rewrote a valid snapshot
+		load(CSV);
+		assertThat(parses).isEqualTo(4);
+	}
+
+	@Test
+	void changedSourceIsReparsed() throws IOException {
+		load(CSV);
+		SensorSeries changed = load(CSV.replace("25.5", "25.6"));
+		assertThat(parses).isEqualTo(2);
+		assertThat(changed.temperature(changed.hiveStart(changed.hiveId("3630")))).isEqualTo(25.6);
+	}
+
+	private void assertReparsed(SensorSeries expected, long offset) throws IOException {
+		flip(snapshot(), offset);
+		int before = parses;
+		assertSameRows(load(CSV), expected);
+		assertThat(parses).as("parses after flipping byte %d", offset).isEqualTo(before + 1);
+		load(CSV);
+		assertThat(parses).as("rewritten snapshot is used").isEqualTo(before + 1);
+	}
+
+	private SensorSeries load(String csv) throws IOException {
+		BinarySnapshots snapshots = new BinarySnapshots(dir.toString(), true);
+		return snapshots.load("sensor-test", ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)),
+				SnapshotCodecs.SENSOR, bytes -> {
+					parses++;
+					return SensorCsvReader.read(bytes);
+				});
+	}
+
+	private Path snapshot() {
+		return dir.resolve("sensor-test.snap");
+	}
+
+	private static void flip(Path file, long offset) throws IOException {
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[(int) offset] ^= 0x10;
+		Files.write(file, bytes);
+	}
+
+	private static void assertSameRows(SensorSeries actual, SensorSeries expected) {
+		assertThat(actual.hiveTags()).isEqualTo(expected.hiveTags());
+		assertThat(actual.size()).isEqualTo(expected.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertThat(actual.hiveIdAt(i)).isEqualTo(expected.hiveIdAt(i));
+			assertThat(actual.epochSecond(i)).isEqualTo(expected.epochSecond(i));
+			assertThat(Double.doubleToRawLongBits(actual.temperature(i)))
+					.isEqualTo(Double.doubleToRawLongBits(expected.temperature(i)));
+			assertThat(Double.doubleToRawLongBits(actual.humidity(i)))
+					.isEqualTo(Double.doubleToRawLongBits(expected.humidity(i)));
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GorillaBlockTest {
+
+	@Test
+	void equalTimestampsAndEveryDeltaOfDeltaBucket() {
+		long[] times = new long[] { 1_600_000_000L, 1_600_000_000L, 1_600_000_000L, 1_600_000_900L, 1_600_001_800L,
+				1_600_002_764L, 1_600_003_664L, 1_600_004_820L, 1_600_005_465L, 1_600_008_413L, 1_600_008_413L,
+				// Gaps of years and back to zero, beyond the 12-bit bucket
+				1_700_000_000L, 1_700_000_000L, 4_000_000_000L, 4_000_000_001L };
+		double[][] values = new double[times.length][];
+		for (int i = 0; i < times.length; i++) {
+			values[i] = new double[] { 20 + i * 0.25, 60 - i };
+		}
+		assertRoundTrip(times, values);
+	}
+
+	@Test
+	void bucketBoundaries() {
+		// Deltas of delta of -63, 64, -255, 256, -2047, 2048 and just beyond each
+		long[] dods = { 0, -63, 64, -64, 65, -255, 256, -256, 257, -2047, 2048, -2048, 2049 };
+		long[] times = new long[dods.length + 2];
+		times[0] = 1_000_000;
+		long delta = 10_000;
+		times[1] = times[0] + delta;
+		for (int i = 0; i < dods.length; i++) {
+			delta += dods[i];
+			times[i + 2] = times[i + 1] + delta;
+		}
+		double[][] values = new double[times.length][];
+		for (int i = 0; i < times.length; i++) {
+			values[i] = new double[] { i };
+		}
+		assertRoundTrip(times, values);
+	}
+
+	@Test
+	void specialValuesKeepTheirBits() {
+		double otherNaN = Double.longBitsToDouble(0x7ff8_0000_dead_beefL);
+		double[] special = { 0.0, -0.0, 0.0, Double.NaN, otherNaN, Double.NaN, Double.POSITIVE_INFINITY,
+				Double.NEGATIVE_INFINITY, Double.MIN_VALUE, -Double.MAX_VALUE, 34.5, 34.5, -0.0 };
+		long[] times = new long[special.length];
+		double[][] values = new double[special.length][];
+		for (int i = 0; i < special.length; i++) {
+			times[i] = 1_600_000_000L + 900L * i;
+			values[i] = new double[] { special[i], special[special.length - 1 - i] };
+		}
+		assertRoundTrip(times, values);
+	}
+
+	@Test
+	void oneSampleBlock() {
+		assertRoundTrip(new long[] { 1_622_505_600L }, new double[][] { { -0.0, Double.NaN, 25.8 } });
+	}
+
+	@Test
+	void seekSkipsEarlierRows() {
+		GorillaBlock.Encoder encoder = new GorillaBlock.Encoder(1);
+		for (int i = 0; i < 100; i++) {
+			encoder.add(1000L + 60 * i, new double[] { i });
+		}
+		GorillaBlock.Decoder decoder = encoder.build().decoder();
+		assertThat(decoder.seek(1000L + 60 * 41 + 1)).isTrue();
+		assertThat(decoder.value(0)).isEqualTo(42);
+		assertThat(decoder.seek(1_000_000)).isFalse();
+	}
+
+	/**
+	 * Decode the heap block and its bits written out and wrapped again, as a segment file
+	 * maps them, and compare the raw bits of every value.
+	 */
+	private static void assertRoundTrip(long[] times, double[][] values) {
+		GorillaBlock.Encoder encoder = new GorillaBlock.Encoder(values[0].length);
+		for (int i = 0; i < times.length; i++) {
+			encoder.add(times[i], values[i]);
+		}
+		GorillaBlock block = encoder.build();
+		assertThat(block.rows()).isEqualTo(times.length);
+		assertThat(block.firstTime()).isEqualTo(times[0]);
+		assertThat(block.lastTime()).isEqualTo(times[times.length - 1]);
+		assertDecodes(block, times, values);
+		assertDecodes(rewrap(block), times, values);
+	}
+
+	private static void assertDecodes(GorillaBlock block, long[] times, double[][] values) {
+		GorillaBlock.Decoder decoder = block.decoder();
+		for (int i = 0; i < times.length; i++) {
+			assertThat(decoder.next()).as("row %d", i).isTrue();
+			assertThat(decoder.epochSecond()).as("time of row %d", i).isEqualTo(times[i]);
+			for (int c = 0; c < values[i].length; c++) {
+				assertThat(Double.doubleToRawLongBits(decoder.value(c))).as("column %d of row %d", c, i)
+						.isEqualTo(Double.doubleToRawLongBits(values[i][c]));
+			}
+		}
+		assertThat(decoder.next()).isFalse();
+	}
+
+	private static GorillaBlock rewrap(GorillaBlock block) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeLong(-1);
+			block.writeTo(out);
+			ByteBuffer buf = ByteBuffer.allocateDirect(bytes.size()).put(bytes.toByteArray()).flip();
+			return GorillaBlock.wrap(block.firstTime(), block.lastTime(), block.rows(), block.columns(),
+					buf.slice(8, 8 * block.words()).asLongBuffer());
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+}
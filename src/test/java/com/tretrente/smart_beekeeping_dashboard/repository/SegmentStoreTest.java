@@ -0,0 +1,141 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentStoreTest {
+
+	private static final long DAY = 86_400;
+	private static final long START = 1_893_456_000L;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void tornLogTailIsDroppedOnRecovery() throws IOException {
+		SegmentStore store = open(1 << 20, 8);
+		store.append(batch("A", 0));
+		store.append(batch("A", 1));
+		store.append(batch("B", 2));
+		store.close();
+
+		// The last record lost its end: it was never acknowledged
+		Path wal = dir.resolve("wal-1.log");
+		try (FileChannel channel = FileChannel.open(wal, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 5);
+		}
+
+		store = open(1 << 20, 8);
+		assertThat(store.readings()).isEqualTo(20);
+		SensorSeries recovered = store.query(Long.MIN_VALUE, Long.MAX_VALUE);
+		assertThat(recovered.hiveTags()).containsExactly("A");
+		assertThat(recovered.size()).isEqualTo(20);
+
+		// New records follow the last valid one
+		store.append(batch("C", 3));
+		store.close();
+		store = open(1 << 20, 8);
+		assertThat(store.readings()).isEqualTo(30);
+		assertThat(store.query(Long.MIN_VALUE, Long.MAX_VALUE).hiveTags()).containsExactly("A", "C");
+		store.close();
+	}
+
+	@Test
+	void logLeftBehindByCompactionIsNotReplayedTwice() throws IOException {
+		SegmentStore store = open(1 << 20, 8);
+		store.append(batch("A", 0));
+		store.append(batch("B", 1));
+		store.close();
+		Path wal = dir.resolve("wal-1.log");
+		byte[] log = Files.readAllBytes(wal);
+
+		// The restart compacts the log into a segment and deletes it
+		store = open(1 << 20, 8);
+		SegmentStore compacting = store;
+		await(() -> compacting.segmentCount() == 1 && compacting.logCount() == 1);
+		store.close();
+		assertThat(dir.resolve("segment-1-1.seg")).exists();
+		assertThat(wal).doesNotExist();
+
+		// As if the process had stopped between writing the segment and deleting the log
+		Files.write(wal, log);
+		store = open(1 << 20, 8);
+		assertThat(wal).doesNotExist();
+		assertThat(store.readings()).isEqualTo(20);
+		SensorSeries all = store.query(Long.MIN_VALUE, Long.MAX_VALUE);
+		assertThat(all.size()).isEqualTo(20);
+		assertThat(all.hiveTags()).containsExactly("A", "B");
+		store.close();
+	}
+
+	@Test
+	void segmentsCoveredByAMergeAreDeleted() throws IOException {
+		// Every commit rolls the log, every compaction leaves one segment
+		SegmentStore store = open(1, 1);
+		store.append(batch("B", 0));
+		SegmentStore first = store;
+		await(() -> first.segmentCount() == 1 && first.logCount() == 1);
+		Path covered = dir.resolve("segment-1-1.seg");
+		byte[] segment = Files.readAllBytes(covered);
+
+		store.append(batch("A", 1));
+		Path merged = dir.resolve("segment-1-2.seg");
+		await(() -> Files.exists(merged) && first.segmentCount() == 1 && first.logCount() == 1);
+		store.close();
+		assertThat(covered).doesNotExist();
+
+		// As if the process had stopped before deleting the inputs of the merge
+		Files.write(covered, segment);
+		store = open(1, 1);
+		assertThat(covered).doesNotExist();
+		assertThat(store.segmentCount()).isEqualTo(1);
+		assertThat(store.readings()).isEqualTo(20);
+		SensorSeries all = store.query(Long.MIN_VALUE, Long.MAX_VALUE);
+		assertThat(all.hiveTags()).containsExactly("A", "B");
+		assertThat(all.size()).isEqualTo(20);
+		int b = all.hiveId("B");
+		assertThat(all.epochSecond(all.hiveStart(b))).isEqualTo(START);
+		assertThat(all.temperature(all.hiveStart(b) + 3)).isEqualTo(30 + 3 * 0.1);
+
+		// Only the blocks overlapping the range are read
+		SensorSeries day = store.query(START + DAY, START + 2 * DAY - 1);
+		assertThat(day.hiveTags()).containsExactly("A");
+		assertThat(day.size()).isEqualTo(10);
+		store.close();
+	}
+
+	private SegmentStore open(long walMaxBytes, int maxSegments) {
+		return new SegmentStore(dir.toString(), true, walMaxBytes, maxSegments);
+	}
+
+	/** Ten readings of one hive, an hour apart, starting {@code day} days after START. */
+	private static SensorSeries batch(String tag, int day) {
+		SensorSeries.Builder batch = new SensorSeries.Builder(10);
+		for (int i = 0; i < 10; i++) {
+			batch.add(tag, START + day * DAY + i * 3600L, 30 + i * 0.1, 50 + i);
+		}
+		return batch.build();
+	}
+
+	private static void await(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + 10_000_000_000L;
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("background compaction").isLessThan(deadline);
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The byte-level parser must return exactly what the commons-csv baseline
+ * ({@link SensorCsvReader#readGeneric}) returns, bit for bit.
+ */
+class SensorCsvReaderTest {
+
+	private static final String HEADER = "Date,Tag number,temperature,humidity";
+	private static final DateTimeFormatter LOCAL = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	@Test
+	void signsZeroesAndLeadingZeros() throws IOException {
+		assertParity(HEADER + "\n"
+				+ "2021-06-19 00:04:58+00:00,3629,-12.5,35.45\n"
+				+ "2021-06-19 00:19:58+00:00,3629,-0,-0.0\n"
+				+ "2021-06-19 00:34:58+00:00,3629,007.50,0035\n"
+				+ "2021-06-19 00:49:58+00:00,3629,-000.25,+3.25\n"
+				+ "2021-06-19 01:04:58+00:00,3629,.5,5.\n"
+				+ "2021-06-19 01:19:58+00:00,3629,0.1,99.99\n"
+				// More digits than the exact fast path handles
+				+ "2021-06-19 01:34:58+00:00,3629,23.1234567890123456,1e2\n");
+	}
+
+	@Test
+	void utcDesignatorAndOffsets() throws IOException {
+		assertParity(HEADER + "\n"
+				+ "2021-06-19 00:04:58Z,3629,26.24,35.45\n"
+				+ "2021-06-19 02:04:58+02:00,3629,26.01,35.92\n"
+				+ "2021-06-18 18:34:58-05:30,3629,25.8,36.1\n"
+				+ "2021-06-19 00:04:58-00:00,3630,24.0,40.0\n"
+				// Crosses midnight and a leap day once the offset is applied
+				+ "2024-03-01 00:30:00+01:00,3630,24.5,41.0\n"
+				+ "2024-02-29 23:30:00-14:00,3630,24.6,41.5\n");
+	}
+
+	@Test
+	void quotedTagsAndValues() throws IOException {
+		assertParity(HEADER + "\n"
+				+ "2021-06-19 00:04:58+00:00,\"3629\",26.24,35.45\n"
+				+ "\"2021-06-19 00:19:58+00:00\",\"3629\",\"26.01\",\"35.92\"\n"
+				+ "2021-06-19 00:04:58+00:00,\"A-12\",20.0,50.0\n"
+				+ "2021-06-19 00:19:58+00:00,\"A-12\", 21.0 ,51.0\n");
+	}
+
+	@Test
+	void crlfAndMissingFinalNewline() throws IOException {
+		assertParity(HEADER + "\r\n"
+				+ "2021-06-19 00:04:58+00:00,3629,26.24,35.45\r\n"
+				+ "2021-06-19 00:19:58+00:00,3629,26.01,35.92\r\n"
+				+ "2021-06-19 00:34:58+00:00,3630,25.5,36.0");
+		assertParity(HEADER + "\n"
+				+ "2021-06-19 00:04:58+00:00,3629,26.24,35.45\n"
+				+ "2021-06-19 00:19:58+00:00,3629,26.01,35.92");
+	}
+
+	@Test
+	void chunksCutMidLineAreRealignedOnNewlines() throws IOException {
+		// Lines of different lengths, so the even cut targets fall inside lines
+		StringBuilder csv = new StringBuilder(HEADER).append("\r\n");
+		long epoch = 1_624_060_800L;
+		int lines = 0;
+		while (csv.length() < 3 * CsvChunks.MIN_CHUNK_BYTES + 12_345) {
+			String tag = lines % 3 == 0 ? "\"" + (3600 + lines % 7) + "\"" : Integer.toString(3600 + lines % 7);
+			String offset = lines % 2 == 0 ? "Z" : "+01:00";
+			long local = epoch + 900L * lines + (lines % 2 == 0 ? 0 : 3600);
+			csv.append(LOCAL.format(LocalDateTime.ofEpochSecond(local, 0, ZoneOffset.UTC)))
+					.append(offset).append(',').append(tag).append(',')
+					.append(lines % 5 == 0 ? "-" : "").append(lines % 400 / 10.0).append(',')
+					.append(lines % 11 == 0 ? "0" : "").append(30 + lines % 70)
+					.append("\r\n");
+			lines++;
+		}
+		csv.setLength(csv.length() - 2); // no final newline
+		ByteBuffer buf = ByteBuffer.wrap(csv.toString().getBytes(StandardCharsets.UTF_8));
+
+		int start = HEADER.length() + 2;
+		int[] bounds = CsvChunks.split(buf, start, buf.limit(), 4);
+		assertThat(bounds).hasSize(4);
+		assertThat(bounds[0]).isEqualTo(start);
+		assertThat(bounds[bounds.length - 1]).isEqualTo(buf.limit());
+		for (int i = 1; i < bounds.length - 1; i++) {
+			assertThat(buf.get(bounds[i] - 1)).as("byte before boundary %d", i).isEqualTo((byte) '\n');
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			SensorCsvReader parallel = SensorCsvReader.parallel(buf, pool);
+			assertThat(parallel.errorCount()).isZero();
+			assertThat(parallel.lineCount()).isEqualTo(lines + 1);
+			SensorSeries expected = SensorCsvReader.readGeneric(new StringReader(csv.toString()));
+			assertThat(expected.size()).isEqualTo(lines);
+			assertSameRows(parallel.build(), expected);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static void assertParity(String csv) throws IOException {
+		SensorCsvReader reader = new SensorCsvReader(16);
+		assertThat(reader.parse(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)))).isTrue();
+		assertThat(reader.errors()).isEmpty();
+		assertSameRows(reader.build(), SensorCsvReader.readGeneric(new StringReader(csv)));
+	}
+
+	private static void assertSameRows(SensorSeries actual, SensorSeries expected) {
+		assertThat(actual.hiveTags()).isEqualTo(expected.hiveTags());
+		assertThat(actual.size()).isEqualTo(expected.size());
+		for (int h = 0; h < expected.hiveCount(); h++) {
+			assertThat(actual.hiveStart(h)).isEqualTo(expected.hiveStart(h));
+		}
+		for (int i = 0; i < expected.size(); i++) {
+			assertThat(actual.epochSecond(i)).as("time of row %d", i).isEqualTo(expected.epochSecond(i));
+			assertThat(Double.doubleToRawLongBits(actual.temperature(i))).as("temperature of row %d", i)
+					.isEqualTo(Double.doubleToRawLongBits(expected.temperature(i)));
+			assertThat(Double.doubleToRawLongBits(actual.humidity(i))).as("humidity of row %d", i)
+					.isEqualTo(Double.doubleToRawLongBits(expected.humidity(i)));
+		}
+	}
+}
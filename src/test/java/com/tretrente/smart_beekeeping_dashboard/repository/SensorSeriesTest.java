@@ -0,0 +1,52 @@
+package com.tretrente.smart_beekeeping_dashboard.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SensorSeriesTest {
+
+	@Test
+	void buildSortsEachHiveByTimeOverAnySpan() {
+		long century = 100L * 365 * 86_400;
+		SensorSeries.Builder builder = new SensorSeries.Builder();
+		builder.add("B", 2 * century, 3, 0);
+		builder.add("A", 0, 1, 0);
+		builder.add("B", -century, 1, 0);
+		builder.add("B", 0, 2, 0);
+		builder.add("B", 0, 2.5, 0);
+		SensorSeries series = builder.build();
+
+		assertThat(series.hiveTags()).containsExactly("A", "B");
+		int b = series.hiveId("B");
+		assertThat(series.hiveEnd(b) - series.hiveStart(b)).isEqualTo(4);
+		int row = series.hiveStart(b);
+		assertThat(series.epochSecond(row)).isEqualTo(-century);
+		assertThat(series.epochSecond(row + 3)).isEqualTo(2 * century);
+		// Equal timestamps keep their insertion order
+		assertThat(series.temperature(row + 1)).isEqualTo(2);
+		assertThat(series.temperature(row + 2)).isEqualTo(2.5);
+	}
+
+	@Test
+	void hiveOfEveryRowFollowsFromTheOffsets() {
+		SensorSeries.Builder builder = new SensorSeries.Builder();
+		for (String tag : new String[] { "C", "A", "B" }) {
+			for (int i = 0; i < 3; i++) {
+				builder.add(tag, 1_000L * i, i, 0);
+			}
+		}
+		builder.add("D", 0, 0, 0);
+		SensorSeries series = builder.build();
+
+		SensorCursor c = series.cursor();
+		int row = 0;
+		while (c.next()) {
+			String expected = row < 9 ? String.valueOf((char) ('A' + row / 3)) : "D";
+			assertThat(series.hiveTag(series.hiveIdAt(row))).isEqualTo(expected);
+			assertThat(c.tagNumber()).isEqualTo(expected);
+			row++;
+		}
+		assertThat(row).isEqualTo(10);
+	}
+}
@@ -0,0 +1,108 @@
+package com.tretrente.smart_beekeeping_dashboard.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnomalyDetectorTest {
+
+	private static final long STEP = 900;
+	private static final long HOUR = 3600;
+	private static final long DAY = 86_400;
+	private static final long START = 1_624_060_800L;
+
+	// Fast window 1 h, baseline and warm-up 24 h, 3 standard deviations, 2 °C/h, 10 %/h
+	private final AnomalyDetector detector = new AnomalyDetector(HOUR, DAY, 3, 2, 10, 0.5, 2);
+	private final AnomalyDetector.State state = new AnomalyDetector.State();
+	private final List<String> alerts = new ArrayList<>();
+	private long time = START;
+
+	@Test
+	void noAlertDuringWarmUp() {
+		steady(12 * HOUR);
+		hold(40, 2 * HOUR);
+		assertThat(alerts).isEmpty();
+
+		// The same spike once the baseline has a full window behind it
+		steady(2 * DAY);
+		hold(40, 2 * HOUR);
+		assertThat(alerts).contains("temperature high", "temperature rise");
+	}
+
+	@Test
+	void crossingTheThresholdInEitherDirection() {
+		steady(2 * DAY);
+		assertThat(alerts).isEmpty();
+
+		hold(40, HOUR);
+		assertThat(alerts).containsExactly("temperature high", "temperature rise");
+		assertThat(alerts).doesNotContain("humidity high", "humidity low");
+
+		alerts.clear();
+		steady(2 * DAY);
+		hold(20, HOUR);
+		assertThat(alerts).contains("temperature low", "temperature fall");
+		assertThat(alerts).allMatch(a -> a.startsWith("temperature "));
+	}
+
+	@Test
+	void smallDeviationsStayQuiet() {
+		steady(2 * DAY);
+		// 1 °C above a baseline whose deviation is floored at 0.5 °C: two deviations, under three
+		hold(31, 6 * HOUR);
+		assertThat(alerts).isEmpty();
+	}
+
+	@Test
+	void oneAlertPerEpisode() {
+		steady(2 * DAY);
+		hold(40, 6 * HOUR);
+		assertThat(alerts).containsExactly("temperature high", "temperature rise");
+
+		// Back to normal: the alerts close at once, but the baseline variance needs a few
+		// windows to forget the episode before the same deviation stands out again
+		alerts.clear();
+		steady(5 * DAY);
+		assertThat(alerts).containsExactly("temperature fall");
+		alerts.clear();
+		hold(40, 6 * HOUR);
+		assertThat(alerts).containsExactly("temperature high", "temperature rise");
+	}
+
+	@Test
+	void staleReadingsAreSkippedAndGapsRestartTheWarmUp() {
+		steady(2 * DAY);
+		long last = state.last();
+		assertThat(detector.update(state, last, 40, 50, this::record)).isFalse();
+		assertThat(detector.update(state, last - HOUR, 40, 50, this::record)).isFalse();
+		assertThat(state.last()).isEqualTo(last);
+
+		// After a gap longer than the baseline window the hive is warming up again
+		time += 2 * DAY;
+		hold(30, 12 * HOUR);
+		hold(40, 2 * HOUR);
+		assertThat(alerts).isEmpty();
+	}
+
+	/** 30 °C and 50 % with a little noise, one reading every STEP. */
+	private void steady(long duration) {
+		for (long end = time + duration; time < end; time += STEP) {
+			boolean odd = (time / STEP) % 2 == 1;
+			detector.update(state, time, odd ? 30.1 : 29.9, odd ? 50.5 : 49.5, this::record);
+		}
+	}
+
+	private void hold(double temperature, long duration) {
+		for (long end = time + duration; time < end; time += STEP) {
+			boolean odd = (time / STEP) % 2 == 1;
+			detector.update(state, time, temperature, odd ? 50.5 : 49.5, this::record);
+		}
+	}
+
+	private void record(long epochSecond, String metric, String kind, double value, double baseline, double score) {
+		alerts.add(metric + " " + kind);
+	}
+}
@@ -0,0 +1,117 @@
+package com.tretrente.smart_beekeeping_dashboard.service;
+
+import com.tretrente.smart_beekeeping_dashboard.model.Resolution;
+import com.tretrente.smart_beekeeping_dashboard.model.Rollup;
+import com.tretrente.smart_beekeeping_dashboard.model.RollupSeries;
+import com.tretrente.smart_beekeeping_dashboard.repository.BinarySnapshots;
+import com.tretrente.smart_beekeeping_dashboard.repository.DatasetCatalog;
+import com.tretrente.smart_beekeeping_dashboard.repository.SegmentStore;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorRepository;
+import com.tretrente.smart_beekeeping_dashboard.repository.SensorSeries;
+import com.tretrente.smart_beekeeping_dashboard.repository.WeatherRepository;
+import com.tretrente.smart_beekeeping_dashboard.util.EpochTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollupServiceTest {
+
+	private static final String CSV = "Date,Tag number,temperature,humidity\n"
+			+ "2021-06-19 00:04:58+00:00,3629,26.24,35.45\n"
+			+ "2021-06-19 00:19:58+00:00,3629,26.01,35.92\n"
+			+ "2021-06-20 00:04:58+00:00,3629,25.5,36.0\n";
+
+	@TempDir
+	Path dir;
+
+	private ForkJoinPool pool;
+	private SegmentStore storage;
+	private SensorRepository sensorRepo;
+	private RollupService rollups;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		Files.createDirectories(dir.resolve("data/urban"));
+		Files.writeString(dir.resolve("data/urban/sensor_2021.csv"), CSV);
+		DatasetCatalog catalog = new DatasetCatalog(dir.resolve("data").toString(), "");
+		BinarySnapshots snapshots = new BinarySnapshots(dir.resolve("snapshots").toString(), false);
+		pool = new ForkJoinPool(2);
+		storage = new SegmentStore(dir.resolve("segments").toString(), true, 1 << 20, 8);
+		sensorRepo = new SensorRepository(catalog, pool, snapshots, storage, 1024, 16);
+		rollups = new RollupService(new WeatherRepository(catalog, pool, snapshots), sensorRepo);
+	}
+
+	@AfterEach
+	void tearDown() {
+		storage.close();
+		pool.shutdown();
+	}
+
+	@Test
+	void uncataloguedYearsAreRolledUpApart() {
+		sensorRepo.append(readings(2023, 3));
+		sensorRepo.append(readings(2024, 5));
+
+		// Both years fall back on the same empty base snapshot, at the same versions
+		assertThat(sensorRepo.version(null, year(2023), endOf(2023)))
+				.isEqualTo(sensorRepo.version(null, year(2024), endOf(2024)));
+		assertThat(sensorRepo.snapshot(null, year(2023), endOf(2023)).getName())
+				.isNotEqualTo(sensorRepo.snapshot(null, year(2024), endOf(2024)).getName());
+
+		for (int i = 0; i < 2; i++) {
+			assertRollup(2023, 3);
+			assertRollup(2024, 5);
+		}
+		assertThat(sensorRepo.countBetween(null, year(2023), endOf(2024))).isEqualTo(8);
+	}
+
+	@Test
+	void ingestedReadingsJoinTheHistoricalYear() {
+		sensorRepo.append(readings(2021, 2));
+		assertRollup(2021, 5);
+		assertThat(sensorRepo.countBetween(null, year(2021), endOf(2021))).isEqualTo(5);
+		assertThat(sensorRepo.snapshot(null, year(2021), endOf(2021)).getVersion())
+				.isEqualTo(sensorRepo.version(null, year(2021), endOf(2021)));
+	}
+
+	/** Every reading of the year, in 1-week buckets lying within that year only. */
+	private void assertRollup(int year, int readings) {
+		Rollup rollup = rollups.sensorRollup(null, year(year), endOf(year), null, Resolution.fromCode("1w"), null);
+		assertThat(rollup.getSeries()).hasSize(1);
+		RollupSeries series = rollup.getSeries().get(0);
+		int count = 0;
+		for (int i = 0; i < series.size(); i++) {
+			LocalDateTime bucket = EpochTime.toLocalDateTime(series.bucketStart(i));
+			assertThat(bucket.getYear()).as("bucket %s of %d", bucket, year).isBetween(year - 1, year);
+			count += series.count(i);
+		}
+		assertThat(count).as("readings of %d", year).isEqualTo(readings);
+	}
+
+	/** Readings of hive 3629, a day apart from June 1st. */
+	private static SensorSeries readings(int year, int count) {
+		SensorSeries.Builder batch = new SensorSeries.Builder(count);
+		long start = EpochTime.toEpochSecond(LocalDateTime.of(year, 6, 1, 12, 0));
+		for (int i = 0; i < count; i++) {
+			batch.add("3629", start + i * 86_400L, 30 + i, 50);
+		}
+		return batch.build();
+	}
+
+	private static LocalDateTime year(int year) {
+		return LocalDateTime.of(year, 1, 1, 0, 0);
+	}
+
+	private static LocalDateTime endOf(int year) {
+		return LocalDateTime.of(year, 12, 31, 23, 59, 59);
+	}
+}
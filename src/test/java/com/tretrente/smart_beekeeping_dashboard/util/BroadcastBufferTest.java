@@ -0,0 +1,25 @@
+package com.tretrente.smart_beekeeping_dashboard.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BroadcastBufferTest {
+
+	@Test
+	void readsOnlyPublishedMessagesStillHeld() {
+		BroadcastBuffer<String> buffer = new BroadcastBuffer<>(4);
+		for (int i = 0; i < 6; i++) {
+			buffer.publish("m" + i);
+		}
+		assertThat(buffer.head()).isEqualTo(6);
+		assertThat(buffer.oldest()).isEqualTo(2);
+		assertThat(buffer.read(2, 6)).containsExactly("m2", "m3", "m4", "m5");
+		assertThat(buffer.read(6, 6)).isEmpty();
+		// Overwritten, negative, reversed or not yet published
+		assertThat(buffer.read(1, 6)).isNull();
+		assertThat(buffer.read(-3, 2)).isNull();
+		assertThat(buffer.read(5, 4)).isNull();
+		assertThat(buffer.read(5, 7)).isNull();
+	}
+}
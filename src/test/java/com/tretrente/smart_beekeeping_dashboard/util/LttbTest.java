@@ -0,0 +1,41 @@
+package com.tretrente.smart_beekeeping_dashboard.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LttbTest {
+
+	private static final double[] Y = { 1, 5, 2, 8, 3, 3, 9, 1, 4, 2 };
+
+	@Test
+	void fewerThanThreePointsKeepTheEnds() {
+		assertThat(downsample(1)).containsExactly(0);
+		assertThat(downsample(2)).containsExactly(0, Y.length - 1);
+	}
+
+	@Test
+	void nonPositiveThresholdIsRejected() {
+		assertThatThrownBy(() -> downsample(0)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> downsample(-5)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void keepsTheEndsAndThePeaks() {
+		assertThat(downsample(Y.length)).hasSize(Y.length);
+		int[] kept = downsample(4);
+		assertThat(kept).hasSize(4).startsWith(0).endsWith(Y.length - 1).isSorted();
+		assertThat(kept).contains(3, 6);
+	}
+
+	@Test
+	void smallInputsAreReturnedWhole() {
+		assertThat(Lttb.downsample(0, i -> i, i -> 0, 1)).isEmpty();
+		assertThat(Lttb.downsample(1, i -> i, i -> 0, 2)).containsExactly(0);
+	}
+
+	private static int[] downsample(int threshold) {
+		return Lttb.downsample(Y.length, i -> i * 60L, i -> Y[i], threshold);
+	}
+}
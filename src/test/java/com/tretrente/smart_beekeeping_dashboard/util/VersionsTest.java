@@ -0,0 +1,33 @@
+package com.tretrente.smart_beekeeping_dashboard.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VersionsTest {
+
+	@Test
+	void statesWithEqualSumsOrSwappedSourcesDiffer() {
+		assertThat(Versions.combine(1, 3)).isNotEqualTo(Versions.combine(2, 2));
+		assertThat(Versions.combine(1, 2)).isNotEqualTo(Versions.combine(2, 1));
+		assertThat(Versions.combine(5)).isNotEqualTo(Versions.combine(5, 0));
+		assertThat(Versions.combine(7, 9)).isEqualTo(Versions.combine(7, 9));
+	}
+
+	@Test
+	void smallVersionTuplesDoNotCollide() {
+		Set<Long> seen = new HashSet<>();
+		for (long a = 0; a < 64; a++) {
+			for (long b = 0; b < 64; b++) {
+				for (long c = 0; c < 16; c++) {
+					long v = Versions.combine(a, b, c);
+					assertThat(v).isNotZero();
+					assertThat(seen.add(v)).as("(%d, %d, %d)", a, b, c).isTrue();
+				}
+			}
+		}
+	}
+}